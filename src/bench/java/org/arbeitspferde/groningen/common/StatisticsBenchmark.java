@@ -0,0 +1,78 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+import com.google.common.primitives.Doubles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Statistics#computePercentile} over as many pause times as subjects record
+ * during short and long experiments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+  @Param({"1000", "100000", "10000000"})
+  public int size;
+
+  private double[] values;
+  private List<Double> boxedValues;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    final Random random = new Random(42);
+    values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = 0.001 + Math.abs(random.nextGaussian()) * 0.02;
+    }
+    boxedValues = Doubles.asList(values);
+  }
+
+  @Benchmark
+  public double computePercentile() {
+    return Statistics.computePercentile(values, 99);
+  }
+
+  @Benchmark
+  public double computePercentileOfList() {
+    return Statistics.computePercentile(boxedValues, 99);
+  }
+
+  @Benchmark
+  public double[] computePercentiles() {
+    return Statistics.computePercentiles(values, 50, 90, 99, 99.9);
+  }
+}
@@ -0,0 +1,92 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommandLine#toArgumentString}, which runs for every subject of every
+ * generation, for command lines of each of the collectors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLineBenchmark {
+  private CommandLine concMarkSweep;
+  private CommandLine parallel;
+
+  @Setup(Level.Trial)
+  public void createCommandLines() {
+    concMarkSweep = new CommandLine(commonFlags()
+        .withValue(JvmFlag.USE_CONC_MARK_SWEEP_GC, 1L)
+        .withValue(JvmFlag.CMS_EXP_AVG_FACTOR, 3L)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, 90L)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, 3L)
+        .withValue(JvmFlag.CMS_INCREMENTAL_OFFSET, 2L)
+        .withValue(JvmFlag.CMS_INCREMENTAL_SAFETY_FACTOR, 12L)
+        .withValue(JvmFlag.CMS_INITIATING_OCCUPANCY_FRACTION, 70L)
+        .withValue(JvmFlag.USE_CMS_INITIATING_OCCUPANCY_ONLY, 1L)
+        .build());
+    parallel = new CommandLine(commonFlags()
+        .withValue(JvmFlag.USE_PARALLEL_GC, 1L)
+        .withValue(JvmFlag.USE_PARALLEL_OLD_GC, 1L)
+        .withValue(JvmFlag.ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR, 2L)
+        .withValue(JvmFlag.GC_TIME_RATIO, 21L)
+        .withValue(JvmFlag.MAX_GC_PAUSE_MILLIS, 200L)
+        .withValue(JvmFlag.YOUNG_GENERATION_SIZE_INCREMENT, 20L)
+        .withValue(JvmFlag.TENURED_GENERATION_SIZE_INCREMENT, 20L)
+        .build());
+  }
+
+  private static JvmFlagSet.Builder commonFlags() {
+    return JvmFlagSet.builder()
+        .withValue(JvmFlag.HEAP_SIZE, 4096L)
+        .withValue(JvmFlag.MAX_HEAP_FREE_RATIO, 70L)
+        .withValue(JvmFlag.MIN_HEAP_FREE_RATIO, 40L)
+        .withValue(JvmFlag.NEW_SIZE, 512L)
+        .withValue(JvmFlag.MAX_NEW_SIZE, 1024L)
+        .withValue(JvmFlag.PARALLEL_GC_THREADS, 8L)
+        .withValue(JvmFlag.SURVIVOR_RATIO, 8L)
+        .withValue(JvmFlag.SOFT_REF_LRU_POLICY_MS_PER_MB, 1000L);
+  }
+
+  @Benchmark
+  public String concMarkSweep() {
+    return concMarkSweep.toArgumentString();
+  }
+
+  @Benchmark
+  public String parallel() {
+    return parallel.toArgumentString();
+  }
+}
@@ -0,0 +1,98 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.config.StubConfigManager;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.subject.ServingAddressGenerator;
+import org.arbeitspferde.groningen.subject.Subject;
+import org.arbeitspferde.groningen.subject.SubjectGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures {@link FitnessScore#compute} for a subject that recorded the given number of pauses,
+ * with the percentiles and weights of a typical latency-oriented experiment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnessScoreBenchmark {
+  @Param({"1000", "1000000"})
+  public int pauses;
+
+  /** Held such that the level set on it is not lost to garbage collection */
+  private static final Logger fitnessScoreLog =
+      Logger.getLogger(FitnessScore.class.getCanonicalName());
+
+  private SubjectStateBridge bridge;
+  private GroningenConfig config;
+
+  @Setup(Level.Trial)
+  public void recordPauses() {
+    // FitnessScore logs every term; the benchmark is about computing them.
+    fitnessScoreLog.setLevel(java.util.logging.Level.WARNING);
+
+    config = new StubConfigManager.StubConfig() {{
+      paramBlock = GroningenParams.newBuilder()
+          .setLatencyWeight(1.0)
+          .setThroughputWeight(0.5)
+          .setMemoryWeight(0.1)
+          .addPauseTimeLatencyScorePercentiles(50)
+          .addPauseTimeLatencyScorePercentiles(99)
+          .addPauseTimeLatencyScorePercentiles(99.9)
+          .buildPartial();
+    }};
+
+    final ServingAddressGenerator addresses = new ServingAddressGenerator() {
+      @Override
+      public String addressFor(final SubjectGroup group, final int index) {
+        return "localhost";
+      }
+    };
+    final SubjectGroup group = new SubjectGroup("cluster", "group", "user", null, addresses);
+    bridge = new ExperimentDb().makeSubject();
+    bridge.setAssociatedSubject(new Subject(group, "/tmp/settings", 0, addresses));
+
+    final Random random = new Random(42);
+    for (int i = 0; i < pauses; i++) {
+      bridge.getPauseTime().incrementPauseTime(0.001 + Math.abs(random.nextGaussian()) * 0.02);
+    }
+  }
+
+  @Benchmark
+  public double compute() {
+    return FitnessScore.compute(bridge, config);
+  }
+}
@@ -0,0 +1,92 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PauseTime#incrementPauseTime} while several extraction threads record pauses
+ * into the same subject, as the Extractor and the ExtractionScheduler's parse pool do.
+ *
+ * The recorded pauses are kept in memory, so the pause time is replaced every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+public class PauseTimeBenchmark {
+  private PauseTime pauseTime;
+
+  /** Pauses to record, such that each thread draws from a realistic spread of values */
+  @State(Scope.Thread)
+  public static class Pauses {
+    private static final int COUNT = 4096;
+
+    private final double[] seconds = new double[COUNT];
+    private int next = 0;
+    private double uptime = 0.0;
+
+    @Setup(Level.Trial)
+    public void generate() {
+      final Random random = new Random(Thread.currentThread().getId());
+      for (int i = 0; i < COUNT; i++) {
+        seconds[i] = 0.001 + Math.abs(random.nextGaussian()) * 0.02;
+      }
+    }
+
+    double next() {
+      next = (next + 1) & (COUNT - 1);
+      return seconds[next];
+    }
+
+    double nextTimestamp() {
+      uptime += 0.25;
+      return uptime;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void createPauseTime() {
+    pauseTime = new PauseTime();
+  }
+
+  @Benchmark
+  public void incrementPauseTime(final Pauses pauses) {
+    pauseTime.incrementPauseTime(pauses.next());
+  }
+
+  @Benchmark
+  public void incrementPauseTimeWithTimestamp(final Pauses pauses) {
+    pauseTime.incrementPauseTime(pauses.next(), pauses.nextTimestamp());
+  }
+}
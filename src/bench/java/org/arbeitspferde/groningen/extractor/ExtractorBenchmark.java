@@ -0,0 +1,82 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExtractorParserMode;
+import org.arbeitspferde.groningen.utility.open.LocalFileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link Extractor#parse} takes to read a complete GC log from the start.
+ *
+ * The default log size keeps a run short; pass e.g. {@code -p logSizeMiB=4096} to reproduce the
+ * multi-gigabyte logs of subjects that ran for days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExtractorBenchmark {
+  @Param({"LEGACY", "UNIFIED"})
+  public SyntheticGcLog.Dialect dialect;
+
+  @Param({"STREAM", "MEMORY_MAPPED"})
+  public ExtractorParserMode parserMode;
+
+  @Param({"256"})
+  public long logSizeMiB;
+
+  private File log;
+
+  @Setup(Level.Trial)
+  public void writeLog() throws IOException {
+    log = File.createTempFile("groningen-gc-", ".log");
+    new SyntheticGcLog(dialect, 42).writeTo(log, logSizeMiB * 1024 * 1024);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteLog() {
+    log.delete();
+  }
+
+  @Benchmark
+  public double parse() {
+    // Each pass starts from a fresh bridge, as its cursor would skip the lines parsed before.
+    final SubjectStateBridge bridge = new ExperimentDb().makeSubject();
+    new Extractor(bridge, false, new LocalFileFactory(), parserMode).parse(log.getPath());
+    return bridge.getPauseTime().getPauseTimeTotal();
+  }
+}
@@ -0,0 +1,226 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * SyntheticGcLog writes garbage collection logs of arbitrary size that resemble those of a busy
+ * server, for benchmarking the {@link Extractor} without real subjects.
+ *
+ * The logs are deterministic for a given seed, such that benchmark runs on different trees parse
+ * the same input. Run {@link #main} to keep a log around for profiling:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.arbeitspferde.groningen.extractor.SyntheticGcLog \
+ *     /tmp/gc.log LEGACY 4096
+ * </pre>
+ */
+public class SyntheticGcLog {
+  /** The dialects in which JVMs write their GC logs */
+  public enum Dialect {
+    /**
+     * JDK 8 and earlier with -XX:+PrintGCDetails -XX:+PrintGCTimeStamps
+     * -XX:+PrintGCApplicationStoppedTime and the CMS collector.
+     */
+    LEGACY,
+
+    /** JDK 17 with -Xlog:gc,safepoint and the G1 collector. */
+    UNIFIED
+  }
+
+  private static final long DEFAULT_SEED = 42;
+
+  private static final int BYTES_PER_MEBIBYTE = 1024 * 1024;
+
+  private final Dialect dialect;
+  private final Random random;
+
+  /** The seconds since the simulated JVM start */
+  private double uptime = 0.0;
+
+  /** The number of collections so far */
+  private int collections = 0;
+
+  public SyntheticGcLog(final Dialect dialect, final long seed) {
+    this.dialect = Preconditions.checkNotNull(dialect);
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Write a log of at least the given size to the file, replacing its contents.
+   *
+   * @return The number of bytes written.
+   */
+  public long writeTo(final File file, final long minimumBytes) throws IOException {
+    final Writer writer = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), Charsets.US_ASCII), 1 << 16);
+    long written = 0;
+    try {
+      final StringBuilder lines = new StringBuilder();
+      while (written < minimumBytes) {
+        lines.setLength(0);
+        appendEvent(lines);
+        writer.append(lines);
+        written += lines.length();
+      }
+    } finally {
+      writer.close();
+    }
+    return written;
+  }
+
+  /** Append the lines that a single collection or safepoint leaves in the log. */
+  private void appendEvent(final StringBuilder lines) {
+    uptime += 0.05 + random.nextDouble();
+    collections++;
+    if (dialect == Dialect.LEGACY) {
+      appendLegacyEvent(lines);
+    } else {
+      appendUnifiedEvent(lines);
+    }
+  }
+
+  private void appendLegacyEvent(final StringBuilder lines) {
+    final int choice = random.nextInt(100);
+    final double pause = pauseSeconds();
+    if (choice < 2) {
+      fixed(lines, uptime, 3).append(": [Full GC");
+      fixed(lines, uptime, 3).append(": [CMS: 3500000K->1200000K(4000000K), ");
+      fixed(lines, pause, 7).append(" secs] 3900000K->1200000K(4600000K), ")
+          .append("[CMS Perm : 60000K->60000K(120000K)], ");
+      fixed(lines, pause, 7).append(" secs] ");
+      times(lines, pause).append('\n');
+    } else if (choice < 6) {
+      fixed(lines, uptime, 3).append(": [GC [1 CMS-initial-mark: ")
+          .append(2800000 + random.nextInt(100000)).append("K(4000000K)] 2900000K(4600000K), ");
+      fixed(lines, pause, 7).append(" secs] ");
+      times(lines, pause).append('\n');
+      fixed(lines, uptime + pause, 3).append(": [CMS-concurrent-mark-start]\n");
+      fixed(lines, uptime + 0.5, 3).append(": [CMS-concurrent-mark: 0.500/1.500 secs] ");
+      times(lines, 0.5).append('\n');
+    } else {
+      final int young = 500000 + random.nextInt(100000);
+      final int heap = 2000000 + random.nextInt(1000000);
+      fixed(lines, uptime, 3).append(": [GC");
+      fixed(lines, uptime, 3).append(": [ParNew: ").append(young).append("K->")
+          .append(young / 10).append("K(600000K), ");
+      fixed(lines, pause, 7).append(" secs] ").append(heap).append("K->")
+          .append(heap - young + young / 5).append("K(4600000K), ");
+      fixed(lines, pause, 7).append(" secs] ");
+      times(lines, pause).append('\n');
+    }
+    fixed(lines, uptime + pause, 3).append(": ").append(LegacyPauseLineDecoder.SIGNATURE)
+        .append(' ');
+    fixed(lines, pause + 0.0001, 7).append(" seconds, ")
+        .append(LegacyPauseLineDecoder.TIME_TO_SAFEPOINT_SIGNATURE).append(' ');
+    fixed(lines, random.nextDouble() / 10000, 7).append(" seconds\n");
+    if (random.nextInt(4) == 0) {
+      // A second pause line right after the first repeats the same pause.
+      fixed(lines, uptime + pause, 3).append(": ").append(LegacyPauseLineDecoder.SIGNATURE)
+          .append(' ');
+      fixed(lines, pause + 0.0001, 7).append(" seconds\n");
+    }
+    fixed(lines, uptime + pause + 0.01, 3).append(": Application time: ");
+    fixed(lines, random.nextDouble(), 7).append(" seconds\n");
+  }
+
+  private void appendUnifiedEvent(final StringBuilder lines) {
+    final int choice = random.nextInt(100);
+    final double pause = pauseSeconds();
+    final String cause;
+    lines.append('[');
+    fixed(lines, uptime, 3).append("s][info][gc] GC(").append(collections).append(") ");
+    if (choice < 2) {
+      cause = "G1CollectFull";
+      lines.append("Pause Full (G1 Compaction Pause) 3900M->1200M(4096M) ");
+    } else {
+      cause = "G1CollectForAllocation";
+      final int before = 1500 + random.nextInt(1000);
+      lines.append("Pause Young (Normal) (G1 Evacuation Pause) ").append(before).append("M->")
+          .append(before - 400).append("M(4096M) ");
+    }
+    fixed(lines, pause * 1000, 3).append("ms\n");
+
+    final long totalNanos = (long) (pause * 1e9) + 100000;
+    final long reachingNanos = random.nextInt(100000);
+    lines.append('[');
+    fixed(lines, uptime + pause, 3).append("s][info][safepoint] Safepoint \"").append(cause)
+        .append("\", Time since last: ").append((long) (random.nextDouble() * 1e9))
+        .append(" ns, ").append(UnifiedPauseLineDecoder.REACHING_SAFEPOINT_SIGNATURE).append(' ')
+        .append(reachingNanos).append(" ns, At safepoint: ").append(totalNanos - reachingNanos)
+        .append(" ns, ").append(UnifiedPauseLineDecoder.TOTAL_SIGNATURE).append(' ')
+        .append(totalNanos).append(" ns\n");
+  }
+
+  /** Returns a pause time with the long tail that collectors typically exhibit */
+  private double pauseSeconds() {
+    return 0.001 + Math.abs(random.nextGaussian()) * 0.02 + Math.pow(random.nextDouble(), 50);
+  }
+
+  private static StringBuilder times(final StringBuilder lines, final double real) {
+    lines.append("[Times: user=");
+    fixed(lines, real * 4, 2).append(" sys=");
+    fixed(lines, real / 10, 2).append(", real=");
+    return fixed(lines, real, 2).append(" secs]");
+  }
+
+  /**
+   * Append the non-negative value with the given number of decimals, as {@code %.nf} would but
+   * without its cost, which dominates when writing gigabytes.
+   */
+  private static StringBuilder fixed(final StringBuilder lines, final double value,
+      final int decimals) {
+    long scale = 1;
+    for (int i = 0; i < decimals; i++) {
+      scale *= 10;
+    }
+    final long scaled = Math.round(value * scale);
+    lines.append(scaled / scale).append('.');
+    final String fraction = Long.toString(scaled % scale);
+    for (int i = fraction.length(); i < decimals; i++) {
+      lines.append('0');
+    }
+    return lines.append(fraction);
+  }
+
+  /**
+   * Write a log of the given size in mebibytes.
+   *
+   * Usage: {@code SyntheticGcLog <file> <LEGACY|UNIFIED> <mebibytes> [seed]}
+   */
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println(
+          "Usage: SyntheticGcLog <file> <LEGACY|UNIFIED> <mebibytes> [seed]");
+      System.exit(1);
+    }
+    final long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+    final SyntheticGcLog log = new SyntheticGcLog(Dialect.valueOf(args[1]), seed);
+    final long written =
+        log.writeTo(new File(args[0]), Long.parseLong(args[2]) * BYTES_PER_MEBIBYTE);
+    System.out.println(String.format("Wrote %s bytes to %s.", written, args[0]));
+  }
+}
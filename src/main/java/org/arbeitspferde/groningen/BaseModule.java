@@ -41,6 +41,7 @@ import org.arbeitspferde.groningen.display.Displayable;
 import org.arbeitspferde.groningen.display.MonitorGroningen;
 import org.arbeitspferde.groningen.eventlog.SubjectEventLogger;
 import org.arbeitspferde.groningen.eventlog.SubjectEventProtoLogger;
+import org.arbeitspferde.groningen.executor.CandidateBreeder;
 import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
 import org.arbeitspferde.groningen.externalprocess.CmdProcessInvoker;
 import org.arbeitspferde.groningen.externalprocess.ProcessInvoker;
@@ -99,6 +100,7 @@ public class BaseModule extends AbstractModule {
     bind(Displayable.class).to(DisplayMediator.class).in(PipelineScoped.class);
     bind(MonitorGroningen.class).to(DisplayMediator.class).in(PipelineScoped.class);
     bind(Hypothesizer.class).in(PipelineScoped.class);
+    bind(CandidateBreeder.class).to(Hypothesizer.class);
     bind(ExperimentDb.class).in(PipelineScoped.class);
     bind(ConfigManager.class)
         .toProvider(SimpleScope.<ConfigManager>seededKeyProvider())
@@ -71,6 +71,10 @@ public class GroningenConfigParamsModule extends AbstractModule {
     scope.seed(GroningenConfig.class, config);
 
     for (FieldDescriptor fd : GroningenParams.getDescriptor().getFields()) {
+      if (fd.isRepeated()) {
+        // Repeated parameters are read from the GroningenConfig directly.
+        continue;
+      }
       switch (fd.getJavaType()) {
         case ENUM:
           nailConfigParamToScope(ProtocolMessageEnum.class, fd, config, scope);
@@ -107,6 +111,9 @@ public class GroningenConfigParamsModule extends AbstractModule {
       .in(PipelineIterationScoped.class);
 
     for (FieldDescriptor fd : GroningenParams.getDescriptor().getFields()) {
+      if (fd.isRepeated()) {
+        continue;
+      }
       switch (fd.getJavaType()) {
         case ENUM:
           bindConfigParamToSeededKeyProvider(ProtocolMessageEnum.class, fd);
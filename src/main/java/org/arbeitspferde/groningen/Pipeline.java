@@ -37,7 +37,9 @@ import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
 import org.arbeitspferde.groningen.experimentdb.FitnessScore;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
 import org.arbeitspferde.groningen.generator.SubjectShuffler;
+import org.arbeitspferde.groningen.generator.SubjectShuffler.SubjectIterator;
 import org.arbeitspferde.groningen.hypothesizer.Hypothesizer;
+import org.arbeitspferde.groningen.hypothesizer.ParetoSolution;
 import org.arbeitspferde.groningen.proto.Params.GroningenParams;
 import org.arbeitspferde.groningen.utility.Clock;
 import org.arbeitspferde.groningen.utility.MetricExporter;
@@ -224,6 +226,8 @@ public class Pipeline {
   }
 
   public void run() {
+    // The last iteration to start, which restores default settings on the way out of the loop
+    PipelineIteration lastIteration = null;
     try {
       GroningenConfig firstConfig = configManager.queryConfig();
       currentIterationConfig = firstConfig;
@@ -243,6 +247,7 @@ public class Pipeline {
            * should be created per-pipeline
            */
           PipelineIteration iteration = pipelineIterationProvider.get();
+          lastIteration = iteration;
           setCurrentIteration(iteration);
 
           pipelineStageDisplayer.setCurrentIteration(iteration);
@@ -257,7 +262,9 @@ public class Pipeline {
              * loop.
              */
             try {
-              hypothesizer.setPopulationSize(shuffler.get().createIterator().getSubjectCount());
+              final SubjectIterator subjects = shuffler.get().createIterator();
+              hypothesizer.setPopulationSize(subjects.getSubjectCount());
+              hypothesizer.setIslandSizes(subjects.getIslandSizes());
             } catch (RuntimeException e) {
               log.log(Level.SEVERE,
                   "unable to gather number of tasks in specified jobs. Hence unable to " +
@@ -292,6 +299,16 @@ public class Pipeline {
     } catch (RuntimeException e) {
       log.log(Level.SEVERE, "Fatal error", e);
       throw e;
+    } finally {
+      // However the loop ends, be it completion, a kill or a failure, the subjects must not be
+      // left running with experimental settings.
+      if (lastIteration != null) {
+        try {
+          lastIteration.finish();
+        } catch (RuntimeException e) {
+          log.log(Level.SEVERE, "Unable to restore default settings on the subjects", e);
+        }
+      }
     }
   }
 
@@ -303,6 +320,14 @@ public class Pipeline {
     return pipelineStageInfo.getImmutableValueCopy();
   }
 
+  /**
+   * Returns the Pareto front of the latency, throughput and memory scores found so far, which is
+   * empty unless the hypothesizer searches with NSGA_II.
+   */
+  public List<ParetoSolution<String>> getParetoFront() {
+    return hypothesizer.getParetoFront();
+  }
+
   public DisplayMediator getDisplayableInformationProvider() {
     // TODO(sanragsood): Downcasting... DANGEROUS !
     // Once the new interface is ready, decouple DisplayMediator from Displayable and directly
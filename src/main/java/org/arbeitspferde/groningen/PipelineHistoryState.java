@@ -78,92 +78,7 @@ public class PipelineHistoryState {
       final JvmFlagSet.Builder builder = JvmFlagSet.builder();
       final ExperimentDbProtos.CommandLine cl = esProto.getSubject().getCommandLine();
       for (final ExperimentDbProtos.CommandLineArgument arg : cl.getArgumentList()) {
-        final int value = Integer.parseInt(arg.getValue());
-        final JvmFlag argument = JvmFlag.valueOf(arg.getName());
-        switch (argument) {
-
-          case ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR:
-            builder.withValue(JvmFlag.ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR, value);
-            break;
-          case CMS_EXP_AVG_FACTOR:
-            builder.withValue(JvmFlag.CMS_EXP_AVG_FACTOR, value);
-            break;
-          case CMS_INCREMENTAL_DUTY_CYCLE:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, value);
-            break;
-          case CMS_INCREMENTAL_DUTY_CYCLE_MIN:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, value);
-            break;
-          case CMS_INCREMENTAL_OFFSET:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_OFFSET, value);
-            break;
-          case CMS_INCREMENTAL_SAFETY_FACTOR:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_SAFETY_FACTOR, value);
-            break;
-          case CMS_INITIATING_OCCUPANCY_FRACTION:
-            builder.withValue(JvmFlag.CMS_INITIATING_OCCUPANCY_FRACTION, value);
-            break;
-          case GC_TIME_RATIO:
-            builder.withValue(JvmFlag.GC_TIME_RATIO, value);
-            break;
-          case HEAP_SIZE:
-            builder.withValue(JvmFlag.HEAP_SIZE, value);
-            break;
-          case MAX_GC_PAUSE_MILLIS:
-            builder.withValue(JvmFlag.MAX_GC_PAUSE_MILLIS, value);
-            break;
-          case MAX_HEAP_FREE_RATIO:
-            builder.withValue(JvmFlag.MAX_HEAP_FREE_RATIO, value);
-            break;
-          case MIN_HEAP_FREE_RATIO:
-            builder.withValue(JvmFlag.MIN_HEAP_FREE_RATIO, value);
-            break;
-          case NEW_RATIO:
-            builder.withValue(JvmFlag.NEW_RATIO, value);
-            break;
-          case NEW_SIZE:
-            builder.withValue(JvmFlag.NEW_SIZE, value);
-            break;
-          case MAX_NEW_SIZE:
-            builder.withValue(JvmFlag.MAX_NEW_SIZE, value);
-            break;
-          case PARALLEL_GC_THREADS:
-            builder.withValue(JvmFlag.PARALLEL_GC_THREADS, value);
-            break;
-          case SOFT_REF_LRU_POLICY_MS_PER_MB:
-            builder.withValue(JvmFlag.SOFT_REF_LRU_POLICY_MS_PER_MB, value);
-            break;
-          case SURVIVOR_RATIO:
-            builder.withValue(JvmFlag.SURVIVOR_RATIO, value);
-            break;
-          case TENURED_GENERATION_SIZE_INCREMENT:
-            builder.withValue(JvmFlag.TENURED_GENERATION_SIZE_INCREMENT, value);
-            break;
-          case YOUNG_GENERATION_SIZE_INCREMENT:
-            builder.withValue(JvmFlag.YOUNG_GENERATION_SIZE_INCREMENT, value);
-            break;
-          case USE_CONC_MARK_SWEEP_GC:
-            builder.withValue(JvmFlag.USE_CONC_MARK_SWEEP_GC, value);
-            break;
-          case USE_PARALLEL_GC:
-            builder.withValue(JvmFlag.USE_PARALLEL_GC, value);
-            break;
-          case USE_PARALLEL_OLD_GC:
-            builder.withValue(JvmFlag.USE_PARALLEL_OLD_GC, value);
-            break;
-          case USE_SERIAL_GC:
-            builder.withValue(JvmFlag.USE_SERIAL_GC, value);
-            break;
-          case CMS_INCREMENTAL_MODE:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_MODE, value);
-            break;
-          case CMS_INCREMENTAL_PACING:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_PACING, value);
-            break;
-          case USE_CMS_INITIATING_OCCUPANCY_ONLY:
-            builder.withValue(JvmFlag.USE_CMS_INITIATING_OCCUPANCY_ONLY, value);
-            break;
-        }
+        builder.withValue(JvmFlag.valueOf(arg.getName()), Long.parseLong(arg.getValue()));
       }
 
       final JvmFlagSet jvmFlagSet = builder.build();
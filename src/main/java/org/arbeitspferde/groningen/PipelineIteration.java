@@ -138,4 +138,12 @@ public class PipelineIteration {
 
     return notComplete;
   }
+
+  /**
+   * Restores default settings on the subjects once the pipeline is over, for the executor
+   * teardown modes that leave experimental settings in place between iterations.
+   */
+  public void finish() {
+    executor.restoreDefaults(config);
+  }
 }
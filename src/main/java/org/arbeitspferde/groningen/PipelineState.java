@@ -55,6 +55,11 @@ public class PipelineState {
     for (Subject subjectProto : stateProto.getSubjectsList()) {
       final SubjectStateBridge bridge = experimentDb.makeSubject(subjectProto.getId());
       subjectIds.add(subjectProto.getId());
+      // These must be set before any pauses are recorded, as the Hypothesizer does.
+      bridge.getPauseTime().setPercentileRelativeError(
+          config.getParamBlock().getPauseTimePercentileRelativeError());
+      bridge.getPauseTime().setWarmupExclusionMinutes(
+          config.getParamBlock().getPauseTimeWarmupExclusionMinutes());
 
       /* TODO(team): Migrate the stink that this switch statement is into a EnumMap or have
        *             JvmFlagSet translate the mapping itself.
@@ -0,0 +1,136 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A growable sequence of primitive doubles that may only be appended to.
+ *
+ * Elements are stored in segments whose sizes double, so that growing never copies existing
+ * elements and an empty array costs only a few hundred bytes. Appenders hold a short lock while
+ * they write their element and publish it, so a failing appender cannot leave a hole that the
+ * others wait on. Reading does not lock: readers only ever observe a fully written prefix of the
+ * appended elements.
+ */
+public class AppendOnlyDoubleArray implements DoubleSequence {
+  /** The size of the first segment; each following segment is twice as large as its predecessor */
+  private static final int FIRST_SEGMENT_SIZE = 64;
+
+  /** Enough segments to hold Integer.MAX_VALUE elements */
+  private static final int NUMBER_OF_SEGMENTS =
+      32 - Integer.numberOfLeadingZeros(Integer.MAX_VALUE / FIRST_SEGMENT_SIZE + 1);
+
+  private final AtomicReferenceArray<double[]> segments =
+      new AtomicReferenceArray<>(NUMBER_OF_SEGMENTS);
+
+  /** The number of leading slots that have been written and may be read */
+  private final AtomicInteger published = new AtomicInteger();
+
+  private final DoubleSequence readOnlyView = new DoubleSequence() {
+    @Override
+    public int size() {
+      return AppendOnlyDoubleArray.this.size();
+    }
+
+    @Override
+    public double get(final int index) {
+      return AppendOnlyDoubleArray.this.get(index);
+    }
+
+    @Override
+    public double[] toArray() {
+      return AppendOnlyDoubleArray.this.toArray();
+    }
+  };
+
+  /** Append the value to the end of the sequence. This is thread safe. */
+  public synchronized void append(final double value) {
+    final int index = published.get();
+    Preconditions.checkState(index < Integer.MAX_VALUE, "AppendOnlyDoubleArray is full.");
+
+    final int segment = segmentOf(index);
+    segmentFor(segment)[index - segmentStart(segment)] = value;
+
+    // Only publish the slot once it is written; if anything above failed, it stays free.
+    published.set(index + 1);
+  }
+
+  @Override
+  public int size() {
+    return published.get();
+  }
+
+  @Override
+  public double get(final int index) {
+    Preconditions.checkElementIndex(index, size());
+    final int segment = segmentOf(index);
+    return segments.get(segment)[index - segmentStart(segment)];
+  }
+
+  @Override
+  public double[] toArray() {
+    final int size = size();
+    final double[] copy = new double[size];
+    int copied = 0;
+    for (int segment = 0; copied < size; segment++) {
+      final int length = Math.min(size - copied, segmentLength(segment));
+      System.arraycopy(segments.get(segment), 0, copy, copied, length);
+      copied += length;
+    }
+    return copy;
+  }
+
+  /** Returns a view of this array that cannot be appended to */
+  public DoubleSequence asReadOnly() {
+    return readOnlyView;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  /** Returns the given segment, allocating it if need be. The caller must hold the lock. */
+  private double[] segmentFor(final int segment) {
+    double[] existing = segments.get(segment);
+    if (existing == null) {
+      existing = new double[segmentLength(segment)];
+      segments.set(segment, existing);
+    }
+    return existing;
+  }
+
+  /** Returns the segment that holds the given index */
+  private static int segmentOf(final int index) {
+    return 31 - Integer.numberOfLeadingZeros(index / FIRST_SEGMENT_SIZE + 1);
+  }
+
+  /** Returns the index of the first element of the given segment */
+  private static int segmentStart(final int segment) {
+    return FIRST_SEGMENT_SIZE * ((1 << segment) - 1);
+  }
+
+  /** Returns the number of elements that the given segment holds */
+  private static int segmentLength(final int segment) {
+    return (int) Math.min((long) FIRST_SEGMENT_SIZE << segment,
+        Integer.MAX_VALUE - segmentStart(segment));
+  }
+}
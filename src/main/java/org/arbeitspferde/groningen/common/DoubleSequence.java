@@ -0,0 +1,38 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+/**
+ * A read-only, indexed sequence of primitive doubles.
+ *
+ * Implementations may grow concurrently; {@link #size()} and {@link #toArray()} reflect the
+ * elements visible at the time of the call.
+ */
+public interface DoubleSequence {
+  /** Returns the number of elements in the sequence */
+  int size();
+
+  /**
+   * Returns the element at the given index.
+   *
+   * @throws IndexOutOfBoundsException if the index is negative or not smaller than
+   *     {@link #size()}
+   */
+  double get(int index);
+
+  /** Returns a copy of the elements in the sequence */
+  double[] toArray();
+}
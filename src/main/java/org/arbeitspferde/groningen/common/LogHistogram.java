@@ -0,0 +1,202 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AtomicDouble;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory, mergeable histogram with logarithmically sized buckets for estimating
+ * percentiles of a stream of non-negative values.
+ *
+ * Bucket i holds the values in (gamma^(i-1), gamma^i], where gamma = (1 + e) / (1 - e) for the
+ * configured relative error e. Reporting the midpoint of a bucket then misses any value in it by
+ * at most e of that value. Values at or below the lowest trackable value share the first bucket,
+ * values above the highest trackable value the last one. Reported percentiles are additionally
+ * clamped to the exact minimum and maximum recorded, so a histogram of identical values reports
+ * them exactly.
+ *
+ * Percentiles follow the same nearest-rank definition as
+ * {@link Statistics#computePercentile(double[], double)}. Recording is thread safe and does not
+ * lock.
+ */
+public class LogHistogram {
+  private final double relativeError;
+  private final double lowestTrackableValue;
+  private final double highestTrackableValue;
+
+  /** ln(gamma) */
+  private final double logGamma;
+
+  /** The exponent of the upper bound of the first bucket */
+  private final int firstExponent;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicDouble min = new AtomicDouble(Double.POSITIVE_INFINITY);
+  private final AtomicDouble max = new AtomicDouble(Double.NEGATIVE_INFINITY);
+
+  /**
+   * @param relativeError The largest acceptable error of reported percentiles, relative to their
+   *     true value, between 0 and 1 exclusive.
+   * @param lowestTrackableValue The smallest positive value that is told apart from zero.
+   * @param highestTrackableValue The largest value that is tracked with full precision.
+   */
+  public LogHistogram(final double relativeError, final double lowestTrackableValue,
+      final double highestTrackableValue) {
+    Preconditions.checkArgument(relativeError > 0 && relativeError < 1,
+        "relativeError must be between 0 and 1 exclusive.");
+    Preconditions.checkArgument(lowestTrackableValue > 0,
+        "lowestTrackableValue must be positive.");
+    Preconditions.checkArgument(highestTrackableValue > lowestTrackableValue,
+        "highestTrackableValue must be greater than lowestTrackableValue.");
+
+    this.relativeError = relativeError;
+    this.lowestTrackableValue = lowestTrackableValue;
+    this.highestTrackableValue = highestTrackableValue;
+    logGamma = Math.log((1 + relativeError) / (1 - relativeError));
+    firstExponent = exponentOf(lowestTrackableValue);
+    counts = new AtomicLongArray(exponentOf(highestTrackableValue) - firstExponent + 1);
+  }
+
+  /** Record one occurrence of the value */
+  public void record(final double value) {
+    counts.incrementAndGet(bucketOf(value));
+    count.incrementAndGet();
+    updateMin(value);
+    updateMax(value);
+  }
+
+  /**
+   * Add all values recorded by the other histogram to this one. Both must have been created with
+   * the same parameters.
+   */
+  public void merge(final LogHistogram other) {
+    Preconditions.checkArgument(relativeError == other.relativeError
+        && lowestTrackableValue == other.lowestTrackableValue
+        && highestTrackableValue == other.highestTrackableValue,
+        "Cannot merge histograms with different parameters.");
+
+    for (int i = 0; i < counts.length(); i++) {
+      final long otherCount = other.counts.get(i);
+      if (otherCount > 0) {
+        counts.addAndGet(i, otherCount);
+      }
+    }
+    count.addAndGet(other.count.get());
+    updateMin(other.min.get());
+    updateMax(other.max.get());
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Returns the smallest value recorded, or positive infinity if there is none */
+  public double getMin() {
+    return min.get();
+  }
+
+  /** Returns the largest value recorded, or negative infinity if there is none */
+  public double getMax() {
+    return max.get();
+  }
+
+  public double getRelativeError() {
+    return relativeError;
+  }
+
+  /**
+   * Estimate the input percentile of the recorded values in O(number of buckets). Returns
+   * Double.NaN if nothing was recorded.
+   *
+   * @param percentile the percentile, between 0 and 100
+   */
+  public double percentile(final double percentile) {
+    Preconditions.checkArgument(percentile >= 0, "percentile must be greater or equal than 0");
+    Preconditions.checkArgument(percentile <= 100, "percentile must be smaller or equal than 100");
+
+    final long total = count.get();
+    if (total == 0) {
+      return Double.NaN;
+    }
+    final double lowest = min.get();
+    final double highest = max.get();
+    if (percentile == 100) {
+      return highest;
+    }
+
+    final long rank = (long) Math.floor(percentile * (double) total / 100.0);
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen > rank) {
+        return Math.max(lowest, Math.min(highest, valueOf(i)));
+      }
+    }
+    // Counts raced ahead of the buckets we have walked.
+    return highest;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(LogHistogram.class)
+        .add("relativeError", relativeError)
+        .add("count", count.get())
+        .add("min", min.get())
+        .add("max", max.get())
+        .toString();
+  }
+
+  private int exponentOf(final double value) {
+    return (int) Math.ceil(Math.log(value) / logGamma);
+  }
+
+  private int bucketOf(final double value) {
+    if (!(value > lowestTrackableValue)) {
+      return 0;
+    }
+    return Math.min(exponentOf(value) - firstExponent, counts.length() - 1);
+  }
+
+  /** Returns the value that represents bucket i with the least relative error */
+  private double valueOf(final int bucket) {
+    final double upperBound = Math.exp((bucket + firstExponent) * logGamma);
+    return upperBound * 2 / (1 + Math.exp(logGamma));
+  }
+
+  private void updateMin(final double value) {
+    while (true) {
+      final double current = min.get();
+      if (!(value < current) || min.compareAndSet(current, value)) {
+        return;
+      }
+    }
+  }
+
+  private void updateMax(final double value) {
+    while (true) {
+      final double current = max.get();
+      if (!(value > current) || max.compareAndSet(current, value)) {
+        return;
+      }
+    }
+  }
+}
@@ -15,9 +15,11 @@
 
 package org.arbeitspferde.groningen.common;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.primitives.Doubles;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -32,36 +34,236 @@ public class Statistics {
   /** Logger for this class */
   private static final Logger log = Logger.getLogger(Statistics.class.getCanonicalName());
 
+  /** Ranges at most this long are finished by insertion sort during selection */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
   /**
    * Compute the input percentile of the input double {@link List}. Returns
    * Double.NaN if the list of values is empty.
    *
-   * Keep in mind that the values are sorted in place, thus modifying the values
-   * {@link List} you've passed in.
+   * The list is left unmodified.
    *
    * @param {@link Double} {@link List}
    * @param double percentile
    */
   public static double computePercentile(List<Double> values, double percentile) {
-    Preconditions.checkArgument(percentile >= 0, "percentile must be greater or equal than 0");
-    Preconditions.checkArgument(percentile <= 100, "percentile must be smaller or equal than 100");
-
-    int sz = values.size();
-    switch (sz) {
-      case 0:
-        log.warning("The list passed to computePercentile is empty. NaN returned.");
-        return Double.NaN;
-      case 1:
-        return values.get(0);
-      default:
-        // Sort {@link List} in place and in ascending order
-        Collections.sort(values);
-        // the 100th percentile is defined to be the largest value
-        if (percentile == 100){
-          return values.get(sz - 1);
+    return computePercentile(Doubles.toArray(values), percentile);
+  }
+
+  /**
+   * Compute the input percentile of the input double array in expected linear time. Returns
+   * Double.NaN if the array is empty.
+   *
+   * The p-th percentile of n values is the value of rank floor(p * n / 100) in ascending order,
+   * and the largest value for p = 100. The array is left unmodified.
+   *
+   * @param values the values
+   * @param percentile the percentile, between 0 and 100
+   */
+  public static double computePercentile(double[] values, double percentile) {
+    return computePercentiles(values, percentile)[0];
+  }
+
+  /**
+   * Compute several percentiles of the input double array at once, in expected linear time for
+   * each distinct percentile. Returns Double.NaN for every percentile if the array is empty.
+   *
+   * The array is left unmodified.
+   *
+   * @param values the values
+   * @param percentiles the percentiles, each between 0 and 100
+   * @return the percentiles of the values, in the order the percentiles were given
+   */
+  public static double[] computePercentiles(double[] values, double... percentiles) {
+    final int sz = values.length;
+    final int[] ranks = new int[percentiles.length];
+    for (int i = 0; i < percentiles.length; i++) {
+      final double percentile = percentiles[i];
+      Preconditions.checkArgument(percentile >= 0, "percentile must be greater or equal than 0");
+      Preconditions.checkArgument(percentile <= 100,
+          "percentile must be smaller or equal than 100");
+      // the 100th percentile is defined to be the largest value
+      ranks[i] = percentile == 100
+          ? sz - 1
+          : (int) Math.floor(percentile * (double) sz / 100.0);
+    }
+
+    final double[] result = new double[percentiles.length];
+    if (sz == 0) {
+      log.warning("The array passed to computePercentiles is empty. NaN returned.");
+      Arrays.fill(result, Double.NaN);
+      return result;
+    }
+
+    // Select the ranks in ascending order; each selection partitions the copy such that the next
+    // one only needs to look above the previous rank.
+    final int[] sortedRanks = ranks.clone();
+    Arrays.sort(sortedRanks);
+    final double[] copy = values.clone();
+    int from = 0;
+    for (final int rank : sortedRanks) {
+      if (rank >= from) {
+        select(copy, from, sz - 1, rank);
+        from = rank + 1;
+      }
+    }
+
+    for (int i = 0; i < ranks.length; i++) {
+      result[i] = copy[ranks[i]];
+    }
+    return result;
+  }
+
+  /**
+   * Compute the count, mean, standard deviation, minimum and maximum of the input double array
+   * in a single pass. The mean and standard deviation are NaN and the extrema infinite if the
+   * array is empty.
+   */
+  public static Summary summarize(double[] values) {
+    double mean = 0.0;
+    double sumOfSquaredDeviations = 0.0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    // Welford's method, which does not suffer from the cancellation of the naive sum of squares.
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      final double delta = value - mean;
+      mean += delta / (i + 1);
+      sumOfSquaredDeviations += delta * (value - mean);
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+
+    if (values.length == 0) {
+      return new Summary(0, Double.NaN, Double.NaN, min, max);
+    }
+    return new Summary(values.length, mean, Math.sqrt(sumOfSquaredDeviations / values.length),
+        min, max);
+  }
+
+  /** The descriptive statistics computed by {@link Statistics#summarize(double[])} */
+  public static final class Summary {
+    private final int count;
+    private final double mean;
+    private final double standardDeviation;
+    private final double min;
+    private final double max;
+
+    private Summary(final int count, final double mean, final double standardDeviation,
+        final double min, final double max) {
+      this.count = count;
+      this.mean = mean;
+      this.standardDeviation = standardDeviation;
+      this.min = min;
+      this.max = max;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    /** Returns the population standard deviation */
+    public double getStandardDeviation() {
+      return standardDeviation;
+    }
+
+    public double getMin() {
+      return min;
+    }
+
+    public double getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toStringHelper(Summary.class)
+          .add("count", count)
+          .add("mean", mean)
+          .add("standardDeviation", standardDeviation)
+          .add("min", min)
+          .add("max", max)
+          .toString();
+    }
+  }
+
+  /**
+   * Partially order values[lo..hi] such that values[k] holds the value of that rank and no value
+   * before it is greater and no value after it is smaller.
+   *
+   * This is quickselect with median-of-three pivots. Should the partitions keep coming out
+   * lopsided, the remaining range is sorted instead, bounding the worst case by O(n log n).
+   */
+  private static void select(final double[] values, int lo, int hi, final int k) {
+    int remainingPartitions = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+
+    while (hi > lo) {
+      if (hi - lo < INSERTION_SORT_THRESHOLD) {
+        insertionSort(values, lo, hi);
+        return;
+      }
+      if (remainingPartitions-- == 0) {
+        Arrays.sort(values, lo, hi + 1);
+        return;
+      }
+
+      final int mid = (lo + hi) >>> 1;
+      orderPair(values, lo, mid);
+      orderPair(values, lo, hi);
+      orderPair(values, mid, hi);
+      final double pivot = values[mid];
+
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (Double.compare(values[i], pivot) < 0) {
+          i++;
         }
-        return values.get(
-            (int) Math.floor(percentile * (double) sz / 100.0));
+        while (Double.compare(values[j], pivot) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          swap(values, i++, j--);
+        }
+      }
+
+      // values[lo..j] <= pivot <= values[i..hi], and everything in between equals the pivot.
+      if (k <= j) {
+        hi = j;
+      } else if (k >= i) {
+        lo = i;
+      } else {
+        return;
+      }
     }
   }
+
+  private static void insertionSort(final double[] values, final int lo, final int hi) {
+    for (int i = lo + 1; i <= hi; i++) {
+      final double value = values[i];
+      int j = i - 1;
+      while (j >= lo && Double.compare(values[j], value) > 0) {
+        values[j + 1] = values[j];
+        j--;
+      }
+      values[j + 1] = value;
+    }
+  }
+
+  private static void orderPair(final double[] values, final int i, final int j) {
+    if (Double.compare(values[i], values[j]) > 0) {
+      swap(values, i, j);
+    }
+  }
+
+  private static void swap(final double[] values, final int i, final int j) {
+    final double value = values[i];
+    values[i] = values[j];
+    values[j] = value;
+  }
 }
@@ -19,6 +19,7 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+import org.arbeitspferde.groningen.common.DoubleSequence;
 import org.arbeitspferde.groningen.config.GroningenConfig;
 import org.arbeitspferde.groningen.experimentdb.Experiment;
 import org.arbeitspferde.groningen.experimentdb.PauseTime;
@@ -161,8 +162,9 @@ public class SubjectEventProtoLogger implements SubjectEventLogger {
 
      eventBuilder.setGroningenConfiguration(config.getProtoConfig());
 
-     for (final double pauseTimeDuration : subject.getPauseTime().getPauseDurations()) {
-       eventBuilder.addPauseEventBuilder().setDurationInSeconds(pauseTimeDuration).build();
+     final DoubleSequence pauseTimeDurations = subject.getPauseTime().getPauseDurations();
+     for (int i = 0; i < pauseTimeDurations.size(); i++) {
+       eventBuilder.addPauseEventBuilder().setDurationInSeconds(pauseTimeDurations.get(i)).build();
      }
 
     return eventBuilder.build();
@@ -0,0 +1,36 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.executor;
+
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+
+/**
+ * Breeds the replacements of experimental subjects whose evaluation is over, such that the
+ * {@link Executor} can evolve the population one subject at a time in steady-state evolution.
+ */
+public interface CandidateBreeder {
+  /**
+   * Records the fitness of a subject whose evaluation is over and breeds a candidate to take its
+   * place. The replacement joins the experiment of the finished subject, but is not associated with
+   * a subject in production yet.
+   *
+   * @param finished The subject whose evaluation is over.
+   * @param fitness The fitness of the finished subject, greater being better.
+   * @return The subject that runs the bred candidate, or null if the population evolves a
+   *     generation at a time.
+   */
+  SubjectStateBridge breedReplacement(SubjectStateBridge finished, double fitness);
+}
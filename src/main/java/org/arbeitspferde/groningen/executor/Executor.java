@@ -15,7 +15,14 @@
 
 package org.arbeitspferde.groningen.executor;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 
 import org.arbeitspferde.groningen.PipelineStageInfo;
@@ -30,11 +37,16 @@ import org.arbeitspferde.groningen.config.PipelineIterationScoped;
 import org.arbeitspferde.groningen.display.MonitorGroningen;
 import org.arbeitspferde.groningen.experimentdb.Experiment;
 import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.FitnessScore;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
 import org.arbeitspferde.groningen.extractor.CollectionLogAddressor;
+import org.arbeitspferde.groningen.extractor.ExtractionScheduler;
 import org.arbeitspferde.groningen.extractor.Extractor;
+import org.arbeitspferde.groningen.generator.Generator;
 import org.arbeitspferde.groningen.profiling.ProfilingRunnable;
 import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExecutorProbeMode;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExecutorTeardownMode;
 import org.arbeitspferde.groningen.subject.HealthQuerier;
 import org.arbeitspferde.groningen.subject.ServingAddressGenerator;
 import org.arbeitspferde.groningen.subject.Subject;
@@ -52,14 +64,22 @@ import org.joda.time.Period;
 import org.joda.time.format.PeriodFormat;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 /**
  * The Executor starts experiments and monitors them in production. If an
@@ -69,22 +89,45 @@ import java.util.logging.Logger;
  * The Executor uses an {@link Experiment} to get a list of subjects to restart and
  * then uses {@link SubjectManipulator} on the subjects within the population to restart them.
  * They must be restarted so that they update their JVM settings based on the output of
- * the {@link Generator} to start the next round of experiments.
+ * the {@link Generator} to start the next round of experiments. The subject groups restart as a
+ * rolling restart through a {@link RestartOrchestrator}, concurrently but within in-flight budgets,
+ * and each subject holds its place in them until it is healthy again.
  *
- * Once the experiment is started, the Executor polls subjects iteratively to
- * determine their uptime by scraping metrics. This is used to determine if a subject
- * has restarted. If it restarts too often it will be reset to default JVM
- * settings.
+ * Between experiments, the subjects restart with default JVM settings, or, with the
+ * OVERLAP_ITERATIONS executor_teardown_mode, keep their experimental settings until the next
+ * experiment restarts them with its own, such that each iteration restarts them only once.
+ *
+ * Once the experiment is started, each subject is probed by a single scheduled task
+ * that scrapes its metrics to determine its uptime, and schedules itself again once
+ * it is done, backing off while the subject is failing. This is used to determine if
+ * a subject has restarted. If it restarts too often it will be reset to default JVM
+ * settings. Probes wake the main executor thread as soon as a subject changes state,
+ * rather than on its next polling round. Probes run on a fixed pool of threads, or,
+ * with the THREAD_PER_PROBE executor_probe_mode, on a thread each through a
+ * {@link ProbeExecutor}.
  *
  * The Executor shares data on subject restarts it records while monitoring the
  * subjects. This data is indexed in an InMemoryCache by subjectId. The {@link Validator}
  * uses this data to determine if a subject is valid.
+ *
+ * With executor_halving_rungs set, the Executor also scores the subjects at evenly spaced
+ * checkpoints of the experiment and retires the worst experimental ones to default settings early,
+ * as in successive halving.
+ *
+ * With executor_steady_state_window_minutes set, there is no barrier between the subjects of the
+ * experiment: each experimental subject is scored as soon as its evaluation window is over, or it
+ * dies, and its subject in production restarts at once with a candidate that the
+ * {@link CandidateBreeder} breeds to take its place.
  */
 @PipelineIterationScoped
 public class Executor extends ProfilingRunnable {
   /** Logger for this class */
   private static final Logger log = Logger.getLogger(Executor.class.getCanonicalName());
 
+  /** An -Xlog option whose selection covers the safepoint tag, e.g. -Xlog:gc*,safepoint:gc.log */
+  private static final Pattern UNIFIED_SAFEPOINT_LOGGING =
+      Pattern.compile("-Xlog:(?:[^\\s:]*[,+])?(?:safepoint|all)\\b");
+
   @Inject
   @NamedConfigParam("executor_wait_for_one_subject_restart_ms")
   private final int executorWaitForOneSubjectRestartMs =
@@ -95,21 +138,26 @@ public class Executor extends ProfilingRunnable {
   private final int executorSleepBtwnPollingMetricsMs =
       GroningenParams.getDefaultInstance().getExecutorSleepBtwnPollingMetricsMs();
 
-  @Inject
-  @NamedConfigParam("extractor_number_of_extractor_threads")
-  private final int extractorNumberOfExtractorThreads =
-      GroningenParams.getDefaultInstance().getExtractorNumberOfExtractorThreads();
-
   @Inject
   @NamedConfigParam("maximum_inflight_subject_restart_count")
   private final int subjectRestartRateLimit =
       GroningenParams.getDefaultInstance().getMaximumInflightSubjectRestartCount();
 
+  @Inject
+  @NamedConfigParam("max_subjects_in_flight_fraction")
+  private final int maxSubjectsInFlightFraction =
+      GroningenParams.getDefaultInstance().getMaxSubjectsInFlightFraction();
+
   @Inject
   @NamedConfigParam("duration")
   private final int experimentDuration =
       GroningenParams.getDefaultInstance().getDuration();
 
+  @Inject
+  @NamedConfigParam("extractor_completion_timeout_secs")
+  private final int extractorCompletionTimeoutSecs =
+      GroningenParams.getDefaultInstance().getExtractorCompletionTimeoutSecs();
+
   /** The Experiment Database */
   private final ExperimentDb experimentDb;
   private final SubjectManipulator manipulator;
@@ -122,15 +170,23 @@ public class Executor extends ProfilingRunnable {
   private final ServingAddressGenerator servingAddressBuilder;
   private final CollectionLogAddressor addressor;
   private final PipelineStageInfo pipelineStageInfo;
+  private final ExtractionScheduler extractionScheduler;
+  private final Generator generator;
+  private final CandidateBreeder breeder;
 
   private long whenExperimentStarted;
   private final Clock clock;
 
-  private ExecutorService extractorService;
-  private ExecutorService executorService;
+  private ScheduledThreadPoolExecutor probeScheduler;
+
+  /** Runs the probes that come due on the scheduler, or null if the scheduler runs them itself */
+  private ProbeExecutor probeExecutor;
   private List<SubjectStateBridge> subjects;
   private Boolean steadyState = false;
 
+  /** Whether probes schedule themselves again, which they stop doing once the experiment is done */
+  private volatile boolean probing = false;
+
   /** Counts the number of subjects removed from Experiments for exceptional reasons */
   private final AtomicLong removeSubjectFromExperimentCount = new AtomicLong(0);
 
@@ -146,6 +202,45 @@ public class Executor extends ProfilingRunnable {
   /** The current population size of actively running subjects in the experiment */
   private final AtomicLong currentPopulationSize = new AtomicLong(0);
 
+  /** Counts the number of subjects that did not come back healthy from group restarts */
+  private final AtomicLong failedGroupRestartCount = new AtomicLong(0);
+
+  /** Counts the number of subjects retired early at the checkpoints of successive halving */
+  private final AtomicLong retiredSubjectCount = new AtomicLong(0);
+
+  /** The next checkpoint of successive halving within the current experiment, from 1 */
+  private int nextHalvingRung = 1;
+
+  /** The subjects whose logs are being parsed for the checkpoint reached, or null if none is */
+  private List<SubjectStateBridge> halvingCandidates = null;
+
+  /** When the checkpoint reached stops waiting for the logs, in System.nanoTime */
+  private long halvingDeadlineNanos;
+
+  /** Counts the number of subjects replaced by freshly bred candidates in steady-state evolution */
+  private final AtomicLong replacedSubjectCount = new AtomicLong(0);
+
+  /** When each subject started its evaluation window, in steady-state evolution */
+  private final Map<SubjectStateBridge, Long> evaluationStarts = Maps.newConcurrentMap();
+
+  /**
+   * The dead subjects whose subjects in production await a replacement, still with their
+   * experimental settings
+   */
+  private final Queue<SubjectStateBridge> deadSubjects = new ConcurrentLinkedQueue<>();
+
+  /** Whether the breeder evolves the population a generation at a time after all */
+  private volatile boolean breederIsGenerational = false;
+
+  /** The next probe of each subject, such that no subject is probed by two tasks at a time */
+  private final Map<SubjectStateBridge, ScheduledFuture<?>> probes = Maps.newConcurrentMap();
+
+  /** Released when a probe sees a subject change state, to wake the main executor thread */
+  private final Semaphore stateTransitions = new Semaphore(0);
+
+  /** The most times the delay between the probes of a failing subject doubles */
+  private static final int MAX_PROBE_BACKOFF_DOUBLINGS = 3;
+
   private Experiment lastExperiment = null;
 
   /** The maximum per subject warm up time within the current experiment */
@@ -167,7 +262,9 @@ public class Executor extends ProfilingRunnable {
                   final MetricExporter metricExporter, final FileFactory fileFactory,
                   final ServingAddressGenerator servingAddressBuilder,
                   final CollectionLogAddressor addressor,
-                  final PipelineStageInfo pipelineStageInfo) {
+                  final PipelineStageInfo pipelineStageInfo,
+                  final ExtractionScheduler extractionScheduler,
+                  final Generator generator, final CandidateBreeder breeder) {
     super(clock, monitor);
 
     this.clock = clock;
@@ -183,6 +280,9 @@ public class Executor extends ProfilingRunnable {
     this.servingAddressBuilder = servingAddressBuilder;
     this.addressor = addressor;
     this.pipelineStageInfo = pipelineStageInfo;
+    this.extractionScheduler = extractionScheduler;
+    this.generator = generator;
+    this.breeder = breeder;
   }
 
   /**
@@ -201,92 +301,165 @@ public class Executor extends ProfilingRunnable {
 
 
   /**
-   * Synchronously restart all of the subjects in a given subject group. When this
-   * method returns all of the subjects have restarted
+   * Synchronously restart a given subject. When this method returns the subject
+   * will have restarted
    *
-   * @param subjectGroup The subject group whose subjects should be restarted
+   * @param subject The subject to be restarted
    * @param numTries How many times to try this operation before throwing an
    *        exception. Must be positive
    * @throws PermanentFailure when restarting fails
    */
-  private void restartGroup(SubjectGroup subjectGroup, int numTries) throws PermanentFailure {
+  private void restartSubject(Subject subject, int numTries) throws PermanentFailure {
     Preconditions.checkArgument(numTries > 0, "numTries must be positive.");
 
-    long switchRateLimit = subjectRestartRateLimit * 1000L;
-    long maxWaitMillis = -1;
     /** Number of milliseconds to backoff, which doubles each time. */
     int backoff = 1000;
-
     for (int i = 0; i < numTries; i++) {
       try {
-        manipulator.restartGroup(subjectGroup, switchRateLimit, maxWaitMillis);
+        manipulator.restartIndividual(subject, executorWaitForOneSubjectRestartMs);
         return;
       } catch (final Exception e) {
         log.log(Level.SEVERE,
-            String.format("Exception during subject group (%s) restart after %s tries.",
-                subjectGroup, numTries), e);
+            String.format("Exception during subject (%s) restart after %s tries.",
+                subject, numTries), e);
         sleep(backoff);
         backoff *= 2;
       }
     }
     throw new PermanentFailure(String.format(
-        "Unable to restart subject group after %s tries: %s", subjectGroup, numTries));
+        "Unable to restart subject after %s tries: %s", subject, numTries));
   }
 
   /**
-   * Synchronously restart a given subject. When this method returns the subject
-   * will have restarted
+   * Restart all of the subject groups listed in the config, at most
+   * maximum_inflight_subject_restart_count subjects at a time across all groups, and at most the
+   * share of each group given by max_subjects_in_flight_fraction. When
+   * this method returns each subject has restarted and is healthy, or has been given up on.
+   */
+  private void restartAllGroups(GroningenConfig config) {
+    restartGroups(initializeAllGroups(config));
+  }
+
+  /** Returns the subjects of each of the subject groups listed in the config, by group */
+  private Map<SubjectGroup, List<Subject>> initializeAllGroups(GroningenConfig config) {
+    final Map<SubjectGroup, List<Subject>> groups = Maps.newLinkedHashMap();
+    for (ClusterConfig cluster : config.getClusterConfigs()) {
+      String clusterName = cluster.getName();
+      for (SubjectGroupConfig subjectGroup : cluster.getSubjectGroupConfigs()) {
+        String groupName = subjectGroup.getName();
+        String userName = subjectGroup.getUser();
+        SubjectGroup group =
+            new SubjectGroup(clusterName, groupName, userName, subjectGroup, servingAddressBuilder);
+        groups.put(group, initializeGroup(group, 6));
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Restart the subjects of the given groups; see {@link #restartAllGroups}. With room for a
+   * single restart at a time, each group is restarted in turn by the {@link SubjectManipulator}
+   * instead, which does not wait for each subject to be healthy before restarting the next.
    *
-   * @param subject The subject to be restarted
+   * @throws RuntimeException if interrupted, with the thread's interrupt status set.
+   */
+  private void restartGroups(Map<SubjectGroup, List<Subject>> groups) {
+    if (subjectRestartRateLimit <= 1) {
+      for (Map.Entry<SubjectGroup, List<Subject>> group : groups.entrySet()) {
+        if (group.getValue().isEmpty()) {
+          continue;
+        }
+        try {
+          restartGroup(group.getKey(), 6);
+        } catch (PermanentFailure e) {
+          failedGroupRestartCount.incrementAndGet();
+          log.log(Level.SEVERE, "Could not restart all subjects.", e);
+        }
+      }
+      return;
+    }
+
+    final RestartOrchestrator orchestrator = new RestartOrchestrator(manipulator, healthQuerier,
+        executorWaitForOneSubjectRestartMs, new RestartOrchestrator.RestartListener() {
+          @Override
+          public void restartCompleted(Subject subject, boolean restarted, boolean healthy,
+              long elapsedMillis) {
+            if (!healthy) {
+              failedGroupRestartCount.incrementAndGet();
+            }
+            log.info(String.format("Restart of subject %s completed in %s ms; restarted: %s; "
+                + "healthy: %s.", subject, elapsedMillis, restarted, healthy));
+          }
+        });
+    try {
+      orchestrator.restartAll(Lists.newArrayList(groups.values()), subjectRestartRateLimit,
+          maxSubjectsInFlightFraction);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while restarting all subjects.", e);
+    }
+  }
+
+  /**
+   * Synchronously restart all of the subjects in a given subject group. When this
+   * method returns all of the subjects have restarted
+   *
+   * @param subjectGroup The subject group whose subjects should be restarted
    * @param numTries How many times to try this operation before throwing an
    *        exception. Must be positive
    * @throws PermanentFailure when restarting fails
    */
-  private void restartSubject(Subject subject, int numTries) throws PermanentFailure {
+  private void restartGroup(SubjectGroup subjectGroup, int numTries) throws PermanentFailure {
     Preconditions.checkArgument(numTries > 0, "numTries must be positive.");
 
+    long switchRateLimit = subjectRestartRateLimit * 1000L;
+    long maxWaitMillis = -1;
     /** Number of milliseconds to backoff, which doubles each time. */
     int backoff = 1000;
+
     for (int i = 0; i < numTries; i++) {
       try {
-        manipulator.restartIndividual(subject, executorWaitForOneSubjectRestartMs);
+        manipulator.restartGroup(subjectGroup, switchRateLimit, maxWaitMillis);
         return;
       } catch (final Exception e) {
         log.log(Level.SEVERE,
-            String.format("Exception during subject (%s) restart after %s tries.",
-                subject, numTries), e);
+            String.format("Exception during subject group (%s) restart after %s tries.",
+                subjectGroup, numTries), e);
         sleep(backoff);
         backoff *= 2;
       }
     }
     throw new PermanentFailure(String.format(
-        "Unable to restart subject after %s tries: %s", subject, numTries));
+        "Unable to restart subject group after %s tries: %s", subjectGroup, numTries));
   }
 
   /**
-   * Restart all of the subject groups listed in the config
+   * Returns the subjects of a group that we control.
+   *
+   * @param group The group to take the census of.
+   * @param numTries How many times to try this operation before giving up on the group. Must be
+   *        positive
+   * @return The subjects of the group, or none if the census failed.
    */
-  private void restartAllGroups(GroningenConfig config) {
-    for (ClusterConfig cluster : config.getClusterConfigs()) {
-      String clusterName = cluster.getName();
-      for (SubjectGroupConfig subjectGroup : cluster.getSubjectGroupConfigs()) {
-        String groupName = subjectGroup.getName();
-        String userName = subjectGroup.getUser();
-        // Restart the whole group; trying 6 times before logging an error and trying again.
-        SubjectGroup group =
-            new SubjectGroup(clusterName, groupName, userName, subjectGroup, servingAddressBuilder);
-        boolean notDone = true;
-        while(notDone) {
-          try {
-            group.initialize(manipulator);
-            restartGroup(group, 6);
-            notDone = false;
-          } catch (Exception e) {
-            log.log(Level.SEVERE, "Could not restart all subjects.", e);
-          }
-        }
+  private List<Subject> initializeGroup(SubjectGroup group, int numTries) {
+    Preconditions.checkArgument(numTries > 0, "numTries must be positive.");
+
+    /** Number of milliseconds to backoff, which doubles each time. */
+    int backoff = 1000;
+    for (int i = 0; i < numTries; i++) {
+      try {
+        return group.initialize(manipulator);
+      } catch (final Exception e) {
+        log.log(Level.SEVERE,
+            String.format("Exception during subject group (%s) census after %s tries.",
+                group, i + 1), e);
+        sleep(backoff);
+        backoff *= 2;
       }
     }
+    log.severe(String.format("Not restarting subject group %s, whose census failed %s times.",
+        group, numTries));
+    return ImmutableList.of();
   }
 
   /**
@@ -322,22 +495,29 @@ public class Executor extends ProfilingRunnable {
    * Generate warnings about any missing or unusual command line flags
   *
    * We check for these problems and possibly produce a warning:
-   *   1. Missing -XX:+PrintGCApplicationStoppedTime
+   *   1. Missing -XX:+PrintGCApplicationStoppedTime or, on JDK 9 and later, -Xlog:safepoint
    */
   private void checkCommandLine(String commandLine) {
     String warning;
 
     if (commandLine != null) {
-      if (!commandLine.contains("-XX:+PrintGCApplicationStoppedTime")) {
+      if (!logsPauseTimes(commandLine)) {
         warning = "Groningen requires that you set the JVM flag " +
-            "-XX:+PrintGCApplicationStoppedTime on your experimental " +
-            "subjects so that it can determine the subject's pause times";
+            "-XX:+PrintGCApplicationStoppedTime (or -Xlog:safepoint as of JDK 9) on your " +
+            "experimental subjects so that it can determine the subject's pause times";
         log.warning(warning);
         monitor.addWarning(warning);
       }
     }
   }
 
+  /** Whether the command line has the JVM log the pause times that the Extractor parses */
+  @VisibleForTesting
+  static boolean logsPauseTimes(final String commandLine) {
+    return commandLine.contains("-XX:+PrintGCApplicationStoppedTime")
+        || UNIFIED_SAFEPOINT_LOGGING.matcher(commandLine).find();
+  }
+
   /**
    * Provide the remaining time within the run of the experiment.
    *
@@ -367,6 +547,31 @@ public class Executor extends ProfilingRunnable {
     log.info("Experiment execution complete");
   }
 
+  /**
+   * Restart every subject of the groups listed in the config with default JVM settings, once the
+   * pipeline is over. Only needed with the OVERLAP_ITERATIONS executor_teardown_mode, in which the
+   * subjects keep the settings of the last experiment that ran on them; otherwise, they already
+   * run with default settings, and this does nothing.
+   */
+  public void restoreDefaults(GroningenConfig config) {
+    if (config.getParamBlock().getExecutorTeardownMode()
+        != ExecutorTeardownMode.OVERLAP_ITERATIONS) {
+      return;
+    }
+    log.info("Executor is restoring default settings on all subjects");
+    final Map<SubjectGroup, List<Subject>> groups = initializeAllGroups(config);
+
+    pipelineStageInfo.set(PipelineStageState.REMOVING_EXPERIMENTAL_ARGUMENTS);
+    for (List<Subject> group : groups.values()) {
+      for (Subject subject : group) {
+        subjectSettingsFileManager.delete(subject.getExpSettingsFile());
+      }
+    }
+
+    pipelineStageInfo.set(PipelineStageState.FINAL_TASK_RESTART);
+    restartGroups(groups);
+  }
+
   /**
    * The steps performed to intialize and otherwise setup before the experiment can run. These are
    * the steps we perform:
@@ -374,7 +579,7 @@ public class Executor extends ProfilingRunnable {
    *   2. Get the experiment we're going to execute
    *   3. Create a list of Subjects we are going to include in the experiment
    *   4. Query all of the subjects to store their restart times for later comparison
-   *   5. Create a new fixed thread pool to contain the Extractor threads we'll use for log analysis
+   *   5. Create a new fixed thread pool to contain the threads we'll use for subject probing
    *
    * The experiment duration and warmup times are summed and we start the experiment timer only
    * after restarting all the subjects.
@@ -417,6 +622,7 @@ public class Executor extends ProfilingRunnable {
 
           // Set the timestamp used to track the per subject warmup time when in the NEW state
           subject.setTimestamp(clock.now().getMillis());
+          evaluationStarts.put(subject, subject.getTimestamp());
 
           // Indicate this subject was started in the experiment in production
           subject.getSubjectRestart().subjectStarted();
@@ -431,14 +637,23 @@ public class Executor extends ProfilingRunnable {
         // The warmup must be added to the start time to provide all of the subjects time to warm up
         whenExperimentStarted = clock.now().getMillis();
 
-        // Create the thread services we'll use for experimental probing and extraction
-        extractorService = Executors.newFixedThreadPool(extractorNumberOfExtractorThreads);
-        executorService = Executors.newFixedThreadPool(
-            config.getParamBlock().getNumberOfExecutorThreads());
+        // Create the thread service we'll use for experimental probing. Probes that are not due
+        // yet are dropped once the experiment is over.
+        if (config.getParamBlock().getExecutorProbeMode() == ExecutorProbeMode.THREAD_PER_PROBE) {
+          // The scheduler only hands due probes over, so a single thread keeps time.
+          probeScheduler = new ScheduledThreadPoolExecutor(1);
+          probeExecutor =
+              new ProbeExecutor(config.getParamBlock().getExecutorMaxConcurrentProbes());
+        } else {
+          probeScheduler = new ScheduledThreadPoolExecutor(
+              config.getParamBlock().getNumberOfExecutorThreads());
+        }
+        probeScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
 
         log.info(String.format("The initial population size is: %s", subjects.size()));
 
         steadyState = true;
+        probing = true;
       } else {
         log.warning("Skipping experiment because there are no subjects.");
       }
@@ -454,24 +669,33 @@ public class Executor extends ProfilingRunnable {
       pipelineStageInfo.set(PipelineStageState.EXECUTOR_MAIN);
 
       do {
-        currentPopulationSize.set(subjects.size());
-        for (SubjectStateBridge subject : subjects) {
-          executorService.execute(new ExecutorStateMachine(config, subject));
+        final List<SubjectStateBridge> current;
+        synchronized (subjects) {
+          current = ImmutableList.copyOf(subjects);
         }
-        log.info(String.format("Main executor thread is sleeping between polling rounds for %s" +
-            " ms while the probing threads do their stuff", executorSleepBtwnPollingMetricsMs));
-        sleep(executorSleepBtwnPollingMetricsMs);
+        currentPopulationSize.set(current.size());
+        for (SubjectStateBridge subject : current) {
+          startProbing(config, subject);
+        }
+        awaitStateTransition();
+        halveAtCheckpoint(config);
+        replaceFinishedSubjects(config);
       } while (!experimentIsDone(config, subjects));
+      probing = false;
       log.info("Leaving steadyState as the experiment is done.");
     }
   }
 
   /**
    * These steps are performed to tear down and otherwise cleanup after running the experiment:
-   *   1. Restart subjects with default JVM settings and run Extractor on them
-   *   2. Shutdown the extractorService because we will not be sending it any more work
-   *   3. Wait for all of the Extractors to complete
+   *   1. Wait for all of the probing threads to complete, such that no probe sees the restarts
+   *   2. Restart subjects with default JVM settings, unless iterations overlap, and run Extractor
+   *      on them
+   *   3. Shutdown the extraction scheduler because we will not be sending it any more work
    *   4. Clear associated metrics
+   *
+   * The final extractions are not waited for here; the {@link Validator} waits for each subject's
+   * extractions before validating it.
    */
   private void postSteps(GroningenConfig config) {
     if (!steadyState) {
@@ -480,65 +704,186 @@ public class Executor extends ProfilingRunnable {
       log.info("Executor is performing its post steps");
       log.info(String.format("The final population size is %s.", subjects.size()));
 
-     // Restart subjects with default JVM settings and run Extractor on them
-      pipelineStageInfo.set(PipelineStageState.REMOVING_EXPERIMENTAL_ARGUMENTS);
-      for (SubjectStateBridge subject : subjects) {
-        // Clear the JVM settings protobuf to cause subjects to restart with default JVM settings
-        subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
-      }
-
-      pipelineStageInfo.set(PipelineStageState.FINAL_TASK_RESTART);
-      restartAllGroups(config);
-      for (SubjectStateBridge subject : subjects) {
-        log.info(String.format("Running extractor thread on %s.", subject.getHumanIdentifier()));
-        extractorService.execute(
-            new Extractor(config, subject, metricExporter, fileFactory, addressor));
-        successfullyExecutedSubjects.incrementAndGet();
-      }
+      // No probe may see the subjects restart with default settings, as it would count those
+      // restarts against them and parse their default-settings logs into the experiment.
+      probing = false;
 
       // Tell the services that we will not be sending them any more work
-      extractorService.shutdown();
-      executorService.shutdown();
+      probeScheduler.shutdown();
 
-      // Wait for all of the services to complete
+      // Wait for the probing threads to complete
+      boolean probesTerminated = false;
       try {
-        log.info("Executor is attempting to exit. "
-            + "We will wait up to 5 minutes for all Extractor threads to complete.");
-        if (!extractorService.awaitTermination(5, TimeUnit.MINUTES)) {
-          log.warning(
-              "Executor waited 5 minutes for all Extractor threads to complete, but they didn't.");
-        }
         log.info("Executor is attempting to exit. "
             + "We will wait up to 5 minutes for all Executor threads to complete.");
-        if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
+        probesTerminated = probeScheduler.awaitTermination(5, TimeUnit.MINUTES);
+        if (!probesTerminated) {
           log.warning(
               "Executor waited 5 minutes for all Executor threads to complete, but they didn't.");
         }
+        if (probeExecutor != null) {
+          // The scheduler hands no more probes over once it has terminated.
+          probeExecutor.shutdown();
+          if (!probeExecutor.awaitTermination(5, TimeUnit.MINUTES)) {
+            log.warning("Executor waited 5 minutes for all probes to complete, but they didn't.");
+            probesTerminated = false;
+          }
+        }
       } catch (InterruptedException e) {
         log.severe(e.toString());
+        probesTerminated = false;
+      }
+
+     // Restart subjects with default JVM settings and run Extractor on them
+      if (config.getParamBlock().getExecutorTeardownMode()
+          == ExecutorTeardownMode.OVERLAP_ITERATIONS) {
+        // The subjects keep running with their experimental settings until the next iteration
+        // restarts them with its own, or restoreDefaults does at the end of the pipeline.
+        log.info("Leaving experimental settings in place for the next iteration.");
+      } else {
+        pipelineStageInfo.set(PipelineStageState.REMOVING_EXPERIMENTAL_ARGUMENTS);
+        for (SubjectStateBridge subject : subjects) {
+          // Clear the JVM settings protobuf to cause subjects to restart with default JVM settings
+          subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
+        }
+        for (SubjectStateBridge subject : deadSubjects) {
+          // Dead subjects that were never replaced still have their experimental settings
+          subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
+        }
+
+        pipelineStageInfo.set(PipelineStageState.FINAL_TASK_RESTART);
+        restartAllGroups(config);
+      }
+      for (SubjectStateBridge subject : subjects) {
+        log.info(String.format("Running extractor thread on %s.", subject.getHumanIdentifier()));
+        extractionScheduler.submit(subject,
+            new Extractor(config, subject, metricExporter, fileFactory, addressor));
+        successfullyExecutedSubjects.incrementAndGet();
       }
 
+      // Probing threads may submit extractions, so the scheduler is only shut down after them.
+      extractionScheduler.shutdown();
+
       // Reset metrics.
       removeSubjectFromExperimentCount.set(0);
       subjectMissingAssociatedProcess.set(0);
       successfullyExecutedSubjects.set(0);
       restartedSubjectCount.set(0);
       currentPopulationSize.set(0);
+      retiredSubjectCount.set(0);
+      replacedSubjectCount.set(0);
+      failedGroupRestartCount.set(0);
 
-      // Reset properties
+      // Reset properties. Probes that are still running reach for the subjects and the probing
+      // services once they are done, so those are only let go of when every probe is over.
       lastExperiment = null;
-      subjects = null;
-      executorService = null;
-      extractorService = null;
+      if (probesTerminated) {
+        subjects = null;
+        probeScheduler = null;
+        probeExecutor = null;
+      }
+      probes.clear();
+      stateTransitions.drainPermits();
       steadyState = false;
       whenExperimentStarted = 0;
       maxWarmup = 0;
+      nextHalvingRung = 1;
+      halvingCandidates = null;
+      evaluationStarts.clear();
+      deadSubjects.clear();
+      breederIsGenerational = false;
     }
 
     // stop monitoring timeLeft
     monitor.stopMonitoringObject(timeLeft);
   }
 
+  /**
+   * Schedules the probing of a subject right away, unless it is probed already.
+   *
+   * @param config The config the subject is probed with.
+   * @param subject The subject to probe.
+   */
+  private void startProbing(GroningenConfig config, SubjectStateBridge subject) {
+    if (!probes.containsKey(subject)) {
+      scheduleProbe(new ExecutorStateMachine(config, subject), 0);
+    }
+  }
+
+  /**
+   * Schedules the given probe of a subject after the delay, or forgets it once the subject is no
+   * longer part of the running experiment.
+   */
+  private void scheduleProbe(ExecutorStateMachine probe, long delayMillis) {
+    final SubjectStateBridge subject = probe.subject;
+    if (!probing || probeScheduler.isShutdown() || !subjects.contains(subject)) {
+      probes.remove(subject);
+      return;
+    }
+    try {
+      probes.put(subject, probeScheduler.schedule(
+          probeExecutor == null ? probe : new ProbeHandover(probe), delayMillis,
+          TimeUnit.MILLISECONDS));
+    } catch (final RejectedExecutionException e) {
+      probes.remove(subject);
+    }
+  }
+
+  /** Hands a probe that came due on the scheduler over to the {@link ProbeExecutor} */
+  private class ProbeHandover implements Runnable {
+    private final ExecutorStateMachine probe;
+
+    ProbeHandover(ExecutorStateMachine probe) {
+      this.probe = probe;
+    }
+
+    @Override
+    public void run() {
+      try {
+        probeExecutor.execute(probe);
+      } catch (final RejectedExecutionException e) {
+        probes.remove(probe.subject);
+      }
+    }
+  }
+
+  /**
+   * Returns the delay until the next probe of a subject: the polling interval, doubled for each
+   * consecutive failed probe up to {@link #MAX_PROBE_BACKOFF_DOUBLINGS} times.
+   *
+   * @param failures The number of consecutive probes that failed or found the subject unhealthy.
+   * @param intervalMillis The polling interval.
+   */
+  @VisibleForTesting
+  static long probeDelayMillis(int failures, long intervalMillis) {
+    return intervalMillis << Math.min(Math.max(0, failures), MAX_PROBE_BACKOFF_DOUBLINGS);
+  }
+
+  /** Wakes the main executor thread, as a subject changed state */
+  private void signalStateTransition() {
+    stateTransitions.release();
+  }
+
+  /**
+   * Waits until a probe sees a subject change state, or for the polling interval, but no later
+   * than the end of the experiment.
+   */
+  private void awaitStateTransition() {
+    final long untilEnd = whenExperimentStarted + maxWarmup
+        + TimeUnit.MINUTES.toMillis(experimentDuration) - clock.now().getMillis();
+    final long timeout = Math.max(0, Math.min(executorSleepBtwnPollingMetricsMs, untilEnd));
+    log.info(String.format(
+        "Main executor thread is waiting up to %s ms for a subject to change state", timeout));
+    try {
+      if (stateTransitions.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+        // A single pass handles all of the transitions so far.
+        stateTransitions.drainPermits();
+      }
+    } catch (final InterruptedException e) {
+      return;
+    }
+  }
+
   /** Returns true when the experiment duration has elapsed and false otherwise */
   private boolean experimentIsDone(GroningenConfig config, List<SubjectStateBridge> subjects) {
     if (pipelineSynchronizer != null) {
@@ -571,23 +916,400 @@ public class Executor extends ProfilingRunnable {
    * @param subject The {@link SubjectStateBridge} to be removed.
    */
   private void removeSubjectFromExperiment(SubjectStateBridge subject) {
+    removeSubjectFromExperiment(subject, true);
+  }
+
+  /**
+   * Removes a {@link SubjectStateBridge} from the experiment.
+   *
+   * @param subject The {@link SubjectStateBridge} to be removed.
+   * @param restoreDefaults Whether to restart its subject with default JVM parameters, which is
+   *        not needed when the subject restarts with a replacement instead.
+   */
+  private void removeSubjectFromExperiment(SubjectStateBridge subject, boolean restoreDefaults) {
     subjects.remove(subject);
+    if (restoreDefaults) {
+      restoreDefaultSettings(subject);
+    }
+    removeSubjectFromExperimentCount.incrementAndGet();
+    subject.removeFromExperiment();
+    log.info(String.format("Removing subject from experiment %s.", subject.getHumanIdentifier()));
+  }
+
+  /**
+   * Resets a subject's JVM parameters to default values and restarts the subject.
+   *
+   * @param subject The {@link SubjectStateBridge} whose subject to restart.
+   */
+  private void restoreDefaultSettings(SubjectStateBridge subject) {
     subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
     try {
       restartSubject(subject.getAssociatedSubject(), 4);
     } catch (Exception e) {
       log.severe("Removing a subject, even though restart failed." + e.toString());
     }
-    removeSubjectFromExperimentCount.incrementAndGet();
-    subject.removeFromExperiment();
-    log.info(String.format("Removing subject from experiment %s.", subject.getHumanIdentifier()));
   }
 
-  /** This is the thread safe state machine that probes subjects during experiment execution */
+  /**
+   * Retires the worst experimental subjects once the experiment reaches its next checkpoint of
+   * successive halving, such that subjects that are plainly worse than the default subjects do not
+   * burden production for the rest of the experiment.
+   *
+   * The healthy subjects are scored on their logs so far. Up to executor_halving_retire_fraction of
+   * the experimental ones, worst first, are retired to default JVM settings, but only those that
+   * score below the mean of the default subjects, if there are any. Retired subjects are not
+   * removed from the experiment: they are scored on their logs up to the checkpoint. Subjects
+   * whose logs hold no pauses past warmup are not scored, as there is no evidence against them.
+   *
+   * The logs are parsed while the experiment carries on; each pass of the main loop checks on them
+   * until they are all parsed or extractor_completion_timeout_secs is over.
+   */
+  private void halveAtCheckpoint(GroningenConfig config) {
+    if (halvingCandidates == null && !startCheckpoint(config)) {
+      return;
+    }
+    if (System.nanoTime() - halvingDeadlineNanos < 0) {
+      for (final SubjectStateBridge subject : halvingCandidates) {
+        if (!extractionScheduler.completionOf(subject).isDone()) {
+          return;
+        }
+      }
+    }
+    final List<SubjectStateBridge> candidates = halvingCandidates;
+    halvingCandidates = null;
+
+    final Map<SubjectStateBridge, Double> provisionalScores = Maps.newLinkedHashMap();
+    final List<Double> baselineScores = Lists.newArrayList();
+    for (final SubjectStateBridge subject : candidates) {
+      // Subjects may have died or been replaced while their logs were parsed.
+      if (subject.getState() != SubjectStateBridge.State.HEALTHY || !subjects.contains(subject)) {
+        continue;
+      }
+      if (!extractionScheduler.completionOf(subject).isDone()) {
+        log.warning(String.format("Not scoring %s at the checkpoint as its logs are not parsed.",
+            subject.getHumanIdentifier()));
+        continue;
+      }
+      if (subject.getPauseTime().getSteadyStatePauseCount() == 0) {
+        log.info(String.format("Not scoring %s at the checkpoint as it has no pauses yet.",
+            subject.getHumanIdentifier()));
+        continue;
+      }
+      try {
+        final double score = FitnessScore.compute(subject, config);
+        if (subject.getAssociatedSubject().isDefault()) {
+          baselineScores.add(score);
+        } else {
+          provisionalScores.put(subject, score);
+        }
+      } catch (final RuntimeException e) {
+        log.log(Level.WARNING, String.format("Unable to score %s at the checkpoint.",
+            subject.getHumanIdentifier()), e);
+      }
+    }
+
+    for (final SubjectStateBridge subject : selectRetirees(provisionalScores, baselineScores,
+        config.getParamBlock().getExecutorHalvingRetireFraction())) {
+      log.info(String.format("Retiring %s with a provisional score of %s.",
+          subject.getHumanIdentifier(), provisionalScores.get(subject)));
+      retireSubjectFromExperiment(subject);
+    }
+  }
+
+  /**
+   * Starts parsing the logs of the healthy subjects once the experiment reaches its next
+   * checkpoint of successive halving, and returns whether it has.
+   */
+  private boolean startCheckpoint(GroningenConfig config) {
+    final int rungs = config.getParamBlock().getExecutorHalvingRungs();
+    if (nextHalvingRung > rungs || subjects.isEmpty()) {
+      return false;
+    }
+    final long checkpoint = whenExperimentStarted + maxWarmup
+        + halvingCheckpointOffsetMillis(nextHalvingRung, rungs, experimentDuration);
+    if (clock.now().getMillis() < checkpoint) {
+      return false;
+    }
+    log.info(String.format("Reached checkpoint %s of %s of successive halving.",
+        nextHalvingRung, rungs));
+    nextHalvingRung++;
+
+    final List<SubjectStateBridge> candidates = Lists.newArrayList();
+    synchronized (subjects) {
+      for (final SubjectStateBridge subject : subjects) {
+        if (subject.getState() == SubjectStateBridge.State.HEALTHY) {
+          candidates.add(subject);
+        }
+      }
+    }
+    final List<ListenableFuture<?>> completions = Lists.newArrayList();
+    for (final SubjectStateBridge subject : candidates) {
+      extractionScheduler.submit(subject,
+          new Extractor(config, subject, metricExporter, fileFactory, addressor));
+      completions.add(extractionScheduler.completionOf(subject));
+    }
+    // Wake the main loop as soon as the logs are parsed, rather than at the next poll.
+    Futures.successfulAsList(completions).addListener(new Runnable() {
+      @Override
+      public void run() {
+        signalStateTransition();
+      }
+    }, MoreExecutors.sameThreadExecutor());
+
+    halvingCandidates = candidates;
+    halvingDeadlineNanos =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(extractorCompletionTimeoutSecs);
+    return true;
+  }
+
+  /**
+   * Returns the time from the end of the warmup to the given checkpoint of successive halving,
+   * the checkpoints being evenly spaced across the experiment duration.
+   *
+   * @param rung The checkpoint, from 1 to rungs.
+   * @param rungs The number of checkpoints.
+   * @param durationMinutes The duration of the experiment.
+   */
+  @VisibleForTesting
+  static long halvingCheckpointOffsetMillis(int rung, int rungs, int durationMinutes) {
+    return TimeUnit.MINUTES.toMillis(durationMinutes) * rung / (rungs + 1);
+  }
+
+  /**
+   * Returns the subjects to retire at a checkpoint of successive halving: up to the given fraction
+   * of the scored subjects, worst first, and only those that score below the mean of the baseline
+   * scores when there are any.
+   *
+   * @param provisionalScores The score of each experimental subject on its logs so far.
+   * @param baselineScores The scores of the default subjects on their logs so far.
+   * @param retireFraction The largest fraction of the experimental subjects to retire.
+   */
+  @VisibleForTesting
+  static <T> List<T> selectRetirees(final Map<T, Double> provisionalScores,
+      final List<Double> baselineScores, final double retireFraction) {
+    final List<Map.Entry<T, Double>> ranked = Lists.newArrayList(provisionalScores.entrySet());
+    Collections.sort(ranked, new Comparator<Map.Entry<T, Double>>() {
+      @Override
+      public int compare(Map.Entry<T, Double> a, Map.Entry<T, Double> b) {
+        return Double.compare(a.getValue(), b.getValue());
+      }
+    });
+
+    double baseline = Double.POSITIVE_INFINITY;
+    if (!baselineScores.isEmpty()) {
+      double sum = 0.0;
+      for (final double score : baselineScores) {
+        sum += score;
+      }
+      baseline = sum / baselineScores.size();
+    }
+
+    final int limit = (int) Math.floor(Math.max(0.0, retireFraction) * ranked.size());
+    final List<T> retirees = Lists.newArrayListWithCapacity(limit);
+    for (int i = 0; i < limit && ranked.get(i).getValue() < baseline; i++) {
+      retirees.add(ranked.get(i).getKey());
+    }
+    return retirees;
+  }
+
+  /**
+   * Retires a {@link SubjectStateBridge} early by resetting its subject's JVM parameters to
+   * default values and restarting the subject. Unlike a removed subject, it remains part of the
+   * experiment, scored on its logs so far.
+   *
+   * @param subject The {@link SubjectStateBridge} to be retired.
+   */
+  private void retireSubjectFromExperiment(SubjectStateBridge subject) {
+    subjects.remove(subject);
+    subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
+    try {
+      restartSubject(subject.getAssociatedSubject(), 4);
+    } catch (Exception e) {
+      log.severe("Retiring a subject, even though restart failed." + e.toString());
+    }
+    retiredSubjectCount.incrementAndGet();
+  }
+
+  /**
+   * Replaces the experimental subjects whose evaluation window is over, or that died, by freshly
+   * bred candidates on the same subjects in production, such that the population evolves one
+   * subject at a time rather than waiting for the whole experiment.
+   *
+   * A finished subject is scored on its logs, a dead one with the worst fitness, and both remain
+   * part of the experiment; their replacements join it. A subject whose replacement could not run a
+   * whole window before the experiment ends keeps running until then instead.
+   */
+  private void replaceFinishedSubjects(GroningenConfig config) {
+    final int windowMinutes = config.getParamBlock().getExecutorSteadyStateWindowMinutes();
+    if (windowMinutes <= 0 || breederIsGenerational) {
+      restoreDeadSubjects();
+      return;
+    }
+    final long windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+    final long experimentEnd = whenExperimentStarted + maxWarmup
+        + TimeUnit.MINUTES.toMillis(experimentDuration);
+    final long nowMillis = clock.now().getMillis();
+
+    final Map<SubjectStateBridge, Double> finishedScores = Maps.newLinkedHashMap();
+    for (SubjectStateBridge subject = deadSubjects.poll(); subject != null;
+        subject = deadSubjects.poll()) {
+      if (canStartWindow(nowMillis, subject.getWarmupTimeoutMillis(), windowMillis,
+          experimentEnd)) {
+        finishedScores.put(subject, 0.0);
+      } else {
+        restoreDefaultSettings(subject);
+      }
+    }
+
+    final List<SubjectStateBridge> finished = Lists.newArrayList();
+    synchronized (subjects) {
+      for (final SubjectStateBridge subject : subjects) {
+        final Long start = evaluationStarts.get(subject);
+        if (start != null && subject.getState() == SubjectStateBridge.State.HEALTHY
+            && !subject.getAssociatedSubject().isDefault()
+            && nowMillis >= start + subject.getWarmupTimeoutMillis() + windowMillis
+            && canStartWindow(nowMillis, subject.getWarmupTimeoutMillis(), windowMillis,
+                experimentEnd)) {
+          finished.add(subject);
+        }
+      }
+    }
+    for (final SubjectStateBridge subject : finished) {
+      extractionScheduler.submit(subject,
+          new Extractor(config, subject, metricExporter, fileFactory, addressor));
+    }
+
+    final long deadlineNanos =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(extractorCompletionTimeoutSecs);
+    for (final SubjectStateBridge subject : finished) {
+      try {
+        if (!extractionScheduler.awaitCompletion(subject,
+            Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+          log.warning(String.format("Not replacing %s yet as its logs are not parsed.",
+              subject.getHumanIdentifier()));
+          continue;
+        }
+        finishedScores.put(subject, FitnessScore.compute(subject, config));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        restoreUnreplaced(finishedScores.keySet());
+        return;
+      } catch (final RuntimeException e) {
+        log.log(Level.WARNING, String.format("Unable to score %s; replacing it as the worst.",
+            subject.getHumanIdentifier()), e);
+        finishedScores.put(subject, 0.0);
+      }
+    }
+
+    final List<SubjectStateBridge> unreplaced = Lists.newArrayList(finishedScores.keySet());
+    for (final Map.Entry<SubjectStateBridge, Double> entry : finishedScores.entrySet()) {
+      if (!replaceSubject(entry.getKey(), entry.getValue())) {
+        restoreUnreplaced(unreplaced);
+        restoreDeadSubjects();
+        return;
+      }
+      unreplaced.remove(entry.getKey());
+    }
+  }
+
+  /**
+   * Returns whether a subject that died now will be replaced by a freshly bred candidate, such
+   * that its subject in production restarts with the replacement rather than with default settings.
+   */
+  private boolean awaitsReplacement(GroningenConfig config, SubjectStateBridge subject) {
+    final int windowMinutes = config.getParamBlock().getExecutorSteadyStateWindowMinutes();
+    if (windowMinutes <= 0 || breederIsGenerational
+        || subject.getAssociatedSubject().isDefault()) {
+      return false;
+    }
+    return canStartWindow(clock.now().getMillis(), subject.getWarmupTimeoutMillis(),
+        TimeUnit.MINUTES.toMillis(windowMinutes),
+        whenExperimentStarted + maxWarmup + TimeUnit.MINUTES.toMillis(experimentDuration));
+  }
+
+  /** Restarts the subjects of the dead subjects that await a replacement with default settings */
+  private void restoreDeadSubjects() {
+    for (SubjectStateBridge subject = deadSubjects.poll(); subject != null;
+        subject = deadSubjects.poll()) {
+      restoreDefaultSettings(subject);
+    }
+  }
+
+  /**
+   * Restarts the subjects of the dead subjects among the given ones with default settings, as
+   * they will not be replaced after all. The finished subjects that are alive keep running.
+   */
+  private void restoreUnreplaced(Collection<SubjectStateBridge> unreplaced) {
+    for (final SubjectStateBridge subject : unreplaced) {
+      if (subject.wasRemoved()) {
+        restoreDefaultSettings(subject);
+      }
+    }
+  }
+
+  /**
+   * Returns whether a replacement started now can warm up and run a whole evaluation window before
+   * the experiment ends.
+   *
+   * @param nowMillis The current time.
+   * @param warmupMillis The warmup time of the subject.
+   * @param windowMillis The evaluation window of steady-state evolution.
+   * @param experimentEndMillis When the experiment ends.
+   */
+  @VisibleForTesting
+  static boolean canStartWindow(long nowMillis, long warmupMillis, long windowMillis,
+      long experimentEndMillis) {
+    return nowMillis + warmupMillis + windowMillis <= experimentEndMillis;
+  }
+
+  /**
+   * Restarts the subject in production of a finished {@link SubjectStateBridge} with a candidate
+   * bred to replace it.
+   *
+   * @param finished The {@link SubjectStateBridge} whose evaluation is over.
+   * @param fitness The fitness of the finished subject.
+   * @return False if the breeder evolves the population a generation at a time instead.
+   */
+  private boolean replaceSubject(SubjectStateBridge finished, double fitness) {
+    final SubjectStateBridge replacement = breeder.breedReplacement(finished, fitness);
+    if (replacement == null) {
+      log.warning("Not replacing subjects, as the population was not set up for steady-state "
+          + "evolution when the pipeline started.");
+      breederIsGenerational = true;
+      return false;
+    }
+    subjects.remove(finished);
+    evaluationStarts.remove(finished);
+
+    final Subject subject = finished.getAssociatedSubject();
+    replacement.setAssociatedSubject(subject);
+    generator.writeExperimentArgs(replacement);
+    try {
+      restartSubject(subject, 4);
+    } catch (Exception e) {
+      log.severe("Replacing a subject, even though restart failed." + e.toString());
+    }
+    replacement.setTimestamp(clock.now().getMillis());
+    replacement.getSubjectRestart().subjectStarted();
+    evaluationStarts.put(replacement, replacement.getTimestamp());
+    subjects.add(replacement);
+    replacedSubjectCount.incrementAndGet();
+    log.info(String.format("Replaced subject %s of fitness %s by %s.",
+        finished.getHumanIdentifier(), fitness, replacement.getHumanIdentifier()));
+    return true;
+  }
+
+  /**
+   * This is the thread safe state machine that probes subjects during experiment execution. Each
+   * subject has a single one, which schedules itself again once it is done.
+   */
   class ExecutorStateMachine implements Runnable {
     private final GroningenConfig config;
     private final SubjectStateBridge subject;
 
+    /** The number of consecutive probes that failed or found the subject unhealthy */
+    private int failures = 0;
+
     public ExecutorStateMachine(GroningenConfig config, SubjectStateBridge subject) {
       this.config = config;
       this.subject = subject;
@@ -595,6 +1317,17 @@ public class Executor extends ProfilingRunnable {
 
     @Override
     public void run() {
+      try {
+        probe();
+      } finally {
+        scheduleProbe(this, probeDelayMillis(failures, executorSleepBtwnPollingMetricsMs));
+      }
+    }
+
+    private void probe() {
+      final SubjectStateBridge.State initialState = subject.getState();
+      final long initialRestartTime = subject.getSubjectRestart().getLastRestartTime();
+      boolean failed = false;
       try {
         // NEW subject processing
         if (subject.getState() == SubjectStateBridge.State.NEW) {
@@ -608,6 +1341,7 @@ public class Executor extends ProfilingRunnable {
         log.log(Level.WARNING,
             String.format("[MARKING UNHEALTHY]: %s.", subject.getHumanIdentifier(), e));
         subject.setState(SubjectStateBridge.State.UNHEALTHY);
+        failed = true;
       }
       // UNHEALTHY subject processing
       if (subject.getState() == SubjectStateBridge.State.UNHEALTHY) {
@@ -617,6 +1351,17 @@ public class Executor extends ProfilingRunnable {
       if (subject.getState() == SubjectStateBridge.State.DEAD) {
         steadyStateDead();
       }
+
+      // Subjects that are still warming up are not failing, so they are probed as often as ever.
+      if (failed || subject.getState() == SubjectStateBridge.State.UNHEALTHY) {
+        failures++;
+      } else if (subject.getState() == SubjectStateBridge.State.HEALTHY) {
+        failures = 0;
+      }
+      if (subject.getState() != initialState
+          || subject.getSubjectRestart().getLastRestartTime() != initialRestartTime) {
+        signalStateTransition();
+      }
     }
 
     private void steadyStateHealthy()
@@ -636,7 +1381,7 @@ public class Executor extends ProfilingRunnable {
           subject.setTimestamp(clock.now().getMillis());
         } else {
           log.info(String.format("Running extractor thread on %s.", subject.getHumanIdentifier()));
-          extractorService.execute(
+          extractionScheduler.submit(subject,
               new Extractor(config, subject, metricExporter, fileFactory, addressor));
         }
         subject.addCommandLineString(queryCommandLine(subject.getAssociatedSubject()));
@@ -659,7 +1404,14 @@ public class Executor extends ProfilingRunnable {
 
     private void steadyStateDead() {
       log.info(String.format("Removing dead subject %s.", subject.getHumanIdentifier()));
-      removeSubjectFromExperiment(subject);
+      if (awaitsReplacement(config, subject)) {
+        // Its subject in production restarts once, with the replacement, rather than with default
+        // settings first.
+        removeSubjectFromExperiment(subject, false);
+        deadSubjects.add(subject);
+      } else {
+        removeSubjectFromExperiment(subject);
+      }
     }
 
     private void steadyStateNew() throws NumberFormatException, SubjectInterrogationException {
@@ -749,5 +1501,20 @@ public class Executor extends ProfilingRunnable {
         "current_population_size",
         "The current population size of actively running subjects in the experiment",
         Metric.make(currentPopulationSize));
+
+    metricExporter.register(
+        "retired_subject_count",
+        "Counts the number of subjects retired early at the checkpoints of successive halving",
+        Metric.make(retiredSubjectCount));
+
+    metricExporter.register(
+        "failed_group_restart_count",
+        "Counts the number of subjects that did not come back healthy from group restarts",
+        Metric.make(failedGroupRestartCount));
+
+    metricExporter.register(
+        "replaced_subject_count",
+        "Counts the number of subjects replaced by bred candidates in steady-state evolution",
+        Metric.make(replacedSubjectCount));
   }
 }
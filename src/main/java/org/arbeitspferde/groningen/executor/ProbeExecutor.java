@@ -0,0 +1,140 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the probes of the {@link Executor} on a thread each, rather than on a fixed pool, such that
+ * the number of subjects probed at a time scales with the number of subjects.
+ *
+ * On a JVM with virtual threads, each probe runs on a virtual thread of its own, and a semaphore
+ * bounds the number of probes that run at a time. Otherwise, probes run on a pool of platform
+ * threads that grows up to that bound as probes come due and shrinks when they are idle, and the
+ * probes beyond it wait in line. Either way, the blocking calls of a probe only hold up the probe.
+ */
+class ProbeExecutor {
+  private static final Logger log = Logger.getLogger(ProbeExecutor.class.getCanonicalName());
+
+  /** How long an idle platform thread waits for another probe before it ends */
+  private static final long IDLE_THREAD_TIMEOUT_SECS = 60;
+
+  private final ExecutorService service;
+
+  /** The permits to run a probe on a virtual thread, or null on platform threads */
+  private final Semaphore permits;
+
+  /**
+   * @param maxConcurrentProbes The most probes that run at a time, which must be positive.
+   */
+  ProbeExecutor(final int maxConcurrentProbes) {
+    this(maxConcurrentProbes, newVirtualThreadPerTaskExecutor());
+  }
+
+  @VisibleForTesting
+  ProbeExecutor(final int maxConcurrentProbes, final ExecutorService virtualThreadService) {
+    Preconditions.checkArgument(maxConcurrentProbes > 0,
+        "The most concurrent probes must be positive.");
+    if (virtualThreadService != null) {
+      service = virtualThreadService;
+      permits = new Semaphore(maxConcurrentProbes);
+      log.info(String.format("Probing on virtual threads, at most %s at a time.",
+          maxConcurrentProbes));
+    } else {
+      final ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrentProbes,
+          maxConcurrentProbes, IDLE_THREAD_TIMEOUT_SECS, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setNameFormat("executor-probe-%d").setDaemon(true).build());
+      pool.allowCoreThreadTimeOut(true);
+      service = pool;
+      permits = null;
+      log.info(String.format("Virtual threads are not available; probing on up to %s threads.",
+          maxConcurrentProbes));
+    }
+  }
+
+  /** Returns whether the probes run on virtual threads */
+  boolean usesVirtualThreads() {
+    return permits != null;
+  }
+
+  /**
+   * Runs the probe on a thread of its own as soon as fewer than the most concurrent probes run.
+   *
+   * @throws java.util.concurrent.RejectedExecutionException once shut down.
+   */
+  void execute(final Runnable probe) {
+    if (permits == null) {
+      service.execute(probe);
+      return;
+    }
+    service.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          permits.acquire();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        try {
+          probe.run();
+        } finally {
+          permits.release();
+        }
+      }
+    });
+  }
+
+  /** Accepts no more probes; the ones already accepted still run */
+  void shutdown() {
+    service.shutdown();
+  }
+
+  /** Waits for the accepted probes to finish once shut down, and returns whether they have */
+  boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return service.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Returns an executor that starts a virtual thread for each task, or null if the JVM does not
+   * have virtual threads. The factory is looked up reflectively, as Groningen builds for JVMs
+   * without them.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final NoSuchMethodException e) {
+      return null;
+    } catch (final IllegalAccessException | InvocationTargetException e) {
+      log.log(Level.WARNING, "Unable to create virtual threads.", e);
+      return null;
+    }
+  }
+}
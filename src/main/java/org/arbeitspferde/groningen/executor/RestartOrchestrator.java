@@ -0,0 +1,265 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.arbeitspferde.groningen.subject.HealthQuerier;
+import org.arbeitspferde.groningen.subject.Subject;
+import org.arbeitspferde.groningen.subject.SubjectManipulator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Restarts the subjects of several subject groups concurrently, as a rolling restart that keeps
+ * each group mostly serving.
+ *
+ * At most a global budget of subjects restart at a time across all groups, and at most a share of
+ * each group, such that no group loses more than that share of its capacity. A subject holds its
+ * place in the budgets until it is healthy again, or until its health check gives up, so the next
+ * subjects start as soon as earlier ones are healthy rather than after a fixed delay. The groups
+ * take turns, such that they all make progress at once.
+ *
+ * A failed restart is retried a few times with backoff, after which the subject is given up on.
+ * Each subject's restart ends with a completion event to the {@link RestartListener}.
+ */
+class RestartOrchestrator {
+  private static final Logger log =
+      Logger.getLogger(RestartOrchestrator.class.getCanonicalName());
+
+  /** The most times a subject is restarted before it is given up on */
+  private static final int MAX_RESTART_ATTEMPTS = 4;
+
+  /** The delay before the first retry of a failed restart, which doubles with each retry */
+  private static final long INITIAL_BACKOFF_MILLIS = 1000L;
+
+  /** Receives the completion events of the restarts */
+  interface RestartListener {
+    /**
+     * Called once for each subject, from the thread that restarted it, before restartAll returns.
+     *
+     * @param subject The subject whose restart is over.
+     * @param restarted Whether the subject restarted.
+     * @param healthy Whether the subject was healthy after it restarted.
+     * @param elapsedMillis The time from the first restart attempt to the end of the health check.
+     */
+    void restartCompleted(Subject subject, boolean restarted, boolean healthy, long elapsedMillis);
+  }
+
+  private final SubjectManipulator manipulator;
+  private final HealthQuerier healthQuerier;
+  private final long restartDeadlineMillis;
+  private final RestartListener listener;
+  private final long initialBackoffMillis;
+
+  /** The number of subjects restarting across all groups, guarded by this */
+  private int inFlight = 0;
+
+  /**
+   * @param manipulator The means to restart subjects.
+   * @param healthQuerier The means to wait for restarted subjects to be healthy.
+   * @param restartDeadlineMillis The most time one restart attempt of a subject may take.
+   * @param listener The receiver of the completion events.
+   */
+  RestartOrchestrator(final SubjectManipulator manipulator, final HealthQuerier healthQuerier,
+      final long restartDeadlineMillis, final RestartListener listener) {
+    this(manipulator, healthQuerier, restartDeadlineMillis, listener, INITIAL_BACKOFF_MILLIS);
+  }
+
+  @VisibleForTesting
+  RestartOrchestrator(final SubjectManipulator manipulator, final HealthQuerier healthQuerier,
+      final long restartDeadlineMillis, final RestartListener listener,
+      final long initialBackoffMillis) {
+    this.manipulator = manipulator;
+    this.healthQuerier = healthQuerier;
+    this.restartDeadlineMillis = restartDeadlineMillis;
+    this.listener = listener;
+    this.initialBackoffMillis = initialBackoffMillis;
+  }
+
+  /**
+   * Returns the most subjects that may restart at a time across all groups, which is the
+   * configured maximum, but at least one.
+   *
+   * @param maxInflightRestarts The configured maximum_inflight_subject_restart_count.
+   */
+  static int getGlobalBudget(final int maxInflightRestarts) {
+    return Math.max(1, maxInflightRestarts);
+  }
+
+  /**
+   * Returns the most subjects of a group that may restart at a time, which is the group size
+   * divided by the divisor, rounded up.
+   *
+   * @param groupSize The number of subjects in the group.
+   * @param inFlightDivisor The configured max_subjects_in_flight_fraction.
+   */
+  static int getGroupBudget(final int groupSize, final int inFlightDivisor) {
+    final int divisor = Math.max(1, inFlightDivisor);
+    return Math.max(1, (groupSize + divisor - 1) / divisor);
+  }
+
+  /**
+   * Restarts every subject of the groups and returns once each of them is healthy again or given
+   * up on.
+   *
+   * @param groups The subjects of each group.
+   * @param maxInflightRestarts The configured maximum_inflight_subject_restart_count.
+   * @param inFlightDivisor The configured max_subjects_in_flight_fraction.
+   * @throws InterruptedException if interrupted while waiting; no further restarts start then.
+   */
+  void restartAll(final List<List<Subject>> groups, final int maxInflightRestarts,
+      final int inFlightDivisor) throws InterruptedException {
+    final List<GroupRestart> pending = Lists.newArrayList();
+    int subjectCount = 0;
+    for (final List<Subject> group : groups) {
+      if (!group.isEmpty()) {
+        pending.add(new GroupRestart(group, getGroupBudget(group.size(), inFlightDivisor)));
+        subjectCount += group.size();
+      }
+    }
+    if (subjectCount == 0) {
+      return;
+    }
+    final int budget = getGlobalBudget(maxInflightRestarts);
+    log.info(String.format("Restarting %s subjects in %s groups, at most %s at a time.",
+        subjectCount, pending.size(), budget));
+
+    final ExecutorService restarts = Executors.newFixedThreadPool(budget,
+        new ThreadFactoryBuilder().setNameFormat("executor-restart-%d").setDaemon(true).build());
+    try {
+      int turn = 0;
+      synchronized (this) {
+        while (!pending.isEmpty() || inFlight > 0) {
+          // Start the next subject of the first group, in turn, that has room in its budget.
+          GroupRestart next = null;
+          if (inFlight < budget) {
+            for (int i = 0; i < pending.size() && next == null; i++) {
+              final GroupRestart candidate = pending.get((turn + i) % pending.size());
+              if (candidate.inFlight < candidate.budget) {
+                next = candidate;
+              }
+            }
+          }
+          if (next == null) {
+            wait();
+            continue;
+          }
+          final Subject subject = next.remaining.poll();
+          if (next.remaining.isEmpty()) {
+            pending.remove(next);
+          } else {
+            turn = pending.indexOf(next) + 1;
+          }
+          inFlight++;
+          next.inFlight++;
+          restarts.execute(new SubjectRestart(subject, next));
+        }
+      }
+    } finally {
+      restarts.shutdown();
+    }
+  }
+
+  /** Releases the places in the budgets of a subject whose restart is over */
+  private synchronized void finished(final GroupRestart group) {
+    inFlight--;
+    group.inFlight--;
+    notifyAll();
+  }
+
+  /** The subjects of a group that have yet to restart, guarded by the orchestrator */
+  private static class GroupRestart {
+    final Deque<Subject> remaining;
+    final int budget;
+    int inFlight = 0;
+
+    GroupRestart(final List<Subject> subjects, final int budget) {
+      this.remaining = new ArrayDeque<>(subjects);
+      this.budget = budget;
+    }
+  }
+
+  /** Restarts a subject and waits for it to be healthy */
+  private class SubjectRestart implements Runnable {
+    private final Subject subject;
+    private final GroupRestart group;
+
+    SubjectRestart(final Subject subject, final GroupRestart group) {
+      this.subject = subject;
+      this.group = group;
+    }
+
+    @Override
+    public void run() {
+      final long start = System.currentTimeMillis();
+      boolean restarted = false;
+      boolean healthy = false;
+      try {
+        restarted = restart();
+        healthy = restarted && healthQuerier.blockUntilHealthy(subject);
+        if (restarted && !healthy) {
+          log.warning(String.format("Subject %s did not become healthy after it restarted.",
+              subject));
+        }
+      } catch (final RuntimeException e) {
+        log.log(Level.WARNING, String.format("Unable to restart subject %s.", subject), e);
+      }
+      // The event comes before the subject leaves the budgets, such that every event is in by the
+      // time restartAll returns.
+      try {
+        listener.restartCompleted(subject, restarted, healthy,
+            System.currentTimeMillis() - start);
+      } finally {
+        finished(group);
+      }
+    }
+
+    private boolean restart() {
+      long backoff = initialBackoffMillis;
+      for (int attempt = 1; attempt <= MAX_RESTART_ATTEMPTS; attempt++) {
+        try {
+          manipulator.restartIndividual(subject, restartDeadlineMillis);
+          return true;
+        } catch (final Exception e) {
+          log.log(Level.WARNING, String.format("Restart attempt %s of %s failed for subject %s.",
+              attempt, MAX_RESTART_ATTEMPTS, subject), e);
+        }
+        if (attempt < MAX_RESTART_ATTEMPTS) {
+          try {
+            TimeUnit.MILLISECONDS.sleep(backoff);
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+          }
+          backoff *= 2;
+        }
+      }
+      log.severe(String.format("Giving up on restarting subject %s after %s attempts.",
+          subject, MAX_RESTART_ATTEMPTS));
+      return false;
+    }
+  }
+}
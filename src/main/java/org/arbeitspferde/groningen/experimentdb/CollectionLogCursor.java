@@ -0,0 +1,126 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * CollectionLogCursor remembers how far the Extractor has read into a subject's garbage
+ * collection log, such that subsequent extractions only process the bytes that were appended
+ * since the previous pass.
+ *
+ * The identity of the log is tracked by a fingerprint of its leading bytes. When the log has been
+ * rotated, truncated, or replaced by a restarted subject, the fingerprint no longer matches and
+ * the cursor is rewound to the start of the new log.
+ *
+ * Callers must hold the monitor of this object while reading or advancing it.
+ */
+public class CollectionLogCursor {
+  /** The byte offset just past the last complete line that has been processed */
+  private long offset = 0;
+
+  /** The number of leading bytes covered by {@link #fingerprint}; 0 if no log was seen yet */
+  private int fingerprintLength = 0;
+
+  /** The checksum of the first {@link #fingerprintLength} bytes of the log */
+  private long fingerprint = 0;
+
+  /** Whether the last processed line was a pause time line */
+  private boolean withinPauseLineRun = false;
+
+  /** The number of times the log was found to be replaced and was read from the beginning */
+  private long rewindCount = 0;
+
+  /**
+   * What parsing carries over from one pass over the log to the next, such as the detected
+   * dialect of its lines; opaque to the cursor and null until the log is first parsed
+   */
+  private Object parserState = null;
+
+  /** Creation by package only */
+  CollectionLogCursor() { }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  /** Move the cursor forward to the given offset, which may not precede the current one. */
+  public void advanceTo(final long offset) {
+    Preconditions.checkArgument(offset >= this.offset,
+        "Cannot move cursor backwards from %s to %s.", this.offset, offset);
+    this.offset = offset;
+  }
+
+  public int getFingerprintLength() {
+    return fingerprintLength;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  /** Record the identity of the log that the cursor refers to. */
+  public void setFingerprint(final int fingerprintLength, final long fingerprint) {
+    Preconditions.checkArgument(fingerprintLength >= 0, "fingerprintLength may not be negative.");
+    this.fingerprintLength = fingerprintLength;
+    this.fingerprint = fingerprint;
+  }
+
+  public boolean isWithinPauseLineRun() {
+    return withinPauseLineRun;
+  }
+
+  public void setWithinPauseLineRun(final boolean withinPauseLineRun) {
+    this.withinPauseLineRun = withinPauseLineRun;
+  }
+
+  public Object getParserState() {
+    return parserState;
+  }
+
+  /** Keep the state of the parser for the next pass over the same log. */
+  public void setParserState(final Object parserState) {
+    this.parserState = parserState;
+  }
+
+  /** Forget everything about the previous log so that the next pass starts from byte zero. */
+  public void rewind() {
+    if (offset > 0) {
+      rewindCount++;
+    }
+    offset = 0;
+    fingerprintLength = 0;
+    fingerprint = 0;
+    withinPauseLineRun = false;
+    parserState = null;
+  }
+
+  /** Returns the number of times a log was replaced underneath this cursor */
+  public long getRewindCount() {
+    return rewindCount;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(CollectionLogCursor.class)
+        .add("offset", offset)
+        .add("fingerprintLength", fingerprintLength)
+        .add("fingerprint", fingerprint)
+        .add("rewindCount", rewindCount)
+        .toString();
+  }
+}
@@ -114,6 +114,15 @@ public class CommandLine {
     return jvmFlagSet.getValue(argument);
   }
 
+  /**
+   * Returns a compact hash of the command-line argument values.
+   *
+   * @see JvmFlagSet#getFingerprint()
+   */
+  public long getFingerprint() {
+    return jvmFlagSet.getFingerprint();
+  }
+
   public long getHeapSize() {
     return getValue(JvmFlag.HEAP_SIZE);
   }
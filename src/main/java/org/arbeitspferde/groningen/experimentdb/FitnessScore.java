@@ -16,9 +16,12 @@
 package org.arbeitspferde.groningen.experimentdb;
 
 
+import com.google.common.primitives.Doubles;
+
 import org.arbeitspferde.groningen.config.GroningenConfig;
 import org.arbeitspferde.groningen.proto.Params.GroningenParamsOrBuilder;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 // TODO(team): Provide an elegant way of exposing the fitness score metrics via the new
@@ -30,34 +33,63 @@ public class FitnessScore {
   /** Logger for this class */
   private static final Logger log = Logger.getLogger(FitnessScore.class.getCanonicalName());
 
+  /** The index of each objective in the array that {@link #computeObjectives} returns */
+  public static final int LATENCY_OBJECTIVE = 0;
+  public static final int THROUGHPUT_OBJECTIVE = 1;
+  public static final int MEMORY_OBJECTIVE = 2;
+
   /**
    * Returns the fitness score for the experiment identified by the record ID.
    */
   public static double compute(SubjectStateBridge bridge, GroningenConfig config) {
+    GroningenParamsOrBuilder params = config.getParamBlock();
+    double[] objectives = computeObjectives(bridge, config);
+    final String subjectSignature = bridge.getHumanIdentifier();
+
+    double a = checkValue(subjectSignature, "a", params.getLatencyWeight());
+    double x = objectives[LATENCY_OBJECTIVE];
+    double b = checkValue(subjectSignature, "b", params.getThroughputWeight());
+    double y = objectives[THROUGHPUT_OBJECTIVE];
+    double c = checkValue(subjectSignature, "c", params.getMemoryWeight());
+    double z = objectives[MEMORY_OBJECTIVE];
+    double d = checkValue(subjectSignature, "d", params.getGcStabilityWeight());
+    double w = checkValue(subjectSignature, "w",
+        bridge.getGcActivity().computeScore(GcActivity.ScoreType.STABILITY));
+    double result = checkValue(subjectSignature, "result (a * x + b * y + c * z + d * w)",
+        a * x + b * y + c * z + d * w);
+
+    return result;
+  }
+
+  /**
+   * Returns the unweighted latency, throughput and memory scores of the experiment, indexed by
+   * {@link #LATENCY_OBJECTIVE}, {@link #THROUGHPUT_OBJECTIVE} and {@link #MEMORY_OBJECTIVE}, which
+   * {@link #compute} combines with the configured weights. Greater scores are better.
+   */
+  public static double[] computeObjectives(SubjectStateBridge bridge, GroningenConfig config) {
     PauseTime pauseTime = bridge.getPauseTime();
     ResourceMetric resourceMetric = bridge.getResourceMetric();
     GroningenParamsOrBuilder params = config.getParamBlock();
 
     // TODO(team): better way of passing percentiles thru Subject?
     pauseTime.setPercentile(params.getPauseTimeLatencyScorePercentile());
+    pauseTime.setPercentiles(Doubles.toArray(params.getPauseTimeLatencyScorePercentilesList()));
 
     final String subjectSignature = bridge.getHumanIdentifier();
+    // Subjects are scored again at each checkpoint and replacement, so this is not worth an INFO.
+    if (log.isLoggable(Level.FINE)) {
+      log.fine(String.format("%s Pause time drift: %.6f secs/hour",
+          subjectSignature, pauseTime.getTimeline().getDriftSecondsPerHour()));
+    }
 
-    double a = checkValue(subjectSignature, "a", params.getLatencyWeight());
-    double x = checkValue(subjectSignature, "x",
+    final double[] objectives = new double[3];
+    objectives[LATENCY_OBJECTIVE] = checkValue(subjectSignature, "x",
         pauseTime.computeScore(PauseTime.ScoreType.LATENCY));
-    double b = checkValue(subjectSignature, "b", params.getThroughputWeight());
-    double y = checkValue(subjectSignature, "y",
+    objectives[THROUGHPUT_OBJECTIVE] = checkValue(subjectSignature, "y",
         pauseTime.computeScore(PauseTime.ScoreType.THROUGHPUT));
-    double c = checkValue(subjectSignature, "c", params.getMemoryWeight());
-    double z = checkValue(subjectSignature, "z",
+    objectives[MEMORY_OBJECTIVE] = checkValue(subjectSignature, "z",
         resourceMetric.computeScore(ResourceMetric.ScoreType.MEMORY));
-    double result = checkValue(subjectSignature, "result (a * x + b * y + c * z)",
-        a * x + b * y + c * z);
-
-    final String subjectIndex = Integer.toString(bridge.getAssociatedSubject().getIndex());
-
-    return result;
+    return objectives;
   }
 
   /** Checks that the double value is non-negative and not NaN */
@@ -0,0 +1,152 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import com.google.common.base.Objects;
+import com.google.common.util.concurrent.AtomicDouble;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GcActivity caches in memory the collections recorded for a subject as its GC log is parsed by
+ * the Extractor: how many young and full collections occurred, how much was promoted into the
+ * old generation, and how often the collector failed, e.g. due to a concurrent mode failure.
+ *
+ * Events are recorded by a single parser at a time; the counts may be read concurrently.
+ */
+public class GcActivity extends BaseComputeScore {
+  /** Use this to choose the type of score you'd like to compute */
+  public enum ScoreType {STABILITY};
+
+  private final AtomicLong youngCollectionCount = new AtomicLong();
+  private final AtomicLong fullCollectionCount = new AtomicLong();
+  private final AtomicLong concurrentModeFailureCount = new AtomicLong();
+  private final AtomicLong promotionFailureCount = new AtomicLong();
+  private final AtomicLong promotedKilobytes = new AtomicLong();
+
+  /** The time in seconds covered by the recorded events, summed across subject restarts */
+  private final AtomicDouble observedSeconds = new AtomicDouble();
+
+  /** The relative timestamp of the latest event; NaN until the first one was recorded */
+  private volatile double lastTimestamp = Double.NaN;
+
+  /** Creation by package only */
+  GcActivity() { }
+
+  /**
+   * Record a collection.
+   *
+   * @param full Whether the whole heap was collected.
+   * @param young Whether only the young generation was collected.
+   * @param relativeTimestamp The seconds since the subject's start at which it occurred.
+   */
+  void recordCollection(final boolean full, final boolean young, final double relativeTimestamp) {
+    if (full) {
+      fullCollectionCount.incrementAndGet();
+    } else if (young) {
+      youngCollectionCount.incrementAndGet();
+    }
+    observe(relativeTimestamp);
+  }
+
+  /** Record the kilobytes a young collection promoted into the old generation. */
+  void recordPromotion(final long kilobytes) {
+    if (kilobytes > 0) {
+      promotedKilobytes.addAndGet(kilobytes);
+    }
+  }
+
+  void recordPromotionFailure() {
+    promotionFailureCount.incrementAndGet();
+  }
+
+  void recordConcurrentModeFailure() {
+    concurrentModeFailureCount.incrementAndGet();
+  }
+
+  /**
+   * Extend the observed time span up to the timestamp. A timestamp that lies before the previous
+   * one means that the subject was restarted, so the span starts anew from it.
+   */
+  private void observe(final double relativeTimestamp) {
+    if (Double.isNaN(relativeTimestamp) || relativeTimestamp < 0.0) {
+      return;
+    }
+    final double previous = lastTimestamp;
+    if (!Double.isNaN(previous) && relativeTimestamp > previous) {
+      observedSeconds.addAndGet(relativeTimestamp - previous);
+    }
+    lastTimestamp = relativeTimestamp;
+  }
+
+  public long getYoungCollectionCount() {
+    return youngCollectionCount.get();
+  }
+
+  public long getFullCollectionCount() {
+    return fullCollectionCount.get();
+  }
+
+  public long getConcurrentModeFailureCount() {
+    return concurrentModeFailureCount.get();
+  }
+
+  public long getPromotionFailureCount() {
+    return promotionFailureCount.get();
+  }
+
+  public long getPromotedKilobytes() {
+    return promotedKilobytes.get();
+  }
+
+  /** Returns the kilobytes promoted per second, or 0.0 if no time span was observed yet */
+  public double getPromotionRate() {
+    final double seconds = observedSeconds.get();
+    return seconds > 0.0 ? promotedKilobytes.get() / seconds : 0.0;
+  }
+
+  @Override
+  protected double computeScoreImpl(final Enum scoreType) {
+    switch ((ScoreType) scoreType) {
+      case STABILITY:
+        return computeStabilityScore();
+      default:
+        return handleInvalidScoreType();
+    }
+  }
+
+  /**
+   * Full collections, concurrent mode failures and promotion failures each stop the application
+   * for far longer than a young collection, so the fewer there are, the higher the score.
+   */
+  private double computeStabilityScore() {
+    final long disruptions = fullCollectionCount.get() + concurrentModeFailureCount.get()
+        + promotionFailureCount.get();
+    return 1.0 / (1.0 + disruptions);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(GcActivity.class)
+        .add("youngCollectionCount", getYoungCollectionCount())
+        .add("fullCollectionCount", getFullCollectionCount())
+        .add("concurrentModeFailureCount", getConcurrentModeFailureCount())
+        .add("promotionFailureCount", getPromotionFailureCount())
+        .add("promotedKilobytes", getPromotedKilobytes())
+        .add("promotionRate", getPromotionRate())
+        .toString();
+  }
+}
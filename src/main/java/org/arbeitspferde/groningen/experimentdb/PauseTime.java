@@ -16,12 +16,12 @@
 package org.arbeitspferde.groningen.experimentdb;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AtomicDouble;
 
-import org.arbeitspferde.groningen.common.Statistics;
-
-import java.util.List;
-import java.util.Vector;
+import org.arbeitspferde.groningen.common.AppendOnlyDoubleArray;
+import org.arbeitspferde.groningen.common.DoubleSequence;
+import org.arbeitspferde.groningen.common.LogHistogram;
 
 /**
  * PauseTime caches in memory GC log data as it passes through the
@@ -33,22 +33,55 @@ import java.util.Vector;
  * when it creates a new set of experiments.
  */
 public class PauseTime extends BaseComputeScore {
-  // This number is partially informed by values derived from examining the JTA logs.
-  private static final int EXPECTED_NUMBER_OF_PAUSETIME_EVENTS_PER_SUBJECT_PER_EXPERIMENT = 100000;
-
   /** Use this to choose the typoe of score you'd like to compute */
   public enum ScoreType {LATENCY, THROUGHPUT};
 
-  /** The list of pause time values for this subject */
-  private final List<Double> pauseTimeDurations =
-      new Vector<>(EXPECTED_NUMBER_OF_PAUSETIME_EVENTS_PER_SUBJECT_PER_EXPERIMENT);
+  /** The shortest pause in seconds that the latency histogram tells apart from no pause */
+  private static final double SHORTEST_TRACKED_PAUSE_SECS = 1e-6;
+
+  /** The longest pause in seconds that the latency histogram tracks with full precision */
+  private static final double LONGEST_TRACKED_PAUSE_SECS = 1e5;
+
+  /** The relative error of latency percentiles unless configured otherwise */
+  private static final double DEFAULT_PERCENTILE_RELATIVE_ERROR = 0.01;
+
+  /** The pause time values for this subject */
+  private final AppendOnlyDoubleArray pauseTimeDurations = new AppendOnlyDoubleArray();
+
+  /**
+   * The seconds since the JVM start at which each of the pause time values occurred, in the same
+   * order; NaN where the log did not tell
+   */
+  private final AppendOnlyDoubleArray pauseTimestamps = new AppendOnlyDoubleArray();
 
   /** The total Java GC pause time for this subject */
-  private double pauseTimeDurationTotal;
+  private final AtomicDouble pauseTimeDurationTotal = new AtomicDouble();
+
+  /** The total Java GC pause time for this subject, excluding warmup */
+  private final AtomicDouble steadyStatePauseTimeTotal = new AtomicDouble();
+
+  /** The pauses after warmup, aggregated per minute */
+  private final PauseTimeline timeline = new PauseTimeline();
+
+  /**
+   * The pauses within this many seconds of a subject (re)start are considered warmup and do not
+   * count towards the score
+   */
+  private volatile double warmupExclusionSecs = 0.0;
+
+  /** The total time in seconds that this subject took to reach the safepoints of its pauses */
+  private final AtomicDouble timeToSafepointTotal = new AtomicDouble();
+
+  /** The pause time values for this subject, bucketed for estimating latency percentiles */
+  private volatile LogHistogram pauseTimeHistogram =
+      newHistogram(DEFAULT_PERCENTILE_RELATIVE_ERROR);
 
   /** The latency percentile */
   @VisibleForTesting double percentile;
 
+  /** The latency percentiles that are scored together; overrides percentile unless empty */
+  @VisibleForTesting double[] percentiles = new double[0];
+
   /** Creation by package only */
   PauseTime(final double percentile) {
     this.percentile = percentile;
@@ -61,9 +94,39 @@ public class PauseTime extends BaseComputeScore {
 
   /** Add the input pause time to the current pause time and store it */
   public void incrementPauseTime(final double pauseTime) {
-    this.pauseTimeDurations.add(pauseTime);
+    incrementPauseTime(pauseTime, Double.NaN);
+  }
+
+  /**
+   * Add the input pause time to the current pause time and store it along with the number of
+   * seconds since the JVM start at which it occurred, as reported by the GC log. Pauses whose
+   * timestamp is unknown (NaN) are never considered warmup.
+   */
+  public void incrementPauseTime(final double pauseTime, final double relativeTimestamp) {
+    this.pauseTimeDurations.append(pauseTime);
+    this.pauseTimestamps.append(relativeTimestamp);
+    this.pauseTimeDurationTotal.addAndGet(pauseTime);
+    aggregate(pauseTime, relativeTimestamp, pauseTimeHistogram);
+  }
+
+  /** Add the pause to the aggregates from which the score is computed, unless it is warmup */
+  private void aggregate(final double pauseTime, final double relativeTimestamp,
+      final LogHistogram histogram) {
+    if (relativeTimestamp < warmupExclusionSecs) {
+      timeline.observe(relativeTimestamp);
+      return;
+    }
+    histogram.record(pauseTime);
+    steadyStatePauseTimeTotal.addAndGet(pauseTime);
+    timeline.record(pauseTime, relativeTimestamp);
+  }
 
-    this.pauseTimeDurationTotal += pauseTime;
+  /**
+   * Add the time it took to bring the application threads to a safepoint, which the JVM reports
+   * as part of a pause recorded with {@link #incrementPauseTime}.
+   */
+  public void incrementTimeToSafepoint(final double timeToSafepoint) {
+    this.timeToSafepointTotal.addAndGet(timeToSafepoint);
   }
 
   protected double computeScoreImpl(final Enum scoreType) {
@@ -79,7 +142,17 @@ public class PauseTime extends BaseComputeScore {
 
   /** Returns the aggregated pause times for this subject */
   public double getPauseTimeTotal() {
-    return pauseTimeDurationTotal;
+    return pauseTimeDurationTotal.get();
+  }
+
+  /** Returns the number of pauses past warmup, from which the scores are computed */
+  public long getSteadyStatePauseCount() {
+    return pauseTimeHistogram.getCount();
+  }
+
+  /** Returns the aggregated time to safepoint of this subject's pauses, where it was reported */
+  public double getTimeToSafepointTotal() {
+    return timeToSafepointTotal.get();
   }
 
   /** Set the throughput percentile for this subject */
@@ -87,24 +160,109 @@ public class PauseTime extends BaseComputeScore {
     this.percentile = percentile;
   }
 
+  /**
+   * Set the latency percentiles that are scored together. The latency score is then the mean of
+   * the latency scores at each of them. An empty list reverts to the single percentile.
+   */
+  public void setPercentiles(final double... percentiles) {
+    for (final double p : percentiles) {
+      Preconditions.checkArgument(p >= 0 && p <= 100, "percentile must be between 0 and 100");
+    }
+    this.percentiles = percentiles.clone();
+  }
+
+  /**
+   * Set the largest relative error of the latency percentiles.
+   *
+   * Recorded pauses are rebucketed if the error changes, so this should be set before pauses are
+   * recorded; pauses recorded concurrently with rebucketing may be missed by the estimate.
+   */
+  public synchronized void setPercentileRelativeError(final double relativeError) {
+    if (relativeError == pauseTimeHistogram.getRelativeError()) {
+      return;
+    }
+    reaggregate(relativeError);
+  }
+
+  /**
+   * Exclude the pauses within the given number of minutes of each subject (re)start from the
+   * score, as the JVM is still warming up then. The restart is when the GC log's timestamps
+   * start over, which coincides with the time noted by {@link SubjectRestart#setLastRestartTime}.
+   *
+   * Like {@link #setPercentileRelativeError}, this should be set before pauses are recorded.
+   */
+  public synchronized void setWarmupExclusionMinutes(final double minutes) {
+    Preconditions.checkArgument(minutes >= 0, "minutes may not be negative.");
+    if (minutes * 60 == warmupExclusionSecs) {
+      return;
+    }
+    warmupExclusionSecs = minutes * 60;
+    reaggregate(pauseTimeHistogram.getRelativeError());
+  }
+
+  /** Rebuild the aggregates from which the score is computed from the recorded pauses */
+  private void reaggregate(final double relativeError) {
+    final LogHistogram histogram = newHistogram(relativeError);
+    final double[] durations = pauseTimeDurations.toArray();
+    final double[] timestamps = pauseTimestamps.toArray();
+    steadyStatePauseTimeTotal.set(0.0);
+    timeline.clear();
+    for (int i = 0; i < Math.min(durations.length, timestamps.length); i++) {
+      aggregate(durations[i], timestamps[i], histogram);
+    }
+    pauseTimeHistogram = histogram;
+  }
+
   private double computeLatencyScore() {
-    final double result = Statistics.computePercentile(getPauseDurations(), this.percentile);
-    if (result > 0.0) {
-      return 1.0 / result;
+    final LogHistogram histogram = pauseTimeHistogram;
+    if (percentiles.length == 0) {
+      return inverse(histogram.percentile(this.percentile));
+    }
+
+    double sum = 0.0;
+    for (final double p : percentiles) {
+      sum += inverse(histogram.percentile(p));
+    }
+    return sum / percentiles.length;
+  }
+
+  private static double inverse(final double latency) {
+    if (latency > 0.0) {
+      return 1.0 / latency;
     } else {
       return 0.0;
     }
   }
 
+  private static LogHistogram newHistogram(final double relativeError) {
+    return new LogHistogram(
+        relativeError, SHORTEST_TRACKED_PAUSE_SECS, LONGEST_TRACKED_PAUSE_SECS);
+  }
+
   private double computeThroughputScore() {
-    if (pauseTimeDurationTotal > 0.0) {
-      return 1.0 / pauseTimeDurationTotal;
+    final double total = steadyStatePauseTimeTotal.get();
+    if (total > 0.0) {
+      return 1.0 / total;
     } else {
       return 0.0;
     }
   }
 
-  public List<Double> getPauseDurations() {
-    return Lists.newArrayList(pauseTimeDurations);
+  /** Returns a read-only view of the pause time values, which grows as pauses are recorded */
+  public DoubleSequence getPauseDurations() {
+    return pauseTimeDurations.asReadOnly();
+  }
+
+  /**
+   * Returns a read-only view of the seconds since the JVM start at which the pauses of
+   * {@link #getPauseDurations} occurred, NaN where unknown
+   */
+  public DoubleSequence getPauseTimestamps() {
+    return pauseTimestamps.asReadOnly();
+  }
+
+  /** Returns the pauses after warmup, aggregated per minute */
+  public PauseTimeline getTimeline() {
+    return timeline;
   }
 }
@@ -0,0 +1,270 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import org.arbeitspferde.groningen.common.Statistics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PauseTimeline aggregates a subject's pauses per minute of its run in a ring buffer, such that
+ * the most recent minutes can be inspected for trends, e.g. pause times that creep up over a
+ * day-long experiment.
+ *
+ * Pauses are placed on the timeline by the timestamp relative to the JVM start with which the
+ * GC log reports them. These timestamps start over when the subject is restarted; a timestamp
+ * that lies before its predecessor therefore continues the timeline where the previous
+ * incarnation of the subject stopped.
+ *
+ * This is thread safe.
+ */
+public class PauseTimeline {
+  /** The number of minutes kept unless configured otherwise: one day */
+  public static final int DEFAULT_CAPACITY_MINUTES = 24 * 60;
+
+  /** The percentile of the pauses that is kept per minute */
+  private static final double PERCENTILE = 99;
+
+  private static final double SECONDS_PER_MINUTE = 60.0;
+
+  /**
+   * How far a timestamp may lie before its predecessor without being taken for a restart, as
+   * concurrent GC threads occasionally log slightly out of order
+   */
+  private static final double RESTART_TOLERANCE_SECS = 1.0;
+
+  /** The minute of the timeline held by each slot of the ring, or -1 if none */
+  private final long[] minutes;
+  private final long[] counts;
+  private final double[] sums;
+  private final double[] maxima;
+
+  /** The percentiles of the slots, which are computed as their minute is over */
+  private final double[] percentiles;
+
+  /** The seconds on the timeline at which the current incarnation of the subject started */
+  private double incarnationOffset = 0.0;
+
+  /** The latest relative timestamp observed; NaN until the first one */
+  private double lastTimestamp = Double.NaN;
+
+  /** The latest minute that received a pause, or -1 if none did yet */
+  private long currentMinute = -1;
+
+  /** The pauses of the current minute, from which its percentile is computed */
+  private double[] currentPauses = new double[16];
+  private int currentPauseCount = 0;
+
+  public PauseTimeline() {
+    this(DEFAULT_CAPACITY_MINUTES);
+  }
+
+  public PauseTimeline(final int capacityMinutes) {
+    Preconditions.checkArgument(capacityMinutes > 0, "capacityMinutes must be positive.");
+    minutes = new long[capacityMinutes];
+    counts = new long[capacityMinutes];
+    sums = new double[capacityMinutes];
+    maxima = new double[capacityMinutes];
+    percentiles = new double[capacityMinutes];
+    Arrays.fill(minutes, -1);
+  }
+
+  /**
+   * Note the passing of time without recording a pause, e.g. for a pause that is excluded from
+   * the aggregates, such that restarts of the subject are still recognized.
+   */
+  public synchronized void observe(final double relativeTimestamp) {
+    if (Double.isNaN(relativeTimestamp)) {
+      return;
+    }
+    if (!Double.isNaN(lastTimestamp)
+        && relativeTimestamp < lastTimestamp - RESTART_TOLERANCE_SECS) {
+      incarnationOffset += lastTimestamp;
+      lastTimestamp = relativeTimestamp;
+    } else if (Double.isNaN(lastTimestamp) || relativeTimestamp > lastTimestamp) {
+      lastTimestamp = relativeTimestamp;
+    }
+  }
+
+  /**
+   * Record a pause in the minute of the timeline that the relative timestamp falls into. Pauses
+   * without a timestamp cannot be placed and are ignored.
+   */
+  public synchronized void record(final double pauseSeconds, final double relativeTimestamp) {
+    if (Double.isNaN(relativeTimestamp)) {
+      return;
+    }
+    observe(relativeTimestamp);
+
+    final long minute =
+        (long) Math.floor((incarnationOffset + relativeTimestamp) / SECONDS_PER_MINUTE);
+    if (minute < currentMinute) {
+      // Logged out of order; a minute's percentile is final once the minute is over.
+      return;
+    }
+    if (minute != currentMinute) {
+      closeCurrentMinute();
+      currentMinute = minute;
+    }
+    final int slot = slotOf(minute);
+    if (minutes[slot] != minute) {
+      minutes[slot] = minute;
+      counts[slot] = 0;
+      sums[slot] = 0.0;
+      maxima[slot] = 0.0;
+      percentiles[slot] = Double.NaN;
+    }
+    counts[slot]++;
+    sums[slot] += pauseSeconds;
+    maxima[slot] = Math.max(maxima[slot], pauseSeconds);
+
+    if (currentPauseCount == currentPauses.length) {
+      currentPauses = Arrays.copyOf(currentPauses, currentPauses.length * 2);
+    }
+    currentPauses[currentPauseCount++] = pauseSeconds;
+  }
+
+  /** Forget all pauses and observed timestamps */
+  public synchronized void clear() {
+    Arrays.fill(minutes, -1);
+    incarnationOffset = 0.0;
+    lastTimestamp = Double.NaN;
+    currentMinute = -1;
+    currentPauseCount = 0;
+  }
+
+  /** Store the percentile of the current minute, whose pauses are then no longer needed */
+  private void closeCurrentMinute() {
+    if (currentMinute >= 0 && minutes[slotOf(currentMinute)] == currentMinute) {
+      percentiles[slotOf(currentMinute)] = currentPercentile();
+    }
+    currentPauseCount = 0;
+  }
+
+  private double currentPercentile() {
+    return Statistics.computePercentile(
+        Arrays.copyOf(currentPauses, currentPauseCount), PERCENTILE);
+  }
+
+  private int slotOf(final long minute) {
+    return (int) (minute % minutes.length);
+  }
+
+  /** Returns the minutes of the timeline that received pauses, from the oldest to the latest */
+  public synchronized List<Bucket> getBuckets() {
+    final ImmutableList.Builder<Bucket> buckets = ImmutableList.builder();
+    if (currentMinute < 0) {
+      return buckets.build();
+    }
+    for (long minute = Math.max(0, currentMinute - minutes.length + 1); minute <= currentMinute;
+        minute++) {
+      final int slot = slotOf(minute);
+      if (minutes[slot] != minute) {
+        continue;
+      }
+      final double percentile = minute == currentMinute ? currentPercentile() : percentiles[slot];
+      buckets.add(new Bucket(minute, counts[slot], sums[slot], maxima[slot], percentile));
+    }
+    return buckets.build();
+  }
+
+  /**
+   * Returns by how many seconds per hour the 99th percentile pause of a minute changes over the
+   * timeline, fitted by least squares, or 0.0 if fewer than two minutes received pauses. A
+   * positive drift means that pauses are getting longer as the subject runs.
+   */
+  public double getDriftSecondsPerHour() {
+    final List<Bucket> buckets = getBuckets();
+    if (buckets.size() < 2) {
+      return 0.0;
+    }
+    double meanMinute = 0.0;
+    double meanPercentile = 0.0;
+    for (final Bucket bucket : buckets) {
+      meanMinute += bucket.getMinute();
+      meanPercentile += bucket.getP99();
+    }
+    meanMinute /= buckets.size();
+    meanPercentile /= buckets.size();
+
+    double covariance = 0.0;
+    double variance = 0.0;
+    for (final Bucket bucket : buckets) {
+      final double minuteDeviation = bucket.getMinute() - meanMinute;
+      covariance += minuteDeviation * (bucket.getP99() - meanPercentile);
+      variance += minuteDeviation * minuteDeviation;
+    }
+    return covariance / variance * 60;
+  }
+
+  /** The aggregates of the pauses within one minute of the timeline */
+  public static final class Bucket {
+    private final long minute;
+    private final long count;
+    private final double sum;
+    private final double max;
+    private final double p99;
+
+    private Bucket(final long minute, final long count, final double sum, final double max,
+        final double p99) {
+      this.minute = minute;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+      this.p99 = p99;
+    }
+
+    /** Returns the number of minutes between the start of the timeline and this one */
+    public long getMinute() {
+      return minute;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns the total pause time within this minute in seconds */
+    public double getSum() {
+      return sum;
+    }
+
+    /** Returns the longest pause within this minute in seconds */
+    public double getMax() {
+      return max;
+    }
+
+    /** Returns the 99th percentile pause within this minute in seconds */
+    public double getP99() {
+      return p99;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toStringHelper(Bucket.class)
+          .add("minute", minute)
+          .add("count", count)
+          .add("sum", sum)
+          .add("max", max)
+          .add("p99", p99)
+          .toString();
+    }
+  }
+}
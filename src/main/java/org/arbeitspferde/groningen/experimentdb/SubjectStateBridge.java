@@ -96,8 +96,14 @@ public class SubjectStateBridge extends InMemoryCache.Value<SubjectStateBridge>
   /** Restart information for this subject */
   private final SubjectRestart subjectRestart = new SubjectRestart();
 
+  /** How far the Extractor has read into this subject's collection log */
+  private final CollectionLogCursor collectionLogCursor = new CollectionLogCursor();
+
+  /** Collection activity recorded from this subject's GC log */
+  private final GcActivity gcActivity = new GcActivity();
+
   /** Information collected so far on current GC event */
-  private Optional<ExperimentDbProtos.Gc> gcInfo = Optional.absent();
+  private Optional<ExperimentDbProtos.Gc.Builder> gcInfo = Optional.absent();
 
 
   /** Sequence number for GC events */
@@ -206,6 +212,16 @@ public class SubjectStateBridge extends InMemoryCache.Value<SubjectStateBridge>
     return subjectRestart;
   }
 
+  /** Return garbage collection activity metrics for this subject */
+  public GcActivity getGcActivity() {
+    return gcActivity;
+  }
+
+  /** Return the position of the Extractor within this subject's collection log */
+  public CollectionLogCursor getCollectionLogCursor() {
+    return collectionLogCursor;
+  }
+
   /** Returns the number of millis a subject can be unhealthy */
   public long getWarmupTimeoutMillis() {
     if (subject != null) {
@@ -279,33 +295,39 @@ public class SubjectStateBridge extends InMemoryCache.Value<SubjectStateBridge>
         commandLine.getUseSerialGC());
   }
 
-  /*
-   * TODO(team): The next 6 methods will need to be reworked when the new
-   * parsing system is incorporated. They are retained less as functionally
-   * active used, and more as a template for megastore interaction, and to
-   * allow/retain existing megastore tests, both of which will be needed again
-   * after the rework.
-   *
-   * drk @ 6/14/2012: Megastore dependency was removed.
-   */
   /**
-   * Start processing a new GC log entry
+   * Start processing a new GC log entry. The store methods below record the details of the entry
+   * until the next one is started; {@link #storeTop} completes it.
    */
   public void startTop() {
     ExperimentDbProtos.Gc.Builder gcBuilder = ExperimentDbProtos.Gc.newBuilder();
     gcBuilder.setSubjectId(getIdOfObject());
     gcBuilder.setId(++gcInfoCounter);
 
-    gcInfo = Optional.of(gcBuilder.build());
+    gcInfo = Optional.of(gcBuilder);
   }
 
+  /** Returns the GC log entry being processed, starting one if there is none yet */
+  private ExperimentDbProtos.Gc.Builder currentGcInfo() {
+    if (!gcInfo.isPresent()) {
+      startTop();
+    }
+    return gcInfo.get();
+  }
+
+  /** Returns what was collected so far on the current GC log entry, if any */
+  public Optional<ExperimentDbProtos.Gc> getCurrentGcEvent() {
+    if (!gcInfo.isPresent()) {
+      return Optional.absent();
+    }
+    return Optional.of(gcInfo.get().buildPartial());
+  }
 
   /** Store a new record in the Top GC Log table, which is the root table. */
   public void storeTop(boolean fullGc, int gcDeltaSize, int gcEndSize, int gcStartSize,
                        boolean partialGc, int recordCounter, double relativeTimestamp) {
 
-    final ExperimentDbProtos.Gc.Builder gcInfoMutator =
-        gcInfo.or(ExperimentDbProtos.Gc.getDefaultInstance()).toBuilder();
+    final ExperimentDbProtos.Gc.Builder gcInfoMutator = currentGcInfo();
 
     gcInfoMutator.setFull(fullGc);
     gcInfoMutator.setDeltaSize(gcDeltaSize);
@@ -315,136 +337,181 @@ public class SubjectStateBridge extends InMemoryCache.Value<SubjectStateBridge>
     gcInfoMutator.setRecordCounter(recordCounter);
     gcInfoMutator.setRelativeTimestamp(relativeTimestamp);
 
-    gcInfo = Optional.of(gcInfoMutator.build());
-
-    write("storeTopSubject", getIdOfObject(), fullGc, gcDeltaSize, gcEndSize, gcStartSize,
-        partialGc, recordCounter, relativeTimestamp);
-
-    summarizeGcEvent();
+    summarizeGcEvent(gcInfoMutator);
   }
 
   /**
    * This method is run once each GC event is completely parsed. It collects
-   * summary statistics (to be logged with the Subject), and summary information
-   * for later use by the Hypothesizer.
-   */
-  private void summarizeGcEvent() {
-    // TODO(team): Reenable this when we can trust the parser and then remove code from LogFilter
-    // if (gcInfo.hasConcurrentModeFailure()) {
-    //   pauseTime.incrementPauseTime(gcInfo.getConcurrentModeFailure().getPermTime());
-    // }
-    // if (gcInfo.hasParNew()) {
-    //   pauseTime.incrementPauseTime(gcInfo.getParNew().getParNewTime());
-    // }
-    // if (gcInfo.hasCmsInitialMark()) {
-    //   pauseTime.incrementPauseTime(gcInfo.getICms().getTime());
-    // }
-    // if (gcInfo.hasCmsRemark()) {
-    //   pauseTime.incrementPauseTime(gcInfo.getICms().getTime());
-    // }
-    // no summary stats yet
-  }
-
-  /*
-   * ***************************************************
-   * TODO(team): the remaining methods are all used by the old fragile parsing system and are
-   * retained because removing them introduces more risk of breaking the parser. When the parsing
-   * system is replaced these should be deleted or reworked.
-   * ***************************************************
-   */
-  /*
-   * Store a new record in the Incremental Concurrent Mark and Sweep GC Log table.
+   * summary information for later use by the Hypothesizer.
    */
+  private void summarizeGcEvent(final ExperimentDbProtos.GcOrBuilder event) {
+    gcActivity.recordCollection(event.getFull(), event.getPartial(), event.getRelativeTimestamp());
+
+    // Whatever the young generation freed beyond what the heap as a whole freed moved on into
+    // the old generation.
+    if (event.getPartial() && event.hasParNew() && !event.getParNew().getPromotionFailed()) {
+      final ExperimentDbProtos.ParNew parNew = event.getParNew();
+      final long youngFreed = parNew.getSurvivorStartSize() - parNew.getSurvivorEndSize();
+      final long heapFreed = event.getStartSize() - event.getEndSize();
+      gcActivity.recordPromotion(youngFreed - heapFreed);
+    }
+  }
+
+  /** Store a new record in the Incremental Concurrent Mark and Sweep GC Log table. */
   public void storeICms(Parent parent, double time, int icmsDc) {
+    final ExperimentDbProtos.ICms iCms =
+        ExperimentDbProtos.ICms.newBuilder().setTime(time).setDc(icmsDc).build();
+    if (parent == Parent.CONCURRENT_MODE_FAILURE) {
+      currentGcInfo().getConcurrentModeFailureBuilder().setICms(iCms);
+    } else {
+      currentGcInfo().setICms(iCms);
+    }
   }
 
   /** Store a new record in the Concurrent Mark and Sweep GC Log table. */
   public void storeCms(double time) {
+    currentGcInfo().getCmsBuilder().setTime(time);
   }
 
   /** Store a new GC record representing the CmsRemark phase. */
   public void storeCmsRemark(int startSize, int totalSize) {
+    currentGcInfo().getCmsRemarkBuilder().setStartSize(startSize).setTotalSize(totalSize);
   }
 
   /** Store a new record representing the CmsAbortPrecleanDueToTime phase. */
   public void storeCmsAbortPrecleanDueToTime(Parent parent, double time) {
+    if (parent == Parent.CMS) {
+      currentGcInfo().getCmsBuilder().setCmsAbortPrecleanDueToTime(time);
+    } else {
+      currentGcInfo().setCmsAbortPrecleanDueToTime(time);
+    }
   }
 
   /** Store a new record representing the WeakRefsProcessing phase. */
   public void storeWeakRefsProcessing(double time, double timestamp) {
+    currentGcInfo().setWeakRefsProcessing(stampedTime(time, timestamp));
   }
 
   /** Store a new record representing a ClassUnloading GC Log event. */
   public void storeClassUnloading(double time, double timestamp, List<String> className) {
+    currentGcInfo().setClassUnloading(ExperimentDbProtos.ClassUnloading.newBuilder()
+        .setWhen(stampedTime(time, timestamp))
+        .addAllClasses(className));
   }
 
   /** Store a new record representing the ScrubSymbolAndStringTables phase. */
   public void storeScrubSymbolAndStringTables(double time) {
+    currentGcInfo().setScrubSymbolsAndStringTables(time);
   }
 
   /** Store a new record representing the RescanParallel phase. */
   public void storeRescanParallel(double time, double timestamp) {
+    currentGcInfo().setRescanParallel(stampedTime(time, timestamp));
   }
 
   /** Store a new record representing the YgOccupancy phase. */
   public void storeYgOccupancy(int youngGenCurrentOccupancy, int youngGenTotalSize,
     double timestamp) {
+    currentGcInfo().getYgOccupancyBuilder()
+        .setCurrentOccupancy(youngGenCurrentOccupancy)
+        .setTotalSize(youngGenTotalSize)
+        .setTimestamp(timestamp);
   }
 
   /** Store a new record representing the ConcurrentModeFailure phase. */
   public void storeConcurrentModeFailure(int cmsGenSize, int cmsEndSize, double cmsTime,
       int permStartSize, int permEndSize, int permSize, double permTime, int tenuredStartSize,
       int tenuredEndSize, int tenuredSize, int cmsStartSize) {
+    currentGcInfo().getConcurrentModeFailureBuilder()
+        .setCmsGenSize(cmsGenSize)
+        .setCmsEndSize(cmsEndSize)
+        .setCmsTime(cmsTime)
+        .setPermStartSize(permStartSize)
+        .setPermEndSize(permEndSize)
+        .setPermSize(permSize)
+        .setPermTime(permTime)
+        .setTenuredStartSize(tenuredStartSize)
+        .setTenuredEndSize(tenuredEndSize)
+        .setTenuredSize(tenuredSize)
+        .setCmsStartSize(cmsStartSize);
+    gcActivity.recordConcurrentModeFailure();
   }
 
   /** Store a new record representing the SystemTimes phase. */
   public void storeSystemTimes(Parent parent, double real, double sys, double user) {
+    final ExperimentDbProtos.Usage usage = ExperimentDbProtos.Usage.newBuilder()
+        .setWallTime(real)
+        .setCpuTime(user)
+        .setSystemTime(sys)
+        .build();
+    if (parent == Parent.PARNEW && currentGcInfo().hasParNew()) {
+      currentGcInfo().getParNewBuilder().setSystemTimes(usage);
+    } else {
+      currentGcInfo().setSystemTimes(usage);
+    }
   }
 
   /** Store a new record representing the CmsConcurrentPreclean phase. */
   public void storeCmsConcurrentPreclean(double cpuTime, double wallTime) {
+    currentGcInfo().setCmsConcurrentPreclean(usage(cpuTime, wallTime));
   }
 
   /** Store a new record representing the CmsConcurrentMark phase. */
   public void storeCmsConcurrentMark(double cpuTime, double wallTime) {
+    currentGcInfo().setCmsConcurrentMark(usage(cpuTime, wallTime));
   }
 
   /** Store a new record representing the CmsConcurrentReset phase. */
   public void storeCmsConcurrentReset(double cpuTime, double wallTime) {
+    currentGcInfo().setCmsConcurrentReset(usage(cpuTime, wallTime));
   }
 
   /** Store a new record representing the CmsConcurrentSweep phase. */
   public void storeCmsConcurrentSweep(double cpuTime, double wallTime) {
+    currentGcInfo().setCmsConcurrentSweep(usage(cpuTime, wallTime));
   }
 
   /** Store a new record representing the CmsConcurrentMarkStart phase. */
   public void storeCmsConcurrentMarkStart() {
+    currentGcInfo().setCmsConcurrentMarkStart(true);
   }
 
   /** Store a new record representing the CmsConcurrentSweepStart phase. */
   public void storeCmsConcurrentSweepStart() {
+    currentGcInfo().setCmsConcurrentSweepStart(true);
   }
 
   /** Store a new record representing the CmsConcurrentResetStart phase. */
   public void storeCmsConcurrentResetStart() {
+    currentGcInfo().setCmsConcurrentResetStart(true);
   }
 
   /** Store a new record representing the CmsConcurrentPrecleanStart phase. */
   public void storeCmsConcurrentPrecleanStart() {
+    currentGcInfo().setCmsConcurrentPrecleanStart(true);
   }
 
   /**
    * Store a new record representing the CmsConcurrentAbortablePrecleanStart phase.
    */
   public void storeCmsConcurrentAbortablePrecleanStart() {
+    currentGcInfo().setCmsConcurrentAbortablePrecleanStart(true);
   }
 
   /** Store a new record representing the CmsConcurrentAbortablePreclean phase. */
   public void storeCmsConcurrentAbortablePreclean(Parent parent, double cpuTime, double wallTime) {
+    if (parent == Parent.CMS) {
+      currentGcInfo().getCmsBuilder().setCmsConcurrentAbortablePreclean(usage(cpuTime, wallTime));
+    } else {
+      currentGcInfo().setCmsConcurrentAbortablePreclean(usage(cpuTime, wallTime));
+    }
   }
 
   /** Store a new record representing the CmsInitialMark phase. */
   public void storeCmsInitialMark(int tenuredMaxSize, int triggeredAtOccupancySize) {
+    currentGcInfo().getCmsInitialMarkBuilder()
+        .setTenuredMaxSize(tenuredMaxSize)
+        .setTriggeredAtOccupancySize(triggeredAtOccupancySize);
   }
 
   /** Store a new record representing the ParNew (Young Generation) phase. */
@@ -452,6 +519,36 @@ public class SubjectStateBridge extends InMemoryCache.Value<SubjectStateBridge>
       int maxThreshold, int newThreshold, double parNewTime, boolean promotionFailed,
       List<Integer> ageSurvivorSizes, int survivorStartSize, int survivorEndSize,
       int survivorDeltaSize, List<Integer> ageTotalSurvivorSizes) {
+    currentGcInfo().setParNew(ExperimentDbProtos.ParNew.newBuilder()
+        .setAbortTime(abortTime)
+        .addAllAges(ages)
+        .setDesiredSurvivorSize(desiredSurvivorSize)
+        .setMaxThreshold(maxThreshold)
+        .setNewThreshold(newThreshold)
+        .setParNewTime(parNewTime)
+        .setPromotionFailed(promotionFailed)
+        .addAllAgeSurvivorSizes(ageSurvivorSizes)
+        .setSurvivorStartSize(survivorStartSize)
+        .setSurvivorEndSize(survivorEndSize)
+        .setSurvivorDeltaSize(survivorDeltaSize)
+        .addAllAgeTotalSurvivorSizes(ageTotalSurvivorSizes));
+    if (promotionFailed) {
+      gcActivity.recordPromotionFailure();
+    }
+  }
+
+  private static ExperimentDbProtos.StampedTime stampedTime(double time, double timestamp) {
+    return ExperimentDbProtos.StampedTime.newBuilder()
+        .setTime(time)
+        .setTimestamp(timestamp)
+        .build();
+  }
+
+  private static ExperimentDbProtos.Usage usage(double cpuTime, double wallTime) {
+    return ExperimentDbProtos.Usage.newBuilder()
+        .setCpuTime(cpuTime)
+        .setWallTime(wallTime)
+        .build();
   }
 
   public String getHumanIdentifier() {
@@ -163,6 +163,29 @@ public enum JvmFlag {
       .add(USE_SERIAL_GC)
       .build();
 
+  /** The flags that only the concurrent mark sweep collector honors */
+  private static final ImmutableSortedSet<JvmFlag> CMS_ONLY_FLAGS = ImmutableSortedSet.<JvmFlag>naturalOrder()
+      .add(CMS_EXP_AVG_FACTOR)
+      .add(CMS_INCREMENTAL_DUTY_CYCLE)
+      .add(CMS_INCREMENTAL_DUTY_CYCLE_MIN)
+      .add(CMS_INCREMENTAL_OFFSET)
+      .add(CMS_INCREMENTAL_SAFETY_FACTOR)
+      .add(CMS_INITIATING_OCCUPANCY_FRACTION)
+      .add(CMS_INCREMENTAL_MODE)
+      .add(CMS_INCREMENTAL_PACING)
+      .add(USE_CMS_INITIATING_OCCUPANCY_ONLY)
+      .build();
+
+  /** The flags that only the parallel collectors honor */
+  private static final ImmutableSortedSet<JvmFlag> PARALLEL_ONLY_FLAGS = ImmutableSortedSet.<JvmFlag>naturalOrder()
+      .add(ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR)
+      .add(GC_TIME_RATIO)
+      .add(MAX_GC_PAUSE_MILLIS)
+      .add(PARALLEL_GC_THREADS)
+      .add(TENURED_GENERATION_SIZE_INCREMENT)
+      .add(YOUNG_GENERATION_SIZE_INCREMENT)
+      .build();
+
   /**
    * Construct a new boolean flag.
    *
@@ -289,6 +312,27 @@ public enum JvmFlag {
     return GC_MODE_FLAGS;
   }
 
+  /**
+   * Returns whether the JVM honors this flag under the given GC mode, as
+   * {@link org.arbeitspferde.groningen.experimentdb.CommandLine#toArgumentString()} only emits the
+   * flags of the chosen collector. Flags that apply to every collector, such as heap sizing, are
+   * relevant to all GC modes.
+   *
+   * @param gcModeArgument One of {@link #getGcModeArguments()}.
+   */
+  public boolean isRelevantTo(final JvmFlag gcModeArgument) {
+    Preconditions.checkArgument(GC_MODE_FLAGS.contains(gcModeArgument),
+        "%s is not a GC mode.", gcModeArgument);
+
+    if (CMS_ONLY_FLAGS.contains(this)) {
+      return gcModeArgument == USE_CONC_MARK_SWEEP_GC;
+    }
+    if (PARALLEL_ONLY_FLAGS.contains(this)) {
+      return gcModeArgument == USE_PARALLEL_GC || gcModeArgument == USE_PARALLEL_OLD_GC;
+    }
+    return true;
+  }
+
   /**
    * Returns the GC mode command-line argument for the given GC mode.
    */
@@ -0,0 +1,126 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb.jvmflags;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The orderings between {@link JvmFlag} values without which a JVM refuses to start, or silently
+ * discards one of the values.
+ *
+ * Each constraint bounds a lesser flag by a greater one. As the command line omits flags whose
+ * value is zero, a constraint only binds when both of its flags are set and both are relevant to
+ * the GC mode. The constraints are declared such that lowering the lesser flag of one never breaks
+ * a constraint declared before it.
+ */
+public enum JvmFlagConstraint {
+  MAX_NEW_SIZE_BELOW_HEAP_SIZE(JvmFlag.MAX_NEW_SIZE, JvmFlag.HEAP_SIZE, true),
+
+  NEW_SIZE_BELOW_HEAP_SIZE(JvmFlag.NEW_SIZE, JvmFlag.HEAP_SIZE, true),
+
+  NEW_SIZE_AT_MOST_MAX_NEW_SIZE(JvmFlag.NEW_SIZE, JvmFlag.MAX_NEW_SIZE, false),
+
+  MIN_HEAP_FREE_RATIO_AT_MOST_MAX_HEAP_FREE_RATIO(
+      JvmFlag.MIN_HEAP_FREE_RATIO, JvmFlag.MAX_HEAP_FREE_RATIO, false),
+
+  CMS_INCREMENTAL_DUTY_CYCLE_MIN_AT_MOST_CMS_INCREMENTAL_DUTY_CYCLE(
+      JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, false);
+
+  private final JvmFlag lesser;
+  private final JvmFlag greater;
+  private final boolean strict;
+
+  private JvmFlagConstraint(final JvmFlag lesser, final JvmFlag greater, final boolean strict) {
+    this.lesser = lesser;
+    this.greater = greater;
+    this.strict = strict;
+  }
+
+  /** Returns the flag whose value is bounded from above */
+  public JvmFlag getLesser() {
+    return lesser;
+  }
+
+  /** Returns the flag whose value bounds the lesser flag */
+  public JvmFlag getGreater() {
+    return greater;
+  }
+
+  /** Returns whether the lesser value must be strictly below the greater one */
+  public boolean isStrict() {
+    return strict;
+  }
+
+  /**
+   * Returns whether the constraint binds under the given GC mode.
+   *
+   * @param gcModeArgument One of {@link JvmFlag#getGcModeArguments()}.
+   */
+  public boolean isRelevantTo(final JvmFlag gcModeArgument) {
+    return lesser.isRelevantTo(gcModeArgument) && greater.isRelevantTo(gcModeArgument);
+  }
+
+  /**
+   * Returns whether the values of the lesser and greater flags satisfy the constraint. Unset
+   * values, which are zero, satisfy it.
+   */
+  public boolean isSatisfiedBy(final long lesserValue, final long greaterValue) {
+    if (lesserValue == 0 || greaterValue == 0) {
+      return true;
+    }
+    return strict ? lesserValue < greaterValue : lesserValue <= greaterValue;
+  }
+
+  /**
+   * Returns whether the flags satisfy the constraint, or whether it does not bind under the GC
+   * mode that the flags choose.
+   */
+  public boolean isSatisfiedBy(final JvmFlagSet flags) {
+    final JvmFlag gcMode = findGcMode(flags);
+    if (gcMode != null && !isRelevantTo(gcMode)) {
+      return true;
+    }
+    return isSatisfiedBy(flags.getValue(lesser), flags.getValue(greater));
+  }
+
+  /**
+   * Returns the constraints that the flags violate, in declaration order.
+   *
+   * @param flags The flags to check.
+   * @return The violated constraints, empty if the flags are consistent.
+   */
+  public static List<JvmFlagConstraint> getViolations(final JvmFlagSet flags) {
+    final ImmutableList.Builder<JvmFlagConstraint> violations = ImmutableList.builder();
+    for (final JvmFlagConstraint constraint : values()) {
+      if (!constraint.isSatisfiedBy(flags)) {
+        violations.add(constraint);
+      }
+    }
+    return violations.build();
+  }
+
+  /** Returns the GC mode flag that is set, or null if none is */
+  private static JvmFlag findGcMode(final JvmFlagSet flags) {
+    for (final JvmFlag gcMode : JvmFlag.getGcModeArguments()) {
+      if (flags.getValue(gcMode) == 1) {
+        return gcMode;
+      }
+    }
+    return null;
+  }
+}
@@ -20,30 +20,45 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.logging.Logger;
 
 /**
  * An immutable class to represent a set of {@link JvmFlag}.
  *
  * It provides, among other things, semantic validation of the state of JVM flags at-large
- * throughout the system.
+ * throughout the system. The values are kept unboxed and indexed by {@link JvmFlag#ordinal()}.
  */
 public class JvmFlagSet {
   private static final Logger log = Logger.getLogger(JvmFlagSet.class.getCanonicalName());
 
-  private final Map<JvmFlag, Long> finalValues;
+  private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+  private static final JvmFlag[] FLAGS = JvmFlag.values();
+
+  /** The value of each flag, indexed by its ordinal */
+  private final long[] finalValues;
+
+  private final long fingerprint;
 
   /**
    * Non-instantiatiable; please use {@link Builder}.
    */
-  private JvmFlagSet(final Map<JvmFlag, Long> values) {
-    finalValues = new TreeMap<>(Preconditions.checkNotNull(
-        values, "values may not be null."));
+  private JvmFlagSet(final long[] values) {
+    finalValues = Preconditions.checkNotNull(values, "values may not be null.");
+
+    final Hasher hasher = FINGERPRINT_FUNCTION.newHasher();
+    for (int ordinal = 0; ordinal < finalValues.length; ordinal++) {
+      hasher.putInt(ordinal).putLong(finalValues[ordinal]);
+    }
+    fingerprint = hasher.hash().asLong();
   }
 
   /**
@@ -55,15 +70,28 @@ public class JvmFlagSet {
   public long getValue(final JvmFlag flag) {
     Preconditions.checkNotNull(flag, "flag may not be null.");
 
-    final Long value = finalValues.get(flag);
-    Preconditions.checkNotNull(value, "value should not be null: %s", flag);
-    return value;
+    return finalValues[flag.ordinal()];
+  }
+
+  /**
+   * Retrieve a compact hash of all flag values, which equal sets share and unequal sets share
+   * only with negligible probability. It is stable within a process but not across releases
+   * that change {@link JvmFlag}, so it must not be persisted.
+   *
+   * @return The 64-bit fingerprint.
+   */
+  public long getFingerprint() {
+    return fingerprint;
   }
 
   @Override
   public String toString() {
+    final Map<JvmFlag, Long> values = new EnumMap<>(JvmFlag.class);
+    for (final JvmFlag flag : FLAGS) {
+      values.put(flag, finalValues[flag.ordinal()]);
+    }
     return Objects.toStringHelper(JvmFlagSet.class)
-        .addValue(finalValues)
+        .addValue(values)
         .toString();
   }
 
@@ -72,9 +100,9 @@ public class JvmFlagSet {
    *
    */
   public static class Builder {
-    private final Map<JvmFlag, Long> assignedValues = new EnumMap<>(JvmFlag.class);
-    private static final Map<JvmFlag, Long> defaultValues =
-        new EnumMap<>(JvmFlag.class);
+    private final long[] assignedValues = new long[FLAGS.length];
+    private final boolean[] assigned = new boolean[FLAGS.length];
+    private static final long[] defaultValues = new long[FLAGS.length];
 
     static {
       // TODO(team): Evaluate whether more sensible defaults should be set.
@@ -92,9 +120,7 @@ public class JvmFlagSet {
        * @VFT allowDefaults()  method might give you the flexibility to make testing easy
        * without having us potentially lose flag values.
        */
-      for (final JvmFlag flag : JvmFlag.values()) {
-        defaultValues.put(flag, 0L);
-      }
+      Arrays.fill(defaultValues, 0L);
     }
 
     /**
@@ -115,12 +141,13 @@ public class JvmFlagSet {
 
       flag.validate(value);
 
-      if (assignedValues.get(flag) != null) {
+      if (assigned[flag.ordinal()]) {
         log.warning(String.format(
             "Flag %s is being reset in value; this is probably not intended.", flag));
       }
 
-      assignedValues.put(flag, value);
+      assignedValues[flag.ordinal()] = value;
+      assigned[flag.ordinal()] = true;
 
       return this;
     }
@@ -128,24 +155,27 @@ public class JvmFlagSet {
     /**
      * Yield the {@link JvmFlagSet} after performing validations and such.
      *
-     * All unassigned values will receive a system-determined default value.
+     * All unassigned values will receive a system-determined default value. Violations of a
+     * {@link JvmFlagConstraint} are logged rather than rejected.
      *
      * @return The final {@link JvmFlagSet}.
      */
     public JvmFlagSet build() {
-      final Map<JvmFlag, Long> emission = new EnumMap<>(JvmFlag.class);
-
-      for (final JvmFlag flag : defaultValues.keySet()) {
-        final Long defaultValue = defaultValues.get(flag);
-        final Long assignedValue = assignedValues.get(flag);
-
-        final Long actualValue = Objects.firstNonNull(assignedValue, defaultValue);
+      final long[] emission = new long[FLAGS.length];
 
-        emission.put(flag, actualValue);
+      for (int ordinal = 0; ordinal < FLAGS.length; ordinal++) {
+        emission[ordinal] = assigned[ordinal] ? assignedValues[ordinal] : defaultValues[ordinal];
       }
 
       validate();
-      return new JvmFlagSet(emission);
+      final JvmFlagSet flagSet = new JvmFlagSet(emission);
+      for (final JvmFlagConstraint violation : JvmFlagConstraint.getViolations(flagSet)) {
+        log.severe(String.format("XXX FIXME XXX - %s %s should be %s %s %s.",
+            violation.getLesser(), flagSet.getValue(violation.getLesser()),
+            violation.isStrict() ? "below" : "at most",
+            violation.getGreater(), flagSet.getValue(violation.getGreater())));
+      }
+      return flagSet;
     }
 
     /**
@@ -158,17 +188,6 @@ public class JvmFlagSet {
        *
        *  TODO(team): Evaluate fixing invalid value conditions.
        */
-      if (areAssigned(JvmFlag.HEAP_SIZE, JvmFlag.MAX_NEW_SIZE)) {
-        final long heapMinimum = assignedValues.get(JvmFlag.HEAP_SIZE);
-        final long maxNewSize = assignedValues.get(JvmFlag.MAX_NEW_SIZE);
-
-        if (maxNewSize >= heapMinimum) {
-          log.severe(String.format(
-              "XXX FIXME XXX - heapMinimum %s should never be smaller than maxNewSize %s.",
-              heapMinimum, maxNewSize));
-        }
-      }
-
       final List<JvmFlag> gcModes = ImmutableList.<JvmFlag>builder()
           .add(JvmFlag.USE_CONC_MARK_SWEEP_GC)
           .add(JvmFlag.USE_PARALLEL_GC)
@@ -180,7 +199,7 @@ public class JvmFlagSet {
 
       for (final JvmFlag flag : gcModes) {
         if (areAssigned(flag)) {
-          final long value = assignedValues.get(flag);
+          final long value = assignedValues[flag.ordinal()];
 
           if (value > 0) {
             setModes.add(flag);
@@ -210,7 +229,7 @@ public class JvmFlagSet {
      */
     private boolean areAssigned(final JvmFlag ...flags) {
       for (final JvmFlag flag : flags) {
-        if (!assignedValues.containsKey(flag)) {
+        if (!assigned[flag.ordinal()]) {
           return false;
         }
       }
@@ -238,11 +257,11 @@ public class JvmFlagSet {
 
     final JvmFlagSet that = (JvmFlagSet) o;
 
-    return finalValues.equals(that.finalValues);
+    return Arrays.equals(finalValues, that.finalValues);
   }
 
   @Override
   public int hashCode() {
-    return finalValues.hashCode();
+    return Arrays.hashCode(finalValues);
   }
 }
@@ -0,0 +1,75 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+/**
+ * Detects the dialect of a log from its first pause line and from then on decodes all lines
+ * with the decoder of that dialect only.
+ */
+class DetectingPauseLineDecoder implements PauseLineDecoder {
+  /** The decoders of the dialects that can be detected, in the order in which they are tried */
+  private final PauseLineDecoder[] candidates;
+
+  /** The decoder of the detected dialect, or null until a pause line was seen */
+  private PauseLineDecoder detected = null;
+
+  DetectingPauseLineDecoder() {
+    this(new UnifiedPauseLineDecoder(), new LegacyPauseLineDecoder());
+  }
+
+  DetectingPauseLineDecoder(final PauseLineDecoder... candidates) {
+    this.candidates = candidates.clone();
+  }
+
+  @Override
+  public boolean decode(final String line) {
+    if (detected != null) {
+      return detected.decode(line);
+    }
+    for (final PauseLineDecoder candidate : candidates) {
+      if (candidate.decode(line)) {
+        detected = candidate;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the decoder of the detected dialect, or null if no pause line was seen yet */
+  PauseLineDecoder getDetected() {
+    return detected;
+  }
+
+  @Override
+  public double getTimestamp() {
+    return detected.getTimestamp();
+  }
+
+  @Override
+  public double getPauseSeconds() {
+    return detected.getPauseSeconds();
+  }
+
+  @Override
+  public double getTimeToSafepointSeconds() {
+    return detected.getTimeToSafepointSeconds();
+  }
+
+  @Override
+  public boolean repeatsConsecutivePauses() {
+    return detected == null || detected.repeatsConsecutivePauses();
+  }
+}
@@ -0,0 +1,377 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AtomicDouble;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+import org.arbeitspferde.groningen.config.NamedConfigParam;
+import org.arbeitspferde.groningen.config.PipelineIterationScoped;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.utility.Metric;
+import org.arbeitspferde.groningen.utility.MetricExporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The ExtractionScheduler runs {@link Extractor}s for the subjects of a pipeline iteration.
+ *
+ * Parsing is CPU bound and happens on a pool sized to the available processors. Reading the logs
+ * happens on a separate pool bounded by extractor_number_of_extractor_threads, which fetches log
+ * blocks ahead of the parser into a small bounded buffer. A fetch is only started once its parser
+ * runs, so a fetch never waits on a parser that cannot make progress.
+ *
+ * Each submission yields a future, and {@link #completionOf(SubjectStateBridge)} combines all
+ * submissions for a subject, such that consumers such as the Validator can wait for exactly the
+ * subjects they need.
+ */
+@PipelineIterationScoped
+public class ExtractionScheduler {
+  private static final Logger log = Logger.getLogger(ExtractionScheduler.class.getCanonicalName());
+
+  /** The size of the blocks in which logs are fetched ahead of the parser */
+  private static final int PREFETCH_BLOCK_SIZE = 1024 * 1024;
+
+  /** The number of fetched blocks that may wait for the parser per log */
+  private static final int PREFETCH_BLOCK_CAPACITY = 4;
+
+  /** How often a blocked fetch checks whether its parser has gone away */
+  private static final long PREFETCH_OFFER_TIMEOUT_MS = 100;
+
+  private static final AtomicBoolean hasRegistered = new AtomicBoolean(false);
+  private static final AtomicLong extractionCount = new AtomicLong();
+  private static final AtomicLong extractionLatencyMsTotal = new AtomicLong();
+  private static final AtomicLong lastExtractionLatencyMs = new AtomicLong();
+  private static final AtomicDouble lastExtractionBytesPerSecond = new AtomicDouble();
+  private static final AtomicLong pendingExtractionCount = new AtomicLong();
+
+  @Inject
+  @NamedConfigParam("extractor_number_of_extractor_threads")
+  private final int extractorNumberOfExtractorThreads =
+      GroningenParams.getDefaultInstance().getExtractorNumberOfExtractorThreads();
+
+  private final MetricExporter metricExporter;
+
+  /** The submissions per subject, guarded by this */
+  private final Map<SubjectStateBridge, List<ListenableFuture<?>>> submissions = Maps.newHashMap();
+
+  private ListeningExecutorService parseService;
+  private ExecutorService fetchService;
+  private boolean shutdown = false;
+
+  private final LogPrefetcher prefetcher = new LogPrefetcher() {
+    @Override
+    public InputStream prefetch(final InputStream unprocessed) {
+      final PrefetchedInputStream prefetched = new PrefetchedInputStream();
+      try {
+        fetchService.execute(new Runnable() {
+          @Override
+          public void run() {
+            prefetched.fetchFrom(unprocessed);
+          }
+        });
+      } catch (final RejectedExecutionException e) {
+        log.log(Level.WARNING, "Unable to fetch ahead; reading directly.", e);
+        return unprocessed;
+      }
+      return prefetched;
+    }
+  };
+
+  @Inject
+  public ExtractionScheduler(final MetricExporter metricExporter) {
+    this.metricExporter = metricExporter;
+  }
+
+  /**
+   * Run the Extractor for the subject.
+   *
+   * @return A future that completes once the Extractor has run.
+   */
+  public synchronized ListenableFuture<?> submit(final SubjectStateBridge subject,
+      final Extractor extractor) {
+    Preconditions.checkState(!shutdown, "ExtractionScheduler has been shut down.");
+    startServices();
+
+    extractor.setPrefetcher(prefetcher);
+    pendingExtractionCount.incrementAndGet();
+    final ListenableFuture<?> future = parseService.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          runTimed(subject, extractor);
+        } finally {
+          pendingExtractionCount.decrementAndGet();
+        }
+      }
+    });
+
+    List<ListenableFuture<?>> subjectSubmissions = submissions.get(subject);
+    if (subjectSubmissions == null) {
+      subjectSubmissions = Lists.newArrayList();
+      submissions.put(subject, subjectSubmissions);
+    }
+    subjectSubmissions.add(future);
+    return future;
+  }
+
+  /**
+   * Returns a future that completes once all extractions submitted for the subject so far have
+   * completed, successfully or not.
+   */
+  public synchronized ListenableFuture<?> completionOf(final SubjectStateBridge subject) {
+    final List<ListenableFuture<?>> subjectSubmissions = submissions.get(subject);
+    if (subjectSubmissions == null) {
+      return Futures.immediateFuture(null);
+    }
+    return Futures.successfulAsList(subjectSubmissions);
+  }
+
+  /**
+   * Wait for all extractions submitted for the subject so far.
+   *
+   * @return Whether they completed within the timeout.
+   */
+  public boolean awaitCompletion(final SubjectStateBridge subject, final long timeout,
+      final TimeUnit unit) throws InterruptedException {
+    try {
+      completionOf(subject).get(timeout, unit);
+      return true;
+    } catch (final TimeoutException e) {
+      return false;
+    } catch (final ExecutionException e) {
+      // successfulAsList does not fail; failed extractions have been logged by the Extractor.
+      return true;
+    }
+  }
+
+  /**
+   * Accept no further submissions. Submitted extractions still run, after which the threads of
+   * the scheduler exit.
+   */
+  public synchronized void shutdown() {
+    shutdown = true;
+    if (parseService == null) {
+      return;
+    }
+
+    parseService.shutdown();
+    final List<ListenableFuture<?>> all = Lists.newArrayList();
+    for (final List<ListenableFuture<?>> subjectSubmissions : submissions.values()) {
+      all.addAll(subjectSubmissions);
+    }
+    final ExecutorService fetches = fetchService;
+    // Parsers start fetches, so the fetch pool may only go once all parsers are done.
+    Futures.successfulAsList(all).addListener(new Runnable() {
+      @Override
+      public void run() {
+        fetches.shutdown();
+      }
+    }, MoreExecutors.sameThreadExecutor());
+  }
+
+  private void startServices() {
+    if (parseService != null) {
+      return;
+    }
+
+    final int parseThreads = Runtime.getRuntime().availableProcessors();
+    log.info(String.format("Starting extraction with %s parse and %s fetch threads.",
+        parseThreads, extractorNumberOfExtractorThreads));
+
+    parseService = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(parseThreads,
+        new ThreadFactoryBuilder().setNameFormat("extractor-parse-%d").setDaemon(true).build()));
+    fetchService = Executors.newFixedThreadPool(extractorNumberOfExtractorThreads,
+        new ThreadFactoryBuilder().setNameFormat("extractor-fetch-%d").setDaemon(true).build());
+
+    if (!hasRegistered.getAndSet(true)) {
+      metricExporter.register(
+          "extractor_extractions_total",
+          "The total number of subject log extractions run.",
+          Metric.make(extractionCount));
+      metricExporter.register(
+          "extractor_extraction_latency_ms_total",
+          "The total time in milliseconds spent extracting subject logs.",
+          Metric.make(extractionLatencyMsTotal));
+      metricExporter.register(
+          "extractor_last_extraction_latency_ms",
+          "The time in milliseconds the most recent subject log extraction took.",
+          Metric.make(lastExtractionLatencyMs));
+      metricExporter.register(
+          "extractor_last_extraction_bytes_per_second",
+          "The rate at which the most recent subject log extraction parsed its log.",
+          Metric.make(lastExtractionBytesPerSecond));
+      metricExporter.register(
+          "extractor_pending_extractions",
+          "The number of subject log extractions submitted but not yet completed.",
+          Metric.make(pendingExtractionCount));
+    }
+  }
+
+  private static void runTimed(final SubjectStateBridge subject, final Extractor extractor) {
+    final long start = System.nanoTime();
+    extractor.run();
+    final long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+    final long bytes = extractor.getParsedByteCount();
+    final long latencyMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    final double bytesPerSecond = bytes / (elapsedNanos / 1e9);
+    extractionCount.incrementAndGet();
+    extractionLatencyMsTotal.addAndGet(latencyMs);
+    lastExtractionLatencyMs.set(latencyMs);
+    lastExtractionBytesPerSecond.set(bytesPerSecond);
+
+    log.info(String.format("Extracted %s bytes for %s in %s ms (%.0f bytes/s).", bytes,
+        subject.getHumanIdentifier(), latencyMs, bytesPerSecond));
+  }
+
+  /**
+   * A stream over blocks that a fetch thread reads ahead into a bounded queue. Fetching stops at
+   * the end of the source, on a read failure, which is rethrown to the reader, or once the
+   * reader closes the stream.
+   */
+  private static class PrefetchedInputStream extends InputStream {
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(PREFETCH_BLOCK_CAPACITY);
+    private volatile boolean closed = false;
+    private volatile IOException failure = null;
+
+    private byte[] current = new byte[0];
+    private int position = 0;
+    private boolean ended = false;
+
+    /** Called on the fetch thread */
+    void fetchFrom(final InputStream source) {
+      try {
+        while (!closed) {
+          final byte[] block = new byte[PREFETCH_BLOCK_SIZE];
+          int length = 0;
+          while (length < block.length) {
+            final int read = source.read(block, length, block.length - length);
+            if (read == -1) {
+              break;
+            }
+            length += read;
+          }
+          if (length > 0) {
+            offer(length == block.length ? block : Arrays.copyOf(block, length));
+          }
+          if (length < block.length) {
+            break;
+          }
+        }
+      } catch (final IOException e) {
+        failure = e;
+      } catch (final InterruptedException e) {
+        failure = new InterruptedIOException("Interrupted while fetching log.");
+        Thread.currentThread().interrupt();
+      } finally {
+        try {
+          offer(END_OF_STREAM);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void offer(final byte[] block) throws InterruptedException {
+      while (!closed && !blocks.offer(block, PREFETCH_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        // The reader is busy; check whether it is still there.
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      final int count = Math.min(length, current.length - position);
+      System.arraycopy(current, position, buffer, offset, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      blocks.clear();
+    }
+
+    /** Make sure there are bytes to read and return false at the end of the stream */
+    private boolean fill() throws IOException {
+      while (position == current.length) {
+        if (ended || closed) {
+          return false;
+        }
+        final byte[] next;
+        try {
+          next = blocks.take();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for log bytes.");
+        }
+        if (next == END_OF_STREAM) {
+          ended = true;
+          if (failure != null) {
+            throw failure;
+          }
+          return false;
+        }
+        current = next;
+        position = 0;
+      }
+      return true;
+    }
+  }
+}
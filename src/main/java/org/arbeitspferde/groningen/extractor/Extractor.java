@@ -18,7 +18,9 @@ package org.arbeitspferde.groningen.extractor;
 import com.google.common.base.Optional;
 
 import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.experimentdb.CollectionLogCursor;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExtractorParserMode;
 import org.arbeitspferde.groningen.subject.Subject;
 import org.arbeitspferde.groningen.utility.FileFactory;
 import org.arbeitspferde.groningen.utility.Metric;
@@ -26,36 +28,63 @@ import org.arbeitspferde.groningen.utility.MetricExporter;
 
 import javax.annotation.Nullable;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.StringTokenizer;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 /**
  * An instance of {@code Extractor} is given a {@link SubjectStateBridge} in its constructor
  * to operate on. The Extractor uses it to retrieve a log file from a subject and
- * then parses it for signal data used by the Hypothesizer. This is thread safe.
+ * then parses it for signal data used by the Hypothesizer. Logs are parsed incrementally: each
+ * pass resumes where the previous pass for the same subject stopped. This is thread safe.
+ *
+ * Pause lines are decoded in the dialect of the subject's JVM, which is detected from the log
+ * once and kept with the cursor until the log is replaced; see {@link PauseLineDecoder}. Besides
+ * pause times, logs read as a stream have their collection events recorded by a
+ * {@link GcLogParser}, which is kept with the cursor likewise. Memory-mapped parsing only looks
+ * for pause lines.
  */
 public class Extractor implements Runnable {
-  private static final String PAUSE_TIME_LINE_SIGNATURE =
-      "Total time for which application threads were stopped:";
+  /** The number of leading bytes by which a log is recognized between passes */
+  private static final int FINGERPRINT_LENGTH = 1024;
+
+  /** The initial size of the buffer through which logs are read */
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
 
-  /** The depth of tokens we examine when parsing */
-  private static final int TOKEN_DEPTH = 9;
+  /** How often we reopen a log that turned out to be truncated while positioning in it */
+  private static final int MAXIMUM_PARSE_ATTEMPTS = 2;
 
   private static final Logger log = Logger.getLogger(Extractor.class.getCanonicalName());
   private static final AtomicBoolean hasRegistered = new AtomicBoolean(false);
   private static final AtomicLong logSuccessfulParseCount = new AtomicLong();
   private static final AtomicLong logFailedParseCount = new AtomicLong();
+  private static final AtomicLong logParsedByteCount = new AtomicLong();
+  private static final AtomicLong logRewindCount = new AtomicLong();
+  private static final AtomicLong logGcEventCount = new AtomicLong();
+
+  private final MappedPauseLineScanner scanner = new MappedPauseLineScanner();
 
   private Optional<GroningenConfig> config;
   private SubjectStateBridge bridge;
   private FileFactory fileFactory;
   private Optional<CollectionLogAddressor> addressor;
+  private ExtractorParserMode parserMode;
+  private Optional<LogPrefetcher> prefetcher = Optional.absent();
+
+  /** The number of log bytes parsed by this Extractor */
+  private final AtomicLong parsedByteCount = new AtomicLong();
 
   /** When set to true, we print out parsing details */
   private Boolean verbose;
@@ -64,23 +93,30 @@ public class Extractor implements Runnable {
       final MetricExporter metricExporter, final FileFactory fileFactory,
       final CollectionLogAddressor collectionLogAddressor) {
     initialize(config, bridge, true, metricExporter, fileFactory,
-        collectionLogAddressor);
+        collectionLogAddressor, config.getParamBlock().getExtractorParserMode());
   }
 
   public Extractor(final SubjectStateBridge bridge, final Boolean verbose,
       final FileFactory fileFactory) {
-    initialize(null, bridge, verbose, null, fileFactory, null);
+    this(bridge, verbose, fileFactory, ExtractorParserMode.STREAM);
+  }
+
+  public Extractor(final SubjectStateBridge bridge, final Boolean verbose,
+      final FileFactory fileFactory, final ExtractorParserMode parserMode) {
+    initialize(null, bridge, verbose, null, fileFactory, null, parserMode);
   }
 
   private void initialize(@Nullable final GroningenConfig config, final SubjectStateBridge bridge,
       final Boolean verbose, @Nullable final MetricExporter exporter,
       final FileFactory fileFactory,
-      @Nullable final CollectionLogAddressor collectionLogAddressor) {
+      @Nullable final CollectionLogAddressor collectionLogAddressor,
+      final ExtractorParserMode parserMode) {
     this.config = Optional.fromNullable(config);
     this.bridge = bridge;
     this.verbose = verbose;
     this.fileFactory = fileFactory;
     this.addressor = Optional.fromNullable(collectionLogAddressor);
+    this.parserMode = parserMode;
 
     final Optional<MetricExporter> metricExporter = Optional.fromNullable(exporter);
 
@@ -96,9 +132,31 @@ public class Extractor implements Runnable {
           "extractor_failed_log_parses_total",
           "The total number of log files that we have failed to parse.",
           Metric.make(logFailedParseCount));
+      agent.register(
+          "extractor_parsed_bytes_total",
+          "The total number of log bytes parsed, excluding those skipped as already parsed.",
+          Metric.make(logParsedByteCount));
+      agent.register(
+          "extractor_log_rewinds_total",
+          "The total number of times a log was replaced and had to be reparsed from its start.",
+          Metric.make(logRewindCount));
+      agent.register(
+          "extractor_gc_events_total",
+          "The total number of garbage collection events recorded from stream-read logs.",
+          Metric.make(logGcEventCount));
     }
   }
 
+  /** Have the unprocessed part of stream-read logs fetched ahead of parsing */
+  void setPrefetcher(final LogPrefetcher prefetcher) {
+    this.prefetcher = Optional.of(prefetcher);
+  }
+
+  /** Returns the number of log bytes that this Extractor has parsed so far */
+  public long getParsedByteCount() {
+    return parsedByteCount.get();
+  }
+
   @Override
   public void run() {
     if (!config.isPresent()) {
@@ -121,63 +179,292 @@ public class Extractor implements Runnable {
     }
   }
 
-  /** Parse the input log filename and update signals as required */
+  /**
+   * Parse the input log filename and update signals as required.
+   *
+   * Only the bytes that were appended to the log since the previous call for the same subject are
+   * processed; the position reached is kept in the subject's {@link CollectionLogCursor}. A log
+   * that was replaced in the meantime is detected and read from the beginning.
+   */
   public void parse(String filename) {
+    final CollectionLogCursor cursor = bridge.getCollectionLogCursor();
+
+    synchronized (cursor) {
+      if (parserMode == ExtractorParserMode.MEMORY_MAPPED) {
+        final File file = new File(filename);
+        if (file.isFile()) {
+          parseMapped(file, cursor);
+          return;
+        }
+        log.fine(String.format("Log %s is not a local file; reading it as a stream.", filename));
+      }
+      parseStream(filename, cursor);
+    }
+  }
+
+  /** Parse the log by memory-mapping it; see {@link MappedPauseLineScanner} */
+  private void parseMapped(final File file, final CollectionLogCursor cursor) {
     try {
-      final InputStream inputStream = fileFactory.forFile(filename).inputStreamFor();
-      final InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-      final BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
+      final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
       try {
-        String line = null;
-        String token = null;
-        boolean parserActivated = true;
-        while ((line = bufferedReader.readLine()) != null) {
-          // We use -XX:+PrintGCApplicationStoppedTime to output pause time data that we parse here
-          // from the input gc.log or STDOUT of the experimental subject
-          int beginIndex = line.indexOf(PAUSE_TIME_LINE_SIGNATURE);
-          if (beginIndex >= 0) {
-            // Filter output.
-            if (parserActivated) {
-              parserActivated = false;
-
-              final StringTokenizer stringTokenizer = new StringTokenizer(line.substring(beginIndex));
-
-              for (int i = 0; i < TOKEN_DEPTH; i++) {
-                if (stringTokenizer.hasMoreTokens()) {
-                  token = stringTokenizer.nextToken();
-                } else {
-                  break;
-                }
-              }
-
-              double pauseTimeSecs;
-
-              try {
-                pauseTimeSecs = Double.valueOf(token.trim());
-              } catch (final Exception e) {
-                log.log(Level.WARNING,
-                    String.format("Unable to parse pause time '%s'. Defaulting to 0.0", token), e);
-                pauseTimeSecs = 0.0;
-              }
-              bridge.getPauseTime().incrementPauseTime(pauseTimeSecs);
-              if (verbose) {
-                log.info(String.format("Paused %s seconds", token));
-              }
-            }
-          } else {
-            parserActivated = true;
+        final FileChannel channel = randomAccessFile.getChannel();
+        final byte[] head = new byte[FINGERPRINT_LENGTH];
+        final ByteBuffer headBuffer = ByteBuffer.wrap(head);
+        while (headBuffer.hasRemaining()) {
+          if (channel.read(headBuffer) == -1) {
+            break;
           }
         }
+        verifyIdentity(head, headBuffer.position(), cursor);
+
+        if (cursor.getOffset() > channel.size()) {
+          log.info(String.format("Log %s of %s was truncated; rereading it from the start.",
+              file, bridge.getHumanIdentifier()));
+          cursor.rewind();
+          logRewindCount.incrementAndGet();
+          verifyIdentity(head, headBuffer.position(), cursor);
+        }
+
+        final long parsed = scanner.scan(channel, cursor, bridge.getPauseTime());
+        logParsedByteCount.addAndGet(parsed);
+        parsedByteCount.addAndGet(parsed);
         logSuccessfulParseCount.incrementAndGet();
-      } catch (final Exception e) {
-        log.log(Level.WARNING, "Problems processing the log file.", e);
-        logFailedParseCount.incrementAndGet();
       } finally {
-        bufferedReader.close();
+        randomAccessFile.close();
       }
     } catch (final Exception e) {
-      log.log(Level.WARNING, "Problems creating the log file reader.", e);
+      log.log(Level.WARNING, "Problems processing the mapped log file.", e);
       logFailedParseCount.incrementAndGet();
     }
   }
+
+  /** Parse the log line by line as it is read from the {@link FileFactory} */
+  private void parseStream(final String filename, final CollectionLogCursor cursor) {
+    for (int attempt = 0; attempt < MAXIMUM_PARSE_ATTEMPTS; attempt++) {
+      try {
+        final InputStream inputStream = fileFactory.forFile(filename).inputStreamFor();
+        try {
+          final InputStream positioned = positionAtCursor(inputStream, cursor);
+          if (positioned == null) {
+            // The log shrank underneath us, so it must be a new one. Start over.
+            log.info(String.format("Log %s of %s was truncated; rereading it from the start.",
+                filename, bridge.getHumanIdentifier()));
+            cursor.rewind();
+            logRewindCount.incrementAndGet();
+            continue;
+          }
+          final InputStream unprocessed =
+              prefetcher.isPresent() ? prefetcher.get().prefetch(positioned) : positioned;
+          try {
+            scan(unprocessed, cursor);
+          } finally {
+            unprocessed.close();
+          }
+          logSuccessfulParseCount.incrementAndGet();
+        } catch (final Exception e) {
+          log.log(Level.WARNING, "Problems processing the log file.", e);
+          logFailedParseCount.incrementAndGet();
+        } finally {
+          inputStream.close();
+        }
+      } catch (final Exception e) {
+        log.log(Level.WARNING, "Problems creating the log file reader.", e);
+        logFailedParseCount.incrementAndGet();
+      }
+      return;
+    }
+    log.warning(String.format("Gave up parsing log %s of %s after %s attempts.", filename,
+        bridge.getHumanIdentifier(), MAXIMUM_PARSE_ATTEMPTS));
+    logFailedParseCount.incrementAndGet();
+  }
+
+  /**
+   * Verify that the log behind the input stream is the one the cursor refers to and skip the part
+   * of it that was processed already.
+   *
+   * @return a stream that yields the unprocessed bytes of the log, or null if the log is shorter
+   *     than the cursor's offset.
+   */
+  private InputStream positionAtCursor(final InputStream inputStream,
+      final CollectionLogCursor cursor) throws IOException {
+    final byte[] head = new byte[FINGERPRINT_LENGTH];
+    final int headLength = readFully(inputStream, head);
+    verifyIdentity(head, headLength, cursor);
+
+    final long offset = cursor.getOffset();
+    if (offset < headLength) {
+      return new SequenceInputStream(
+          new ByteArrayInputStream(head, (int) offset, headLength - (int) offset), inputStream);
+    }
+    return skipFully(inputStream, offset - headLength) ? inputStream : null;
+  }
+
+  /**
+   * Rewind the cursor if the leading bytes of the log differ from the ones it was last seen with,
+   * and extend the fingerprint as the log grows.
+   */
+  private void verifyIdentity(final byte[] head, final int headLength,
+      final CollectionLogCursor cursor) {
+    final int knownLength = cursor.getFingerprintLength();
+    if (knownLength > 0
+        && (headLength < knownLength || checksum(head, knownLength) != cursor.getFingerprint())) {
+      log.info(String.format("Log of %s was replaced; rereading it from the start.",
+          bridge.getHumanIdentifier()));
+      cursor.rewind();
+      logRewindCount.incrementAndGet();
+    }
+    if (headLength > cursor.getFingerprintLength()) {
+      cursor.setFingerprint(headLength, checksum(head, headLength));
+    }
+  }
+
+  /** Returns the state that parsing the log of the cursor carries across passes */
+  private ParserState parserStateOf(final CollectionLogCursor cursor) {
+    ParserState state = (ParserState) cursor.getParserState();
+    if (state == null) {
+      state = new ParserState(bridge);
+      cursor.setParserState(state);
+    }
+    return state;
+  }
+
+  /**
+   * Process all complete lines of the input stream and advance the cursor past them. A trailing
+   * line without line terminator is left for the next pass, as the subject may still be writing
+   * it.
+   */
+  private void scan(final InputStream unprocessed, final CollectionLogCursor cursor)
+      throws IOException {
+    byte[] buffer = new byte[READ_BUFFER_SIZE];
+    int length = 0;
+    int scanned = 0;
+    long bufferOffset = cursor.getOffset();
+    boolean parserActivated = !cursor.isWithinPauseLineRun();
+    final ParserState state = parserStateOf(cursor);
+
+    int read;
+    while ((read = unprocessed.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+
+      int lineStart = 0;
+      for (int i = scanned; i < length; i++) {
+        if (buffer[i] == '\n') {
+          parserActivated = processLine(decodeLine(buffer, lineStart, i), state, parserActivated);
+          lineStart = i + 1;
+        }
+      }
+
+      if (lineStart > 0) {
+        System.arraycopy(buffer, lineStart, buffer, 0, length - lineStart);
+        length -= lineStart;
+        bufferOffset += lineStart;
+        logParsedByteCount.addAndGet(lineStart);
+        parsedByteCount.addAndGet(lineStart);
+        cursor.advanceTo(bufferOffset);
+        cursor.setWithinPauseLineRun(!parserActivated);
+      }
+      scanned = length;
+
+      if (length == buffer.length) {
+        // A single line does not fit into the buffer.
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+    }
+  }
+
+  /**
+   * Process one line of the log.
+   *
+   * @param line The line without its terminator.
+   * @param state The state of parsing the log that the line belongs to.
+   * @param parserActivated Whether the previous line was not a pause time line.
+   * @return Whether this line was not a pause time line.
+   */
+  private boolean processLine(final String line, final ParserState state,
+      final boolean parserActivated) {
+    final PauseLineDecoder pauseLineDecoder = state.pauseLineDecoder;
+    // We use -XX:+PrintGCApplicationStoppedTime or, as of JDK 9, -Xlog:safepoint to output pause
+    // time data that we parse here from the input gc.log or STDOUT of the experimental subject
+    if (!pauseLineDecoder.decode(line)) {
+      // Any other line may describe a collection event.
+      if (state.gcLogParser.parse(line)) {
+        logGcEventCount.incrementAndGet();
+      }
+      return true;
+    }
+
+    // Filter output.
+    if (parserActivated || !pauseLineDecoder.repeatsConsecutivePauses()) {
+      final double pauseTimeSecs = pauseLineDecoder.getPauseSeconds();
+      bridge.getPauseTime().incrementPauseTime(pauseTimeSecs, pauseLineDecoder.getTimestamp());
+      final double timeToSafepointSecs = pauseLineDecoder.getTimeToSafepointSeconds();
+      if (!Double.isNaN(timeToSafepointSecs)) {
+        bridge.getPauseTime().incrementTimeToSafepoint(timeToSafepointSecs);
+      }
+      if (verbose) {
+        log.info(String.format("Paused %s seconds", pauseTimeSecs));
+      }
+    }
+    return false;
+  }
+
+  /** Decode the bytes of a line, dropping the carriage return of DOS-style line endings */
+  private static String decodeLine(final byte[] buffer, final int start, final int end) {
+    final int length = (end > start && buffer[end - 1] == '\r') ? end - start - 1 : end - start;
+    return new String(buffer, start, length, Charset.defaultCharset());
+  }
+
+  /** Fill the buffer from the stream as far as possible and return the number of bytes read */
+  private static int readFully(final InputStream inputStream, final byte[] buffer)
+      throws IOException {
+    int length = 0;
+    while (length < buffer.length) {
+      final int read = inputStream.read(buffer, length, buffer.length - length);
+      if (read == -1) {
+        break;
+      }
+      length += read;
+    }
+    return length;
+  }
+
+  /** Skip the given number of bytes and return false if the stream ended before that */
+  private static boolean skipFully(final InputStream inputStream, final long count)
+      throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      final long skipped = inputStream.skip(remaining);
+      if (skipped > 0) {
+        remaining -= skipped;
+      } else if (inputStream.read() == -1) {
+        return false;
+      } else {
+        remaining--;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * What parsing a subject's log carries from one pass to the next. Each pass is made by a new
+   * Extractor, so this is kept with the subject's {@link CollectionLogCursor} and dropped when the
+   * log is replaced. Only touched while holding the monitor of the cursor.
+   */
+  private static class ParserState {
+    /** Detects the dialect from the first pause line of the log rather than of each pass */
+    final PauseLineDecoder pauseLineDecoder = new DetectingPauseLineDecoder();
+
+    /** Numbers the records of the log and carries collection events split across passes */
+    final GcLogParser gcLogParser;
+
+    ParserState(final SubjectStateBridge bridge) {
+      gcLogParser = new GcLogParser(bridge);
+    }
+  }
+
+  private static long checksum(final byte[] bytes, final int length) {
+    final CRC32 crc = new CRC32();
+    crc.update(bytes, 0, length);
+    return crc.getValue();
+  }
 }
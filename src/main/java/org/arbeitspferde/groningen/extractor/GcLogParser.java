@@ -0,0 +1,598 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.collect.ImmutableList;
+
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge.Parent;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * GcLogParser recognizes the collection events in a HotSpot garbage collection log, as written
+ * with -XX:+PrintGCDetails or -Xlog:gc*, and records them through the store methods of a
+ * {@link SubjectStateBridge}.
+ *
+ * Lines are fed in the order in which they appear in the log. Each line is matched once against
+ * a table of {@link Rule}s, ordered such that the first rule whose signature occurs in the line
+ * is the one that knows how to read it. Sizes are recorded in kilobytes, times in seconds.
+ *
+ * This is not thread safe; use one instance per log.
+ */
+class GcLogParser {
+  private static final Logger log = Logger.getLogger(GcLogParser.class.getCanonicalName());
+
+  /** How the young generation is named in a collection record, depending on the collector */
+  private static final String[] YOUNG_GENERATION_SIGNATURES = {
+    "[ParNew", "[DefNew", "[PSYoungGen", "[ASParNew"
+  };
+
+  /** How the young generation is named in a -Xlog:gc+heap record, depending on the collector */
+  private static final String[] UNIFIED_YOUNG_GENERATION_SIGNATURES = {
+    "ParNew:", "DefNew:", "PSYoungGen:"
+  };
+
+  private static final String CONCURRENT_MODE_FAILURE_SIGNATURE = "(concurrent mode failure)";
+  private static final String PROMOTION_FAILED = " (promotion failed)";
+
+  /** How G1 marks a young collection that found no space to copy surviving objects to */
+  private static final String TO_SPACE_EXHAUSTED = "(to-space";
+
+  private static final List<Integer> NONE = ImmutableList.of();
+
+  /**
+   * The events that the parser recognizes, in the order in which they are tried. Where one
+   * event's signature may occur within another event's line, the enclosing event comes first.
+   */
+  enum Rule {
+    CMS_INITIAL_MARK("CMS-initial-mark:") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.cmsInitialMark(line, at);
+      }
+    },
+    CMS_REMARK("CMS-remark:") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.cmsRemark(line, at);
+      }
+    },
+    FULL_COLLECTION("[Full GC") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.collection(line, at, true);
+      }
+    },
+    COLLECTION("[GC") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.collection(line, at, false);
+      }
+    },
+    CMS_CONCURRENT_PHASE("[CMS-concurrent-") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.cmsConcurrentPhase(line, at);
+      }
+    },
+    CONCURRENT_MODE_FAILURE(CONCURRENT_MODE_FAILURE_SIGNATURE) {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.bridge.startTop();
+        parser.concurrentModeFailure(line, at);
+      }
+    },
+    UNIFIED_EVENT("GC(") {
+      @Override
+      void apply(final GcLogParser parser, final String line, final int at) {
+        parser.unifiedEvent(line, at);
+      }
+    };
+
+    private final String signature;
+
+    private Rule(final String signature) {
+      this.signature = signature;
+    }
+
+    /** Read the event whose signature occurs at the given index of the line */
+    abstract void apply(GcLogParser parser, String line, int at);
+  }
+
+  private static final Rule[] RULES = Rule.values();
+
+  private final SubjectStateBridge bridge;
+
+  /** The number of collections recorded by this parser */
+  private int recordCounter = 0;
+
+  /** The -Xlog:gc id of the collection whose lines are being read, or -1 */
+  private long currentUnifiedGcId = -1;
+
+  /** The index just past the last value read by one of the read methods */
+  private int position;
+
+  /** The sizes in kilobytes read by the last successful call of {@link #readTransition} */
+  private int transitionStart;
+  private int transitionEnd;
+  private int transitionCapacity;
+
+  GcLogParser(final SubjectStateBridge bridge) {
+    this.bridge = bridge;
+  }
+
+  /**
+   * Process one line of the log.
+   *
+   * @param line The line without its terminator.
+   * @return Whether the line was recognized as part of a collection event.
+   */
+  boolean parse(final String line) {
+    for (final Rule rule : RULES) {
+      final int at = line.indexOf(rule.signature);
+      if (at >= 0) {
+        try {
+          rule.apply(this, line, at);
+          return true;
+        } catch (final RuntimeException e) {
+          log.log(Level.FINE, String.format("Unable to parse %s line '%s'.", rule, line), e);
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Read a stop-the-world collection as printed by -XX:+PrintGCDetails, e.g.
+   * {@code 1.234: [GC 1.234: [ParNew: 19136K->2112K(19136K), 0.0123 secs]
+   * 30000K->15000K(63360K), 0.0124 secs] [Times: user=0.03 sys=0.00, real=0.01 secs]}.
+   */
+  private void collection(final String line, final int at, final boolean full) {
+    final int body = at + (full ? Rule.FULL_COLLECTION : Rule.COLLECTION).signature.length();
+    if (line.startsWith(" concurrent", body)) {
+      // G1 reports its concurrent phases as [GC concurrent-mark-start] and the like.
+      return;
+    }
+    final boolean young =
+        !full && !line.startsWith(" remark", body) && !line.startsWith(" cleanup", body);
+    final double timestamp = LegacyPauseLineDecoder.timestampBefore(line, at);
+
+    bridge.startTop();
+    boolean promotionFailed = youngGeneration(line, at);
+    if (!promotionFailed && line.indexOf(TO_SPACE_EXHAUSTED, at) >= 0) {
+      bridge.storeParNew(0.0, NONE, 0, 0, 0, 0.0, true, NONE, 0, 0, 0, NONE);
+      promotionFailed = true;
+    }
+    final int failure = line.indexOf(CONCURRENT_MODE_FAILURE_SIGNATURE, at);
+    if (failure >= 0) {
+      concurrentModeFailure(line, failure);
+    }
+    systemTimes(line, at);
+
+    // CMS falls back to collecting the old generation when promotion fails; G1 does not.
+    final boolean wholeHeap = full || failure >= 0
+        || (promotionFailed && line.indexOf("[CMS", at) >= 0);
+    storeTop(line, topLevelTransition(line, at), wholeHeap, young && !wholeHeap, timestamp);
+  }
+
+  /**
+   * Store the young generation record of a collection, if there is one.
+   *
+   * @return Whether promotion into the old generation failed.
+   */
+  private boolean youngGeneration(final String line, final int from) {
+    for (final String signature : YOUNG_GENERATION_SIGNATURES) {
+      final int at = line.indexOf(signature, from);
+      if (at < 0) {
+        continue;
+      }
+      final int end = at + signature.length();
+      final boolean promotionFailed = line.startsWith(PROMOTION_FAILED, end);
+      if (!readTransition(line, end, line.indexOf(']', end))) {
+        return promotionFailed;
+      }
+      final double seconds = secondsWithin(line, position);
+      storeParNew(seconds, promotionFailed);
+      return promotionFailed;
+    }
+    return false;
+  }
+
+  /**
+   * Read a concurrent mode failure, e.g.
+   * {@code (concurrent mode failure): 40000K->35000K(40960K), 0.9 secs]
+   * 60000K->35000K(60000K), [CMS Perm : 2000K->2000K(21248K)], 0.95 secs]}.
+   */
+  private void concurrentModeFailure(final String line, final int at) {
+    int cmsStart = 0;
+    int cmsEnd = 0;
+    int cmsSize = 0;
+    double cmsSeconds = 0.0;
+    if (readTransition(line, at, line.indexOf(']', at))) {
+      cmsStart = transitionStart;
+      cmsEnd = transitionEnd;
+      cmsSize = transitionCapacity;
+      cmsSeconds = secondsWithin(line, position);
+    }
+
+    int tenuredStart = 0;
+    int tenuredEnd = 0;
+    int tenuredSize = 0;
+    final int closing = line.indexOf(']', at);
+    if (closing >= 0 && readTransition(line, closing, line.indexOf('[', closing))) {
+      tenuredStart = transitionStart;
+      tenuredEnd = transitionEnd;
+      tenuredSize = transitionCapacity;
+    }
+
+    int permStart = 0;
+    int permEnd = 0;
+    int permSize = 0;
+    final int perm = line.indexOf("Perm :", at);
+    if (perm >= 0 && readTransition(line, perm, line.indexOf(']', perm))) {
+      permStart = transitionStart;
+      permEnd = transitionEnd;
+      permSize = transitionCapacity;
+    }
+
+    bridge.storeConcurrentModeFailure(cmsSize, cmsEnd, cmsSeconds, permStart, permEnd, permSize,
+        0.0, tenuredStart, tenuredEnd, tenuredSize, cmsStart);
+  }
+
+  /**
+   * Read the initial mark pause of the CMS collector, e.g.
+   * {@code 1.234: [GC [1 CMS-initial-mark: 12345K(40960K)] 20000K(60000K), 0.0012 secs]}.
+   */
+  private void cmsInitialMark(final String line, final int at) {
+    final double timestamp =
+        LegacyPauseLineDecoder.timestampBefore(line, line.lastIndexOf("[GC", at));
+    bridge.startTop();
+
+    position = at + Rule.CMS_INITIAL_MARK.signature.length();
+    final int occupancy = readSize(line);
+    final int capacity = readCapacity(line);
+    bridge.storeCmsInitialMark(capacity, occupancy);
+
+    systemTimes(line, at);
+    storeHeapOccupancy(line, at, timestamp);
+  }
+
+  /**
+   * Read the remark pause of the CMS collector, e.g.
+   * {@code 1.234: [GC[YG occupancy: 1000 K (19136 K)]1.234: [Rescan (parallel) , 0.0100 secs]
+   * 1.244: [weak refs processing, 0.0001 secs] [1 CMS-remark: 12345K(40960K)]
+   * 20000K(60000K), 0.0200 secs]}.
+   */
+  private void cmsRemark(final String line, final int at) {
+    final int start = line.indexOf("[GC");
+    final double timestamp = LegacyPauseLineDecoder.timestampBefore(line, start >= 0 ? start : 0);
+    bridge.startTop();
+
+    final int occupancyAt = line.indexOf("[YG occupancy:");
+    if (occupancyAt >= 0) {
+      position = occupancyAt + "[YG occupancy:".length();
+      final int youngOccupancy = readSize(line);
+      final int youngCapacity = readCapacity(line);
+      bridge.storeYgOccupancy(youngOccupancy, youngCapacity, timestamp);
+    }
+    final int rescanAt = line.indexOf("[Rescan");
+    if (rescanAt >= 0) {
+      bridge.storeRescanParallel(
+          secondsWithin(line, rescanAt), LegacyPauseLineDecoder.timestampBefore(line, rescanAt));
+    }
+    final int weakRefsAt = line.indexOf("[weak refs processing");
+    if (weakRefsAt >= 0) {
+      bridge.storeWeakRefsProcessing(secondsWithin(line, weakRefsAt),
+          LegacyPauseLineDecoder.timestampBefore(line, weakRefsAt));
+    }
+    double scrubSeconds = 0.0;
+    int scrubAt = line.indexOf("[scrub ");
+    while (scrubAt >= 0) {
+      scrubSeconds += secondsWithin(line, scrubAt);
+      scrubAt = line.indexOf("[scrub ", scrubAt + 1);
+    }
+    if (scrubSeconds > 0.0) {
+      bridge.storeScrubSymbolAndStringTables(scrubSeconds);
+    }
+
+    position = at + Rule.CMS_REMARK.signature.length();
+    final int occupancy = readSize(line);
+    final int capacity = readCapacity(line);
+    bridge.storeCmsRemark(occupancy, capacity);
+
+    systemTimes(line, at);
+    storeHeapOccupancy(line, at, timestamp);
+  }
+
+  /**
+   * Read a concurrent phase of the CMS collector, e.g. {@code [CMS-concurrent-mark-start]} or
+   * {@code [CMS-concurrent-mark: 0.123/0.456 secs]}, where the times are CPU and wall time. Each
+   * line is a record of its own, which collects nothing unless the phase was cut short by a
+   * concurrent mode failure.
+   */
+  private void cmsConcurrentPhase(final String line, final int at) {
+    final int name = at + Rule.CMS_CONCURRENT_PHASE.signature.length();
+    final int failure = line.indexOf(CONCURRENT_MODE_FAILURE_SIGNATURE, name);
+    final double timestamp = LegacyPauseLineDecoder.timestampBefore(line, at);
+
+    bridge.startTop();
+    if (line.startsWith("mark-start", name)) {
+      bridge.storeCmsConcurrentMarkStart();
+    } else if (line.startsWith("preclean-start", name)) {
+      bridge.storeCmsConcurrentPrecleanStart();
+    } else if (line.startsWith("abortable-preclean-start", name)) {
+      bridge.storeCmsConcurrentAbortablePrecleanStart();
+    } else if (line.startsWith("sweep-start", name)) {
+      bridge.storeCmsConcurrentSweepStart();
+    } else if (line.startsWith("reset-start", name)) {
+      bridge.storeCmsConcurrentResetStart();
+    } else {
+      position = line.indexOf(':', name) + 1;
+      if (position > 0) {
+        final double cpuSeconds = readNumber(line);
+        position++;
+        final double wallSeconds = readNumber(line);
+        if (line.startsWith("mark:", name)) {
+          bridge.storeCmsConcurrentMark(cpuSeconds, wallSeconds);
+        } else if (line.startsWith("preclean:", name)) {
+          bridge.storeCmsConcurrentPreclean(cpuSeconds, wallSeconds);
+        } else if (line.startsWith("abortable-preclean:", name)) {
+          bridge.storeCmsConcurrentAbortablePreclean(Parent.TOP, cpuSeconds, wallSeconds);
+        } else if (line.startsWith("sweep:", name)) {
+          bridge.storeCmsConcurrentSweep(cpuSeconds, wallSeconds);
+        } else if (line.startsWith("reset:", name)) {
+          bridge.storeCmsConcurrentReset(cpuSeconds, wallSeconds);
+        }
+      }
+    }
+    int transition = -1;
+    if (failure >= 0) {
+      // The old generation filled up before the concurrent cycle completed, so CMS fell back to
+      // collecting the whole heap, whose sizes follow those of the old generation.
+      concurrentModeFailure(line, failure);
+      final int closing = line.indexOf(']', failure);
+      transition = closing >= 0 ? line.indexOf("->", closing) : -1;
+    }
+    storeTop(line, transition, failure >= 0, false, timestamp);
+  }
+
+  /**
+   * Read a line of -Xlog:gc* output, e.g.
+   * {@code [1.234s][info][gc] GC(12) Pause Young (Normal) (G1 Evacuation Pause) 24M->4M(256M)
+   * 3.456ms}. All lines of one collection carry the same id; the first one starts its record.
+   */
+  private void unifiedEvent(final String line, final int at) {
+    position = at + Rule.UNIFIED_EVENT.signature.length();
+    final long id = (long) readNumber(line);
+    if (id != currentUnifiedGcId) {
+      currentUnifiedGcId = id;
+      bridge.startTop();
+    }
+    final int body = line.indexOf(')', position) + 2;
+    if (body < 2 || body > line.length()) {
+      return;
+    }
+
+    if (line.startsWith("Pause ", body)) {
+      final int transition = line.indexOf("->", body);
+      if (transition < 0) {
+        // The line that announces the start of the pause.
+        return;
+      }
+      final boolean full = line.startsWith("Pause Full", body);
+      final boolean young = line.startsWith("Pause Young", body);
+      storeTop(line, transition, full, young, UnifiedPauseLineDecoder.uptimeOf(line));
+    } else if (line.startsWith("User=", body)) {
+      position = body + "User=".length();
+      final double user = readNumber(line);
+      position = line.indexOf("Sys=", position) + "Sys=".length();
+      final double sys = readNumber(line);
+      position = line.indexOf("Real=", position) + "Real=".length();
+      final double real = readNumber(line);
+      bridge.storeSystemTimes(Parent.TOP, real, sys, user);
+    } else if (line.startsWith("To-space exhausted", body)
+        || line.startsWith("Evacuation Failure", body)) {
+      // G1's equivalent of a promotion failure.
+      bridge.storeParNew(0.0, NONE, 0, 0, 0, 0.0, true, NONE, 0, 0, 0, NONE);
+    } else {
+      for (final String signature : UNIFIED_YOUNG_GENERATION_SIGNATURES) {
+        if (line.startsWith(signature, body)
+            && readTransition(line, body + signature.length(), line.length())) {
+          storeParNew(0.0, false);
+          return;
+        }
+      }
+    }
+  }
+
+  /** Store the sizes of the young generation read by the last {@link #readTransition} */
+  private void storeParNew(final double seconds, final boolean promotionFailed) {
+    bridge.storeParNew(0.0, NONE, 0, 0, 0, seconds, promotionFailed, NONE, transitionStart,
+        transitionEnd, transitionStart - transitionEnd, NONE);
+  }
+
+  /** Complete the current record with the heap sizes of the transition at the given index */
+  private void storeTop(final String line, final int transition, final boolean full,
+      final boolean young, final double timestamp) {
+    int start = 0;
+    int end = 0;
+    if (transition >= 0) {
+      readTransitionAt(line, transition, 0);
+      start = transitionStart;
+      end = transitionEnd;
+    }
+    bridge.storeTop(full, start - end, end, start, young, ++recordCounter, timestamp);
+  }
+
+  /** Complete the current record with the heap occupancy that follows the CMS phase record */
+  private void storeHeapOccupancy(final String line, final int at, final double timestamp) {
+    position = line.indexOf(']', at) + 1;
+    final int occupancy = position > 0 ? readSize(line) : 0;
+    bridge.storeTop(false, 0, occupancy, occupancy, false, ++recordCounter, timestamp);
+  }
+
+  /** Store the times that -XX:+PrintGCDetails appends to a pause, e.g. [Times: user=0.03 ...] */
+  private void systemTimes(final String line, final int from) {
+    final int at = line.indexOf("[Times:", from);
+    if (at < 0) {
+      return;
+    }
+    position = line.indexOf("user=", at) + "user=".length();
+    final double user = readNumber(line);
+    position = line.indexOf("sys=", position) + "sys=".length();
+    final double sys = readNumber(line);
+    position = line.indexOf("real=", position) + "real=".length();
+    final double real = readNumber(line);
+    bridge.storeSystemTimes(Parent.TOP, real, sys, user);
+  }
+
+  /**
+   * Returns the index of the size transition that belongs to the record opened by the bracket at
+   * the given index, skipping those of nested records, or -1 if it has none.
+   */
+  private static int topLevelTransition(final String line, final int at) {
+    int depth = 0;
+    for (int i = at; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (c == '[') {
+        depth++;
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          break;
+        }
+      } else if (depth == 1 && c == '-' && i + 1 < line.length() && line.charAt(i + 1) == '>') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Read the first size transition, e.g. {@code 19136K->2112K(19136K)}, between the given indices
+   * into {@link #transitionStart}, {@link #transitionEnd} and {@link #transitionCapacity}.
+   *
+   * @return Whether there was a transition.
+   */
+  private boolean readTransition(final String line, final int from, final int limit) {
+    final int arrow = line.indexOf("->", from);
+    if (arrow < 0 || (limit >= 0 && arrow > limit)) {
+      return false;
+    }
+    readTransitionAt(line, arrow, from);
+    return true;
+  }
+
+  /** Read the size transition whose arrow is at the given index, not looking back past from */
+  private void readTransitionAt(final String line, final int arrow, final int from) {
+    int numberStart = arrow;
+    while (numberStart > from && isSizeCharacter(line.charAt(numberStart - 1))) {
+      numberStart--;
+    }
+    position = numberStart;
+    transitionStart = readSize(line);
+    position = arrow + 2;
+    transitionEnd = readSize(line);
+    transitionCapacity = readCapacity(line);
+  }
+
+  /** Read a size in parentheses at {@link #position}, e.g. {@code (40960K)}, or return 0 */
+  private int readCapacity(final String line) {
+    final int open = line.indexOf('(', position);
+    if (open < 0) {
+      return 0;
+    }
+    position = open + 1;
+    return readSize(line);
+  }
+
+  /** Read a size with an optional unit at {@link #position} and return it in kilobytes */
+  private int readSize(final String line) {
+    final double value = readNumber(line);
+    while (position < line.length() && line.charAt(position) == ' ') {
+      position++;
+    }
+    double kilobytes = value;
+    if (position < line.length()) {
+      switch (line.charAt(position)) {
+        case 'B':
+          kilobytes = value / 1024;
+          position++;
+          break;
+        case 'K':
+          position++;
+          break;
+        case 'M':
+          kilobytes = value * 1024;
+          position++;
+          break;
+        case 'G':
+          kilobytes = value * 1024 * 1024;
+          position++;
+          break;
+        default:
+          break;
+      }
+    }
+    return (int) Math.min(Math.round(kilobytes), Integer.MAX_VALUE);
+  }
+
+  /** Read a decimal number at {@link #position}, skipping leading blanks, or return 0.0 */
+  private double readNumber(final String line) {
+    while (position < line.length() && line.charAt(position) == ' ') {
+      position++;
+    }
+    final int start = position;
+    while (position < line.length() && isNumberCharacter(line.charAt(position))) {
+      position++;
+    }
+    if (position == start) {
+      return 0.0;
+    }
+    try {
+      return Double.parseDouble(line.substring(start, position));
+    } catch (final NumberFormatException e) {
+      return 0.0;
+    }
+  }
+
+  /** Returns the seconds of the record that begins at the given index, e.g. {@code 0.01 secs] } */
+  private double secondsWithin(final String line, final int from) {
+    final int secs = line.indexOf(" secs", from);
+    final int closing = line.indexOf(']', from);
+    if (secs < 0 || (closing >= 0 && secs > closing)) {
+      return 0.0;
+    }
+    int start = secs;
+    while (start > from && isNumberCharacter(line.charAt(start - 1))) {
+      start--;
+    }
+    position = start;
+    return readNumber(line);
+  }
+
+  private static boolean isNumberCharacter(final char c) {
+    return (c >= '0' && c <= '9') || c == '.';
+  }
+
+  private static boolean isSizeCharacter(final char c) {
+    return isNumberCharacter(c) || c == 'B' || c == 'K' || c == 'M' || c == 'G';
+  }
+}
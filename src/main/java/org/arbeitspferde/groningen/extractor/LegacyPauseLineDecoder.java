@@ -0,0 +1,152 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import java.util.StringTokenizer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decodes the pause lines written by JDK 8 and earlier with -XX:+PrintGCApplicationStoppedTime,
+ * e.g. {@code 1.234: Total time for which application threads were stopped: 0.0012500 seconds},
+ * optionally followed by {@code , Stopping threads took: 0.0000123 seconds}.
+ */
+class LegacyPauseLineDecoder implements PauseLineDecoder {
+  private static final Logger log =
+      Logger.getLogger(LegacyPauseLineDecoder.class.getCanonicalName());
+
+  static final String SIGNATURE = "Total time for which application threads were stopped:";
+
+  static final String TIME_TO_SAFEPOINT_SIGNATURE = "Stopping threads took:";
+
+  /** The depth of tokens we examine when parsing */
+  private static final int TOKEN_DEPTH = 9;
+
+  private String line;
+  private int signatureIndex = -1;
+
+  @Override
+  public boolean decode(final String line) {
+    this.line = line;
+    signatureIndex = line.indexOf(SIGNATURE);
+    return signatureIndex >= 0;
+  }
+
+  @Override
+  public double getPauseSeconds() {
+    String token = null;
+    final StringTokenizer stringTokenizer = new StringTokenizer(line.substring(signatureIndex));
+
+    for (int i = 0; i < TOKEN_DEPTH; i++) {
+      if (stringTokenizer.hasMoreTokens()) {
+        token = stringTokenizer.nextToken();
+      } else {
+        break;
+      }
+    }
+
+    try {
+      return Double.valueOf(token.trim());
+    } catch (final Exception e) {
+      log.log(Level.WARNING,
+          String.format("Unable to parse pause time '%s'. Defaulting to 0.0", token), e);
+      return 0.0;
+    }
+  }
+
+  @Override
+  public double getTimeToSafepointSeconds() {
+    return secondsAfter(line, TIME_TO_SAFEPOINT_SIGNATURE, signatureIndex);
+  }
+
+  @Override
+  public double getTimestamp() {
+    return timestampBefore(line, signatureIndex);
+  }
+
+  @Override
+  public boolean repeatsConsecutivePauses() {
+    return true;
+  }
+
+  /**
+   * Returns the seconds since the start of the JVM that -XX:+PrintGCTimeStamps prints ahead of
+   * whatever starts at the given index, e.g. {@code 1.234: [GC}, or NaN if absent.
+   */
+  static double timestampBefore(final String line, final int at) {
+    if (at <= 0) {
+      return Double.NaN;
+    }
+    int end = at;
+    while (end > 0 && line.charAt(end - 1) == ' ') {
+      end--;
+    }
+    if (end == 0 || line.charAt(end - 1) != ':') {
+      return Double.NaN;
+    }
+    end--;
+    int start = end;
+    while (start > 0 && isNumberCharacter(line.charAt(start - 1))) {
+      start--;
+    }
+    if (start == end || (start > 0 && !isTimestampBoundary(line.charAt(start - 1)))) {
+      // Not a number, or the tail of a date stamp such as 2013-01-01T00:00:00.000+0000.
+      return Double.NaN;
+    }
+    try {
+      return Double.parseDouble(line.substring(start, end));
+    } catch (final NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  static boolean isNumberCharacter(final char c) {
+    return (c >= '0' && c <= '9') || c == '.';
+  }
+
+  static boolean isTimestampBoundary(final char c) {
+    return c == ' ' || c == '[' || c == ']';
+  }
+
+  /**
+   * Returns the decimal number that follows the signature in the line, e.g. the seconds in
+   * {@code Stopping threads took: 0.0000123 seconds}, or NaN if the signature does not occur.
+   */
+  static double secondsAfter(final String line, final String signature, final int from) {
+    final int at = line.indexOf(signature, from);
+    if (at < 0) {
+      return Double.NaN;
+    }
+    int start = at + signature.length();
+    while (start < line.length() && line.charAt(start) == ' ') {
+      start++;
+    }
+    int end = start;
+    while (end < line.length() && !isDelimiter(line.charAt(end)) && line.charAt(end) != ',') {
+      end++;
+    }
+    try {
+      return Double.parseDouble(line.substring(start, end));
+    } catch (final NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /** The delimiters of {@link StringTokenizer} by default */
+  private static boolean isDelimiter(final char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+}
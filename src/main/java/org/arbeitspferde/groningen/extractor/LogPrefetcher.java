@@ -0,0 +1,30 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the unprocessed part of a log ahead of the {@link Extractor} parsing it.
+ */
+interface LogPrefetcher {
+  /**
+   * Start fetching the remainder of the input stream and return a stream that yields the fetched
+   * bytes. Closing the returned stream stops fetching.
+   */
+  InputStream prefetch(InputStream unprocessed) throws IOException;
+}
@@ -0,0 +1,391 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import org.arbeitspferde.groningen.experimentdb.CollectionLogCursor;
+import org.arbeitspferde.groningen.experimentdb.PauseTime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+
+/**
+ * MappedPauseLineScanner finds pause time lines in a memory-mapped garbage collection log.
+ *
+ * It is the allocation-free counterpart of the line-by-line tokenizing parser in
+ * {@link Extractor}: the signature is matched against the mapped bytes directly, and the seconds
+ * field is decoded into a primitive double. Both parsers must yield identical pause times for the
+ * same log. Like the {@link DetectingPauseLineDecoder} used there, the scanner understands both
+ * the legacy and the unified logging dialect of pause lines.
+ */
+class MappedPauseLineScanner {
+  private static final Logger log =
+      Logger.getLogger(MappedPauseLineScanner.class.getCanonicalName());
+
+  /** The default number of bytes mapped at a time */
+  private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private static final byte[] SIGNATURE = bytesOf(LegacyPauseLineDecoder.SIGNATURE);
+  private static final byte[] TIME_TO_SAFEPOINT_SIGNATURE =
+      bytesOf(LegacyPauseLineDecoder.TIME_TO_SAFEPOINT_SIGNATURE);
+  private static final byte[] REACHING_SAFEPOINT_SIGNATURE =
+      bytesOf(UnifiedPauseLineDecoder.REACHING_SAFEPOINT_SIGNATURE);
+  private static final byte[] TOTAL_SIGNATURE = bytesOf(UnifiedPauseLineDecoder.TOTAL_SIGNATURE);
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /** The largest mantissa that a double represents exactly */
+  private static final long MAXIMUM_EXACT_MANTISSA = 1L << 53;
+
+  /** The powers of ten that a double represents exactly */
+  private static final double[] EXACT_POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final int windowSize;
+
+  MappedPauseLineScanner() {
+    this(DEFAULT_WINDOW_SIZE);
+  }
+
+  @VisibleForTesting
+  MappedPauseLineScanner(final int windowSize) {
+    Preconditions.checkArgument(windowSize > 0, "windowSize must be positive.");
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Record the pause times of all complete lines between the cursor and the end of the channel
+   * and advance the cursor past them. The caller must hold the monitor of the cursor.
+   *
+   * @return The number of bytes consumed.
+   */
+  long scan(final FileChannel channel, final CollectionLogCursor cursor,
+      final PauseTime pauseTime) throws IOException {
+    final long start = cursor.getOffset();
+    final long size = channel.size();
+    boolean parserActivated = !cursor.isWithinPauseLineRun();
+    long windowStart = start;
+    int currentWindowSize = windowSize;
+
+    while (windowStart < size) {
+      final int length = (int) Math.min(size - windowStart, currentWindowSize);
+      final MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+
+      int lineStart = 0;
+      for (int i = 0; i < length; i++) {
+        if (window.get(i) == '\n') {
+          parserActivated = processLine(window, lineStart, i, parserActivated, pauseTime);
+          lineStart = i + 1;
+        }
+      }
+
+      if (lineStart == 0) {
+        if (length < currentWindowSize) {
+          // Only an incomplete line remains.
+          break;
+        }
+        // A single line does not fit into the window.
+        currentWindowSize = (int) Math.min(Integer.MAX_VALUE, 2L * currentWindowSize);
+        continue;
+      }
+
+      windowStart += lineStart;
+      cursor.advanceTo(windowStart);
+      cursor.setWithinPauseLineRun(!parserActivated);
+    }
+
+    return windowStart - start;
+  }
+
+  /**
+   * Process the line between start (inclusive) and end (exclusive).
+   *
+   * @return Whether this line was not a pause time line.
+   */
+  private boolean processLine(final ByteBuffer buffer, final int start, final int end,
+      final boolean parserActivated, final PauseTime pauseTime) {
+    if (end > start && buffer.get(start) == '[') {
+      return processUnifiedLine(buffer, start, end, pauseTime);
+    }
+
+    final int signature = indexOf(SIGNATURE, buffer, start, end);
+    if (signature < 0) {
+      return true;
+    }
+
+    if (parserActivated) {
+      int tokenStart = signature + SIGNATURE.length;
+      while (tokenStart < end && isDelimiter(buffer.get(tokenStart))) {
+        tokenStart++;
+      }
+      int tokenEnd = tokenStart;
+      while (tokenEnd < end && !isDelimiter(buffer.get(tokenEnd))) {
+        tokenEnd++;
+      }
+      pauseTime.incrementPauseTime(parseSeconds(buffer, tokenStart, tokenEnd),
+          timestampBefore(buffer, start, signature));
+      recordTimeToSafepoint(buffer, tokenEnd, end, TIME_TO_SAFEPOINT_SIGNATURE, 1.0, pauseTime);
+    }
+    return false;
+  }
+
+  /**
+   * Process a line of the unified logging framework; see {@link UnifiedPauseLineDecoder}. Each
+   * such pause line reports a safepoint of its own.
+   *
+   * @return Whether this line was not a pause time line.
+   */
+  private boolean processUnifiedLine(final ByteBuffer buffer, final int start, final int end,
+      final PauseTime pauseTime) {
+    final int reachingSafepoint = indexOf(REACHING_SAFEPOINT_SIGNATURE, buffer, start, end);
+    if (reachingSafepoint >= 0) {
+      final int total = indexOf(TOTAL_SIGNATURE, buffer, reachingSafepoint, end);
+      final double totalNanos =
+          total < 0 ? 0.0 : parseNumberAfter(buffer, total + TOTAL_SIGNATURE.length, end);
+      pauseTime.incrementPauseTime(totalNanos / NANOS_PER_SECOND, uptimeOf(buffer, start, end));
+      recordTimeToSafepoint(buffer, reachingSafepoint, end, REACHING_SAFEPOINT_SIGNATURE,
+          NANOS_PER_SECOND, pauseTime);
+      return false;
+    }
+
+    final int signature = indexOf(SIGNATURE, buffer, start, end);
+    if (signature < 0) {
+      return true;
+    }
+    final int tokenStart = signature + SIGNATURE.length;
+    pauseTime.incrementPauseTime(parseNumberAfter(buffer, tokenStart, end),
+        uptimeOf(buffer, start, end));
+    recordTimeToSafepoint(buffer, tokenStart, end, TIME_TO_SAFEPOINT_SIGNATURE, 1.0, pauseTime);
+    return false;
+  }
+
+  /** Record the number that follows the signature, if present, divided by the given unit */
+  private static void recordTimeToSafepoint(final ByteBuffer buffer, final int start,
+      final int end, final byte[] signature, final double unit, final PauseTime pauseTime) {
+    final int at = indexOf(signature, buffer, start, end);
+    if (at >= 0) {
+      pauseTime.incrementTimeToSafepoint(
+          parseNumberAfter(buffer, at + signature.length, end) / unit);
+    }
+  }
+
+  /**
+   * Returns the timestamp that ends in a colon ahead of the given index of the line that begins
+   * at start, or NaN if absent; see {@link LegacyPauseLineDecoder#timestampBefore}.
+   */
+  private static double timestampBefore(final ByteBuffer buffer, final int start, final int at) {
+    int end = at;
+    while (end > start && buffer.get(end - 1) == ' ') {
+      end--;
+    }
+    if (end == start || buffer.get(end - 1) != ':') {
+      return Double.NaN;
+    }
+    end--;
+    int numberStart = end;
+    while (numberStart > start && isNumberCharacter(buffer.get(numberStart - 1))) {
+      numberStart--;
+    }
+    if (numberStart == end
+        || (numberStart > start && !isTimestampBoundary(buffer.get(numberStart - 1)))) {
+      return Double.NaN;
+    }
+    return parseSeconds(buffer, numberStart, end);
+  }
+
+  /**
+   * Returns the uptime decoration of the -Xlog line between start and end in seconds, or NaN if
+   * absent; see {@link UnifiedPauseLineDecoder#uptimeOf}.
+   */
+  private static double uptimeOf(final ByteBuffer buffer, final int start, final int end) {
+    int open = start;
+    while (open < end && buffer.get(open) == '[') {
+      int closing = open + 1;
+      while (closing < end && buffer.get(closing) != ']') {
+        closing++;
+      }
+      if (closing == end) {
+        break;
+      }
+      if (closing > open + 2 && buffer.get(closing - 1) == 's') {
+        final boolean millis = buffer.get(closing - 2) == 'm';
+        final int numberEnd = millis ? closing - 2 : closing - 1;
+        if (allNumberCharacters(buffer, open + 1, numberEnd)) {
+          final double value = parseSeconds(buffer, open + 1, numberEnd);
+          return millis ? value / 1000 : value;
+        }
+      }
+      open = closing + 1;
+    }
+    return Double.NaN;
+  }
+
+  private static boolean allNumberCharacters(final ByteBuffer buffer, final int start,
+      final int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (!isNumberCharacter(buffer.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isNumberCharacter(final byte b) {
+    return (b >= '0' && b <= '9') || b == '.';
+  }
+
+  private static boolean isTimestampBoundary(final byte b) {
+    return b == ' ' || b == '[' || b == ']';
+  }
+
+  /** Decode the number that starts after blanks at start and ends at a delimiter or comma */
+  private static double parseNumberAfter(final ByteBuffer buffer, final int start,
+      final int end) {
+    int tokenStart = start;
+    while (tokenStart < end && buffer.get(tokenStart) == ' ') {
+      tokenStart++;
+    }
+    int tokenEnd = tokenStart;
+    while (tokenEnd < end && !isDelimiter(buffer.get(tokenEnd)) && buffer.get(tokenEnd) != ',') {
+      tokenEnd++;
+    }
+    return parseSeconds(buffer, tokenStart, tokenEnd);
+  }
+
+  private static int indexOf(final byte[] pattern, final ByteBuffer buffer, final int start,
+      final int end) {
+    final int last = end - pattern.length;
+    outer:
+    for (int i = start; i <= last; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (buffer.get(i + j) != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private static byte[] bytesOf(final String signature) {
+    return signature.getBytes(Charsets.US_ASCII);
+  }
+
+  /** The delimiters of {@link java.util.StringTokenizer} by default */
+  private static boolean isDelimiter(final byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+  }
+
+  /**
+   * Decode the decimal number between start (inclusive) and end (exclusive) without allocating.
+   *
+   * Plain decimals whose significant digits fit into 53 bits and whose decimal exponent is at
+   * most 22 in magnitude are converted by a single exactly rounded multiplication or division.
+   * Everything else is left to {@link Double#parseDouble(String)}, so the result always matches
+   * that of {@link Double#valueOf(String)}. Unparseable input yields 0.0.
+   */
+  @VisibleForTesting
+  static double parseSeconds(final ByteBuffer buffer, final int start, final int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean inFraction = false;
+    boolean exact = true;
+    for (; i < end; i++) {
+      final byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        if (mantissa > (MAXIMUM_EXACT_MANTISSA - 9) / 10) {
+          exact = false;
+          break;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (inFraction) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && !inFraction) {
+        inFraction = true;
+      } else {
+        break;
+      }
+    }
+
+    int exponent = 0;
+    if (exact && i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+        negativeExponent = buffer.get(i) == '-';
+        i++;
+      }
+      final int exponentStart = i;
+      for (; i < end && exponent < 1000; i++) {
+        final byte b = buffer.get(i);
+        if (b < '0' || b > '9') {
+          break;
+        }
+        exponent = exponent * 10 + (b - '0');
+      }
+      if (i == exponentStart) {
+        exact = false;
+      }
+      exponent = negativeExponent ? -exponent : exponent;
+    }
+
+    final int decimalExponent = exponent - fractionDigits;
+    if (exact && i == end && digits > 0
+        && Math.abs(decimalExponent) < EXACT_POWERS_OF_TEN.length) {
+      final double magnitude = decimalExponent < 0
+          ? mantissa / EXACT_POWERS_OF_TEN[-decimalExponent]
+          : mantissa * EXACT_POWERS_OF_TEN[decimalExponent];
+      return negative ? -magnitude : magnitude;
+    }
+    return parseSlowly(buffer, start, end);
+  }
+
+  private static double parseSlowly(final ByteBuffer buffer, final int start, final int end) {
+    final byte[] bytes = new byte[end - start];
+    for (int i = start; i < end; i++) {
+      bytes[i - start] = buffer.get(i);
+    }
+    final String token = new String(bytes, Charsets.ISO_8859_1);
+    try {
+      return Double.parseDouble(token);
+    } catch (final NumberFormatException e) {
+      log.warning(String.format("Unable to parse pause time '%s'. Defaulting to 0.0", token));
+      return 0.0;
+    }
+  }
+}
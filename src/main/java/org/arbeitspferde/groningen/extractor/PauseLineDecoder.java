@@ -0,0 +1,55 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+/**
+ * A PauseLineDecoder recognizes the lines in which a JVM reports how long its application
+ * threads were stopped, in one of the dialects in which JVMs write them to their logs.
+ *
+ * A decoder is stateful: the times of the line last passed to {@link #decode} are available
+ * until the next call. Times are only parsed when asked for, such that lines that are skipped
+ * cost no more than recognizing them. Implementations need not be thread safe.
+ */
+interface PauseLineDecoder {
+  /**
+   * Examine one line of the log.
+   *
+   * @param line The line without its terminator.
+   * @return Whether the line reports a pause.
+   */
+  boolean decode(String line);
+
+  /** Returns the seconds that the application was stopped for during the decoded pause */
+  double getPauseSeconds();
+
+  /**
+   * Returns the seconds it took to bring the application threads to a safepoint, which is part
+   * of the pause time, or NaN if the decoded line does not report it.
+   */
+  double getTimeToSafepointSeconds();
+
+  /**
+   * Returns the seconds since the start of the JVM at which the decoded pause was logged, or NaN
+   * if the line carries no such timestamp.
+   */
+  double getTimestamp();
+
+  /**
+   * Returns whether a pause line that directly follows another pause line repeats the pause
+   * reported by its predecessor rather than reporting a pause of its own.
+   */
+  boolean repeatsConsecutivePauses();
+}
@@ -0,0 +1,126 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+/**
+ * Decodes the pause lines that JDK 9 and later write with -Xlog:safepoint. Lines of the unified
+ * logging framework start with their decorations, e.g. {@code [12.345s][info][safepoint]}.
+ *
+ * As of JDK 17, each safepoint is reported in nanoseconds, e.g. {@code Safepoint
+ * "G1CollectForAllocation", Time since last: 24476396 ns, Reaching safepoint: 132083 ns,
+ * At safepoint: 6284791 ns, Total: 6416874 ns}. Earlier releases use the wording of
+ * -XX:+PrintGCApplicationStoppedTime, which is decoded as well.
+ */
+class UnifiedPauseLineDecoder implements PauseLineDecoder {
+  static final String REACHING_SAFEPOINT_SIGNATURE = "Reaching safepoint:";
+
+  static final String TOTAL_SIGNATURE = "Total:";
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private String line;
+  private int reachingSafepointIndex = -1;
+  private int stoppedTimeIndex = -1;
+
+  @Override
+  public boolean decode(final String line) {
+    this.line = line;
+    reachingSafepointIndex = -1;
+    stoppedTimeIndex = -1;
+    if (line.isEmpty() || line.charAt(0) != '[') {
+      return false;
+    }
+    reachingSafepointIndex = line.indexOf(REACHING_SAFEPOINT_SIGNATURE);
+    if (reachingSafepointIndex >= 0) {
+      return true;
+    }
+    stoppedTimeIndex = line.indexOf(LegacyPauseLineDecoder.SIGNATURE);
+    return stoppedTimeIndex >= 0;
+  }
+
+  @Override
+  public double getPauseSeconds() {
+    if (reachingSafepointIndex >= 0) {
+      final double nanos =
+          LegacyPauseLineDecoder.secondsAfter(line, TOTAL_SIGNATURE, reachingSafepointIndex);
+      return Double.isNaN(nanos) ? 0.0 : nanos / NANOS_PER_SECOND;
+    }
+    final double seconds =
+        LegacyPauseLineDecoder.secondsAfter(line, LegacyPauseLineDecoder.SIGNATURE, 0);
+    return Double.isNaN(seconds) ? 0.0 : seconds;
+  }
+
+  @Override
+  public double getTimeToSafepointSeconds() {
+    if (reachingSafepointIndex >= 0) {
+      return LegacyPauseLineDecoder.secondsAfter(
+          line, REACHING_SAFEPOINT_SIGNATURE, reachingSafepointIndex) / NANOS_PER_SECOND;
+    }
+    return LegacyPauseLineDecoder.secondsAfter(
+        line, LegacyPauseLineDecoder.TIME_TO_SAFEPOINT_SIGNATURE, stoppedTimeIndex);
+  }
+
+  @Override
+  public double getTimestamp() {
+    return uptimeOf(line);
+  }
+
+  /**
+   * Returns the uptime decoration of a -Xlog line, e.g. {@code [1.234s]} or {@code [1234ms]}, in
+   * seconds, or NaN if absent.
+   */
+  static double uptimeOf(final String line) {
+    int open = 0;
+    while (open < line.length() && line.charAt(open) == '[') {
+      final int closing = line.indexOf(']', open);
+      if (closing < 0) {
+        break;
+      }
+      if (closing > open + 2 && line.charAt(closing - 1) == 's') {
+        final boolean millis = line.charAt(closing - 2) == 'm';
+        final int numberEnd = millis ? closing - 2 : closing - 1;
+        if (allNumberCharacters(line, open + 1, numberEnd)) {
+          try {
+            final double value = Double.parseDouble(line.substring(open + 1, numberEnd));
+            return millis ? value / 1000 : value;
+          } catch (final NumberFormatException e) {
+            return Double.NaN;
+          }
+        }
+      }
+      open = closing + 1;
+    }
+    return Double.NaN;
+  }
+
+  private static boolean allNumberCharacters(final String line, final int start, final int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (!LegacyPauseLineDecoder.isNumberCharacter(line.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Each line reports a safepoint of its own. */
+  @Override
+  public boolean repeatsConsecutivePauses() {
+    return false;
+  }
+}
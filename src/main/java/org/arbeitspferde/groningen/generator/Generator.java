@@ -78,6 +78,23 @@ public class Generator extends ProfilingRunnable {
     subjectSettingsFileManager.delete(subject.getAssociatedSubject().getExpSettingsFile());
   }
 
+  /**
+   * Write the JVM settings of a subject to the settings file of its associated subject, from which
+   * they are read when the subject restarts.
+   * This method is also called by Executor.
+   * @param bridge The subject whose JVM settings to write.
+   */
+  public void writeExperimentArgs(SubjectStateBridge bridge) {
+    final ExperimentArgs experimentArgs = ExperimentArgs.newBuilder()
+        .setArgs(bridge.getCommandLine().toArgumentString())
+        .setMasterServingAddress(servingAddress)
+        .addAllTunedArg(CommandLine.getManagedArgs())
+        .setPipelineId(pipelineId.id())
+        .build();
+    subjectSettingsFileManager.write(
+        experimentArgs, bridge.getAssociatedSubject().getExpSettingsFile());
+  }
+
   @Inject
   public Generator(final PipelineId pipelineId,
       final Clock clock, final MonitorGroningen monitor, final ExperimentDb e,
@@ -114,15 +131,14 @@ public class Generator extends ProfilingRunnable {
               subjectSettingsFileManager.delete(subject.getExpSettingsFile());
               continue;
             }
-            final ExperimentArgs experimentArgs = ExperimentArgs.newBuilder()
-                .setArgs(bridge.getCommandLine().toArgumentString())
-                .setMasterServingAddress(servingAddress)
-                .addAllTunedArg(CommandLine.getManagedArgs())
-                .setPipelineId(pipelineId.id())
-                .build();
-            subjectSettingsFileManager.write(experimentArgs, subject.getExpSettingsFile());
+            writeExperimentArgs(bridge);
           }
         }
+        // The subjects left out of the experiment run with default settings. Their settings files
+        // may remain from the previous experiment when the Executor overlaps iterations.
+        while (subjectIterator.hasNext()) {
+          subjectSettingsFileManager.delete(subjectIterator.next().getExpSettingsFile());
+        }
       } catch (final Exception e) {
         generatorFailures.incrementAndGet();
         log.log(Level.WARNING, "Unexpected exception when processing subjects.", e);
@@ -15,6 +15,8 @@
 
 package org.arbeitspferde.groningen.generator;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 import org.arbeitspferde.groningen.config.GroningenConfig;
@@ -23,6 +25,7 @@ import org.arbeitspferde.groningen.config.GroningenConfig.SubjectGroupConfig;
 import org.arbeitspferde.groningen.config.NamedConfigParam;
 import org.arbeitspferde.groningen.config.PipelineIterationScoped;
 import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.HypothesizerIslandMode;
 import org.arbeitspferde.groningen.subject.ServingAddressGenerator;
 import org.arbeitspferde.groningen.subject.Subject;
 import org.arbeitspferde.groningen.subject.SubjectGroup;
@@ -44,6 +47,8 @@ import java.util.logging.Logger;
  * {@link SubjectStateBridge} objects in the {@link Generator}.
  *
  * The order of the {@link List} of {@link Subject}s is randomized to minimize experimental bias.
+ * When the hypothesizer evolves islands, the subjects of each island, which are those of a cluster
+ * or of a subject group, are kept together and only shuffled among themselves.
  */
 @PipelineIterationScoped
 public class SubjectShuffler {
@@ -61,10 +66,18 @@ public class SubjectShuffler {
      * iterator
      */
     private final int subjectCount;
+    /** The number of subjects of each island, in the order the iterator walks them */
+    private final List<Integer> islandSizes;
 
     public SubjectIterator(final Iterator<Subject> subjectIterator, final int subjectCount) {
+      this(subjectIterator, subjectCount, ImmutableList.of(subjectCount));
+    }
+
+    public SubjectIterator(final Iterator<Subject> subjectIterator, final int subjectCount,
+        final List<Integer> islandSizes) {
       this.subjectIterator = subjectIterator;
       this.subjectCount = subjectCount;
+      this.islandSizes = ImmutableList.copyOf(islandSizes);
     }
 
     @Override
@@ -85,6 +98,14 @@ public class SubjectShuffler {
     public int getSubjectCount() {
       return subjectCount;
     }
+
+    /**
+     * Returns the number of subjects of each island, in order. The subjects of an island are
+     * walked consecutively, and islands are walked in the same order in every iteration.
+     */
+    public List<Integer> getIslandSizes() {
+      return islandSizes;
+    }
   }
 
   @Inject
@@ -111,9 +132,11 @@ public class SubjectShuffler {
    * with the cluster environment by using the {@link SubjectManipulator} class.
    */
   public SubjectIterator createIterator() {
-    List<Subject> subjects = null;
+    final HypothesizerIslandMode islandMode = config.getParamBlock().getHypothesizerIslandMode();
+    final List<List<Subject>> islands = Lists.newArrayList();
     for (final ClusterConfig clusterConfig : config.getClusterConfigs()) {
       final String clusterName = clusterConfig.getName();
+      boolean firstGroupOfCluster = true;
       for (SubjectGroupConfig groupConfig : clusterConfig.getSubjectGroupConfigs()) {
         final String groupName = groupConfig.getName();
         final String userName = groupConfig.getUser();
@@ -124,26 +147,42 @@ public class SubjectShuffler {
          */
         final SubjectGroup subjectGroup =
             new SubjectGroup(clusterName, groupName, userName, groupConfig, servingAddressBuilder);
+        final List<Subject> groupSubjects;
         try {
-          subjects = subjectGroup.initialize(manipulator, subjects);
+          groupSubjects = subjectGroup.initialize(manipulator, null);
         } catch (final PermanentFailure | TemporaryFailure  e) {
           throw new RuntimeException("Could not create a list of subjects.", e);
         }
+
+        if (islands.isEmpty() || islandMode == HypothesizerIslandMode.SUBJECT_GROUP_ISLANDS
+            || (islandMode == HypothesizerIslandMode.CLUSTER_ISLANDS && firstGroupOfCluster)) {
+          islands.add(Lists.<Subject>newArrayList());
+        }
+        islands.get(islands.size() - 1).addAll(groupSubjects);
+        firstGroupOfCluster = false;
       }
     }
 
-    if (subjects != null) {
-      if (subjects.size() > 1) {
-        // We are shuffling multiple times to ensure a good quality shuffle. This may be overkill
-        // because we're using a good quality random number generator. However, we only do this
-        // once per experiment and the shuffle runs in linear time on a relatively small list. So,
-        // why not shuffle a multiple times?
-        for (int i = 0; i < shuffleCount; i++) {
-          Collections.shuffle(subjects, rng);
+    if (!islands.isEmpty()) {
+      // Subjects are only shuffled within their island, such that each island keeps the same
+      // subjects, and so the same hardware, from one iteration to the next.
+      final List<Subject> subjects = Lists.newArrayList();
+      final List<Integer> islandSizes = Lists.newArrayListWithCapacity(islands.size());
+      for (final List<Subject> island : islands) {
+        if (island.size() > 1) {
+          // We are shuffling multiple times to ensure a good quality shuffle. This may be overkill
+          // because we're using a good quality random number generator. However, we only do this
+          // once per experiment and the shuffle runs in linear time on a relatively small list.
+          // So, why not shuffle a multiple times?
+          for (int i = 0; i < shuffleCount; i++) {
+            Collections.shuffle(island, rng);
+          }
         }
+        subjects.addAll(island);
+        islandSizes.add(island.size());
       }
 
-      return new SubjectIterator(subjects.iterator(), subjects.size());
+      return new SubjectIterator(subjects.iterator(), subjects.size(), islandSizes);
     } else {
       log.log(Level.SEVERE,
           "Empty iterator intialized; this should never happen!", new Throwable());
@@ -0,0 +1,45 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.http;
+
+/**
+ * JVM settings on the Pareto front of a pipeline, with their unweighted scores
+ */
+public class ParetoPoint {
+  // JVM Settings String
+  public String settings;
+
+  // Score under the configured weights
+  public double score;
+
+  public double latencyScore;
+
+  public double throughputScore;
+
+  public double memoryScore;
+
+  public ParetoPoint() {
+  }
+
+  public ParetoPoint(String settings, double score, double latencyScore, double throughputScore,
+      double memoryScore) {
+    this.settings = settings;
+    this.score = score;
+    this.latencyScore = latencyScore;
+    this.throughputScore = throughputScore;
+    this.memoryScore = memoryScore;
+  }
+}
@@ -26,9 +26,11 @@ import org.arbeitspferde.groningen.config.GroningenConfig.ClusterConfig;
 import org.arbeitspferde.groningen.config.GroningenConfig.SubjectGroupConfig;
 import org.arbeitspferde.groningen.display.DisplayMediator;
 import org.arbeitspferde.groningen.display.DisplayableObject;
+import org.arbeitspferde.groningen.experimentdb.FitnessScore;
 import org.arbeitspferde.groningen.experimentdb.PauseTime;
 import org.arbeitspferde.groningen.experimentdb.ResourceMetric;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.hypothesizer.ParetoSolution;
 import org.arbeitspferde.groningen.proto.Params.GroningenParamsOrBuilder;
 
 import javax.ws.rs.GET;
@@ -209,6 +211,22 @@ public class Pipelines {
         .build();
   }
 
+  @GET
+  @Path("/{pipelineId}/pareto")
+  public String getParetoFront(@PathParam("pipelineId") String pipelineId) {
+    ArrayList<ParetoPoint> front = new ArrayList<>();
+    Pipeline pipeline = pipelineManager.findPipelineById(new PipelineId(pipelineId));
+    if (pipeline != null) {
+      for (ParetoSolution<String> solution : pipeline.getParetoFront()) {
+        front.add(new ParetoPoint(solution.getCandidate(), solution.getFitness(),
+            solution.getObjective(FitnessScore.LATENCY_OBJECTIVE),
+            solution.getObjective(FitnessScore.THROUGHPUT_OBJECTIVE),
+            solution.getObjective(FitnessScore.MEMORY_OBJECTIVE)));
+      }
+    }
+    return this.gson.toJson(front);
+  }
+
   @GET
   @Path("/{pipelineId}/config")
   @Produces(MediaType.TEXT_PLAIN)
@@ -0,0 +1,120 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.Lists;
+
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagConstraint;
+
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Repairs the individuals whose flags violate a {@link JvmFlagConstraint}, such that no subject
+ * is spent on a JVM that cannot start.
+ *
+ * A violated constraint is repaired by lowering its lesser flag to the greatest step of its search
+ * space that satisfies it, or, when no step does, by raising the greater flag to the least step
+ * that does. Individuals that satisfy every constraint are returned as they are, so that repair
+ * disturbs the search no more than it must.
+ */
+class ConstraintRepair implements EvolutionaryOperator<Genome> {
+  private static final Logger log = Logger.getLogger(ConstraintRepair.class.getCanonicalName());
+
+  /** The most passes over the constraints, as raising a greater flag may break another */
+  private static final int MAX_PASSES = JvmFlagConstraint.values().length + 1;
+
+  private final GeneSpace space;
+  private final GenomeCodec codec;
+
+  ConstraintRepair(final GeneSpace space, final GenomeCodec codec) {
+    this.space = space;
+    this.codec = codec;
+  }
+
+  @Override
+  public List<Genome> apply(final List<Genome> selectedCandidates, final Random rng) {
+    final List<Genome> repairedPopulation =
+        Lists.newArrayListWithCapacity(selectedCandidates.size());
+    for (final Genome candidate : selectedCandidates) {
+      repairedPopulation.add(repair(candidate));
+    }
+    return repairedPopulation;
+  }
+
+  /** Returns the individual with its violated constraints repaired, or itself if none are */
+  Genome repair(final Genome individual) {
+    final JvmFlag gcMode = codec.getGcMode(individual.getGcModeIndex());
+    long[] genes = null;
+    for (int pass = 0; pass < MAX_PASSES; pass++) {
+      boolean changed = false;
+      for (final JvmFlagConstraint constraint : JvmFlagConstraint.values()) {
+        final int lesser = codec.indexOf(constraint.getLesser());
+        final int greater = codec.indexOf(constraint.getGreater());
+        if (lesser < 0 || greater < 0 || !constraint.isRelevantTo(gcMode)) {
+          continue;
+        }
+        final long lesserValue = genes == null ? individual.get(lesser) : genes[lesser];
+        final long greaterValue = genes == null ? individual.get(greater) : genes[greater];
+        if (constraint.isSatisfiedBy(lesserValue, greaterValue)) {
+          continue;
+        }
+        if (genes == null) {
+          genes = individual.toArray();
+        }
+        changed = true;
+
+        final long bound = constraint.isStrict() ? genes[greater] - 1 : genes[greater];
+        final SearchSpaceEntry lesserEntry = space.getEntry(lesser);
+        if (bound >= lesserEntry.getFloor()) {
+          genes[lesser] = stepAtMost(lesserEntry, bound);
+        } else {
+          genes[lesser] = lesserEntry.getFloor();
+          final long least = constraint.isStrict() ? genes[lesser] + 1 : genes[lesser];
+          genes[greater] = stepAtLeast(space.getEntry(greater), least);
+        }
+      }
+      if (!changed) {
+        return genes == null ? individual : Genome.wrap(genes);
+      }
+    }
+
+    log.warning(String.format("Could not satisfy the flag constraints of %s.", individual));
+    return Genome.wrap(genes);
+  }
+
+  /** Returns the greatest step of the entry that is at most the bound, which is within range */
+  private static long stepAtMost(final SearchSpaceEntry entry, final long bound) {
+    final long step = Math.max(1, entry.getStepSize());
+    final long capped = Math.min(bound, entry.getCeiling());
+    return entry.getFloor() + (capped - entry.getFloor()) / step * step;
+  }
+
+  /** Returns the least step of the entry that is at least the bound, or the ceiling if none is */
+  private static long stepAtLeast(final SearchSpaceEntry entry, final long bound) {
+    final long step = Math.max(1, entry.getStepSize());
+    if (bound <= entry.getFloor()) {
+      return entry.getFloor();
+    }
+    final long steps = (bound - entry.getFloor() + step - 1) / step;
+    return Math.min(entry.getCeiling(), entry.getFloor() + steps * step);
+  }
+}
@@ -0,0 +1,81 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+/**
+ * FitnessCache remembers the fitness measured for each distinct set of JVM flags, keyed by
+ * {@link org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet#getFingerprint()}.
+ *
+ * When the same flags are measured more than once, the cache keeps the mean of the measurements,
+ * which is a less noisy estimate of the fitness than any single one of them.
+ *
+ * This class is thread safe.
+ */
+class FitnessCache {
+  private final Map<Long, Measurements> entries = Maps.newHashMap();
+
+  /** Records a fitness measured for the flags with the given fingerprint. */
+  synchronized void record(final long fingerprint, final double fitness) {
+    Measurements measurements = entries.get(fingerprint);
+    if (measurements == null) {
+      measurements = new Measurements();
+      entries.put(fingerprint, measurements);
+    }
+    measurements.add(fitness);
+  }
+
+  /** Returns whether the flags with the given fingerprint have been measured. */
+  synchronized boolean contains(final long fingerprint) {
+    return entries.containsKey(fingerprint);
+  }
+
+  /** Returns the number of times the flags with the given fingerprint have been measured. */
+  synchronized int getSampleCount(final long fingerprint) {
+    final Measurements measurements = entries.get(fingerprint);
+    return measurements == null ? 0 : measurements.count;
+  }
+
+  /**
+   * Returns the mean of the fitness measured for the flags with the given fingerprint.
+   *
+   * @throws IllegalArgumentException If the flags have not been measured.
+   */
+  synchronized double getMeanFitness(final long fingerprint) {
+    final Measurements measurements = entries.get(fingerprint);
+    Preconditions.checkArgument(measurements != null, "No fitness recorded for %s.", fingerprint);
+    return measurements.mean;
+  }
+
+  /** Returns the number of distinct flag sets measured. */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private static class Measurements {
+    private int count;
+    private double mean;
+
+    void add(final double fitness) {
+      count++;
+      mean += (fitness - mean) / count;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.PopulationData;
+
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Mutates each gene of a {@link Genome} with a given probability. A mutated flag value moves from
+ * its current value by a normally distributed number of the steps of its search space, and by one
+ * step at least, such that the search refines around good individuals rather than jumping across
+ * the whole range; a mutated GC mode is drawn anew.
+ *
+ * The deviation of the moves, as a fraction of the range of each flag, adapts to the progress of
+ * the search by the one-fifth success rule: it widens while more than a fifth of each evaluated
+ * population beats the best fitness of the population before it, and narrows otherwise, greater
+ * fitness being better. To adapt, the mutation must observe the engine it breeds for.
+ */
+class GaussianMutation implements EvolutionaryOperator<Genome>, EvolutionObserver<Genome> {
+  private static final Logger log = Logger.getLogger(GaussianMutation.class.getCanonicalName());
+
+  /** The success rate below which the deviation narrows and above which it widens */
+  private static final double TARGET_SUCCESS_RATE = 0.2;
+
+  /** The factor by which the deviation changes each generation */
+  private static final double ADAPTATION_FACTOR = 1.22;
+
+  /** The bounds of the deviation, as a fraction of the range of each flag */
+  static final double MIN_SIGMA = 0.001;
+  static final double MAX_SIGMA = 0.5;
+
+  private final GeneSpace space;
+  private final Probability probability;
+
+  private volatile double sigma;
+  private boolean hasBestFitness;
+  private double bestFitness;
+
+  /**
+   * @param space The search space of the genes.
+   * @param probability The probability that each gene mutates.
+   * @param sigma The initial deviation of the moves, as a fraction of the range of each flag.
+   */
+  GaussianMutation(final GeneSpace space, final Probability probability, final double sigma) {
+    Preconditions.checkArgument(sigma > 0, "The deviation must be positive.");
+    this.space = space;
+    this.probability = probability;
+    this.sigma = Math.max(MIN_SIGMA, Math.min(MAX_SIGMA, sigma));
+  }
+
+  /** Returns the current deviation of the moves, as a fraction of the range of each flag */
+  double getSigma() {
+    return sigma;
+  }
+
+  @Override
+  public List<Genome> apply(final List<Genome> selectedCandidates, final Random rng) {
+    final List<Genome> mutatedPopulation =
+        Lists.newArrayListWithCapacity(selectedCandidates.size());
+    for (final Genome candidate : selectedCandidates) {
+      long[] genes = null;
+      for (int i = 0; i < candidate.size(); i++) {
+        if (!probability.nextEvent(rng)) {
+          continue;
+        }
+        if (genes == null) {
+          genes = candidate.toArray();
+        }
+        if (i == 0) {
+          genes[0] = rng.nextInt(space.getGcModeCount());
+        } else {
+          genes[i] = creep(space.getEntry(i), genes[i], rng);
+        }
+      }
+      // Genomes are immutable, so unchanged candidates are shared rather than copied.
+      mutatedPopulation.add(genes == null ? candidate : Genome.wrap(genes));
+    }
+    return mutatedPopulation;
+  }
+
+  /** Moves the value by a normally distributed number of steps, and by one step at least */
+  private long creep(final SearchSpaceEntry entry, final long value, final Random rng) {
+    final long moved = GeneSpace.move(entry, value, sigma, rng);
+    if (moved != value || entry.getFloor() == entry.getCeiling()) {
+      return moved;
+    }
+    final long step = Math.max(1, entry.getStepSize());
+    final boolean up = value + step <= entry.getCeiling()
+        && (value - step < entry.getFloor() || rng.nextBoolean());
+    return GeneSpace.snap(entry, up ? value + step : value - step);
+  }
+
+  @Override
+  public void populationUpdate(final PopulationData<Genome> data,
+      final List<EvaluatedCandidate<Genome>> population) {
+    if (population.isEmpty()) {
+      return;
+    }
+    if (hasBestFitness) {
+      int successes = 0;
+      for (final EvaluatedCandidate<Genome> candidate : population) {
+        if (candidate.getFitness() > bestFitness) {
+          successes++;
+        }
+      }
+      final double successRate = (double) successes / population.size();
+      final double adapted = successRate > TARGET_SUCCESS_RATE
+          ? sigma * ADAPTATION_FACTOR : sigma / ADAPTATION_FACTOR;
+      sigma = Math.max(MIN_SIGMA, Math.min(MAX_SIGMA, adapted));
+      log.info(String.format("Mutation success rate %.2f; deviation %.4f.", successRate, sigma));
+    }
+    hasBestFitness = true;
+    bestFitness = data.getBestCandidateFitness();
+  }
+}
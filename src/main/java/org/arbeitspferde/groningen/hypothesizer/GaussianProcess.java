@@ -0,0 +1,269 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * GaussianProcess is a regression model of a noisy function on the unit hypercube, which
+ * predicts both the value of the function at a point and its uncertainty about it.
+ *
+ * It uses a squared exponential kernel over the observed points. The length scale of the kernel
+ * and the noise of the observations are chosen by maximizing the marginal likelihood of the
+ * observations over a grid, which is cheap enough for the hundreds of subjects that an
+ * experiment scores.
+ *
+ * This class is not thread safe.
+ */
+class GaussianProcess {
+  /** The length scales tried, as fractions of the diagonal of the unit hypercube */
+  private static final double[] LENGTH_SCALES = {0.05, 0.1, 0.2, 0.35, 0.5, 0.75, 1.0};
+
+  /** The noise variances tried, relative to the variance of the observations */
+  private static final double[] NOISE_VARIANCES = {0.01, 0.1, 0.3};
+
+  private double[][] points;
+  private double targetMean;
+  private double targetScale;
+
+  private double lengthScale;
+  private double noiseVariance;
+
+  /** The lower Cholesky factor of the covariance matrix of the observations */
+  private double[][] factor;
+
+  /** The covariance matrix of the observations applied inversely to the standardized targets */
+  private double[] weights;
+
+  /**
+   * Fits the model to the observations, replacing those of previous fits.
+   *
+   * @param points The observed points, each of the same dimensions.
+   * @param targets The observed values at the points.
+   */
+  void fit(final double[][] points, final double[] targets) {
+    Preconditions.checkArgument(points.length == targets.length,
+        "There must be as many targets as points.");
+    Preconditions.checkArgument(points.length > 0, "There must be at least one observation.");
+    final int n = points.length;
+    this.points = points.clone();
+    factor = null;
+
+    double sum = 0.0;
+    for (final double target : targets) {
+      sum += target;
+    }
+    targetMean = sum / n;
+    double squares = 0.0;
+    for (final double target : targets) {
+      squares += (target - targetMean) * (target - targetMean);
+    }
+    targetScale = squares > 0.0 ? Math.sqrt(squares / n) : 1.0;
+    final double[] standardized = new double[n];
+    for (int i = 0; i < n; i++) {
+      standardized[i] = (targets[i] - targetMean) / targetScale;
+    }
+
+    final double[][] squaredDistances = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < i; j++) {
+        squaredDistances[i][j] = squaredDistance(points[i], points[j]);
+        squaredDistances[j][i] = squaredDistances[i][j];
+      }
+    }
+
+    final double diagonal = Math.sqrt(points[0].length);
+    double bestLikelihood = Double.NEGATIVE_INFINITY;
+    for (final double relativeLengthScale : LENGTH_SCALES) {
+      for (final double noise : NOISE_VARIANCES) {
+        final double scale = relativeLengthScale * diagonal;
+        final double[][] candidateFactor = new double[n][n];
+        for (int i = 0; i < n; i++) {
+          for (int j = 0; j <= i; j++) {
+            candidateFactor[i][j] = kernel(squaredDistances[i][j], scale);
+          }
+          candidateFactor[i][i] += noise;
+        }
+        if (!decompose(candidateFactor)) {
+          continue;
+        }
+        final double[] candidateWeights = solve(candidateFactor, standardized);
+        double likelihood = 0.0;
+        for (int i = 0; i < n; i++) {
+          likelihood -= 0.5 * standardized[i] * candidateWeights[i];
+          likelihood -= Math.log(candidateFactor[i][i]);
+        }
+        if (likelihood > bestLikelihood) {
+          bestLikelihood = likelihood;
+          lengthScale = scale;
+          noiseVariance = noise;
+          factor = candidateFactor;
+          weights = candidateWeights;
+        }
+      }
+    }
+    Preconditions.checkState(factor != null, "No covariance matrix could be decomposed.");
+  }
+
+  /** Returns the mean of the predicted value at the point */
+  double predictMean(final double[] point) {
+    return targetMean + targetScale * dot(covariances(point), weights);
+  }
+
+  /**
+   * Returns the standard deviation of the predicted value at the point, excluding the noise of
+   * observing it
+   */
+  double predictDeviation(final double[] point) {
+    final double[] projection = forwardSubstitute(factor, covariances(point));
+    final double variance = 1.0 - dot(projection, projection);
+    return targetScale * Math.sqrt(Math.max(variance, 0.0));
+  }
+
+  /** Returns the correlation that the model assumes between the values at the points */
+  double correlation(final double[] a, final double[] b) {
+    return kernel(squaredDistance(a, b), lengthScale);
+  }
+
+  /** Returns the standard deviation of the observed values */
+  double getTargetScale() {
+    return targetScale;
+  }
+
+  double getLengthScale() {
+    return lengthScale;
+  }
+
+  double getNoiseVariance() {
+    return noiseVariance;
+  }
+
+  /**
+   * Returns the expected amount by which a value drawn from the normal distribution exceeds the
+   * incumbent by more than the margin.
+   */
+  static double expectedImprovement(final double mean, final double deviation,
+      final double incumbent, final double margin) {
+    final double improvement = mean - incumbent - margin;
+    if (deviation <= 0.0) {
+      return Math.max(improvement, 0.0);
+    }
+    final double z = improvement / deviation;
+    return improvement * normalDistribution(z) + deviation * normalDensity(z);
+  }
+
+  private double[] covariances(final double[] point) {
+    final double[] covariances = new double[points.length];
+    for (int i = 0; i < points.length; i++) {
+      covariances[i] = kernel(squaredDistance(point, points[i]), lengthScale);
+    }
+    return covariances;
+  }
+
+  private static double kernel(final double squaredDistance, final double lengthScale) {
+    return Math.exp(-squaredDistance / (2 * lengthScale * lengthScale));
+  }
+
+  private static double squaredDistance(final double[] a, final double[] b) {
+    double sum = 0.0;
+    for (int i = 0; i < a.length; i++) {
+      final double difference = a[i] - b[i];
+      sum += difference * difference;
+    }
+    return sum;
+  }
+
+  private static double dot(final double[] a, final double[] b) {
+    double sum = 0.0;
+    for (int i = 0; i < a.length; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Replaces the lower triangle of the symmetric matrix by its Cholesky factor.
+   *
+   * @return Whether the matrix is positive definite; otherwise the matrix is left garbled.
+   */
+  private static boolean decompose(final double[][] matrix) {
+    final int n = matrix.length;
+    for (int j = 0; j < n; j++) {
+      double pivot = matrix[j][j];
+      for (int k = 0; k < j; k++) {
+        pivot -= matrix[j][k] * matrix[j][k];
+      }
+      if (pivot <= 0.0) {
+        return false;
+      }
+      pivot = Math.sqrt(pivot);
+      matrix[j][j] = pivot;
+      for (int i = j + 1; i < n; i++) {
+        double value = matrix[i][j];
+        for (int k = 0; k < j; k++) {
+          value -= matrix[i][k] * matrix[j][k];
+        }
+        matrix[i][j] = value / pivot;
+      }
+    }
+    return true;
+  }
+
+  /** Solves L y = b for y, where L is the lower triangular factor */
+  private static double[] forwardSubstitute(final double[][] factor, final double[] b) {
+    final int n = b.length;
+    final double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      double value = b[i];
+      for (int k = 0; k < i; k++) {
+        value -= factor[i][k] * y[k];
+      }
+      y[i] = value / factor[i][i];
+    }
+    return y;
+  }
+
+  /** Solves L L^T x = b for x, where L is the lower triangular factor */
+  private static double[] solve(final double[][] factor, final double[] b) {
+    final int n = b.length;
+    final double[] x = forwardSubstitute(factor, b);
+    for (int i = n - 1; i >= 0; i--) {
+      double value = x[i];
+      for (int k = i + 1; k < n; k++) {
+        value -= factor[k][i] * x[k];
+      }
+      x[i] = value / factor[i][i];
+    }
+    return x;
+  }
+
+  private static double normalDensity(final double z) {
+    return Math.exp(-0.5 * z * z) / Math.sqrt(2 * Math.PI);
+  }
+
+  /**
+   * Returns the cumulative standard normal distribution at z, by the approximation of the error
+   * function in Abramowitz and Stegun 7.1.26, which is accurate to 1.5e-7.
+   */
+  private static double normalDistribution(final double z) {
+    final double x = Math.abs(z) / Math.sqrt(2);
+    final double t = 1.0 / (1.0 + 0.3275911 * x);
+    final double polynomial = t * (0.254829592 + t * (-0.284496736
+        + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+    final double erf = 1.0 - polynomial * Math.exp(-x * x);
+    return z >= 0 ? 0.5 * (1.0 + erf) : 0.5 * (1.0 - erf);
+  }
+}
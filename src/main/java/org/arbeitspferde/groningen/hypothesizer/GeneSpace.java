@@ -0,0 +1,147 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * GeneSpace describes the values that each gene of an individual of the {@link Hypothesizer} may
+ * take: the first gene is the index of a GC mode, and each of the others is a stepped value
+ * within the search space of a JVM flag.
+ *
+ * It maps individuals onto the unit hypercube, where the GC mode is one-hot encoded such that no
+ * mode appears closer to another than the rest, for models that learn from distances between
+ * individuals.
+ */
+class GeneSpace {
+  private final int gcModeCount;
+  private final List<SearchSpaceEntry> entries;
+
+  /**
+   * @param gcModeCount The number of GC modes that the first gene selects from.
+   * @param entries The search spaces of the remaining genes, in order.
+   */
+  GeneSpace(final int gcModeCount, final List<SearchSpaceEntry> entries) {
+    Preconditions.checkArgument(gcModeCount > 0, "gcModeCount must be positive.");
+    this.gcModeCount = gcModeCount;
+    this.entries = ImmutableList.copyOf(entries);
+  }
+
+  /** Returns the number of genes of an individual */
+  int size() {
+    return entries.size() + 1;
+  }
+
+  /** Returns the number of GC modes that the first gene selects from */
+  int getGcModeCount() {
+    return gcModeCount;
+  }
+
+  /** Returns the search space of the gene at the given position, which holds a flag value */
+  SearchSpaceEntry getEntry(final int index) {
+    Preconditions.checkArgument(index > 0, "The first gene holds the GC mode.");
+    return entries.get(index - 1);
+  }
+
+  /** Returns the number of coordinates of an encoded individual */
+  int dimensions() {
+    return gcModeCount + entries.size();
+  }
+
+  /** Returns the coordinates of the individual on the unit hypercube */
+  double[] encode(final Genome individual) {
+    Preconditions.checkArgument(individual.size() == size(), "Invalid individual size.");
+    final double[] coordinates = new double[dimensions()];
+    coordinates[individual.getGcModeIndex()] = 1.0;
+    for (int i = 0; i < entries.size(); i++) {
+      final SearchSpaceEntry entry = entries.get(i);
+      final long range = entry.getCeiling() - entry.getFloor();
+      if (range > 0) {
+        coordinates[gcModeCount + i] =
+            (double) (individual.get(i + 1) - entry.getFloor()) / range;
+      }
+    }
+    return coordinates;
+  }
+
+  /** Returns an individual drawn uniformly from the space */
+  Genome randomIndividual(final Random rng) {
+    final long[] genes = new long[size()];
+    genes[0] = rng.nextInt(gcModeCount);
+    for (int i = 0; i < entries.size(); i++) {
+      genes[i + 1] = Hypothesizer.generateRandomNumber(entries.get(i), rng);
+    }
+    return Genome.wrap(genes);
+  }
+
+  /**
+   * Returns a neighbour of the individual. Each gene changes with a probability of one in the
+   * number of genes; a changing flag value moves by a normally distributed number of steps whose
+   * deviation is the given fraction of its range, and a changing GC mode is drawn anew.
+   */
+  Genome perturb(final Genome individual, final double scale, final Random rng) {
+    final long[] neighbour = individual.toArray();
+    final double probability = 1.0 / size();
+    boolean changed = false;
+    while (!changed) {
+      for (int i = 0; i < size(); i++) {
+        if (rng.nextDouble() >= probability) {
+          continue;
+        }
+        if (i == 0) {
+          neighbour[0] = rng.nextInt(gcModeCount);
+        } else {
+          neighbour[i] = move(entries.get(i - 1), individual.get(i), scale, rng);
+        }
+        changed = true;
+      }
+    }
+    return Genome.wrap(neighbour);
+  }
+
+  /**
+   * Returns the value moved by a normally distributed number of steps, whose deviation is the
+   * given fraction of the range of the entry, within the range.
+   */
+  static long move(final SearchSpaceEntry entry, final long value, final double scale,
+      final Random rng) {
+    final long floor = entry.getFloor();
+    final long ceiling = entry.getCeiling();
+    final long step = Math.max(1, entry.getStepSize());
+    if (floor == ceiling) {
+      return floor;
+    }
+    final long steps = (ceiling - floor) / step;
+    final long moved = Math.round(rng.nextGaussian() * scale * steps);
+    final long position = Math.max(0, Math.min(steps, (value - floor) / step + moved));
+    return floor + position * step;
+  }
+
+  /** Returns the value of the entry's steps that is closest to the given value, within the range */
+  static long snap(final SearchSpaceEntry entry, final double value) {
+    final long floor = entry.getFloor();
+    final long step = Math.max(1, entry.getStepSize());
+    final long steps = (entry.getCeiling() - floor) / step;
+    final long position = Math.max(0, Math.min(steps, Math.round((value - floor) / step)));
+    return floor + position * step;
+  }
+}
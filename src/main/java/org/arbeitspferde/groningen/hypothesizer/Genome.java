@@ -0,0 +1,95 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * An immutable individual of the {@link Hypothesizer}: the first gene is the index of a GC mode
+ * among the supported ones, and each of the others is the value of a JVM flag, as laid out by a
+ * {@link GenomeCodec}.
+ *
+ * The genes are kept in a primitive array, such that populations do not box every value and
+ * values beyond the range of an int, such as heap sizes in bytes, can be searched.
+ */
+public final class Genome {
+  private final long[] genes;
+
+  private Genome(final long[] genes) {
+    Preconditions.checkArgument(genes.length > 0, "A genome needs at least the GC mode gene.");
+    this.genes = genes;
+  }
+
+  /** Returns a genome of a copy of the given genes */
+  public static Genome of(final long... genes) {
+    return new Genome(genes.clone());
+  }
+
+  /** Returns a genome of the given genes without copying them; they must not be modified after. */
+  static Genome wrap(final long[] genes) {
+    return new Genome(genes);
+  }
+
+  /** Returns the number of genes, including the GC mode gene */
+  public int size() {
+    return genes.length;
+  }
+
+  /** Returns the gene at the given position */
+  public long get(final int index) {
+    return genes[index];
+  }
+
+  /** Returns the index of the GC mode among the supported ones */
+  public int getGcModeIndex() {
+    return (int) genes[0];
+  }
+
+  /** Returns a copy of this genome with the gene at the given position replaced */
+  public Genome with(final int index, final long value) {
+    final long[] copy = genes.clone();
+    copy[index] = value;
+    return wrap(copy);
+  }
+
+  /** Returns a copy of the genes */
+  public long[] toArray() {
+    return genes.clone();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Arrays.equals(genes, ((Genome) o).genes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(genes);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(genes);
+  }
+}
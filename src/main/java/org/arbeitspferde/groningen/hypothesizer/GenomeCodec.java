@@ -0,0 +1,101 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import org.arbeitspferde.groningen.experimentdb.CommandLine;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet;
+
+import java.util.List;
+
+/**
+ * GenomeCodec lays out the genes of a {@link Genome} and converts genomes to and from JVM flags.
+ * The first gene is the index of the GC mode among the supported ones; the gene at position
+ * i + 1 is the value of the i-th argument, which the {@link Hypothesizer} orders by
+ * {@link JvmFlag#ordinal()}.
+ */
+class GenomeCodec {
+  private final List<JvmFlag> gcModes;
+  private final JvmFlag[] arguments;
+
+  /**
+   * @param gcModes The GC modes that the first gene selects from.
+   * @param arguments The flags of the remaining genes, in order.
+   */
+  GenomeCodec(final List<JvmFlag> gcModes, final List<JvmFlag> arguments) {
+    Preconditions.checkArgument(!gcModes.isEmpty(), "No GC mode specified.");
+    this.gcModes = ImmutableList.copyOf(gcModes);
+    this.arguments = arguments.toArray(new JvmFlag[arguments.size()]);
+  }
+
+  /** Returns the number of genes of a genome */
+  int size() {
+    return arguments.length + 1;
+  }
+
+  /** Returns the number of GC modes that the first gene selects from */
+  int getGcModeCount() {
+    return gcModes.size();
+  }
+
+  /** Returns the GC mode flag that the given value of the first gene selects */
+  JvmFlag getGcMode(final int index) {
+    return gcModes.get(index);
+  }
+
+  /** Returns the flag whose value the gene at the given position holds */
+  JvmFlag getArgument(final int index) {
+    Preconditions.checkArgument(index > 0, "The first gene holds the GC mode.");
+    return arguments[index - 1];
+  }
+
+  /** Returns the position of the gene that holds the flag, or -1 if no gene does */
+  int indexOf(final JvmFlag argument) {
+    for (int i = 0; i < arguments.length; i++) {
+      if (arguments[i] == argument) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the JVM flags that the genome encodes */
+  JvmFlagSet toJvmFlagSet(final Genome genome) {
+    Preconditions.checkArgument(genome.size() == size(), "Invalid genome size.");
+
+    final JvmFlagSet.Builder builder = JvmFlagSet.builder();
+    final int gcMode = genome.getGcModeIndex();
+    Preconditions.checkArgument(gcMode >= 0 && gcMode < gcModes.size(), "Invalid GC mode.");
+    builder.withValue(gcModes.get(gcMode), 1L);
+    for (int i = 0; i < arguments.length; i++) {
+      builder.withValue(arguments[i], genome.get(i + 1));
+    }
+    return builder.build();
+  }
+
+  /** Returns the genome that encodes the command line */
+  Genome fromCommandLine(final CommandLine commandLine) {
+    final long[] genes = new long[size()];
+    genes[0] = gcModes.indexOf(JvmFlag.getGcModeArgument(commandLine.getGcMode()));
+    for (int i = 0; i < arguments.length; i++) {
+      genes[i + 1] = commandLine.getValue(arguments[i]);
+    }
+    return Genome.wrap(genes);
+  }
+}
@@ -0,0 +1,56 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import org.uncommons.watchmaker.framework.operators.AbstractCrossover;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Multi-point crossover of {@link Genome}s, which swaps the genes before each of the randomly
+ * chosen crossover points between the two offspring, as
+ * {@link org.uncommons.watchmaker.framework.operators.ListCrossover} does for lists.
+ */
+class GenomeCrossover extends AbstractCrossover<Genome> {
+  /**
+   * @param crossoverPoints The number of crossover points at which to mate each pair.
+   */
+  GenomeCrossover(final int crossoverPoints) {
+    super(crossoverPoints);
+  }
+
+  @Override
+  protected List<Genome> mate(final Genome parent1, final Genome parent2,
+      final int numberOfCrossoverPoints, final Random rng) {
+    final long[] offspring1 = parent1.toArray();
+    final long[] offspring2 = parent2.toArray();
+    final int length = Math.min(offspring1.length, offspring2.length);
+    if (length > 1) {
+      for (int i = 0; i < numberOfCrossoverPoints; i++) {
+        final int crossoverIndex = 1 + rng.nextInt(length - 1);
+        for (int j = 0; j < crossoverIndex; j++) {
+          final long gene = offspring1[j];
+          offspring1[j] = offspring2[j];
+          offspring2[j] = gene;
+        }
+      }
+    }
+    return ImmutableList.of(Genome.wrap(offspring1), Genome.wrap(offspring2));
+  }
+}
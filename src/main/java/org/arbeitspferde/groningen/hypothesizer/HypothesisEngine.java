@@ -0,0 +1,61 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import java.util.List;
+
+/**
+ * A HypothesisEngine proposes the population of each generation of experiments from the fitness
+ * of the populations before it. The calling code has control over the generations: it runs the
+ * experiments on the subjects between the steps, such that fitness is only known once the engine
+ * is asked for the next population.
+ *
+ * Implementations need not be thread safe.
+ *
+ * @param <T> the type of individuals in the population.
+ */
+public interface HypothesisEngine<T> {
+  /**
+   * Creates the initial population. This method can be called only once, and before calling
+   * {@link #performNextStep}.
+   *
+   * @return Initial population.
+   */
+  List<T> performFirstStep();
+
+  /**
+   * Evaluates the fitness of each individual of the population that was last returned and
+   * proposes the population of the next generation.
+   *
+   * @param population Current population.
+   * @return The next population, or the current one if the engine has terminated.
+   */
+  List<T> performNextStep(List<T> population);
+
+  /**
+   * Returns whether the termination conditions are met. If terminated, calling code should not
+   * call {@link #performFirstStep} or {@link #performNextStep} any more.
+   */
+  boolean isTerminated();
+
+  /**
+   * Adds a listener to receive status updates on the progress of the engine, which are dispatched
+   * synchronously each time a population has been evaluated.
+   *
+   * @param observer An evolution observer call-back.
+   */
+  void addEvolutionObserver(EvolutionObserver<T> observer);
+}
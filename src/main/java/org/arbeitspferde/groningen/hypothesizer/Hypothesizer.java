@@ -17,24 +17,31 @@ package org.arbeitspferde.groningen.hypothesizer;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.google.inject.Inject;
 
+import org.arbeitspferde.groningen.HistoryDatastore;
+import org.arbeitspferde.groningen.PipelineId;
 import org.arbeitspferde.groningen.common.EvaluatedSubject;
 import org.arbeitspferde.groningen.config.GroningenConfig;
 import org.arbeitspferde.groningen.config.PipelineScoped;
 import org.arbeitspferde.groningen.config.SearchSpaceBundle;
 import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
 import org.arbeitspferde.groningen.display.MonitorGroningen;
-import org.arbeitspferde.groningen.experimentdb.CommandLine;
+import org.arbeitspferde.groningen.executor.CandidateBreeder;
 import org.arbeitspferde.groningen.experimentdb.Experiment;
 import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.FitnessScore;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
-import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagConstraint;
 import org.arbeitspferde.groningen.profiling.ProfilingRunnable;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.HypothesizerEngine;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.HypothesizerIslandMode;
 import org.arbeitspferde.groningen.utility.Clock;
 import org.arbeitspferde.groningen.utility.Metric;
 import org.arbeitspferde.groningen.utility.MetricExporter;
@@ -46,17 +53,17 @@ import org.uncommons.maths.random.Probability;
 import org.uncommons.watchmaker.framework.CandidateFactory;
 import org.uncommons.watchmaker.framework.EvaluatedCandidate;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
-import org.uncommons.watchmaker.framework.FitnessEvaluator;
 import org.uncommons.watchmaker.framework.PopulationData;
 import org.uncommons.watchmaker.framework.TerminationCondition;
 import org.uncommons.watchmaker.framework.factories.AbstractCandidateFactory;
 import org.uncommons.watchmaker.framework.operators.EvolutionPipeline;
-import org.uncommons.watchmaker.framework.operators.ListCrossover;
 import org.uncommons.watchmaker.framework.selection.TournamentSelection;
 import org.uncommons.watchmaker.framework.termination.Stagnation;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
@@ -69,9 +76,15 @@ import java.util.logging.Logger;
  * ExperDB to produce a hypothesis of what might improve the JVM memory
  * utilization, pause frequency and pause duration. The output are JVM setting
  * modifications stored in the ExperDB.
+ *
+ * With executor_steady_state_window_minutes set when the pipeline starts, the population evolves
+ * in steady state instead: the Executor hands each subject over as soon as its evaluation is over,
+ * and the Hypothesizer breeds a single candidate to take its place from a
+ * {@link SteadyStatePopulation} of the fittest individuals evaluated so far. Each following
+ * experiment starts from offspring of that population too.
  */
 @PipelineScoped
-public class Hypothesizer extends ProfilingRunnable {
+public class Hypothesizer extends ProfilingRunnable implements CandidateBreeder {
 
   /** Contains all non-GC mode arguments */
   @VisibleForTesting
@@ -94,12 +107,23 @@ public class Hypothesizer extends ProfilingRunnable {
   @VisibleForTesting
   static final int CHROMOSOME_SIZE = ARGUMENTS.size() + 1;
 
+  /** The most neighbours tried when replacing a candidate whose fitness is known */
+  private static final int MAX_NOVELTY_ATTEMPTS = 100;
+
+  /** The deviation of the moves to neighbours, as a fraction of the range of a flag */
+  private static final double NOVELTY_PERTURBATION_SCALE = 0.05;
+
+  /** Mixes the island into fingerprints, such that each island measures the same flags anew */
+  private static final long ISLAND_FINGERPRINT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
   /** Logger for this class */
   private static final Logger logger = Logger.getLogger(Hypothesizer.class.getCanonicalName());
 
   /** The Experimental Database */
   private final ExperimentDb experimentDb;
   private final MetricExporter metricExporter;
+  private final HistoryDatastore historyDatastore;
+  private final PipelineId pipelineId;
 
   private GroningenConfig config;
 
@@ -113,10 +137,44 @@ public class Hypothesizer extends ProfilingRunnable {
    */
   private final AtomicLong populationSize = new AtomicLong();
 
+  /** The number of subjects of each island, in population order */
+  private List<Integer> islandSizes = ImmutableList.of();
+
   /** Track the total fitness score for all members of the last generation */
   private final AtomicDouble totalFitnessScore = new AtomicDouble(0.0);
 
-  private IncrementalEvolutionEngine<List<Integer>> gaEngine;
+  private HypothesisEngine<Genome> engine;
+
+  /** The sizes of the islands the engine evolves, or the population size without islands */
+  private List<Integer> engineIslandSizes;
+
+  private GenomeCodec codec;
+
+  /** The multi-objective engines of each island, whose Pareto fronts are published */
+  private volatile List<NsgaHypothesisEngine<Genome>> paretoEngines = ImmutableList.of();
+
+  /** The JVM settings of the candidates evaluated by the multi-objective engines */
+  private final Map<Genome, String> paretoSettings = Maps.newConcurrentMap();
+
+  /** The fitness measured for each distinct set of flags so far */
+  private final FitnessCache fitnessCache = new FitnessCache();
+
+  /** Count the candidates replaced because their fitness was already known */
+  private final AtomicLong replacedCandidates = new AtomicLong();
+
+  /** Count the candidates repaired because their flags violated a constraint */
+  private final AtomicLong repairedCandidates = new AtomicLong();
+
+  /** Count the candidates bred to replace a subject whose evaluation was over */
+  private final AtomicLong steadyStateReplacements = new AtomicLong();
+
+  /** The fittest individuals evaluated so far, or null unless evolving in steady state */
+  private SteadyStatePopulation steadyStatePopulation;
+
+  /** The subjects of the last experiment that joined the steady-state population already */
+  private final Set<Long> steadyStateSubjectIds = Sets.newHashSet();
+
+  private final Random noveltyRng = new MersenneTwisterRNG();
 
   private boolean initialized = false;
 
@@ -124,11 +182,36 @@ public class Hypothesizer extends ProfilingRunnable {
 
   @Inject
   public Hypothesizer(final Clock clock, final MonitorGroningen monitor, final ExperimentDb e,
-      final MetricExporter metricExporter) {
+      final MetricExporter metricExporter, final HistoryDatastore historyDatastore,
+      final PipelineId pipelineId) {
     super(clock, monitor);
 
     experimentDb = e;
     this.metricExporter = metricExporter;
+    this.historyDatastore = historyDatastore;
+    this.pipelineId = pipelineId;
+  }
+
+  /**
+   * Returns the JVM settings that no other evaluated settings improve on in every objective, with
+   * their latency, throughput and memory scores indexed as in {@link FitnessScore}, when the
+   * hypothesizer_engine is NSGA_II. With islands, the fronts of all islands are merged. This method
+   * can be called from any thread.
+   */
+  public List<ParetoSolution<String>> getParetoFront() {
+    final List<ParetoSolution<Genome>> solutions = Lists.newArrayList();
+    for (final NsgaHypothesisEngine<Genome> paretoEngine : paretoEngines) {
+      solutions.addAll(paretoEngine.getParetoFront());
+    }
+
+    final List<ParetoSolution<String>> front = Lists.newArrayList();
+    for (final ParetoSolution<Genome> solution : ParetoRanking.nonDominated(solutions)) {
+      final String settings = paretoSettings.get(solution.getCandidate());
+      if (settings != null) {
+        front.add(solution.withCandidate(settings));
+      }
+    }
+    return front;
   }
 
   /** Returns true when the Hypothesizer is not complete with experimentation. */
@@ -148,38 +231,60 @@ public class Hypothesizer extends ProfilingRunnable {
     populationSize.set(size);
   }
 
+  /**
+   * Basic mutator for the sizes of the islands into which the population is split when
+   * hypothesizer_island_mode is set. The subjects of each island are consecutive in the population.
+   *
+   * @param sizes the number of subjects of each island, in order, which must add up to the
+   *        population size
+   */
+  public void setIslandSizes(final List<Integer> sizes) {
+    Preconditions.checkArgument(sizes != null, "island sizes cannot be null");
+    islandSizes = ImmutableList.copyOf(sizes);
+  }
+
   @Override
-  public void profiledRun(GroningenConfig config) {
+  public synchronized void profiledRun(GroningenConfig config) {
     if (!notComplete) {
       throw new IllegalStateException("Hypothesizer cycle is complete.");
     }
     this.config = config;
 
-    List<List<Integer>> population = null;
+    List<Genome> population = null;
     if (initialized) {
-      if (gaEngine == null) {
-        logger.severe("Subsequent Hypothesizer invocation still has GA engine not initialized.");
+      if (engine == null) {
+        logger.severe("Subsequent Hypothesizer invocation still has engine not initialized.");
         throw new IllegalStateException(
-            "Subsequent Hypothesizer invocation still has GA engine not initialized.");
+            "Subsequent Hypothesizer invocation still has engine not initialized.");
       }
 
-      List<List<Integer>> currentPopulation = null;
-      currentPopulation = loadPopulation();
-      population = gaEngine.performNextStep(currentPopulation);
+      if (steadyStatePopulation != null) {
+        population = breedSteadyStatePopulation();
+      } else {
+        List<Genome> currentPopulation = null;
+        currentPopulation = loadPopulation();
+        population = engine.performNextStep(currentPopulation);
+      }
     } else {
       logger.log(Level.INFO, "First invocation of Hypothesizer.");
 
       initialize();
 
-      // Create the initial population using the evolution engine.
-      population = gaEngine.performFirstStep();
+      // Create the initial population using the hypothesis engine.
+      population = engine.performFirstStep();
 
       initialized = true;
     }
 
+    pruneParetoSettings();
+    // Novelty is judged on the repaired flags, which are the ones the subjects run.
+    population = repairPopulation(population);
+    if (!engine.isTerminated()) {
+      population = preferNovelCandidates(population);
+    }
     savePopulation(population);
 
-    if (gaEngine.isTerminated()) {
+    if (engine.isTerminated()) {
       logger.info("Hypothesizer has reached termination conditions.");
       notComplete = false;
     }
@@ -232,32 +337,17 @@ public class Hypothesizer extends ProfilingRunnable {
       throw new RuntimeException("No GC mode specified in the config.");
     }
     logger.info(String.format("Allowed GC modes: %s", supportedGcModes));
+
+    codec = new GenomeCodec(supportedGcModes, ARGUMENTS);
   }
 
   private void initializeEvolutionEngine(Experiment lastExperiment) {
-    if (gaEngine != null) {
-      logger.severe("First Hypothesizer invocation already has GA engine initialized.");
+    if (engine != null) {
+      logger.severe("First Hypothesizer invocation already has engine initialized.");
       throw new IllegalStateException(
-          "First Hypothesizer invocation already has GA engine initialized.");
+          "First Hypothesizer invocation already has engine initialized.");
     }
 
-    // Create a candidate factory that the GA framework will call to create the initial population.
-    CandidateFactory<List<Integer>> candidateFactory =
-        new CommandLineArgumentFactory(lastExperiment);
-
-    // Set up the crossover and mutation operators.
-    List<EvolutionaryOperator<List<Integer>>> operators = Lists.newArrayList();
-    operators.add(new ListCrossover<Integer>(config.getParamBlock().getNumCrossovers()));
-    operators.add(
-      new IntegerListMutator(new Probability(config.getParamBlock().getMutationProb())));
-
-    // Add the operators to the pipeline.
-    EvolutionaryOperator<List<Integer>> pipeline = new EvolutionPipeline<>(operators);
-
-    // Set up the fitness evaluator.
-    FitnessEvaluator<List<Integer>> evaluator =
-        new ListFitnessEvaluator((int) populationSize.get());
-
     // We use simple stagnation condition for terminating the GA.  If the population doesn't improve
     // over a certain number of evolutions, the GA stops.
     TerminationCondition condition = null;
@@ -265,19 +355,47 @@ public class Hypothesizer extends ProfilingRunnable {
     // Our only termination condition is stagnation and when that is defaulting
     // to 0 we ignore it
     if (config.getParamBlock().getStagnantGens() > 0) {
-      condition = new Stagnation(config.getParamBlock().getStagnantGens(), evaluator.isNatural());
+      // The fitness of the hypothesizer is natural: the higher, the better.
+      condition = new Stagnation(config.getParamBlock().getStagnantGens(), true);
     }
 
-    // Create an evolution engine with the above parameters.
-    gaEngine =
-        new IncrementalEvolutionEngine<>(candidateFactory, pipeline, evaluator,
-            new TournamentSelection(new Probability(0.75)), new MersenneTwisterRNG(),
-            (int) populationSize.get(), config.getParamBlock().getEliteCount(), condition);
+    engineIslandSizes = getEffectiveIslandSizes();
+    final List<Genome> seeds = findWarmStartSeeds(lastExperiment);
+    if (engineIslandSizes.size() == 1) {
+      engine = createEngine(lastExperiment, 0, (int) populationSize.get(), 0, seeds, condition);
+    } else {
+      // The islands stagnate as a whole, so they are not given the condition themselves.
+      final List<HypothesisEngine<Genome>> islands = Lists.newArrayList();
+      int offset = 0;
+      for (int i = 0; i < engineIslandSizes.size(); i++) {
+        // Deal the seeds out to the islands in turn, such that each starts from the best.
+        final List<Genome> islandSeeds = Lists.newArrayList();
+        for (int j = i; j < seeds.size(); j += engineIslandSizes.size()) {
+          islandSeeds.add(seeds.get(j));
+        }
+        islands.add(createEngine(
+            lastExperiment, offset, engineIslandSizes.get(i), i, islandSeeds, null));
+        offset += engineIslandSizes.get(i);
+      }
+      engine = new IslandHypothesisEngine<>(islands, engineIslandSizes, true,
+          config.getParamBlock().getHypothesizerMigrationInterval(),
+          config.getParamBlock().getHypothesizerMigrationCount(), condition);
+      logger.info(String.format("Hypothesizer islands: %s", engineIslandSizes));
+    }
+    logger.info(String.format("Hypothesizer engine: %s",
+        config.getParamBlock().getHypothesizerEngine()));
+
+    if (config.getParamBlock().getExecutorSteadyStateWindowMinutes() > 0) {
+      steadyStatePopulation = new SteadyStatePopulation(
+          new EvolutionPipeline<>(createOperators(createGeneSpace())),
+          (int) populationSize.get(), new MersenneTwisterRNG());
+      logger.info("Hypothesizer evolves the population in steady state.");
+    }
 
-    gaEngine.addEvolutionObserver(new EvolutionObserver<List<Integer>>() {
+    engine.addEvolutionObserver(new EvolutionObserver<Genome>() {
       @Override
-      public void populationUpdate(PopulationData<List<Integer>> data,
-          List<EvaluatedCandidate<List<Integer>>> population) {
+      public void populationUpdate(PopulationData<Genome> data,
+          List<EvaluatedCandidate<Genome>> population) {
         logger.info("************************************************************");
         logger.info(String.format("Generation %s: Best fitness %s",
             data.getGenerationNumber() + 1, data.getBestCandidateFitness()));
@@ -286,7 +404,7 @@ public class Hypothesizer extends ProfilingRunnable {
             data.getFitnessStandardDeviation(), data.getMeanFitness()));
         logger.info("------------------------------------------------------------");
         for (int i = 0; i < population.size(); ++i) {
-          EvaluatedCandidate<List<Integer>> candidate = population.get(i);
+          EvaluatedCandidate<Genome> candidate = population.get(i);
 
           logger.info(String.format("Candidate %s: %s; Fitness %s",
               i, candidate.getCandidate(), candidate.getFitness()));
@@ -296,13 +414,230 @@ public class Hypothesizer extends ProfilingRunnable {
     });
   }
 
+  /**
+   * Returns the historic individuals that hypothesizer_warm_start_fraction of the first population
+   * starts from, best first, or none when starting from a checkpoint.
+   */
+  private List<Genome> findWarmStartSeeds(final Experiment lastExperiment) {
+    final double fraction = config.getParamBlock().getHypothesizerWarmStartFraction();
+    if (lastExperiment != null || fraction <= 0) {
+      return ImmutableList.of();
+    }
+    final int count =
+        (int) Math.min(populationSize.get(), Math.round(fraction * populationSize.get()));
+    return new WarmStartSeeder(historyDatastore, pipelineId, codec, createGeneSpace())
+        .findSeeds(config, count);
+  }
+
+  /**
+   * Returns the sizes of the islands to evolve, which is the whole population unless islands are
+   * configured and each of them has enough subjects to evolve.
+   */
+  private List<Integer> getEffectiveIslandSizes() {
+    final List<Integer> wholePopulation = ImmutableList.of((int) populationSize.get());
+    if (config.getParamBlock().getHypothesizerIslandMode() == HypothesizerIslandMode.NO_ISLANDS) {
+      return wholePopulation;
+    }
+    if (config.getParamBlock().getExecutorSteadyStateWindowMinutes() > 0) {
+      logger.warning("Steady-state evolution does not support islands; evolving a single "
+          + "population.");
+      return wholePopulation;
+    }
+
+    int total = 0;
+    boolean viable = islandSizes.size() > 1;
+    for (final int size : islandSizes) {
+      total += size;
+      viable &= size > 1;
+    }
+    if (!viable || total != populationSize.get()) {
+      logger.warning(String.format("Island sizes %s do not allow %s; evolving a single population.",
+          islandSizes, config.getParamBlock().getHypothesizerIslandMode()));
+      return wholePopulation;
+    }
+    return islandSizes;
+  }
+
+  /**
+   * Creates the engine that evolves the given slice of the population.
+   *
+   * @param lastExperiment The checkpointed experiment, if any, to start the population from.
+   * @param offset The index of the first subject of the slice in the population.
+   * @param size The number of subjects in the slice.
+   * @param island The index of the island the slice is, or zero for the whole population.
+   * @param seeds The individuals the first population of the slice starts from.
+   * @param condition The termination condition of the engine, if any.
+   */
+  private HypothesisEngine<Genome> createEngine(Experiment lastExperiment, int offset, int size,
+      int island, List<Genome> seeds, TerminationCondition condition) {
+    // Create a candidate factory that the GA framework will call to create the initial population.
+    CandidateFactory<Genome> candidateFactory =
+        new CommandLineArgumentFactory(lastExperiment, offset, seeds);
+
+    // Set up the fitness evaluator.
+    GenomeFitnessEvaluator evaluator = new GenomeFitnessEvaluator(offset, island);
+
+    // Small islands cannot keep the whole configured elite.
+    final int eliteCount = Math.max(0, Math.min(config.getParamBlock().getEliteCount(), size - 1));
+
+    if (config.getParamBlock().getHypothesizerEngine() == HypothesizerEngine.GAUSSIAN_PROCESS) {
+      return new SurrogateHypothesisEngine(candidateFactory, createGeneSpace(), evaluator,
+          new MersenneTwisterRNG(), size, eliteCount, condition);
+    }
+
+    // Set up the crossover and mutation operators.
+    List<EvolutionaryOperator<Genome>> operators = createOperators(createGeneSpace());
+
+    // Add the operators to the pipeline.
+    EvolutionaryOperator<Genome> pipeline = new EvolutionPipeline<>(operators);
+
+    final HypothesisEngine<Genome> islandEngine;
+    if (config.getParamBlock().getHypothesizerEngine() == HypothesizerEngine.NSGA_II) {
+      final NsgaHypothesisEngine<Genome> paretoEngine = new NsgaHypothesisEngine<>(
+          candidateFactory, pipeline, evaluator, new MersenneTwisterRNG(), size, condition);
+      paretoEngines = ImmutableList.<NsgaHypothesisEngine<Genome>>builder()
+          .addAll(paretoEngines).add(paretoEngine).build();
+      islandEngine = paretoEngine;
+    } else {
+      // Create an evolution engine with the above parameters.
+      islandEngine = new IncrementalEvolutionEngine<>(candidateFactory, pipeline, evaluator,
+          new TournamentSelection(new Probability(0.75)), new MersenneTwisterRNG(),
+          size, eliteCount, condition);
+    }
+
+    // The mutation adapts to the progress of the population it breeds.
+    for (final EvolutionaryOperator<Genome> operator : operators) {
+      if (operator instanceof GaussianMutation) {
+        islandEngine.addEvolutionObserver((GaussianMutation) operator);
+      }
+    }
+    return islandEngine;
+  }
+
+  /** Returns the configured crossover and mutation operators, in the order they apply */
+  private List<EvolutionaryOperator<Genome>> createOperators(final GeneSpace space) {
+    final Probability mutationProbability =
+        new Probability(config.getParamBlock().getMutationProb());
+    List<EvolutionaryOperator<Genome>> operators = Lists.newArrayList();
+    switch (config.getParamBlock().getHypothesizerCrossover()) {
+      case SIMULATED_BINARY_CROSSOVER:
+        operators.add(new SimulatedBinaryCrossover(space, codec,
+            config.getParamBlock().getHypothesizerCrossoverDistributionIndex()));
+        break;
+      case MULTI_POINT_CROSSOVER:
+      default:
+        operators.add(new GenomeCrossover(config.getParamBlock().getNumCrossovers()));
+        break;
+    }
+    switch (config.getParamBlock().getHypothesizerMutation()) {
+      case GAUSSIAN_MUTATION:
+        operators.add(new GaussianMutation(space, mutationProbability,
+            config.getParamBlock().getHypothesizerMutationSigma()));
+        break;
+      case UNIFORM_MUTATION:
+      default:
+        operators.add(new GenomeMutator(mutationProbability));
+        break;
+    }
+    return operators;
+  }
+
+  /**
+   * Records the fitness of a subject whose evaluation window is over in the steady-state
+   * population, and breeds a novel candidate for its subject in production, which joins the last
+   * experiment. This method can be called from any thread.
+   */
+  @Override
+  public synchronized SubjectStateBridge breedReplacement(final SubjectStateBridge finished,
+      final double fitness) {
+    if (steadyStatePopulation == null) {
+      return null;
+    }
+    insertIntoSteadyStatePopulation(finished, fitness);
+    steadyStateSubjectIds.add(finished.getIdOfObject());
+
+    final GeneSpace space = createGeneSpace();
+    Genome offspring = repairPopulation(ImmutableList.of(steadyStatePopulation.breed())).get(0);
+    offspring = preferNovelCandidates(ImmutableList.of(offspring), 0, space,
+        new ConstraintRepair(space, codec)).get(0);
+    final SubjectStateBridge replacement = makeSubject(offspring);
+
+    final Experiment experiment = experimentDb.getLastExperiment();
+    final List<Long> subjectIds = Lists.newArrayList(experiment.getSubjectIds());
+    subjectIds.add(replacement.getIdOfObject());
+    experiment.setSubjectIds(subjectIds);
+
+    steadyStateReplacements.incrementAndGet();
+    logger.info(String.format("Replacing subject %s of fitness %s by %s; best fitness %s.",
+        finished.getIdOfObject(), fitness, offspring,
+        steadyStatePopulation.getFittest().getFitness()));
+    return replacement;
+  }
+
+  /**
+   * Records the subjects of the last experiment that ran until it ended in the steady-state
+   * population, and breeds the population of the next experiment from it.
+   */
+  private List<Genome> breedSteadyStatePopulation() {
+    for (final SubjectStateBridge subject : experimentDb.getLastExperiment().getSubjects()) {
+      if (steadyStateSubjectIds.contains(subject.getIdOfObject())
+          || (subject.getAssociatedSubject() != null
+              && subject.getAssociatedSubject().isDefault())) {
+        continue;
+      }
+      final EvaluatedSubject evaluatedSubject = subject.getEvaluatedCopy();
+      if (evaluatedSubject == null) {
+        logger.warning(String.format("Subject %s was not evaluated.", subject.getIdOfObject()));
+        continue;
+      }
+      insertIntoSteadyStatePopulation(subject, evaluatedSubject.getFitness());
+    }
+    steadyStateSubjectIds.clear();
+
+    if (steadyStatePopulation.size() == 0) {
+      logger.warning("No subject was evaluated; running the last population again.");
+      return loadPopulation().subList(0, (int) populationSize.get());
+    }
+    final List<Genome> population = Lists.newArrayListWithCapacity((int) populationSize.get());
+    for (int i = 0; i < populationSize.get(); i++) {
+      population.add(steadyStatePopulation.breed());
+    }
+    logger.info(String.format("Bred the next population from %s individuals; best fitness %s.",
+        steadyStatePopulation.size(), steadyStatePopulation.getFittest().getFitness()));
+    return population;
+  }
+
+  /** Records the fitness of the subject and offers its flags to the steady-state population */
+  private void insertIntoSteadyStatePopulation(final SubjectStateBridge subject,
+      final double fitness) {
+    totalFitnessScore.addAndGet(fitness);
+    final long fingerprint = subject.getCommandLine().getFingerprint();
+    fitnessCache.record(fingerprint, fitness);
+    steadyStatePopulation.insert(codec.fromCommandLine(subject.getCommandLine()),
+        fitnessCache.getMeanFitness(fingerprint));
+  }
+
+  /** Forgets the JVM settings of the candidates that are off every Pareto front */
+  private void pruneParetoSettings() {
+    final Set<Genome> front = Sets.newHashSet();
+    for (final NsgaHypothesisEngine<Genome> paretoEngine : paretoEngines) {
+      for (final ParetoSolution<Genome> solution : paretoEngine.getParetoFront()) {
+        front.add(solution.getCandidate());
+      }
+    }
+    paretoSettings.keySet().retainAll(front);
+  }
+
+  /** Returns the key under which the fitness of flags measured on the given island is cached */
+  private static long getIslandFingerprint(long fingerprint, int island) {
+    return fingerprint ^ (island * ISLAND_FINGERPRINT_MULTIPLIER);
+  }
+
   /**
    * Loads the population for the given experiment from the command-line data
    * stored in ExperDB.
    */
-  private List<List<Integer>> loadPopulation() {
-    // TODO(team): Evaluate wrapping the List<Integer> with a formal type to model a subject's genes.
-
+  private List<Genome> loadPopulation() {
     Experiment lastExperiment = experimentDb.getLastExperiment();
     logger.log(Level.INFO, String.format("Last experiment ID: %s", lastExperiment.getIdOfObject()));
     logger.log(Level.INFO,
@@ -311,37 +646,29 @@ public class Hypothesizer extends ProfilingRunnable {
     // Look-up the Subject IDs mapped to that experiment.
     List<Long> subjectIds = lastExperiment.getSubjectIds();
 
-    List<List<Integer>> population = Lists.newArrayList();
+    List<Genome> population = Lists.newArrayList();
     for (SubjectStateBridge subject : lastExperiment.getSubjects()) {
       // Load and save the individual from its command line.
-      population.add(loadIndividual(subject.getCommandLine()));
+      population.add(codec.fromCommandLine(subject.getCommandLine()));
     }
     return population;
   }
 
   /**
-   * Creates an individual from the command-line parameters. The GC mode
-   * argument is converted to an enum.
+   * Repairs the candidates whose flags violate a {@link JvmFlagConstraint}, such that each subject
+   * of the experiment runs a JVM that can start.
    */
-  private List<Integer> loadIndividual(CommandLine commandLine) {
-    List<Integer> individual = Lists.newArrayList();
-
-    // Add the GC mode argument value as the first object.
-    // TODO(team): Swap this to the ordinal position of the flag.
-    individual.add(supportedGcModes.indexOf(JvmFlag.getGcModeArgument(commandLine.getGcMode())));
-
-    // Add the rest of the non-GC mode argument values.
-    for (JvmFlag argument : ARGUMENTS) {
-      long value = commandLine.getValue(argument);
-      if (value > Integer.MAX_VALUE) {
-        logger.log(Level.SEVERE, String.format("Value %s is larger than integer max for %s.",
-            value, argument));
-        throw new RuntimeException("Command-line argument value is larger than integer max.");
+  private List<Genome> repairPopulation(final List<Genome> population) {
+    final List<Genome> repaired =
+        new ConstraintRepair(createGeneSpace(), codec).apply(population, noveltyRng);
+    for (int i = 0; i < population.size(); i++) {
+      if (repaired.get(i) != population.get(i)) {
+        logger.info(String.format("Repaired flag constraints of %s to %s.",
+            population.get(i), repaired.get(i)));
+        repairedCandidates.incrementAndGet();
       }
-      individual.add((int) value);
     }
-
-    return individual;
+    return repaired;
   }
 
   /**
@@ -349,119 +676,12 @@ public class Hypothesizer extends ProfilingRunnable {
    *
    * @Return The new experiment for that population,.
    */
-  private Experiment savePopulation(List<List<Integer>> population) {
+  private Experiment savePopulation(List<Genome> population) {
     Preconditions.checkArgument(population != null && population.size() > 0, "Invalid population.");
 
     List<Long> subjectIds = Lists.newArrayListWithExpectedSize(population.size());
-    for (List<Integer> individual : population) {
-      SubjectStateBridge subject;
-
-      subject = experimentDb.makeSubject();
-
-      subjectIds.add(subject.getIdOfObject());
-
-      final JvmFlagSet.Builder builder = JvmFlagSet.builder();
-
-      // First gene is the GC mode.
-      switch (supportedGcModes.get(individual.get(0))) {
-        case USE_CONC_MARK_SWEEP_GC:
-          builder.withValue(JvmFlag.USE_CONC_MARK_SWEEP_GC, 1L);
-          break;
-        case USE_PARALLEL_GC:
-          builder.withValue(JvmFlag.USE_PARALLEL_GC, 1L);
-          break;
-        case USE_PARALLEL_OLD_GC:
-          builder.withValue(JvmFlag.USE_PARALLEL_OLD_GC, 1L);
-          break;
-        case USE_SERIAL_GC:
-          builder.withValue(JvmFlag.USE_SERIAL_GC, 1L);
-          break;
-        default:
-          throw new RuntimeException("Invalid GC mode.");
-      }
-
-      for (int i = 1; i < individual.size(); ++i) {
-        final int value = individual.get(i);
-
-        switch (ARGUMENTS.get(i - 1)) {
-
-          case ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR:
-            builder.withValue(JvmFlag.ADAPTIVE_SIZE_DECREMENT_SCALE_FACTOR, value);
-            break;
-          case CMS_EXP_AVG_FACTOR:
-            builder.withValue(JvmFlag.CMS_EXP_AVG_FACTOR, value);
-            break;
-          case CMS_INCREMENTAL_DUTY_CYCLE:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, value);
-            break;
-          case CMS_INCREMENTAL_DUTY_CYCLE_MIN:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, value);
-            break;
-          case CMS_INCREMENTAL_OFFSET:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_OFFSET, value);
-            break;
-          case CMS_INCREMENTAL_SAFETY_FACTOR:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_SAFETY_FACTOR, value);
-            break;
-          case CMS_INITIATING_OCCUPANCY_FRACTION:
-            builder.withValue(JvmFlag.CMS_INITIATING_OCCUPANCY_FRACTION, value);
-            break;
-          case GC_TIME_RATIO:
-            builder.withValue(JvmFlag.GC_TIME_RATIO, value);
-            break;
-          case HEAP_SIZE:
-            builder.withValue(JvmFlag.HEAP_SIZE, value);
-            break;
-          case MAX_GC_PAUSE_MILLIS:
-            builder.withValue(JvmFlag.MAX_GC_PAUSE_MILLIS, value);
-            break;
-          case MAX_HEAP_FREE_RATIO:
-            builder.withValue(JvmFlag.MAX_HEAP_FREE_RATIO, value);
-            break;
-          case MAX_NEW_SIZE:
-            builder.withValue(JvmFlag.MAX_NEW_SIZE, value);
-            break;
-          case MIN_HEAP_FREE_RATIO:
-            builder.withValue(JvmFlag.MIN_HEAP_FREE_RATIO, value);
-            break;
-          case NEW_RATIO:
-            builder.withValue(JvmFlag.NEW_RATIO, value);
-            break;
-          case NEW_SIZE:
-            builder.withValue(JvmFlag.NEW_SIZE, value);
-            break;
-          case PARALLEL_GC_THREADS:
-            builder.withValue(JvmFlag.PARALLEL_GC_THREADS, value);
-            break;
-          case SURVIVOR_RATIO:
-            builder.withValue(JvmFlag.SURVIVOR_RATIO, value);
-            break;
-          case TENURED_GENERATION_SIZE_INCREMENT:
-            builder.withValue(JvmFlag.TENURED_GENERATION_SIZE_INCREMENT, value);
-            break;
-          case YOUNG_GENERATION_SIZE_INCREMENT:
-            builder.withValue(JvmFlag.YOUNG_GENERATION_SIZE_INCREMENT, value);
-            break;
-          case SOFT_REF_LRU_POLICY_MS_PER_MB:
-            builder.withValue(JvmFlag.SOFT_REF_LRU_POLICY_MS_PER_MB, value);
-            break;
-          case CMS_INCREMENTAL_MODE:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_MODE, value);
-            break;
-          case CMS_INCREMENTAL_PACING:
-            builder.withValue(JvmFlag.CMS_INCREMENTAL_PACING, value);
-            break;
-          case USE_CMS_INITIATING_OCCUPANCY_ONLY:
-            builder.withValue(JvmFlag.USE_CMS_INITIATING_OCCUPANCY_ONLY, value);
-            break;
-          default:
-            throw new RuntimeException("Invalid command-line argument.");
-        }
-      }
-
-      final JvmFlagSet jvmFlagSet = builder.build();
-
-      subject.storeCommandLine(jvmFlagSet);
+    for (Genome individual : population) {
+      subjectIds.add(makeSubject(individual).getIdOfObject());
     }
 
     // Make and cache a new experiment with the new subject IDs.
@@ -469,14 +689,111 @@ public class Hypothesizer extends ProfilingRunnable {
     return experiment;
   }
 
+  /** Makes a subject in the experiment db that runs the individual */
+  private SubjectStateBridge makeSubject(final Genome individual) {
+    SubjectStateBridge subject = experimentDb.makeSubject();
+    subject.getPauseTime().setPercentileRelativeError(
+        config.getParamBlock().getPauseTimePercentileRelativeError());
+    subject.getPauseTime().setWarmupExclusionMinutes(
+        config.getParamBlock().getPauseTimeWarmupExclusionMinutes());
+    subject.storeCommandLine(codec.toJvmFlagSet(individual));
+    return subject;
+  }
+
+  /**
+   * Replaces the candidates whose flags have been measured before on their island, or that repeat
+   * an earlier candidate of their island, by novel neighbours, such that subjects are not spent on
+   * configurations of known fitness. Up to hypothesizer_resample_fraction of each island may
+   * deliberately measure known flags again, whose fitness is then averaged; these are the known
+   * candidates of best mean fitness, wherever the engine placed them.
+   *
+   * The candidates must satisfy their flag constraints already; the neighbours are repaired as
+   * they are drawn, such that the flags judged novel are the ones that are saved.
+   */
+  private List<Genome> preferNovelCandidates(List<Genome> population) {
+    final GeneSpace space = createGeneSpace();
+    final ConstraintRepair repair = new ConstraintRepair(space, codec);
+    final List<Genome> novelPopulation = Lists.newArrayListWithCapacity(population.size());
+    int offset = 0;
+    for (int island = 0; island < engineIslandSizes.size(); island++) {
+      final int size = engineIslandSizes.get(island);
+      novelPopulation.addAll(
+          preferNovelCandidates(population.subList(offset, offset + size), island, space, repair));
+      offset += size;
+    }
+    return novelPopulation;
+  }
+
+  private List<Genome> preferNovelCandidates(final List<Genome> population, final int island,
+      final GeneSpace space, final ConstraintRepair repair) {
+    final int allowedResamples = (int) (population.size()
+        * config.getParamBlock().getHypothesizerResampleFraction());
+
+    // Choose the known candidates to measure again, from the fittest.
+    final Set<Long> fingerprints = Sets.newHashSet();
+    final List<Long> known = Lists.newArrayList();
+    for (Genome individual : population) {
+      long fingerprint =
+          getIslandFingerprint(codec.toJvmFlagSet(individual).getFingerprint(), island);
+      if (fitnessCache.contains(fingerprint) && fingerprints.add(fingerprint)) {
+        known.add(fingerprint);
+      }
+    }
+    Collections.sort(known, new Comparator<Long>() {
+      @Override
+      public int compare(Long a, Long b) {
+        return Double.compare(fitnessCache.getMeanFitness(b), fitnessCache.getMeanFitness(a));
+      }
+    });
+    final Set<Long> resamples =
+        Sets.newHashSet(known.subList(0, Math.min(allowedResamples, known.size())));
+
+    fingerprints.clear();
+    final List<Genome> novelPopulation = Lists.newArrayListWithCapacity(population.size());
+    for (Genome individual : population) {
+      long fingerprint =
+          getIslandFingerprint(codec.toJvmFlagSet(individual).getFingerprint(), island);
+      if (!resamples.remove(fingerprint)
+          && (fitnessCache.contains(fingerprint) || fingerprints.contains(fingerprint))) {
+        final Genome original = individual;
+        for (int attempt = 0; attempt < MAX_NOVELTY_ATTEMPTS
+            && (fitnessCache.contains(fingerprint) || fingerprints.contains(fingerprint));
+            attempt++) {
+          individual =
+              repair.repair(space.perturb(individual, NOVELTY_PERTURBATION_SCALE, noveltyRng));
+          fingerprint =
+              getIslandFingerprint(codec.toJvmFlagSet(individual).getFingerprint(), island);
+        }
+        if (fitnessCache.contains(fingerprint) || fingerprints.contains(fingerprint)) {
+          logger.warning(String.format("Could not find a novel neighbour of %s.", original));
+        } else {
+          logger.info(String.format("Replaced known candidate %s by %s.", original, individual));
+          replacedCandidates.incrementAndGet();
+        }
+      }
+      fingerprints.add(fingerprint);
+      novelPopulation.add(individual);
+    }
+    return novelPopulation;
+  }
+
   /**
    * Class to generate the initial population.
    */
-  private class CommandLineArgumentFactory extends AbstractCandidateFactory<List<Integer>> {
+  private class CommandLineArgumentFactory extends AbstractCandidateFactory<Genome> {
     private final List<SubjectStateBridge> subjects;
-    private int index = 0;
+    private final List<Genome> seeds;
+    private int index;
+    private int seedIndex;
 
-    CommandLineArgumentFactory(Experiment checkpointExperiment) {
+    /**
+     * @param checkpointExperiment The experiment to start from, if any.
+     * @param offset The index in the experiment of the first subject to start from.
+     * @param seeds The individuals to start from before random ones, when there is no checkpoint.
+     */
+    CommandLineArgumentFactory(Experiment checkpointExperiment, int offset, List<Genome> seeds) {
+      index = offset;
+      this.seeds = seeds;
       if (checkpointExperiment == null) {
         subjects = Collections.emptyList();
       } else {
@@ -485,78 +802,99 @@ public class Hypothesizer extends ProfilingRunnable {
     }
 
     @Override
-    public List<Integer> generateRandomCandidate(final Random rng) {
+    public Genome generateRandomCandidate(final Random rng) {
       if (!subjects.isEmpty()) {
         // Starting from checkpoint experiment. Return the current subject's
         // command line.
-        return loadIndividual(subjects.get(index++).getCommandLine());
+        return codec.fromCommandLine(subjects.get(index++).getCommandLine());
+      }
+      if (seedIndex < seeds.size()) {
+        // Warm starting from the history of earlier pipelines.
+        return seeds.get(seedIndex++);
       }
-      final List<Integer> individual = Lists.newArrayListWithExpectedSize(CHROMOSOME_SIZE);
+      final long[] genes = new long[CHROMOSOME_SIZE];
 
-      // Pick a GC mode at random, and add it as the first object.
-      individual.add(rng.nextInt(supportedGcModes.size()));
+      // Pick a GC mode at random, and add it as the first gene.
+      genes[0] = rng.nextInt(supportedGcModes.size());
 
       final SearchSpaceBundle bundle = config.getJvmSearchSpaceRestriction();
 
       // Add values for the rest of the arguments.
-      for (final JvmFlag argument : ARGUMENTS) {
+      for (int i = 1; i < genes.length; i++) {
+        final JvmFlag argument = codec.getArgument(i);
         final SearchSpaceEntry entry = bundle.getSearchSpace(argument);
-        final int value = generateRandomNumber(entry, rng);
+        genes[i] = generateRandomNumber(entry, rng);
         logger.info(String.format("Search space for %s: floor=%s; ceiling=%s; step=%s; value=%s",
-            argument, entry.getFloor(), entry.getCeiling(), entry.getStepSize(), value));
-        individual.add(value);
+            argument, entry.getFloor(), entry.getCeiling(), entry.getStepSize(), genes[i]));
       }
-      return individual;
+      return Genome.wrap(genes);
+    }
+  }
+
+  /** Returns the space of individuals within the search space restriction of the config */
+  private GeneSpace createGeneSpace() {
+    final SearchSpaceBundle bundle = config.getJvmSearchSpaceRestriction();
+    final List<SearchSpaceEntry> entries = Lists.newArrayListWithCapacity(ARGUMENTS.size());
+    for (final JvmFlag argument : ARGUMENTS) {
+      entries.add(bundle.getSearchSpace(argument));
     }
+    return new GeneSpace(codec.getGcModeCount(), entries);
   }
 
   /** Generates a random number based on the search space entry */
-  private static int generateRandomNumber(SearchSpaceEntry entry, Random rng) {
+  static long generateRandomNumber(SearchSpaceEntry entry, Random rng) {
     Preconditions.checkArgument(entry != null, "Search space cannot be null.");
     Preconditions.checkArgument(entry.getFloor() >= 0, "Floor value cannot be negative.");
-    Preconditions.checkArgument(
-      entry.getCeiling() < Integer.MAX_VALUE, "Ceiling value cannot be greater than integer max.");
     Preconditions.checkArgument(
       entry.getFloor() <= entry.getCeiling(), "Ceiling value cannot be less than floor value.");
     Preconditions.checkArgument(
       entry.getStepSize() <= (entry.getCeiling() - entry.getFloor()), "Invalid step size.");
 
-    int floor = (int) entry.getFloor();
-    int ceiling = (int) entry.getCeiling();
-    int step = (int) entry.getStepSize();
+    long floor = entry.getFloor();
+    long ceiling = entry.getCeiling();
+    long step = entry.getStepSize();
 
     if (floor == ceiling) {
       return floor;
     }
-    int range = (ceiling - floor) / step;
-    return floor + (step * rng.nextInt(range + 1));
+    long range = (ceiling - floor) / step;
+    return floor + (step * nextLong(rng, range + 1));
+  }
+
+  /** Returns a number drawn uniformly from zero (inclusive) to the positive bound (exclusive) */
+  static long nextLong(Random rng, long bound) {
+    if (bound <= Integer.MAX_VALUE) {
+      return rng.nextInt((int) bound);
+    }
+    // Reject the draws from the incomplete last multiple of the bound, which would bias.
+    long bits;
+    long value;
+    do {
+      bits = rng.nextLong() >>> 1;
+      value = bits % bound;
+    } while (bits - value + (bound - 1) < 0);
+    return value;
   }
 
   /**
    * Class to compute the fitness score of an individual in the population.
    */
-  private class ListFitnessEvaluator implements FitnessEvaluator<List<Integer>> {
+  private class GenomeFitnessEvaluator implements MultiObjectiveEvaluator<Genome> {
+    private final int offset;
+    private final int island;
 
-
-    ListFitnessEvaluator(int populationSize) {
-      // Nothing to do
+    /**
+     * @param offset The index of the first subject of the evaluated population in the experiment.
+     * @param island The island of the evaluated population, or zero without islands.
+     */
+    GenomeFitnessEvaluator(int offset, int island) {
+      this.offset = offset;
+      this.island = island;
     }
 
     @Override
-    public double getFitness(List<Integer> candidate, List<? extends List<Integer>> population) {
-      // Use the index of the candidate in the population to get the
-      // corresponding
-      // subject ID. Then get the fitness for that subject ID.
-      int index = population.indexOf(candidate);
-
-      // Look-up the last experiment.
-      Experiment lastExperiment = null;
-
-      lastExperiment = experimentDb.getLastExperiment();
-
-      // Get the candidate's subject from the last experiment.
-      long subjectId = lastExperiment.getSubjectIds().get(index);
-      SubjectStateBridge subject = experimentDb.lookupSubject(subjectId);
+    public double getFitness(Genome candidate, List<? extends Genome> population) {
+      SubjectStateBridge subject = lookupSubject(candidate, population);
       EvaluatedSubject evaluatedSubject = subject.getEvaluatedCopy();
       if (evaluatedSubject == null) {
         String cmdlineStr = subject.getCommandLine().toArgumentString();
@@ -577,7 +915,34 @@ public class Hypothesizer extends ProfilingRunnable {
       double tmpFitness = fitness;
       totalFitnessScore.addAndGet(tmpFitness);
 
-      return fitness;
+      // Flags that were deliberately measured again are judged by the mean of all measurements.
+      long fingerprint = getIslandFingerprint(subject.getCommandLine().getFingerprint(), island);
+      fitnessCache.record(fingerprint, fitness);
+      return fitnessCache.getMeanFitness(fingerprint);
+    }
+
+    @Override
+    public double[] getObjectives(Genome candidate, List<? extends Genome> population) {
+      SubjectStateBridge subject = lookupSubject(candidate, population);
+      paretoSettings.put(candidate, subject.getCommandLine().toArgumentString());
+      return FitnessScore.computeObjectives(subject, config);
+    }
+
+    /** Returns the subject of the last experiment that ran the candidate */
+    private SubjectStateBridge lookupSubject(Genome candidate, List<? extends Genome> population) {
+      // Use the index of the candidate in the population to get the
+      // corresponding
+      // subject ID. Then get the fitness for that subject ID.
+      int index = offset + population.indexOf(candidate);
+
+      // Look-up the last experiment.
+      Experiment lastExperiment = null;
+
+      lastExperiment = experimentDb.getLastExperiment();
+
+      // Get the candidate's subject from the last experiment.
+      long subjectId = lastExperiment.getSubjectIds().get(index);
+      return experimentDb.lookupSubject(subjectId);
     }
 
     /**
@@ -592,33 +957,35 @@ public class Hypothesizer extends ProfilingRunnable {
   /**
    * Mutates the genes of an individual.
    */
-  private class IntegerListMutator implements EvolutionaryOperator<List<Integer>> {
+  private class GenomeMutator implements EvolutionaryOperator<Genome> {
     private final NumberGenerator<Probability> probability;
 
-    IntegerListMutator(Probability mutationProbability) {
+    GenomeMutator(Probability mutationProbability) {
       probability = new ConstantGenerator<>(mutationProbability);
     }
 
     @Override
-    public List<List<Integer>> apply(List<List<Integer>> selectedCandidates, Random rng) {
+    public List<Genome> apply(List<Genome> selectedCandidates, Random rng) {
       SearchSpaceBundle bundle = config.getJvmSearchSpaceRestriction();
-      List<List<Integer>> mutatedPopulation =
+      List<Genome> mutatedPopulation =
           Lists.newArrayListWithCapacity(selectedCandidates.size());
-      for (List<Integer> selectedCandidate : selectedCandidates) {
-        List<Integer> mutatedCandidate = Lists.newArrayListWithCapacity(selectedCandidate.size());
+      for (Genome selectedCandidate : selectedCandidates) {
+        long[] genes = null;
         for (int i = 0; i < selectedCandidate.size(); ++i) {
           if (probability.nextValue().nextEvent(rng)) {
+            if (genes == null) {
+              genes = selectedCandidate.toArray();
+            }
             if (i == 0) {
-              mutatedCandidate.add(rng.nextInt(supportedGcModes.size()));
+              genes[i] = rng.nextInt(supportedGcModes.size());
             } else {
-              SearchSpaceEntry entry = bundle.getSearchSpace(ARGUMENTS.get(i - 1));
-              mutatedCandidate.add(generateRandomNumber(entry, rng));
+              SearchSpaceEntry entry = bundle.getSearchSpace(codec.getArgument(i));
+              genes[i] = generateRandomNumber(entry, rng);
             }
-          } else {
-            mutatedCandidate.add(selectedCandidate.get(i));
           }
         }
-        mutatedPopulation.add(mutatedCandidate);
+        // Genomes are immutable, so unchanged candidates are shared rather than copied.
+        mutatedPopulation.add(genes == null ? selectedCandidate : Genome.wrap(genes));
       }
       return mutatedPopulation;
     }
@@ -639,6 +1006,21 @@ public class Hypothesizer extends ProfilingRunnable {
         "The sum of the fitness score across the last experimental population.",
         Metric.make(totalFitnessScore));
 
+    metricExporter.register(
+        "hypothesizer_replaced_candidates_total",
+        "The number of candidates replaced by novel ones because their fitness was known.",
+        Metric.make(replacedCandidates));
+
+    metricExporter.register(
+        "hypothesizer_repaired_candidates_total",
+        "The number of candidates repaired because their flags violated a constraint.",
+        Metric.make(repairedCandidates));
+
+    metricExporter.register(
+        "hypothesizer_steady_state_replacements_total",
+        "The number of candidates bred to replace a subject whose evaluation was over.",
+        Metric.make(steadyStateReplacements));
+
     metricExporter.register(
         "hypthesizer_population_size_total",
         "DEPRECATED - USE hypothesizer_population_size_total - DEPRECATED",
@@ -50,7 +50,8 @@ import java.util.concurrent.CopyOnWriteArraySet;
  *
  * @param <T> the type of elements this evolution engine handles.
  */
-public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T> {
+public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T>
+    implements HypothesisEngine<T> {
 
   private final Set<EvolutionObserver<T>> observers =
       new CopyOnWriteArraySet<>();
@@ -124,6 +125,7 @@ public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T
    *
    * @return Initial population.
    */
+  @Override
   public List<T> performFirstStep() {
     if (initialized) {
       throw new IllegalStateException("Evolutionary process has already started.");
@@ -151,6 +153,7 @@ public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T
    * @param population Current population.
    * @return Evolved population.
    */
+  @Override
   public List<T> performNextStep(List<T> population) {
     if (!initialized) {
       throw new IllegalStateException("Evolutionary process has not been started yet.");
@@ -198,6 +201,7 @@ public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T
    *
    * @return Whether the GA has met the termination conditions or not.
    */
+  @Override
   public boolean isTerminated() {
     return terminated;
   }
@@ -238,6 +242,7 @@ public class IncrementalEvolutionEngine<T> extends GenerationalEvolutionEngine<T
    *
    * @param observer An evolution observer call-back.
    */
+  @Override
   public void addEvolutionObserver(EvolutionObserver<T> observer) {
     observers.add(observer);
   }
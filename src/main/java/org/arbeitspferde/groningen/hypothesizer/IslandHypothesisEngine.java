@@ -0,0 +1,230 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.arbeitspferde.groningen.utility.Clock;
+import org.arbeitspferde.groningen.utility.SystemClock;
+
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Logger;
+
+/**
+ * IslandHypothesisEngine evolves a population as islands, each of which is a contiguous slice of
+ * the population that an engine of its own evolves, such that each island can converge to the
+ * optimum of the hardware its subjects run on rather than to a compromise.
+ *
+ * Every given number of generations, the fittest individuals of each island migrate to the next
+ * island in a ring, where they replace individuals that the island has not evaluated yet. The
+ * individuals an island has evaluated, among them its elite, are never replaced.
+ *
+ * The islands are not given termination conditions of their own: the conditions of this engine
+ * apply to the whole population, such that it stagnates only when no island improves.
+ *
+ * This class is not thread safe.
+ *
+ * @param <T> the type of individuals in the population.
+ */
+public class IslandHypothesisEngine<T> implements HypothesisEngine<T> {
+  private static final Logger log =
+      Logger.getLogger(IslandHypothesisEngine.class.getCanonicalName());
+
+  private final Set<EvolutionObserver<T>> observers = new CopyOnWriteArraySet<>();
+
+  private final List<HypothesisEngine<T>> islands;
+  private final List<Integer> islandSizes;
+  private final boolean naturalFitness;
+  private final int migrationInterval;
+  private final int migrationCount;
+  private final TerminationCondition[] conditions;
+  private final Clock clock;
+
+  /** The population that each island evaluated last, from the fittest */
+  private final List<List<EvaluatedCandidate<T>>> evaluatedIslands;
+
+  private int currentGenerationIndex;
+  private long startTime;
+  private boolean terminated;
+
+  /**
+   * @param islands The engines that evolve each island, which must not have termination
+   *     conditions.
+   * @param islandSizes The population size of each island, in order.
+   * @param naturalFitness Whether greater fitness is better.
+   * @param migrationInterval The number of generations between migrations, or zero for none.
+   * @param migrationCount The number of individuals that migrate from each island.
+   * @param conditions The conditions on the whole population that terminate all islands.
+   */
+  public IslandHypothesisEngine(
+      List<? extends HypothesisEngine<T>> islands,
+      List<Integer> islandSizes,
+      boolean naturalFitness,
+      int migrationInterval,
+      int migrationCount,
+      TerminationCondition... conditions) {
+    Preconditions.checkArgument(!islands.isEmpty(), "There must be at least one island.");
+    Preconditions.checkArgument(islands.size() == islandSizes.size(),
+        "There must be a size for each island.");
+    Preconditions.checkArgument(migrationInterval >= 0, "Invalid migration interval.");
+    Preconditions.checkArgument(migrationCount >= 0, "Invalid migration count.");
+
+    this.islands = ImmutableList.copyOf(islands);
+    this.islandSizes = ImmutableList.copyOf(islandSizes);
+    this.naturalFitness = naturalFitness;
+    this.migrationInterval = migrationInterval;
+    this.migrationCount = migrationCount;
+    this.conditions = conditions;
+    this.clock = new SystemClock();
+
+    evaluatedIslands = Lists.newArrayListWithCapacity(islands.size());
+    for (int i = 0; i < islands.size(); i++) {
+      final int island = i;
+      evaluatedIslands.add(Collections.<EvaluatedCandidate<T>>emptyList());
+      islands.get(i).addEvolutionObserver(new EvolutionObserver<T>() {
+        @Override
+        public void populationUpdate(PopulationData<T> data,
+            List<EvaluatedCandidate<T>> population) {
+          evaluatedIslands.set(island, ImmutableList.copyOf(population));
+        }
+      });
+    }
+  }
+
+  @Override
+  public List<T> performFirstStep() {
+    startTime = clock.now().getMillis();
+
+    final List<T> population = Lists.newArrayList();
+    for (int i = 0; i < islands.size(); i++) {
+      final List<T> island = islands.get(i).performFirstStep();
+      Preconditions.checkState(island.size() == islandSizes.get(i), "Invalid island size.");
+      population.addAll(island);
+    }
+    return population;
+  }
+
+  @Override
+  public List<T> performNextStep(List<T> population) {
+    if (terminated) {
+      throw new IllegalStateException("Evolutionary process has been terminated already.");
+    }
+    Preconditions.checkArgument(population != null && population.size() == getPopulationSize(),
+        "Invalid population.");
+
+    final List<List<T>> nextIslands = Lists.newArrayListWithCapacity(islands.size());
+    final List<EvaluatedCandidate<T>> evaluatedPopulation = Lists.newArrayList();
+    int offset = 0;
+    for (int i = 0; i < islands.size(); i++) {
+      final int size = islandSizes.get(i);
+      final List<T> island = Lists.newArrayList(population.subList(offset, offset + size));
+      nextIslands.add(Lists.newArrayList(islands.get(i).performNextStep(island)));
+      evaluatedPopulation.addAll(evaluatedIslands.get(i));
+      if (!evaluatedIslands.get(i).isEmpty()) {
+        log.info(String.format("Island %s: best fitness %s", i,
+            evaluatedIslands.get(i).get(0).getFitness()));
+      }
+      offset += size;
+    }
+
+    EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, naturalFitness);
+    final PopulationData<T> data = EvolutionUtils.getPopulationData(
+        evaluatedPopulation, naturalFitness, 0, currentGenerationIndex, startTime);
+    for (final EvolutionObserver<T> observer : observers) {
+      observer.populationUpdate(data, evaluatedPopulation);
+    }
+
+    if (conditions.length > 0 && conditions[0] != null
+        && EvolutionUtils.shouldContinue(data, conditions) != null) {
+      terminated = true;
+      return population;
+    }
+
+    ++currentGenerationIndex;
+    if (migrationInterval > 0 && islands.size() > 1
+        && currentGenerationIndex % migrationInterval == 0) {
+      migrate(nextIslands);
+    }
+
+    final List<T> next = Lists.newArrayListWithCapacity(population.size());
+    for (final List<T> island : nextIslands) {
+      next.addAll(island);
+    }
+    return next;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated;
+  }
+
+  @Override
+  public void addEvolutionObserver(EvolutionObserver<T> observer) {
+    observers.add(observer);
+  }
+
+  private int getPopulationSize() {
+    int size = 0;
+    for (final int islandSize : islandSizes) {
+      size += islandSize;
+    }
+    return size;
+  }
+
+  /** Moves the fittest individuals of each island to the next island in the ring */
+  private void migrate(final List<List<T>> nextIslands) {
+    for (int source = 0; source < islands.size(); source++) {
+      final int target = (source + 1) % islands.size();
+      final List<T> targetIsland = nextIslands.get(target);
+
+      final Set<T> protectedCandidates = Sets.newHashSet();
+      for (final EvaluatedCandidate<T> candidate : evaluatedIslands.get(target)) {
+        protectedCandidates.add(candidate.getCandidate());
+      }
+
+      final List<EvaluatedCandidate<T>> emigrants = evaluatedIslands.get(source);
+      int migrated = 0;
+      int position = targetIsland.size() - 1;
+      for (int i = 0; i < emigrants.size() && migrated < migrationCount; i++) {
+        final T emigrant = emigrants.get(i).getCandidate();
+        if (targetIsland.contains(emigrant)) {
+          continue;
+        }
+        while (position >= 0 && protectedCandidates.contains(targetIsland.get(position))) {
+          position--;
+        }
+        if (position < 0) {
+          break;
+        }
+        targetIsland.set(position--, emigrant);
+        migrated++;
+      }
+      log.info(String.format("Migrated %s individuals from island %s to island %s.",
+          migrated, source, target));
+    }
+  }
+}
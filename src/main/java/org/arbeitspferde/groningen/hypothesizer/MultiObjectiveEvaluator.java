@@ -0,0 +1,37 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+
+import java.util.List;
+
+/**
+ * A {@link FitnessEvaluator} that also scores each objective on its own, for engines that search
+ * for the trade-offs among the objectives rather than for the best weighted fitness.
+ *
+ * @param <T> the type of individuals evaluated.
+ */
+public interface MultiObjectiveEvaluator<T> extends FitnessEvaluator<T> {
+  /**
+   * Returns the score of the candidate in each objective, always in the same order. Greater
+   * scores are better, whether or not the weighted fitness is natural.
+   *
+   * @param candidate The individual to score.
+   * @param population The population the candidate belongs to.
+   */
+  double[] getObjectives(T candidate, List<? extends T> population);
+}
@@ -0,0 +1,230 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.arbeitspferde.groningen.utility.Clock;
+import org.arbeitspferde.groningen.utility.SystemClock;
+
+import org.uncommons.watchmaker.framework.CandidateFactory;
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Logger;
+
+/**
+ * NsgaHypothesisEngine searches for the trade-offs among several objectives as NSGA-II does,
+ * rather than for the best weighted sum of them, such that the weights can be chosen once the
+ * experiments are over.
+ *
+ * Each generation, the evaluated population joins the parents it was bred from, and the next
+ * parents are the best of both by non-dominated rank, with ties on the last admitted front broken
+ * by crowding distance to keep the front spread out. The offspring, which are the next population,
+ * are bred by the evolutionary operators from binary tournaments on rank and crowding distance.
+ * Parents are remembered with their scores rather than sent to production again.
+ *
+ * Every solution that no other evaluated solution dominates is kept in the Pareto front. Observers
+ * and termination conditions see the weighted fitness of the evaluator.
+ *
+ * This class is not thread safe, except for {@link #getParetoFront}.
+ *
+ * @param <T> the type of individuals in the population.
+ */
+public class NsgaHypothesisEngine<T> implements HypothesisEngine<T> {
+  private static final Logger log =
+      Logger.getLogger(NsgaHypothesisEngine.class.getCanonicalName());
+
+  private final Set<EvolutionObserver<T>> observers = new CopyOnWriteArraySet<>();
+
+  private final CandidateFactory<T> candidateFactory;
+  private final EvolutionaryOperator<T> evolutionScheme;
+  private final MultiObjectiveEvaluator<? super T> evaluator;
+  private final Random rng;
+  private final int populationSize;
+  private final TerminationCondition[] conditions;
+  private final Clock clock;
+
+  /** The parents of the last evaluated population */
+  private List<ParetoSolution<T>> parents = ImmutableList.of();
+
+  /** The solutions that no evaluated solution dominates, published for other threads */
+  private volatile List<ParetoSolution<T>> paretoFront = ImmutableList.of();
+
+  private int currentGenerationIndex;
+  private long startTime;
+  private boolean initialized;
+  private boolean terminated;
+
+  public NsgaHypothesisEngine(
+      CandidateFactory<T> candidateFactory,
+      EvolutionaryOperator<T> evolutionScheme,
+      MultiObjectiveEvaluator<? super T> evaluator,
+      Random rng,
+      int populationSize,
+      TerminationCondition... conditions) {
+    Preconditions.checkArgument(populationSize > 1, "The population needs at least two members.");
+
+    this.candidateFactory = candidateFactory;
+    this.evolutionScheme = evolutionScheme;
+    this.evaluator = evaluator;
+    this.rng = rng;
+    this.populationSize = populationSize;
+    this.conditions = conditions;
+    this.clock = new SystemClock();
+  }
+
+  @Override
+  public List<T> performFirstStep() {
+    if (initialized) {
+      throw new IllegalStateException("Evolutionary process has already started.");
+    }
+    startTime = clock.now().getMillis();
+    initialized = true;
+    return candidateFactory.generateInitialPopulation(
+        populationSize, Collections.<T>emptySet(), rng);
+  }
+
+  @Override
+  public List<T> performNextStep(List<T> population) {
+    if (!initialized) {
+      throw new IllegalStateException("Evolutionary process has not been started yet.");
+    }
+    if (terminated) {
+      throw new IllegalStateException("Evolutionary process has been terminated already.");
+    }
+    Preconditions.checkArgument(
+        population != null && population.size() == populationSize, "Invalid population.");
+
+    final List<ParetoSolution<T>> offspring = Lists.newArrayListWithCapacity(population.size());
+    final List<EvaluatedCandidate<T>> evaluatedPopulation =
+        Lists.newArrayListWithCapacity(population.size());
+    for (final T candidate : population) {
+      final double fitness = evaluator.getFitness(candidate, population);
+      offspring.add(new ParetoSolution<>(
+          candidate, evaluator.getObjectives(candidate, population), fitness));
+      evaluatedPopulation.add(new EvaluatedCandidate<>(candidate, fitness));
+    }
+    updateParetoFront(offspring);
+
+    EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, evaluator.isNatural());
+    final PopulationData<T> data = EvolutionUtils.getPopulationData(
+        evaluatedPopulation, evaluator.isNatural(), 0, currentGenerationIndex, startTime);
+    for (final EvolutionObserver<T> observer : observers) {
+      observer.populationUpdate(data, evaluatedPopulation);
+    }
+
+    if (conditions.length > 0 && conditions[0] != null
+        && EvolutionUtils.shouldContinue(data, conditions) != null) {
+      terminated = true;
+      return population;
+    }
+
+    final List<ParetoSolution<T>> candidates = Lists.newArrayList(parents);
+    candidates.addAll(offspring);
+    final List<double[]> objectives = Lists.newArrayListWithCapacity(candidates.size());
+    for (final ParetoSolution<T> candidate : candidates) {
+      objectives.add(candidate.getObjectives());
+    }
+
+    // Admit whole fronts while they fit, then the most isolated members of the front that does
+    // not.
+    final List<ParetoSolution<T>> nextParents = Lists.newArrayListWithCapacity(populationSize);
+    final List<Integer> ranks = Lists.newArrayListWithCapacity(populationSize);
+    final List<Double> crowding = Lists.newArrayListWithCapacity(populationSize);
+    final List<List<Integer>> fronts = ParetoRanking.sortNonDominated(objectives);
+    for (int rank = 0; rank < fronts.size() && nextParents.size() < populationSize; rank++) {
+      final List<Integer> front = fronts.get(rank);
+      final double[] distances = ParetoRanking.crowdingDistances(objectives, front);
+      final List<Integer> order = Lists.newArrayListWithCapacity(front.size());
+      for (int i = 0; i < front.size(); i++) {
+        order.add(i);
+      }
+      if (nextParents.size() + front.size() > populationSize) {
+        Collections.sort(order, new Comparator<Integer>() {
+          @Override
+          public int compare(Integer a, Integer b) {
+            return Double.compare(distances[b], distances[a]);
+          }
+        });
+      }
+      for (int i = 0; i < order.size() && nextParents.size() < populationSize; i++) {
+        nextParents.add(candidates.get(front.get(order.get(i))));
+        ranks.add(rank);
+        crowding.add(distances[order.get(i)]);
+      }
+    }
+    parents = nextParents;
+    log.info(String.format("Generation %s: %s fronts; Pareto front of %s solutions.",
+        currentGenerationIndex, fronts.size(), paretoFront.size()));
+
+    final List<T> matingPool = Lists.newArrayListWithCapacity(populationSize);
+    for (int i = 0; i < populationSize; i++) {
+      final int a = rng.nextInt(parents.size());
+      final int b = rng.nextInt(parents.size());
+      final boolean preferA = ranks.get(a) < ranks.get(b)
+          || (ranks.get(a).equals(ranks.get(b)) && crowding.get(a) >= crowding.get(b));
+      matingPool.add(parents.get(preferA ? a : b).getCandidate());
+    }
+
+    ++currentGenerationIndex;
+    return evolutionScheme.apply(matingPool, rng);
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated;
+  }
+
+  @Override
+  public void addEvolutionObserver(EvolutionObserver<T> observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Returns the evaluated solutions that no other evaluated solution dominates, in the order they
+   * were found. This method can be called from any thread.
+   */
+  public List<ParetoSolution<T>> getParetoFront() {
+    return paretoFront;
+  }
+
+  /** Adds the solutions to the Pareto front, replacing earlier scores of the same candidates */
+  private void updateParetoFront(final List<ParetoSolution<T>> solutions) {
+    final Map<T, ParetoSolution<T>> merged = Maps.newLinkedHashMap();
+    for (final ParetoSolution<T> solution : paretoFront) {
+      merged.put(solution.getCandidate(), solution);
+    }
+    for (final ParetoSolution<T> solution : solutions) {
+      merged.put(solution.getCandidate(), solution);
+    }
+    paretoFront = ImmutableList.copyOf(
+        ParetoRanking.nonDominated(Lists.newArrayList(merged.values())));
+  }
+}
@@ -0,0 +1,150 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The non-dominated sorting and crowding distance of NSGA-II, over objective vectors whose
+ * scores are all better when greater.
+ */
+final class ParetoRanking {
+  private ParetoRanking() {}
+
+  /** Returns whether a is at least as good as b in every objective and better in one */
+  static boolean dominates(final double[] a, final double[] b) {
+    Preconditions.checkArgument(a.length == b.length, "Objective counts differ.");
+    boolean better = false;
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] < b[i]) {
+        return false;
+      }
+      better |= a[i] > b[i];
+    }
+    return better;
+  }
+
+  /**
+   * Sorts the vectors into fronts: the first front holds the indices of the vectors that no other
+   * dominates, and each following front those that only the vectors of earlier fronts dominate.
+   */
+  static List<List<Integer>> sortNonDominated(final List<double[]> objectives) {
+    final int size = objectives.size();
+    final int[] dominatorCounts = new int[size];
+    final List<List<Integer>> dominated = Lists.newArrayListWithCapacity(size);
+    for (int i = 0; i < size; i++) {
+      dominated.add(Lists.<Integer>newArrayList());
+    }
+
+    List<Integer> front = Lists.newArrayList();
+    for (int i = 0; i < size; i++) {
+      for (int j = i + 1; j < size; j++) {
+        if (dominates(objectives.get(i), objectives.get(j))) {
+          dominated.get(i).add(j);
+          dominatorCounts[j]++;
+        } else if (dominates(objectives.get(j), objectives.get(i))) {
+          dominated.get(j).add(i);
+          dominatorCounts[i]++;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      if (dominatorCounts[i] == 0) {
+        front.add(i);
+      }
+    }
+
+    final List<List<Integer>> fronts = Lists.newArrayList();
+    while (!front.isEmpty()) {
+      fronts.add(front);
+      final List<Integer> next = Lists.newArrayList();
+      for (final int i : front) {
+        for (final int j : dominated.get(i)) {
+          if (--dominatorCounts[j] == 0) {
+            next.add(j);
+          }
+        }
+      }
+      front = next;
+    }
+    return fronts;
+  }
+
+  /**
+   * Returns the crowding distance of each vector of the front, in the order of the front: the sum
+   * over the objectives of the normalized distance between its neighbours on either side. The
+   * extremes of each objective are infinitely far, such that they are always preferred.
+   */
+  static double[] crowdingDistances(final List<double[]> objectives, final List<Integer> front) {
+    final int size = front.size();
+    final double[] distances = new double[size];
+    if (size == 0) {
+      return distances;
+    }
+
+    final int objectiveCount = objectives.get(front.get(0)).length;
+    final Integer[] order = new Integer[size];
+    for (int m = 0; m < objectiveCount; m++) {
+      final int objective = m;
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer a, Integer b) {
+          return Double.compare(objectives.get(front.get(a))[objective],
+              objectives.get(front.get(b))[objective]);
+        }
+      });
+
+      final double min = objectives.get(front.get(order[0]))[objective];
+      final double max = objectives.get(front.get(order[size - 1]))[objective];
+      distances[order[0]] = Double.POSITIVE_INFINITY;
+      distances[order[size - 1]] = Double.POSITIVE_INFINITY;
+      if (max > min) {
+        for (int i = 1; i < size - 1; i++) {
+          distances[order[i]] += (objectives.get(front.get(order[i + 1]))[objective]
+              - objectives.get(front.get(order[i - 1]))[objective]) / (max - min);
+        }
+      }
+    }
+    return distances;
+  }
+
+  /** Returns the solutions that no other solution dominates, in their original order */
+  static <T> List<ParetoSolution<T>> nonDominated(final List<ParetoSolution<T>> solutions) {
+    final List<double[]> objectives = Lists.newArrayListWithCapacity(solutions.size());
+    for (final ParetoSolution<T> solution : solutions) {
+      objectives.add(solution.getObjectives());
+    }
+    final List<List<Integer>> fronts = sortNonDominated(objectives);
+    final List<Integer> sorted =
+        fronts.isEmpty() ? Lists.<Integer>newArrayList() : Lists.newArrayList(fronts.get(0));
+    Collections.sort(sorted);
+
+    final List<ParetoSolution<T>> result = Lists.newArrayListWithCapacity(sorted.size());
+    for (final int i : sorted) {
+      result.add(solutions.get(i));
+    }
+    return result;
+  }
+}
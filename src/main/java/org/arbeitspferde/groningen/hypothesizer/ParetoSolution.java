@@ -0,0 +1,81 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Objects;
+
+import java.util.Arrays;
+
+/**
+ * An evaluated individual of a multi-objective search: its objective scores, each of which is
+ * better when greater, and the weighted fitness the scores combine to.
+ *
+ * @param <T> the type of the individual.
+ */
+public final class ParetoSolution<T> {
+  private final T candidate;
+  private final double[] objectives;
+  private final double fitness;
+
+  public ParetoSolution(final T candidate, final double[] objectives, final double fitness) {
+    this.candidate = candidate;
+    this.objectives = objectives.clone();
+    this.fitness = fitness;
+  }
+
+  public T getCandidate() {
+    return candidate;
+  }
+
+  /** Returns a copy of the objective scores */
+  public double[] getObjectives() {
+    return objectives.clone();
+  }
+
+  public double getObjective(final int index) {
+    return objectives[index];
+  }
+
+  public int getObjectiveCount() {
+    return objectives.length;
+  }
+
+  public double getFitness() {
+    return fitness;
+  }
+
+  /**
+   * Returns whether this solution dominates the other, that is whether it is at least as good in
+   * every objective and better in one.
+   */
+  public boolean dominates(final ParetoSolution<?> other) {
+    return ParetoRanking.dominates(objectives, other.objectives);
+  }
+
+  /** Returns a solution of another candidate with the same scores */
+  public <U> ParetoSolution<U> withCandidate(final U newCandidate) {
+    return new ParetoSolution<>(newCandidate, objectives, fitness);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("candidate", candidate)
+        .add("objectives", Arrays.toString(objectives))
+        .add("fitness", fitness)
+        .toString();
+  }
+}
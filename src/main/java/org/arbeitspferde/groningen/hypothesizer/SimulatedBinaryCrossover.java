@@ -0,0 +1,107 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+
+import org.uncommons.watchmaker.framework.operators.AbstractCrossover;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulated binary crossover of {@link Genome}s, which is aware of the GC mode of each parent.
+ *
+ * The flags that the GC modes of both parents honor are blended: each offspring value is spread
+ * around the parents' values as a single-point crossover of their binary encoding would on
+ * average, more tightly the greater the distribution index, and rounded to the steps of the flag's
+ * search space.
+ *
+ * The flags that only one of the parents' GC modes honors, such as the CMS flags when the other
+ * parent uses the parallel collector, are never blended: they stay with the GC mode gene, which
+ * each offspring takes whole from one parent. Offspring thus never tune a collector with values
+ * that were evolved for another.
+ */
+class SimulatedBinaryCrossover extends AbstractCrossover<Genome> {
+  private final GeneSpace space;
+  private final GenomeCodec codec;
+  private final double distributionIndex;
+
+  /**
+   * @param space The search space of the genes.
+   * @param codec The layout of the genes.
+   * @param distributionIndex How close offspring stay to their parents, typically 2 to 20.
+   */
+  SimulatedBinaryCrossover(final GeneSpace space, final GenomeCodec codec,
+      final double distributionIndex) {
+    super(1);
+    Preconditions.checkArgument(distributionIndex >= 0, "Invalid distribution index.");
+    this.space = space;
+    this.codec = codec;
+    this.distributionIndex = distributionIndex;
+  }
+
+  @Override
+  protected List<Genome> mate(final Genome parent1, final Genome parent2,
+      final int numberOfCrossoverPoints, final Random rng) {
+    final long[] offspring1 = parent1.toArray();
+    final long[] offspring2 = parent2.toArray();
+    final JvmFlag gcMode1 = codec.getGcMode(parent1.getGcModeIndex());
+    final JvmFlag gcMode2 = codec.getGcMode(parent2.getGcModeIndex());
+
+    // Swap the GC modes along with the flags that only they honor.
+    final boolean swapGcModes = rng.nextBoolean();
+    if (swapGcModes) {
+      offspring1[0] = parent2.get(0);
+      offspring2[0] = parent1.get(0);
+    }
+
+    for (int i = 1; i < offspring1.length; i++) {
+      final JvmFlag flag = codec.getArgument(i);
+      if (!flag.isRelevantTo(gcMode1) || !flag.isRelevantTo(gcMode2)) {
+        if (swapGcModes) {
+          offspring1[i] = parent2.get(i);
+          offspring2[i] = parent1.get(i);
+        }
+        continue;
+      }
+      if (rng.nextBoolean() || parent1.get(i) == parent2.get(i)) {
+        continue;
+      }
+
+      final SearchSpaceEntry entry = space.getEntry(i);
+      final double spread = spreadFactor(rng);
+      final double sum = parent1.get(i) + parent2.get(i);
+      final double difference = parent1.get(i) - parent2.get(i);
+      offspring1[i] = GeneSpace.snap(entry, (sum + spread * difference) / 2);
+      offspring2[i] = GeneSpace.snap(entry, (sum - spread * difference) / 2);
+    }
+    return ImmutableList.of(Genome.wrap(offspring1), Genome.wrap(offspring2));
+  }
+
+  /** Draws the ratio of the spread of the offspring values to that of the parents' values */
+  private double spreadFactor(final Random rng) {
+    final double u = rng.nextDouble();
+    final double exponent = 1.0 / (distributionIndex + 1);
+    return u <= 0.5
+        ? Math.pow(2 * u, exponent)
+        : Math.pow(1 / (2 * (1 - u)), exponent);
+  }
+}
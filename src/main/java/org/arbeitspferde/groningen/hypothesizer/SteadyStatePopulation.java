@@ -0,0 +1,115 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SteadyStatePopulation holds the fittest individuals evaluated so far in steady-state evolution,
+ * in which each individual joins the population as soon as it is evaluated and a single offspring
+ * is bred to take its place, rather than a generation at a time.
+ *
+ * Once the population is full, an evaluated individual replaces the least fit member unless it is
+ * less fit itself, greater fitness being better; an individual that is a member already has its
+ * fitness updated instead. Offspring are bred by the evolutionary operators from two parents, each
+ * the fitter of a binary tournament.
+ *
+ * This class is thread safe.
+ */
+class SteadyStatePopulation {
+  private final EvolutionaryOperator<Genome> evolutionScheme;
+  private final int capacity;
+  private final Random rng;
+
+  private final List<EvaluatedCandidate<Genome>> members = Lists.newArrayList();
+
+  /**
+   * @param evolutionScheme The operators that breed an offspring from two parents.
+   * @param capacity The most individuals the population holds.
+   * @param rng The source of randomness of the selection and of the operators.
+   */
+  SteadyStatePopulation(final EvolutionaryOperator<Genome> evolutionScheme, final int capacity,
+      final Random rng) {
+    Preconditions.checkArgument(capacity > 0, "The population needs at least one member.");
+    this.evolutionScheme = evolutionScheme;
+    this.capacity = capacity;
+    this.rng = rng;
+  }
+
+  /**
+   * Inserts an evaluated individual into the population.
+   *
+   * @return Whether the individual is a member of the population afterwards.
+   */
+  synchronized boolean insert(final Genome individual, final double fitness) {
+    final EvaluatedCandidate<Genome> evaluated = new EvaluatedCandidate<>(individual, fitness);
+    int worst = -1;
+    for (int i = 0; i < members.size(); i++) {
+      if (members.get(i).getCandidate().equals(individual)) {
+        members.set(i, evaluated);
+        return true;
+      }
+      if (worst < 0 || members.get(i).getFitness() < members.get(worst).getFitness()) {
+        worst = i;
+      }
+    }
+    if (members.size() < capacity) {
+      members.add(evaluated);
+      return true;
+    }
+    if (fitness < members.get(worst).getFitness()) {
+      return false;
+    }
+    members.set(worst, evaluated);
+    return true;
+  }
+
+  /** Returns an offspring of two members chosen by binary tournament */
+  synchronized Genome breed() {
+    Preconditions.checkState(!members.isEmpty(), "There are no members to breed from.");
+    final List<Genome> parents = Lists.newArrayList(selectParent(), selectParent());
+    return evolutionScheme.apply(parents, rng).get(0);
+  }
+
+  /** Returns the fittest member, or null if there are none */
+  synchronized EvaluatedCandidate<Genome> getFittest() {
+    EvaluatedCandidate<Genome> fittest = null;
+    for (final EvaluatedCandidate<Genome> member : members) {
+      if (fittest == null || member.getFitness() > fittest.getFitness()) {
+        fittest = member;
+      }
+    }
+    return fittest;
+  }
+
+  /** Returns the number of members */
+  synchronized int size() {
+    return members.size();
+  }
+
+  private Genome selectParent() {
+    final EvaluatedCandidate<Genome> a = members.get(rng.nextInt(members.size()));
+    final EvaluatedCandidate<Genome> b = members.get(rng.nextInt(members.size()));
+    return (a.getFitness() >= b.getFitness() ? a : b).getCandidate();
+  }
+}
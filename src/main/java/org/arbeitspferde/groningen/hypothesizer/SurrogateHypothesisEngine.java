@@ -0,0 +1,303 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.arbeitspferde.groningen.utility.Clock;
+import org.arbeitspferde.groningen.utility.SystemClock;
+
+import org.uncommons.watchmaker.framework.CandidateFactory;
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Logger;
+
+/**
+ * SurrogateHypothesisEngine proposes populations by Bayesian optimization rather than evolution.
+ *
+ * Every individual that was ever evaluated trains a {@link GaussianProcess} that models fitness
+ * over the {@link GeneSpace}. Each next population consists of the elite observed so far and of
+ * the candidates that maximize the expected improvement over the best observed fitness. The
+ * candidates are sampled both uniformly from the space and around the fittest individuals. Once
+ * a candidate is chosen, the expected improvement of those that the model correlates with it is
+ * discounted, such that the population does not crowd around a single optimum of the model.
+ *
+ * As a full experiment runs for each generation, the engine spends far more computation per
+ * generation than the genetic algorithm in order to need fewer of them.
+ *
+ * This class is not thread safe.
+ */
+public class SurrogateHypothesisEngine implements HypothesisEngine<Genome> {
+  private static final Logger log =
+      Logger.getLogger(SurrogateHypothesisEngine.class.getCanonicalName());
+
+  /** The number of candidates scored by the model per individual of a population */
+  private static final int CANDIDATES_PER_INDIVIDUAL = 256;
+
+  /** The least number of candidates scored by the model for a population */
+  private static final int MINIMUM_CANDIDATES = 2048;
+
+  /** The fraction of candidates sampled around the fittest individuals rather than uniformly */
+  private static final double LOCAL_CANDIDATE_FRACTION = 0.5;
+
+  /** The number of fittest individuals around which candidates are sampled */
+  private static final int LOCAL_CANDIDATE_PARENTS = 5;
+
+  /** The deviation of local moves as a fraction of the range of a flag */
+  private static final double LOCAL_CANDIDATE_SCALE = 0.1;
+
+  /** The improvement below which the model considers a candidate no better, in deviations */
+  private static final double IMPROVEMENT_MARGIN = 0.01;
+
+  /**
+   * The most observations trained on. Fitting is cubic in their number, so beyond this the
+   * fittest quarter and the most recent of the rest are kept.
+   */
+  private static final int MAXIMUM_OBSERVATIONS = 512;
+
+  private final Set<EvolutionObserver<Genome>> observers = new CopyOnWriteArraySet<>();
+
+  private final CandidateFactory<Genome> candidateFactory;
+  private final GeneSpace space;
+  private final FitnessEvaluator<? super Genome> fitnessEvaluator;
+  private final Random rng;
+  private final int populationSize;
+  private final int eliteCount;
+  private final TerminationCondition[] conditions;
+  private final Clock clock;
+
+  /** Every individual evaluated so far with its fitness, in the order of evaluation */
+  private final List<EvaluatedCandidate<Genome>> observations = Lists.newArrayList();
+
+  private final GaussianProcess model = new GaussianProcess();
+
+  private int currentGenerationIndex;
+  private long startTime;
+  private boolean initialized;
+  private boolean terminated;
+
+  public SurrogateHypothesisEngine(
+      CandidateFactory<Genome> candidateFactory,
+      GeneSpace space,
+      FitnessEvaluator<? super Genome> fitnessEvaluator,
+      Random rng,
+      int populationSize,
+      int eliteCount,
+      TerminationCondition... conditions) {
+    Preconditions.checkArgument(
+        eliteCount < populationSize, "Elite count has to be smaller that the population size.");
+
+    this.candidateFactory = candidateFactory;
+    this.space = space;
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.rng = rng;
+    this.populationSize = populationSize;
+    this.eliteCount = eliteCount;
+    this.conditions = conditions;
+    this.clock = new SystemClock();
+  }
+
+  @Override
+  public List<Genome> performFirstStep() {
+    if (initialized) {
+      throw new IllegalStateException("Optimization has already started.");
+    }
+    if (terminated) {
+      throw new IllegalStateException("Optimization has been terminated already.");
+    }
+
+    startTime = clock.now().getMillis();
+
+    final List<Genome> population = candidateFactory.generateInitialPopulation(
+        populationSize, Collections.<Genome>emptySet(), rng);
+    initialized = true;
+
+    return population;
+  }
+
+  @Override
+  public List<Genome> performNextStep(final List<Genome> population) {
+    if (!initialized) {
+      throw new IllegalStateException("Optimization has not been started yet.");
+    }
+    if (terminated) {
+      throw new IllegalStateException("Optimization has been terminated already.");
+    }
+    Preconditions.checkArgument(
+        population != null && population.size() == populationSize, "Invalid population.");
+
+    final List<EvaluatedCandidate<Genome>> evaluatedPopulation =
+        Lists.newArrayListWithCapacity(population.size());
+    for (final Genome candidate : population) {
+      evaluatedPopulation.add(new EvaluatedCandidate<>(
+          candidate, fitnessEvaluator.getFitness(candidate, population)));
+    }
+    observations.addAll(evaluatedPopulation);
+
+    EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, fitnessEvaluator.isNatural());
+    final PopulationData<Genome> data = EvolutionUtils.getPopulationData(
+        evaluatedPopulation, fitnessEvaluator.isNatural(), 0, currentGenerationIndex, startTime);
+    for (final EvolutionObserver<Genome> observer : observers) {
+      observer.populationUpdate(data, evaluatedPopulation);
+    }
+
+    if (conditions.length > 0 && conditions[0] != null
+        && EvolutionUtils.shouldContinue(data, conditions) != null) {
+      terminated = true;
+      return population;
+    }
+
+    ++currentGenerationIndex;
+    return propose();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated;
+  }
+
+  @Override
+  public void addEvolutionObserver(final EvolutionObserver<Genome> observer) {
+    observers.add(observer);
+  }
+
+  /** Returns the next population from the model trained on all observations */
+  private List<Genome> propose() {
+    final List<EvaluatedCandidate<Genome>> fittest = Lists.newArrayList(observations);
+    Collections.sort(fittest, new FitnessOrder());
+
+    // The elite is evaluated again, which also averages out the noise of its fitness.
+    final List<Genome> population = Lists.newArrayListWithCapacity(populationSize);
+    final Set<Genome> evaluated = Sets.newHashSet();
+    for (final EvaluatedCandidate<Genome> observation : fittest) {
+      if (population.size() < eliteCount && !population.contains(observation.getCandidate())) {
+        population.add(observation.getCandidate());
+      }
+      evaluated.add(observation.getCandidate());
+    }
+
+    final List<EvaluatedCandidate<Genome>> training = trainingSet(fittest);
+    final double[][] points = new double[training.size()][];
+    final double[] targets = new double[training.size()];
+    for (int i = 0; i < training.size(); i++) {
+      points[i] = space.encode(training.get(i).getCandidate());
+      targets[i] = naturalFitness(training.get(i).getFitness());
+    }
+    model.fit(points, targets);
+    final double incumbent = naturalFitness(fittest.get(0).getFitness());
+    final double margin = IMPROVEMENT_MARGIN * model.getTargetScale();
+    log.info(String.format("Fitted model to %s of %s observations: length scale %s, noise %s.",
+        training.size(), observations.size(), model.getLengthScale(), model.getNoiseVariance()));
+
+    final List<Genome> candidates = sampleCandidates(fittest, evaluated);
+    final List<double[]> encoded = Lists.newArrayListWithCapacity(candidates.size());
+    final double[] improvements = new double[candidates.size()];
+    for (int i = 0; i < candidates.size(); i++) {
+      final double[] point = space.encode(candidates.get(i));
+      encoded.add(point);
+      improvements[i] = GaussianProcess.expectedImprovement(
+          model.predictMean(point), model.predictDeviation(point), incumbent, margin);
+    }
+
+    while (population.size() < populationSize && !candidates.isEmpty()) {
+      int best = 0;
+      for (int i = 1; i < candidates.size(); i++) {
+        if (improvements[i] > improvements[best]) {
+          best = i;
+        }
+      }
+      if (improvements[best] < 0.0) {
+        break;
+      }
+      population.add(candidates.get(best));
+      final double[] chosen = encoded.get(best);
+      for (int i = 0; i < candidates.size(); i++) {
+        improvements[i] *= 1.0 - model.correlation(chosen, encoded.get(i));
+      }
+      // Chosen candidates are never chosen again.
+      improvements[best] = -1.0;
+    }
+    log.info(String.format("Proposed %s candidates by expected improvement over %s.",
+        population.size() - Math.min(eliteCount, fittest.size()), incumbent));
+
+    while (population.size() < populationSize) {
+      population.add(space.randomIndividual(rng));
+    }
+    return population;
+  }
+
+  /** Returns the observations to train on, given all of them ordered from the fittest */
+  private List<EvaluatedCandidate<Genome>> trainingSet(
+      final List<EvaluatedCandidate<Genome>> fittest) {
+    if (observations.size() <= MAXIMUM_OBSERVATIONS) {
+      return observations;
+    }
+    final Set<EvaluatedCandidate<Genome>> training =
+        Sets.newIdentityHashSet();
+    training.addAll(fittest.subList(0, MAXIMUM_OBSERVATIONS / 4));
+    for (int i = observations.size() - 1; training.size() < MAXIMUM_OBSERVATIONS; i--) {
+      training.add(observations.get(i));
+    }
+    return Lists.newArrayList(training);
+  }
+
+  /** Returns distinct candidates that were not evaluated yet */
+  private List<Genome> sampleCandidates(
+      final List<EvaluatedCandidate<Genome>> fittest, final Set<Genome> evaluated) {
+    final int count = Math.max(MINIMUM_CANDIDATES, CANDIDATES_PER_INDIVIDUAL * populationSize);
+    final int parents = Math.min(LOCAL_CANDIDATE_PARENTS, fittest.size());
+    final Set<Genome> candidates = Sets.newLinkedHashSet();
+    for (int i = 0; i < count; i++) {
+      final Genome candidate;
+      if (rng.nextDouble() < LOCAL_CANDIDATE_FRACTION) {
+        final Genome parent = fittest.get(rng.nextInt(parents)).getCandidate();
+        candidate = space.perturb(parent, LOCAL_CANDIDATE_SCALE, rng);
+      } else {
+        candidate = space.randomIndividual(rng);
+      }
+      if (!evaluated.contains(candidate)) {
+        candidates.add(candidate);
+      }
+    }
+    return Lists.newArrayList(candidates);
+  }
+
+  /** Returns the fitness such that greater is better */
+  private double naturalFitness(final double fitness) {
+    return fitnessEvaluator.isNatural() ? fitness : -fitness;
+  }
+
+  /** Orders evaluated candidates from the fittest */
+  private class FitnessOrder implements Comparator<EvaluatedCandidate<Genome>> {
+    @Override
+    public int compare(final EvaluatedCandidate<Genome> a,
+        final EvaluatedCandidate<Genome> b) {
+      return Double.compare(naturalFitness(b.getFitness()), naturalFitness(a.getFitness()));
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.arbeitspferde.groningen.HistoryDatastore;
+import org.arbeitspferde.groningen.HistoryDatastore.HistoryDatastoreException;
+import org.arbeitspferde.groningen.PipelineHistoryState;
+import org.arbeitspferde.groningen.PipelineId;
+import org.arbeitspferde.groningen.common.EvaluatedSubject;
+import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.config.GroningenConfig.ClusterConfig;
+import org.arbeitspferde.groningen.config.GroningenConfig.SubjectGroupConfig;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * WarmStartSeeder picks the best configurations that earlier pipelines measured on the same job
+ * from the {@link HistoryDatastore}, such that a re-tune does not start from scratch.
+ *
+ * Configurations measured on the subject groups of the current config are preferred, then those
+ * measured on subject groups of the same name and user in other clusters; within each, the
+ * fittest come first. Default subjects are skipped, as are configurations whose GC mode is no
+ * longer allowed. Flag values are snapped into the current search space.
+ */
+class WarmStartSeeder {
+  private static final Logger log = Logger.getLogger(WarmStartSeeder.class.getCanonicalName());
+
+  private static final Joiner KEY_JOINER = Joiner.on('/').useForNull("");
+
+  /** The closeness of a historic subject group to the current ones */
+  private static final int SAME_SUBJECT_GROUP = 0;
+  private static final int SIMILAR_SUBJECT_GROUP = 1;
+
+  private final HistoryDatastore historyDatastore;
+  private final PipelineId pipelineId;
+  private final GenomeCodec codec;
+  private final GeneSpace space;
+
+  /**
+   * @param historyDatastore The history of earlier pipelines.
+   * @param pipelineId The current pipeline, whose own history is not a seed.
+   * @param codec The encoding of the current individuals.
+   * @param space The current search space.
+   */
+  WarmStartSeeder(final HistoryDatastore historyDatastore, final PipelineId pipelineId,
+      final GenomeCodec codec, final GeneSpace space) {
+    this.historyDatastore = historyDatastore;
+    this.pipelineId = pipelineId;
+    this.codec = codec;
+    this.space = space;
+  }
+
+  /**
+   * Returns up to count distinct historic individuals for the subject groups of the config, best
+   * first, or fewer if the history holds fewer.
+   */
+  List<Genome> findSeeds(final GroningenConfig config, final int count) {
+    if (count <= 0) {
+      return ImmutableList.of();
+    }
+
+    final Set<String> sameGroups = Sets.newHashSet();
+    final Set<String> similarGroups = Sets.newHashSet();
+    for (final ClusterConfig clusterConfig : config.getClusterConfigs()) {
+      for (final SubjectGroupConfig groupConfig : clusterConfig.getSubjectGroupConfigs()) {
+        sameGroups.add(KEY_JOINER.join(
+            clusterConfig.getName(), groupConfig.getName(), groupConfig.getUser()));
+        similarGroups.add(KEY_JOINER.join(groupConfig.getName(), groupConfig.getUser()));
+      }
+    }
+
+    final Map<Genome, Seed> seeds = Maps.newHashMap();
+    try {
+      for (final PipelineId historicId : historyDatastore.listPipelinesIds()) {
+        if (historicId.equals(pipelineId)) {
+          continue;
+        }
+        for (final PipelineHistoryState state :
+            historyDatastore.getStatesForPipelineId(historicId)) {
+          for (final EvaluatedSubject subject : state.evaluatedSubjects()) {
+            final int closeness;
+            if (sameGroups.contains(KEY_JOINER.join(subject.getClusterName(),
+                subject.getSubjectGroupName(), subject.getUserName()))) {
+              closeness = SAME_SUBJECT_GROUP;
+            } else if (similarGroups.contains(
+                KEY_JOINER.join(subject.getSubjectGroupName(), subject.getUserName()))) {
+              closeness = SIMILAR_SUBJECT_GROUP;
+            } else {
+              continue;
+            }
+            if (subject.isDefault()) {
+              continue;
+            }
+            final Genome individual = toIndividual(subject);
+            if (individual == null) {
+              continue;
+            }
+            final Seed seed = new Seed(individual, closeness, subject.getFitness());
+            final Seed known = seeds.get(individual);
+            if (known == null || BEST_FIRST.compare(seed, known) < 0) {
+              seeds.put(individual, seed);
+            }
+          }
+        }
+      }
+    } catch (final HistoryDatastoreException e) {
+      log.warning("Cannot read the history to warm start from: " + e.getMessage());
+      return ImmutableList.of();
+    }
+
+    final List<Seed> ranked = Lists.newArrayList(seeds.values());
+    Collections.sort(ranked, BEST_FIRST);
+    final List<Genome> best = Lists.newArrayListWithCapacity(Math.min(count, ranked.size()));
+    for (final Seed seed : ranked.subList(0, Math.min(count, ranked.size()))) {
+      best.add(seed.individual);
+    }
+    log.info(String.format("Warm starting from %s of %s historic configurations.",
+        best.size(), ranked.size()));
+    return best;
+  }
+
+  /** Returns the individual that the subject ran, within the current space, or null if none */
+  private Genome toIndividual(final EvaluatedSubject subject) {
+    final Genome individual;
+    try {
+      individual = codec.fromCommandLine(subject.getBridge().getCommandLine());
+    } catch (final RuntimeException e) {
+      // Historic command lines without a GC mode cannot be encoded.
+      return null;
+    }
+    if (individual.getGcModeIndex() < 0) {
+      return null;
+    }
+    final long[] genes = individual.toArray();
+    for (int i = 1; i < genes.length; i++) {
+      genes[i] = GeneSpace.snap(space.getEntry(i), genes[i]);
+    }
+    return Genome.wrap(genes);
+  }
+
+  /** Orders seeds by the closeness of their subject group, then by descending fitness */
+  private static final Comparator<Seed> BEST_FIRST = new Comparator<Seed>() {
+    @Override
+    public int compare(final Seed a, final Seed b) {
+      if (a.closeness != b.closeness) {
+        return a.closeness < b.closeness ? -1 : 1;
+      }
+      return Double.compare(b.fitness, a.fitness);
+    }
+  };
+
+  /** A historic individual with the best score it was measured with */
+  private static class Seed {
+    final Genome individual;
+    final int closeness;
+    final double fitness;
+
+    Seed(final Genome individual, final int closeness, final double fitness) {
+      this.individual = individual;
+      this.closeness = closeness;
+      this.fitness = fitness;
+    }
+  }
+}
@@ -55,12 +55,11 @@ public class ProcessHealthQuerier implements HealthQuerier {
     } catch (NumberFormatException e) {
       return false;
     }
-    Process.ProcessInfo processInfo = Process.getProcessInfo(addressInfo.getProcessId());
+    // The lookup only finds live processes, and finds the process that took the PID of one that
+    // was killed.
+    Process.ProcessInfo processInfo = Process.lookupProcess(addressInfo.getProcessId());
     // Define whether the process was killed or another process took its PID.
     // TODO(drk): add user name check.
-    if (processInfo == null || processInfo.getProcessGroupId() != processGroupId) {
-      return false;
-    }
-    return Process.isAlive(processInfo.getProcessId());
+    return processInfo != null && processInfo.getProcessGroupId() == processGroupId;
   }
 }
\ No newline at end of file
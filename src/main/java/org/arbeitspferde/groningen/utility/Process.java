@@ -15,21 +15,17 @@
 
 package org.arbeitspferde.groningen.utility;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class provides primitives for managing the system's processes.
@@ -39,9 +35,22 @@ public class Process {
 
   private static final Logger log = Logger.getLogger(Process.class.getCanonicalName());
 
-  private static final Pattern STAT_FILE_FORMAT = Pattern.compile(
-      "^([0-9-]+)\\s([^\\s]+)\\s[^\\s]\\s([0-9-]+)\\s([0-9-]+)\\s([0-9-]+)\\s([0-9-]+\\s){16}" +
-      "([0-9]+)(\\s[0-9-]+){16}");
+  /** The clock ticks per second of the start times in /proc, which is fixed for userspace */
+  private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+  /** The 0-based index of the start time among the fields that follow the command name */
+  private static final int START_TIME_FIELD = 19;
+
+  /** The 0-based index of the process group among the fields that follow the command name */
+  private static final int PROCESS_GROUP_FIELD = 2;
+
+  /** How long the process groups of the process table are trusted before it is scanned again */
+  private static final long PROCESS_TABLE_MAX_AGE_MILLIS = 1000;
+
+  private static final ProcessTable processTable = new ProcessTable(PROCESS_TABLE_MAX_AGE_MILLIS);
+
+  /** The boot time in seconds since the start of the epoch, or -1 until it is read */
+  private static volatile long bootTime = -1;
 
   /**
    * This class encapsulates process information.
@@ -50,12 +59,15 @@ public class Process {
     private final Integer processId;
     private final Integer processGroupId;
     private final long startTime;
+    private final long startTicks;
     private final String commandLine;
 
-    public ProcessInfo(int processId, int processGroupId, long startTime, String commandLine) {
+    public ProcessInfo(int processId, int processGroupId, long startTime, long startTicks,
+        String commandLine) {
       this.processId = processId;
       this.processGroupId = processGroupId;
       this.startTime = startTime;
+      this.startTicks = startTicks;
       this.commandLine = commandLine;
     }
 
@@ -76,35 +88,45 @@ public class Process {
       return this.startTime;
     }
 
+    /**
+     * Returns the creation time of the process in clock ticks since boot. Unlike the start time,
+     * it tells apart the processes that take the same identifier within a second.
+     */
+    public long getStartTicks() {
+      return this.startTicks;
+    }
+
     public String getCommandLine() {
       return this.commandLine;
     }
   }
 
+  /**
+   * The fields of a /proc/PID/stat file that identify a process.
+   */
+  @VisibleForTesting
+  static class Stat {
+    final int processGroupId;
+    final long startTicks;
+
+    Stat(int processGroupId, long startTicks) {
+      this.processGroupId = processGroupId;
+      this.startTicks = startTicks;
+    }
+  }
+
   /**
    * Is the process with identifier {@code processId} still alive?
    *
    * This method assumes that the process with identifier {@code processId} was alive not too long
-   * ago, and hence assumes no chance of pid-wrapping-around.
+   * ago, and hence assumes no chance of pid-wrapping-around; {@link #lookupProcess} does not.
    *
    * @param processId Process identifier to check.
    * @return {@code true} if process is alive.
    */
   public static final boolean isAlive(int processId) {
-    java.lang.Process process = null;
-    String[] command = {"kill", "-0", Integer.toString(processId)};
-    try {
-      process = Runtime.getRuntime().exec(command);
-    } catch (IOException e) {
-      log.log(Level.WARNING, "Error executing shell command " + Arrays.toString(command) + e);
-      return false;
-    }
-    try {
-      process.waitFor();
-    } catch (InterruptedException e) {
-      return false;
-    }
-    return (process.exitValue() == 0 ? true : false);
+    // The directory of a process lasts as long as its identifier is taken, as for kill -0.
+    return new File("/proc/" + Integer.toString(processId)).exists();
   }
 
   /**
@@ -128,40 +150,98 @@ public class Process {
    *         obtained.
    */
   public static final ProcessInfo getProcessInfo(int processId) {
-    File statStream = null;
-    ProcessInfo info = null;
-    FileReader statReader = null;
-    BufferedReader statDataReader = null;
-    try {
-      statStream = new File("/proc/" + Integer.toString(processId) + "/stat");
-      statReader = new FileReader(statStream);
-      statDataReader = new BufferedReader(statReader);
-    } catch (FileNotFoundException e) {
-      log.log(Level.WARNING, "PID file doesn't exist: " +
-          "/proc/" + Integer.toString(processId) + "/stat");
-      return info;
+    Stat stat = readStat(processId);
+    if (stat == null) {
+      return null;
     }
+    String commandLine;
     try {
-      String line = statDataReader.readLine();
-      Matcher matcher = STAT_FILE_FORMAT.matcher(line);
-      if (matcher.find()) {
-        String commandLine = Files.toString(new File("/proc/" + Integer.toString(processId) +
-                "/cmdline"), StandardCharsets.UTF_8);
-        // TODO(drk): read the start time from the stat file.
-        info = new ProcessInfo(processId, Integer.parseInt(matcher.group(4)),
-            statStream.lastModified() / 1000, commandLine);
-      }
+      commandLine = Files.toString(new File("/proc/" + Integer.toString(processId) +
+          "/cmdline"), StandardCharsets.UTF_8);
     } catch (IOException e) {
       log.log(Level.WARNING, "Error reading the stream: " + e);
-    } finally {
+      return null;
+    }
+    long startTime = getBootTime() + stat.startTicks / CLOCK_TICKS_PER_SECOND;
+    return new ProcessInfo(processId, stat.processGroupId, startTime, stat.startTicks,
+        commandLine);
+  }
+
+  /**
+   * Returns the process with identifier {@code processId} from the process table, which is only
+   * read again when the process is not the one seen before, e.g. after it restarted.
+   *
+   * @param processId the PID of the target process.
+   * @return the {@class ProcessInfo} instance or {@code null} if the process is not alive.
+   */
+  public static final ProcessInfo lookupProcess(int processId) {
+    return processTable.lookup(processId);
+  }
+
+  /**
+   * Reads the fields that identify a process from its /proc/PID/stat file.
+   *
+   * @return the fields, or {@code null} if the process is not alive.
+   */
+  static Stat readStat(int processId) {
+    String stat;
+    try {
+      stat = Files.toString(new File("/proc/" + Integer.toString(processId) + "/stat"),
+          StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      // The process is gone.
+      return null;
+    }
+    return parseStat(stat);
+  }
+
+  /**
+   * Parses the contents of a /proc/PID/stat file.
+   *
+   * @return the fields, or {@code null} if the contents cannot be parsed.
+   */
+  @VisibleForTesting
+  static Stat parseStat(String stat) {
+    // The command name is in parentheses and may hold anything, parentheses included.
+    int commandEnd = stat.lastIndexOf(')');
+    if (commandEnd < 0) {
+      log.log(Level.WARNING, "Cannot parse process stat: " + stat);
+      return null;
+    }
+    String[] fields = Iterables.toArray(Splitter.on(' ').omitEmptyStrings().trimResults()
+        .split(stat.substring(commandEnd + 1)), String.class);
+    if (fields.length <= START_TIME_FIELD) {
+      log.log(Level.WARNING, "Cannot parse process stat: " + stat);
+      return null;
+    }
+    try {
+      return new Stat(Integer.parseInt(fields[PROCESS_GROUP_FIELD]),
+          Long.parseLong(fields[START_TIME_FIELD]));
+    } catch (NumberFormatException e) {
+      log.log(Level.WARNING, "Cannot parse process stat: " + stat);
+      return null;
+    }
+  }
+
+  /**
+   * @return the boot time in seconds since the start of the epoch, or 0 if it cannot be read.
+   */
+  private static long getBootTime() {
+    if (bootTime < 0) {
+      long btime = 0;
       try {
-        statReader.close();
-        statDataReader.close();
-      } catch (IOException e) {
-        log.log(Level.WARNING, "Cannot close the stream");
+        for (String line : Files.readLines(new File("/proc/stat"), StandardCharsets.UTF_8)) {
+          if (line.startsWith("btime ")) {
+            btime = Long.parseLong(line.substring("btime ".length()).trim());
+            break;
+          }
+        }
+      } catch (IOException | NumberFormatException e) {
+        log.log(Level.WARNING, "Cannot read the boot time: " + e);
       }
+      bootTime = btime;
     }
-    return info;
+    return bootTime;
   }
 
   /**
@@ -177,21 +257,7 @@ public class Process {
    * @return a list of process identifiers that have same group process group identifier.
    */
   public static final List<Integer> getProcessIdsOf(int processGroupId) {
-    File[] procDir = (new File("/proc")).listFiles();
-    List<Integer> processIds = new ArrayList();
-    for (File processDir : procDir) {
-      int processId;
-      try {
-        processId = Integer.parseInt(processDir.getName());
-      } catch (NumberFormatException e) {
-        continue;
-      }
-      ProcessInfo info = getProcessInfo(processId);
-      if (info != null && info.getProcessGroupId() == processGroupId) {
-        processIds.add(processId);
-      }
-    }
-    return processIds;
+    return processTable.getProcessIdsOf(processGroupId);
   }
 
   public static final void restartProcessGroup(int processGroupId) {
@@ -0,0 +1,131 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.utility;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.arbeitspferde.groningen.utility.Process.ProcessInfo;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of the processes in /proc, such that looking processes up does not scan /proc, nor
+ * reread their command lines, each time.
+ *
+ * Each process is known by its identifier and its start time, which together tell a process apart
+ * from one that takes its identifier after it ends, e.g. when it restarts. Looking a process up
+ * checks its start time, from a single read of its stat file, and reads the rest of its
+ * information again only when the process is a new one. The process groups are trusted for up to
+ * a maximum age, after which the next query scans /proc again; the scan also reads only the stat
+ * files of the processes it has seen before.
+ */
+public class ProcessTable {
+  private final long maxAgeNanos;
+
+  /** The processes by identifier, guarded by this */
+  private final Map<Integer, ProcessInfo> processes = Maps.newHashMap();
+
+  /** When /proc was last scanned, in System.nanoTime, guarded by this */
+  private long lastScanNanos;
+  private boolean scanned = false;
+
+  /**
+   * @param maxAgeMillis How long the process groups are trusted before /proc is scanned again.
+   */
+  public ProcessTable(final long maxAgeMillis) {
+    this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+  }
+
+  /**
+   * @param processId the PID of the target process.
+   * @return the {@class ProcessInfo} instance or {@code null} if the process is not alive.
+   */
+  public synchronized ProcessInfo lookup(final int processId) {
+    final ProcessInfo known = processes.get(processId);
+    if (known != null) {
+      final Process.Stat stat = Process.readStat(processId);
+      if (stat == null) {
+        processes.remove(processId);
+        return null;
+      }
+      if (stat.startTicks == known.getStartTicks()
+          && stat.processGroupId == known.getProcessGroupId()) {
+        return known;
+      }
+    }
+    return reload(processId);
+  }
+
+  /**
+   * @param processGroupId the process group identifier of the target process group.
+   * @return a list of process identifiers that have same group process group identifier, in
+   *         ascending order.
+   */
+  public synchronized List<Integer> getProcessIdsOf(final int processGroupId) {
+    final long now = System.nanoTime();
+    if (!scanned || now - lastScanNanos > maxAgeNanos) {
+      scan();
+      lastScanNanos = now;
+      scanned = true;
+    }
+    final List<Integer> processIds = Lists.newArrayList();
+    for (final ProcessInfo info : processes.values()) {
+      if (info.getProcessGroupId() == processGroupId) {
+        processIds.add(info.getProcessId());
+      }
+    }
+    Collections.sort(processIds);
+    return processIds;
+  }
+
+  /** Brings the table in line with the processes in /proc */
+  private void scan() {
+    final File[] procDir = new File("/proc").listFiles();
+    final Set<Integer> alive = Sets.newHashSet();
+    if (procDir != null) {
+      for (final File processDir : procDir) {
+        final int processId;
+        try {
+          processId = Integer.parseInt(processDir.getName());
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        if (lookup(processId) != null) {
+          alive.add(processId);
+        }
+      }
+    }
+    processes.keySet().retainAll(alive);
+  }
+
+  /** Reads a process again, and returns it, or {@code null} if it is not alive */
+  private ProcessInfo reload(final int processId) {
+    final ProcessInfo info = Process.getProcessInfo(processId);
+    if (info == null) {
+      processes.remove(processId);
+    } else {
+      processes.put(processId, info);
+    }
+    return info;
+  }
+}
@@ -19,6 +19,7 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
 import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.config.NamedConfigParam;
 import org.arbeitspferde.groningen.config.PipelineIterationScoped;
 import org.arbeitspferde.groningen.display.MonitorGroningen;
 import org.arbeitspferde.groningen.experimentdb.CommandLine;
@@ -28,12 +29,15 @@ import org.arbeitspferde.groningen.experimentdb.PauseTime;
 import org.arbeitspferde.groningen.experimentdb.ResourceMetric;
 import org.arbeitspferde.groningen.experimentdb.SubjectRestart;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.extractor.ExtractionScheduler;
 import org.arbeitspferde.groningen.profiling.ProfilingRunnable;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
 import org.arbeitspferde.groningen.utility.Clock;
 import org.arbeitspferde.groningen.utility.Metric;
 import org.arbeitspferde.groningen.utility.MetricExporter;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
@@ -48,25 +52,34 @@ public class Validator extends ProfilingRunnable {
   /** Logger for this class */
   private static final Logger logger = Logger.getLogger(Validator.class.getCanonicalName());
 
+  @Inject
+  @NamedConfigParam("extractor_completion_timeout_secs")
+  private final int extractorCompletionTimeoutSecs =
+      GroningenParams.getDefaultInstance().getExtractorCompletionTimeoutSecs();
+
   /** The Experimental Database */
   private final ExperimentDb experimentDb;
   private final GroningenConfig config;
   private final MetricExporter metricExporter;
+  private final ExtractionScheduler extractionScheduler;
 
   private final AtomicLong invalidDueToRestartThresholdCrossed = new AtomicLong(0);
   private final AtomicLong invalidDueToNeverStarting = new AtomicLong(0);
   private final AtomicLong invalidDueToCommandLineMismatch = new AtomicLong(0);
   private final AtomicLong invalidDueToRemoval = new AtomicLong(0);
+  private final AtomicLong invalidDueToIncompleteExtraction = new AtomicLong(0);
 
   @Inject
   public Validator(final Clock clock, final MonitorGroningen monitor, final ExperimentDb e,
       final GroningenConfig config,
-      final MetricExporter metricExporter) {
+      final MetricExporter metricExporter,
+      final ExtractionScheduler extractionScheduler) {
     super(clock, monitor);
 
     experimentDb = e;
     this.config = config;
     this.metricExporter = metricExporter;
+    this.extractionScheduler = extractionScheduler;
   }
 
   @Override
@@ -76,14 +89,18 @@ public class Validator extends ProfilingRunnable {
     if (lastExperiment == null) {
       logger.warning("Experiments do not exist. Skipping Validator stage.");
     } else {
+      final long deadlineNanos =
+          System.nanoTime() + TimeUnit.SECONDS.toNanos(extractorCompletionTimeoutSecs);
       for (final SubjectStateBridge subject : lastExperiment.getSubjects()) {
+        final boolean extracted = awaitExtraction(subject, deadlineNanos);
         final PauseTime pauseTime = subject.getPauseTime();
         final ResourceMetric resourceMetric = subject.getResourceMetric();
 
-        if (invalidSubject(subject)) {
+        if (invalidSubject(subject, extracted)) {
           subject.markInvalid();
           pauseTime.invalidate();
           resourceMetric.invalidate();
+          subject.getGcActivity().invalidate();
         } else {
           subject.markValid();
         }
@@ -91,12 +108,29 @@ public class Validator extends ProfilingRunnable {
     }
   }
 
+  /**
+   * Wait until the subject's logs have been extracted or the deadline has passed.
+   *
+   * @return Whether all extractions of the subject completed.
+   */
+  private boolean awaitExtraction(final SubjectStateBridge subject, final long deadlineNanos) {
+    try {
+      return extractionScheduler.awaitCompletion(
+          subject, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
   /**
    * Returns true iff the subject is invalid.
    *
    * Note, default subject cannot be invalid. Always returns {@code false}.
+   *
+   * @param extracted Whether the subject's logs were extracted completely.
    */
-  private boolean invalidSubject(final SubjectStateBridge bridge) {
+  private boolean invalidSubject(final SubjectStateBridge bridge, final boolean extracted) {
     Preconditions.checkNotNull(bridge.getAssociatedSubject());
 
     if (bridge.getAssociatedSubject().isDefault()) {
@@ -156,6 +190,14 @@ public class Validator extends ProfilingRunnable {
       }
     }
 
+    // Subjects whose logs were not completely parsed would be scored on partial data.
+    if (!extracted) {
+      invalid = true;
+      invalidDueToIncompleteExtraction.incrementAndGet();
+      logger.warning(String.format("%s invalidated for incomplete log extraction.",
+          subjectSignature));
+    }
+
     // Subjects that were removed from an experiment are invalid
     if (bridge.wasRemoved()) {
       invalid = true;
@@ -187,5 +229,9 @@ public class Validator extends ProfilingRunnable {
         "invalidate_due_to_removal",
         "Counts the number of invalidations due to removal from the experiment.",
         Metric.make(invalidDueToRemoval));
+    metricExporter.register(
+        "invalidate_due_to_incomplete_extraction",
+        "Counts the number of invalidations due to log extraction not completing in time.",
+        Metric.make(invalidDueToIncompleteExtraction));
   }
 }
@@ -15,8 +15,10 @@
 
 package org.arbeitspferde.groningen;
 
+import org.arbeitspferde.groningen.common.AppendOnlyDoubleArrayTest;
 import org.arbeitspferde.groningen.common.CmdProcessTest;
 import org.arbeitspferde.groningen.common.EvaluatedSubjectTest;
+import org.arbeitspferde.groningen.common.LogHistogramTest;
 import org.arbeitspferde.groningen.common.StatisticsTest;
 import org.arbeitspferde.groningen.config.ProtoBufBinaryFileSourceTest;
 import org.arbeitspferde.groningen.config.ProtoBufConfigManagerTest;
@@ -28,26 +30,44 @@ import org.arbeitspferde.groningen.eventlog.SafeProtoLoggerFactoryTest;
 import org.arbeitspferde.groningen.eventlog.SafeProtoLoggerTest;
 import org.arbeitspferde.groningen.eventlog.SubjectEventProtoLoggerTest;
 import org.arbeitspferde.groningen.executor.ExecutorTest;
+import org.arbeitspferde.groningen.executor.ProbeExecutorTest;
+import org.arbeitspferde.groningen.executor.RestartOrchestratorTest;
 import org.arbeitspferde.groningen.experimentdb.CommandLineTest;
 import org.arbeitspferde.groningen.experimentdb.ComputeScoreTest;
 import org.arbeitspferde.groningen.experimentdb.ExperimentDbTest;
 import org.arbeitspferde.groningen.experimentdb.ExperimentTest;
 import org.arbeitspferde.groningen.experimentdb.InMemoryCacheTest;
 import org.arbeitspferde.groningen.experimentdb.PauseTimeTest;
+import org.arbeitspferde.groningen.experimentdb.PauseTimelineTest;
 import org.arbeitspferde.groningen.experimentdb.ResourceMetricTest;
 import org.arbeitspferde.groningen.experimentdb.SubjectRestartTest;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridgeTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.DataSizeTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.FormattersTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.HotSpotFlagTypeTest;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagConstraintTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSetTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagTest;
 import org.arbeitspferde.groningen.experimentdb.jvmflags.ValueSeparatorTest;
+import org.arbeitspferde.groningen.extractor.ExtractionSchedulerTest;
+import org.arbeitspferde.groningen.extractor.ExtractorTest;
+import org.arbeitspferde.groningen.extractor.GcLogParserTest;
+import org.arbeitspferde.groningen.extractor.MappedPauseLineScannerTest;
 import org.arbeitspferde.groningen.generator.GeneratorTest;
+import org.arbeitspferde.groningen.hypothesizer.ConstraintRepairTest;
+import org.arbeitspferde.groningen.hypothesizer.FitnessCacheTest;
+import org.arbeitspferde.groningen.hypothesizer.GenomeOperatorsTest;
+import org.arbeitspferde.groningen.hypothesizer.GenomeTest;
 import org.arbeitspferde.groningen.hypothesizer.HypothesizerTest;
+import org.arbeitspferde.groningen.hypothesizer.IslandHypothesisEngineTest;
+import org.arbeitspferde.groningen.hypothesizer.NsgaHypothesisEngineTest;
+import org.arbeitspferde.groningen.hypothesizer.SteadyStatePopulationTest;
+import org.arbeitspferde.groningen.hypothesizer.SurrogateHypothesisEngineTest;
+import org.arbeitspferde.groningen.hypothesizer.WarmStartSeederTest;
 import org.arbeitspferde.groningen.profiling.ProfilingRunnableTest;
 import org.arbeitspferde.groningen.scorer.IterationScorerTest;
 import org.arbeitspferde.groningen.subject.open.ProcessManipulatorTest;
+import org.arbeitspferde.groningen.utility.ProcessTableTest;
 import org.arbeitspferde.groningen.utility.ProcessTest;
 import org.arbeitspferde.groningen.validator.ValidatorTest;
 
@@ -68,8 +88,10 @@ public class AllTests extends TestSuite{
     suite.addTestSuite(ServicesModuleTest.class);
 
     // org.arbeitspferde.groningen.common tests
+    suite.addTestSuite(AppendOnlyDoubleArrayTest.class);
     suite.addTestSuite(CmdProcessTest.class);
     suite.addTestSuite(EvaluatedSubjectTest.class);
+    suite.addTestSuite(LogHistogramTest.class);
     suite.addTestSuite(StatisticsTest.class);
 
     // org.arbeitspferde.groningen.config tests
@@ -89,6 +111,8 @@ public class AllTests extends TestSuite{
 
     // org.arbeitspferde.groningen.executor tests
     suite.addTestSuite(ExecutorTest.class);
+    suite.addTestSuite(ProbeExecutorTest.class);
+    suite.addTestSuite(RestartOrchestratorTest.class);
 
     // org.arbeitspferde.groningen.experimentdb tests
     suite.addTestSuite(CommandLineTest.class);
@@ -97,14 +121,22 @@ public class AllTests extends TestSuite{
     suite.addTestSuite(ExperimentTest.class);
     suite.addTestSuite(InMemoryCacheTest.class);
     suite.addTestSuite(PauseTimeTest.class);
+    suite.addTestSuite(PauseTimelineTest.class);
     suite.addTestSuite(ResourceMetricTest.class);
     suite.addTestSuite(SubjectRestartTest.class);
     suite.addTestSuite(SubjectStateBridgeTest.class);
 
+    // org.arbeitspferde.groningen.extractor tests
+    suite.addTestSuite(ExtractionSchedulerTest.class);
+    suite.addTestSuite(ExtractorTest.class);
+    suite.addTestSuite(GcLogParserTest.class);
+    suite.addTestSuite(MappedPauseLineScannerTest.class);
+
     // org.arbeitspferde.groningen.jvmflags tests
     suite.addTestSuite(DataSizeTest.class);
     suite.addTestSuite(FormattersTest.class);
     suite.addTestSuite(HotSpotFlagTypeTest.class);
+    suite.addTestSuite(JvmFlagConstraintTest.class);
     suite.addTestSuite(JvmFlagSetTest.class);
     suite.addTestSuite(JvmFlagTest.class);
     suite.addTestSuite(ValueSeparatorTest.class);
@@ -113,7 +145,16 @@ public class AllTests extends TestSuite{
     suite.addTestSuite(GeneratorTest.class);
 
     // org.arbeitspferde.groningen.hypothesizer tests
+    suite.addTestSuite(ConstraintRepairTest.class);
+    suite.addTestSuite(FitnessCacheTest.class);
+    suite.addTestSuite(GenomeOperatorsTest.class);
+    suite.addTestSuite(GenomeTest.class);
     suite.addTestSuite(HypothesizerTest.class);
+    suite.addTestSuite(IslandHypothesisEngineTest.class);
+    suite.addTestSuite(NsgaHypothesisEngineTest.class);
+    suite.addTestSuite(SteadyStatePopulationTest.class);
+    suite.addTestSuite(SurrogateHypothesisEngineTest.class);
+    suite.addTestSuite(WarmStartSeederTest.class);
 
     // org.arbeitspferde.groningen.profiling tests
     suite.addTestSuite(ProfilingRunnableTest.class);
@@ -128,6 +169,7 @@ public class AllTests extends TestSuite{
     suite.addTestSuite(ProcessManipulatorTest.class);
 
     // org.arbeitspferde.groningen.utility tests
+    suite.addTestSuite(ProcessTableTest.class);
     suite.addTestSuite(ProcessTest.class);
 
     return suite;
@@ -0,0 +1,108 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for {@link AppendOnlyDoubleArray}.
+ */
+public class AppendOnlyDoubleArrayTest extends TestCase {
+  private AppendOnlyDoubleArray array;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    array = new AppendOnlyDoubleArray();
+  }
+
+  public void testEmpty() {
+    assertEquals(0, array.size());
+    assertEquals(0, array.toArray().length);
+  }
+
+  public void testAppendAcrossSegmentBoundaries() {
+    for (int i = 0; i < 10000; i++) {
+      array.append(i);
+    }
+
+    assertEquals(10000, array.size());
+    final double[] copy = array.toArray();
+    for (int i = 0; i < 10000; i++) {
+      assertEquals((double) i, array.get(i), 0.0);
+      assertEquals((double) i, copy[i], 0.0);
+    }
+  }
+
+  public void testGetOutOfBounds() {
+    array.append(1.0);
+
+    try {
+      array.get(1);
+      fail("Should have thrown exception, index 1 not yet appended");
+    } catch (IndexOutOfBoundsException expected) {
+      // expected failure b/c index argument wrong
+    }
+  }
+
+  public void testReadOnlyViewTracksAppends() {
+    final DoubleSequence view = array.asReadOnly();
+    assertFalse(view instanceof AppendOnlyDoubleArray);
+
+    array.append(2.5);
+
+    assertEquals(1, view.size());
+    assertEquals(2.5, view.get(0), 0.0);
+  }
+
+  public void testConcurrentAppendsAreAllPublished() throws Exception {
+    final int threads = 4;
+    final int appendsPerThread = 5000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] appenders = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int offset = t * appendsPerThread;
+      appenders[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < appendsPerThread; i++) {
+            array.append(offset + i);
+          }
+        }
+      };
+      appenders[t].start();
+    }
+    start.countDown();
+    for (final Thread appender : appenders) {
+      appender.join();
+    }
+
+    final double[] values = array.toArray();
+    assertEquals(threads * appendsPerThread, values.length);
+    Arrays.sort(values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals((double) i, values[i], 0.0);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.common;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Tests for {@link LogHistogram}.
+ */
+public class LogHistogramTest extends TestCase {
+  private static final double RELATIVE_ERROR = 0.01;
+
+  private LogHistogram histogram;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    histogram = new LogHistogram(RELATIVE_ERROR, 1e-6, 1e5);
+  }
+
+  private static void assertWithinRelativeError(final double expected, final double actual) {
+    assertEquals(expected, actual, expected * RELATIVE_ERROR * 1.0001);
+  }
+
+  public void testEmpty() {
+    assertEquals(0, histogram.getCount());
+    assertTrue(Double.isNaN(histogram.percentile(99)));
+  }
+
+  public void testIdenticalValuesAreReportedExactly() {
+    histogram.record(2.0);
+    histogram.record(2.0);
+
+    assertEquals(2.0, histogram.percentile(0), 0.0);
+    assertEquals(2.0, histogram.percentile(99), 0.0);
+    assertEquals(2.0, histogram.percentile(100), 0.0);
+  }
+
+  public void testPercentilesAreWithinRelativeErrorOfExactPercentiles() {
+    final Random random = new Random(11);
+    final double[] values = new double[20000];
+    for (int i = 0; i < values.length; i++) {
+      // Log-normally distributed pauses of around a millisecond.
+      values[i] = Math.exp(random.nextGaussian() - 7);
+      histogram.record(values[i]);
+    }
+
+    for (final double percentile : new double[] {0, 10, 50, 90, 99, 99.9, 100}) {
+      assertWithinRelativeError(Statistics.computePercentile(values.clone(), percentile),
+          histogram.percentile(percentile));
+    }
+  }
+
+  public void testValuesOutsideTrackableRangeAreClamped() {
+    histogram.record(0.0);
+    histogram.record(1e7);
+
+    assertEquals(0.0, histogram.percentile(0), 0.0);
+    assertEquals(1e7, histogram.percentile(100), 0.0);
+    assertEquals(2, histogram.getCount());
+  }
+
+  public void testMerge() {
+    final LogHistogram other = new LogHistogram(RELATIVE_ERROR, 1e-6, 1e5);
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+      other.record(100 + i);
+    }
+
+    histogram.merge(other);
+
+    assertEquals(200, histogram.getCount());
+    assertEquals(1.0, histogram.getMin(), 0.0);
+    assertEquals(200.0, histogram.getMax(), 0.0);
+    assertWithinRelativeError(101.0, histogram.percentile(50));
+  }
+
+  public void testMergeRejectsDifferentParameters() {
+    try {
+      histogram.merge(new LogHistogram(0.05, 1e-6, 1e5));
+      fail("Should have thrown exception, relative errors differ");
+    } catch (IllegalArgumentException expected) {
+      // expected failure b/c histogram parameters differ
+    }
+  }
+}
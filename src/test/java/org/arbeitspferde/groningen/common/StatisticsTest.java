@@ -15,10 +15,13 @@
 
 package org.arbeitspferde.groningen.common;
 
+import com.google.common.collect.Lists;
 
 import junit.framework.TestCase;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * The test for {@link Statistics}.
@@ -38,6 +41,56 @@ public class StatisticsTest extends TestCase {
     assertEquals(Statistics.computePercentile(values, 99.999), 311.0);
   }
 
+  public void testComputePecentileOfArray() throws Exception {
+    final double[] values = {4.0, 0.0, 3.0, 1.0, 2.0};
+    assertEquals(Statistics.computePercentile(values, 50), 2.0);
+    assertEquals(Statistics.computePercentile(values, 100), 4.0);
+    assertEquals(Statistics.computePercentile(new double[] {7.0}, 99), 7.0);
+    assertTrue(Double.isNaN(Statistics.computePercentile(new double[0], 99)));
+  }
+
+  public void testComputePecentileLeavesValuesUnmodified() throws Exception {
+    final double[] values = {4.0, 0.0, 3.0, 1.0, 2.0};
+    Statistics.computePercentile(values, 50);
+    assertTrue(Arrays.equals(new double[] {4.0, 0.0, 3.0, 1.0, 2.0}, values));
+
+    final ArrayList<Double> list = Lists.newArrayList(4.0, 0.0, 3.0);
+    Statistics.computePercentile(list, 50);
+    assertEquals(Lists.newArrayList(4.0, 0.0, 3.0), list);
+  }
+
+  public void testComputePecentilesMatchesSortedRanks() throws Exception {
+    final Random random = new Random(5);
+    final double[] values = new double[10001];
+    for (int i = 0; i < values.length; i++) {
+      // Plenty of duplicates to stress the partitioning.
+      values[i] = random.nextInt(100);
+    }
+    final double[] sorted = values.clone();
+    Arrays.sort(sorted);
+
+    final double[] percentiles = {99, 0, 50, 12.52, 100, 50};
+    final double[] result = Statistics.computePercentiles(values, percentiles);
+
+    for (int i = 0; i < percentiles.length; i++) {
+      final int rank = percentiles[i] == 100
+          ? sorted.length - 1
+          : (int) Math.floor(percentiles[i] * sorted.length / 100.0);
+      assertEquals(sorted[rank], result[i]);
+    }
+  }
+
+  public void testSummarize() throws Exception {
+    final Statistics.Summary summary = Statistics.summarize(new double[] {2, 4, 4, 4, 5, 5, 7, 9});
+    assertEquals(8, summary.getCount());
+    assertEquals(5.0, summary.getMean(), 1e-12);
+    assertEquals(2.0, summary.getStandardDeviation(), 1e-12);
+    assertEquals(2.0, summary.getMin());
+    assertEquals(9.0, summary.getMax());
+
+    assertTrue(Double.isNaN(Statistics.summarize(new double[0]).getMean()));
+  }
+
   public void testInvalidPecentile() throws Exception {
     ArrayList<Double> values = makeIncrementalList(313.0);
 
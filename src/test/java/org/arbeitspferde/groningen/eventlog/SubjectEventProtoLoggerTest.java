@@ -15,8 +15,7 @@
 
 package org.arbeitspferde.groningen.eventlog;
 
-import com.google.common.collect.Lists;
-
+import org.arbeitspferde.groningen.common.AppendOnlyDoubleArray;
 import org.arbeitspferde.groningen.common.ClockedExperimentDbTestCaseBase;
 import org.arbeitspferde.groningen.config.GroningenConfig;
 import org.arbeitspferde.groningen.experimentdb.Experiment;
@@ -117,7 +116,9 @@ public class SubjectEventProtoLoggerTest extends ClockedExperimentDbTestCaseBase
     EasyMock.expect(mockSubject.isInvalid()).andReturn(subjectIsInvalid);
     EasyMock.expect(mockGroningenConfig.getProtoConfig()).andReturn(programConfiguration);
     EasyMock.expect(mockSubject.getPauseTime()).andReturn(mockSubjectPauseTime);
-    EasyMock.expect(mockSubjectPauseTime.getPauseDurations()).andReturn(Lists.newArrayList(1D));
+    final AppendOnlyDoubleArray pauseDurations = new AppendOnlyDoubleArray();
+    pauseDurations.append(1D);
+    EasyMock.expect(mockSubjectPauseTime.getPauseDurations()).andReturn(pauseDurations);
 
     /* back in logSubjectInExperiment */
     mockEventLogger.logProtoEntry(EasyMock.isA(Event.EventEntry.class));
@@ -196,7 +197,9 @@ public class SubjectEventProtoLoggerTest extends ClockedExperimentDbTestCaseBase
     EasyMock.expect(mockSubject.isInvalid()).andReturn(subjectIsInvalid);
     EasyMock.expect(mockGroningenConfig.getProtoConfig()).andReturn(programConfiguration);
     EasyMock.expect(mockSubject.getPauseTime()).andReturn(mockSubjectPauseTime);
-    EasyMock.expect(mockSubjectPauseTime.getPauseDurations()).andReturn(Lists.newArrayList(1D));
+    final AppendOnlyDoubleArray pauseDurations = new AppendOnlyDoubleArray();
+    pauseDurations.append(1D);
+    EasyMock.expect(mockSubjectPauseTime.getPauseDurations()).andReturn(pauseDurations);
 
     /* back in logSubjectInExperiment */
     mockEventLogger.logProtoEntry(EasyMock.isA(Event.EventEntry.class));
@@ -16,28 +16,69 @@
 package org.arbeitspferde.groningen.executor;
 
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Multiset;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.arbeitspferde.groningen.GroningenConfigParamsModule;
 import org.arbeitspferde.groningen.PipelineStageInfo;
+import org.arbeitspferde.groningen.PipelineStageState;
 import org.arbeitspferde.groningen.PipelineSynchronizer;
 import org.arbeitspferde.groningen.common.ClockedExperimentDbTestCaseBase;
+import org.arbeitspferde.groningen.common.SimpleScope;
 import org.arbeitspferde.groningen.common.SubjectSettingsFileManager;
 import org.arbeitspferde.groningen.config.ConfigManager;
 import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.config.GroningenConfig.SubjectGroupConfig;
+import org.arbeitspferde.groningen.config.PipelineIterationScoped;
 import org.arbeitspferde.groningen.config.StubConfigManager;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
 import org.arbeitspferde.groningen.externalprocess.ProcessInvoker;
 import org.arbeitspferde.groningen.extractor.CollectionLogAddressor;
+import org.arbeitspferde.groningen.extractor.ExtractionScheduler;
+import org.arbeitspferde.groningen.generator.Generator;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExecutorProbeMode;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExecutorTeardownMode;
 import org.arbeitspferde.groningen.subject.HealthQuerier;
+import org.arbeitspferde.groningen.subject.Subject;
+import org.arbeitspferde.groningen.subject.SubjectGroup;
 import org.arbeitspferde.groningen.subject.SubjectInterrogator;
 import org.arbeitspferde.groningen.subject.SubjectManipulator;
 import org.arbeitspferde.groningen.subject.open.NullServingAddressGenerator;
+import org.arbeitspferde.groningen.utility.Clock;
 import org.arbeitspferde.groningen.utility.FileFactory;
 import org.arbeitspferde.groningen.utility.MetricExporter;
 
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.joda.time.Instant;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The test for {@link Executor}.
  */
 public class ExecutorTest extends ClockedExperimentDbTestCaseBase {
+  private static final String SETTINGS_DIR = "/settings";
+  private static final int WARMUP_SECS = 60;
+  private static final int SHORT_POLL_MS = 10;
+  private static final int LONG_POLL_MS = 60000;
+
   /** The object instance we are testing. */
   private Executor executor;
   private ProcessInvoker mockInvoker;
@@ -47,6 +88,21 @@ public class ExecutorTest extends ClockedExperimentDbTestCaseBase {
   private SubjectSettingsFileManager mockSubjectSettingsFileManager;
   private MetricExporter mockMetricExporter;
   private FileFactory mockFileFactory;
+  private SubjectManipulator mockManipulator;
+  private CandidateBreeder mockBreeder;
+  private PipelineStageInfo pipelineStageInfo;
+
+  /** The time the executor sees, which only moves on when a test moves it on */
+  private final AtomicLong nowMillis = new AtomicLong(DEFAULT_TIME_MS);
+
+  /** The number of subject groups restarted as a whole */
+  private final AtomicInteger groupRestarts = new AtomicInteger();
+
+  /** The settings files of the subjects restarted, and of those deleted, by pipeline stage */
+  private final ListMultimap<PipelineStageState, String> restarts =
+      Multimaps.synchronizedListMultimap(ArrayListMultimap.<PipelineStageState, String>create());
+  private final ListMultimap<PipelineStageState, String> deletions =
+      Multimaps.synchronizedListMultimap(ArrayListMultimap.<PipelineStageState, String>create());
 
   @Override
   protected void setUp() throws Exception {
@@ -67,25 +123,39 @@ public class ExecutorTest extends ClockedExperimentDbTestCaseBase {
     mockSubjectSettingsFileManager = EasyMock.createMock(SubjectSettingsFileManager.class);
     EasyMock.replay(mockSubjectSettingsFileManager);
 
-    mockMetricExporter = EasyMock.createMock(MetricExporter.class);
+    mockMetricExporter = EasyMock.createNiceMock(MetricExporter.class);
     EasyMock.replay(mockMetricExporter);
 
-    mockFileFactory = EasyMock.createMock(FileFactory.class);
+    mockFileFactory = EasyMock.createNiceMock(FileFactory.class);
     EasyMock.replay(mockFileFactory);
 
-    final SubjectManipulator mockManipulator = EasyMock.createNiceMock(SubjectManipulator.class);
+    mockManipulator = EasyMock.createNiceMock(SubjectManipulator.class);
     EasyMock.replay(mockManipulator);
 
     final CollectionLogAddressor mockCollectionLogAddressor =
         EasyMock.createNiceMock(CollectionLogAddressor.class);
     EasyMock.replay(mockCollectionLogAddressor);
 
-    final PipelineStageInfo pipelineStageInfo = new PipelineStageInfo();
+    pipelineStageInfo = new PipelineStageInfo();
+
+    final Generator mockGenerator = EasyMock.createNiceMock(Generator.class);
+    EasyMock.replay(mockGenerator);
+
+    mockBreeder = EasyMock.createNiceMock(CandidateBreeder.class);
+    EasyMock.replay(mockBreeder);
 
-    executor = new Executor(clock, monitor, experimentDb, mockManipulator, mockHealthQuerier,
-        mockSubjectInterrogator, mockPipelineSynchronizer, mockSubjectSettingsFileManager,
-        mockMetricExporter, mockFileFactory, new NullServingAddressGenerator(),
-        mockCollectionLogAddressor, pipelineStageInfo);
+    final Clock steppedClock = new Clock() {
+      @Override
+      public Instant now() {
+        return new Instant(nowMillis.get());
+      }
+    };
+
+    executor = new Executor(steppedClock, monitor, experimentDb, mockManipulator,
+        mockHealthQuerier, mockSubjectInterrogator, mockPipelineSynchronizer,
+        mockSubjectSettingsFileManager, mockMetricExporter, mockFileFactory,
+        new NullServingAddressGenerator(), mockCollectionLogAddressor, pipelineStageInfo,
+        new ExtractionScheduler(mockMetricExporter), mockGenerator, mockBreeder);
   }
 
   /** Check that profiledRun works without exception. */
@@ -95,5 +165,603 @@ public class ExecutorTest extends ClockedExperimentDbTestCaseBase {
     executor.profiledRun(config);
   }
 
+  /** Subjects already run with default settings unless iterations overlap. */
+  public void testRestoreDefaults_NothingToRestoreByDefault() throws Exception {
+    expectGroupOf(2);
+
+    executor.restoreDefaults(configOf(GroningenParams.newBuilder()));
+
+    assertTrue(deletions.isEmpty());
+    assertTrue(restarts.isEmpty());
+  }
+
+  /** With overlapping iterations, the subjects keep their settings until the pipeline is over. */
+  public void testRestoreDefaults_OverlapIterationsRestoresEverySubject() throws Exception {
+    expectGroupOf(2);
+    expectHealth(true);
+
+    executor.restoreDefaults(configOf(GroningenParams.newBuilder()
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS)));
+
+    assertEquals(ImmutableSet.of(SETTINGS_DIR + "/0", SETTINGS_DIR + "/1"),
+        ImmutableSet.copyOf(deletions.get(PipelineStageState.REMOVING_EXPERIMENTAL_ARGUMENTS)));
+    assertEquals(2, deletions.size());
+    assertEquals(ImmutableSet.of(SETTINGS_DIR + "/0", SETTINGS_DIR + "/1"),
+        ImmutableSet.copyOf(restarts.get(PipelineStageState.FINAL_TASK_RESTART)));
+    assertEquals(2, restarts.size());
+  }
+
+  /** With room for a single restart at a time, each group restarts as a whole. */
+  public void testRestoreDefaults_RestartsWholeGroupWithSingleRestartBudget() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setMaximumInflightSubjectRestartCount(1)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(2);
+    expectHealth(true);
+
+    executor.restoreDefaults(config);
+
+    assertEquals(1, groupRestarts.get());
+    assertEquals(2, restarts.get(PipelineStageState.FINAL_TASK_RESTART).size());
+  }
+
+  /** With room for more restarts at a time, the subjects restart one by one. */
+  public void testRestoreDefaults_RestartsSubjectsWithLargerRestartBudget() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setMaximumInflightSubjectRestartCount(2)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(2);
+    expectHealth(true);
+
+    executor.restoreDefaults(config);
+
+    assertEquals(0, groupRestarts.get());
+    assertEquals(2, restarts.get(PipelineStageState.FINAL_TASK_RESTART).size());
+  }
+
+  /** An interrupted restart is not taken for a completed one. */
+  public void testRestoreDefaults_InterruptedRestartPropagates() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setMaximumInflightSubjectRestartCount(2)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(2);
+    expectHealth(true);
+
+    Thread.currentThread().interrupt();
+    try {
+      executor.restoreDefaults(config);
+      fail("Expected the interrupt to propagate.");
+    } catch (RuntimeException expected) {
+      assertTrue(Thread.interrupted());
+    }
+  }
+
+  /** With overlapping iterations, the experiment ends without a restart to default settings. */
+  public void testProfiledRun_OverlapIterationsLeavesExperimentalSettings() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(2);
+    expectHealth(true);
+    startExperiment(2);
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        return true;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    assertTrue(deletions.isEmpty());
+    assertEquals(ImmutableSet.of(PipelineStageState.INITIAL_TASK_RESTART), restarts.keySet());
+    assertEquals(2, restarts.size());
+  }
+
+  /** A subject changing state wakes the executor up before the polling interval is over. */
+  public void testProfiledRun_StateTransitionWakesExecutor() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(LONG_POLL_MS)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(1);
+    expectHealth(true);
+    final SubjectStateBridge subject = startExperiment(1).get(0);
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        return subject.getState() == SubjectStateBridge.State.HEALTHY;
+      }
+    });
+
+    final long startNanos = System.nanoTime();
+    executor.profiledRun(config);
+
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < LONG_POLL_MS / 2);
+  }
+
+  public void testProfiledRun_ProbesEachSubjectOneAtATime() throws Exception {
+    assertProbesEachSubjectOneAtATime(ExecutorProbeMode.FIXED_PROBE_POOL);
+  }
+
+  public void testProfiledRun_ProbesEachSubjectOneAtATimeWithThreadPerProbe() throws Exception {
+    assertProbesEachSubjectOneAtATime(ExecutorProbeMode.THREAD_PER_PROBE);
+  }
+
+  /**
+   * Probes subjects that never warm up, such that they are probed again and again, and checks
+   * that a subject is not probed again while its last probe is still running.
+   */
+  private void assertProbesEachSubjectOneAtATime(final ExecutorProbeMode probeMode)
+      throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setNumberOfExecutorThreads(4)
+        .setExecutorProbeMode(probeMode)
+        .setExecutorTeardownMode(ExecutorTeardownMode.OVERLAP_ITERATIONS));
+    injectParams(config);
+    expectGroupOf(2);
+
+    final Multiset<String> running = ConcurrentHashMultiset.create();
+    final AtomicInteger mostRunning = new AtomicInteger();
+    final AtomicInteger probeCount = new AtomicInteger();
+    expectHealth(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() throws InterruptedException {
+        if (currentStage() != PipelineStageState.EXECUTOR_MAIN) {
+          return true;
+        }
+        final String subject =
+            ((Subject) EasyMock.getCurrentArguments()[0]).getExpSettingsFile();
+        synchronized (mostRunning) {
+          mostRunning.set(Math.max(mostRunning.get(), running.add(subject, 1) + 1));
+        }
+        probeCount.incrementAndGet();
+        try {
+          Thread.sleep(2 * SHORT_POLL_MS);
+        } finally {
+          running.remove(subject);
+        }
+        return false;
+      }
+    });
+    startExperiment(2);
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        return probeCount.get() >= 20;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    assertEquals(1, mostRunning.get());
+    assertTrue(probeCount.get() >= 20);
+  }
+
+  /** A subject whose evaluation window is over restarts once, with the candidate replacing it. */
+  public void testProfiledRun_ReplacesFinishedSubjectOnce() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setExecutorSteadyStateWindowMinutes(1));
+    injectParams(config);
+    expectGroupOf(1);
+    expectHealth(true);
+    final AtomicInteger bred = expectReplacements();
+    final SubjectStateBridge subject = startExperiment(1).get(0);
+    final AtomicBoolean windowOver = new AtomicBoolean();
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        if (subject.getState() == SubjectStateBridge.State.HEALTHY
+            && !windowOver.getAndSet(true)) {
+          nowMillis.addAndGet(
+              TimeUnit.SECONDS.toMillis(WARMUP_SECS) + TimeUnit.MINUTES.toMillis(1));
+        }
+        return bred.get() > 0;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    assertEquals(1, bred.get());
+    assertEquals(ImmutableList.of(SETTINGS_DIR + "/0"),
+        restarts.get(PipelineStageState.EXECUTOR_MAIN));
+    assertTrue(deletions.get(PipelineStageState.EXECUTOR_MAIN).isEmpty());
+  }
+
+  /**
+   * A subject that dies restarts once, with the candidate replacing it, rather than with default
+   * settings first.
+   */
+  public void testProfiledRun_ReplacesDeadSubjectOnce() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setExecutorSteadyStateWindowMinutes(1));
+    injectParams(config);
+    expectGroupOf(2);
+    // The first subject never warms up once the experiment runs.
+    expectHealth(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        final Subject subject = (Subject) EasyMock.getCurrentArguments()[0];
+        return currentStage() != PipelineStageState.EXECUTOR_MAIN || subject.getIndex() != 0;
+      }
+    });
+    final AtomicInteger bred = expectReplacements();
+    final SubjectStateBridge survivor = startExperiment(2).get(1);
+    final AtomicBoolean warmupOver = new AtomicBoolean();
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        if (survivor.getState() == SubjectStateBridge.State.HEALTHY
+            && !warmupOver.getAndSet(true)) {
+          nowMillis.addAndGet(TimeUnit.SECONDS.toMillis(WARMUP_SECS + 1));
+        }
+        return bred.get() > 0;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    assertEquals(1, bred.get());
+    assertEquals(ImmutableList.of(SETTINGS_DIR + "/0"),
+        restarts.get(PipelineStageState.EXECUTOR_MAIN));
+    assertTrue(deletions.get(PipelineStageState.EXECUTOR_MAIN).isEmpty());
+  }
+
+  /** At the checkpoint of successive halving, half of the subjects go back to default settings. */
+  public void testProfiledRun_RetiresHalfOfSubjectsAtCheckpoint() throws Exception {
+    final List<String> retired = runToCheckpoint(0.5, new double[][] {{4.0, 2.0}, {0.1, 0.2}});
+
+    assertEquals(ImmutableList.of(SETTINGS_DIR + "/0"), retired);
+    assertEquals(retired, restarts.get(PipelineStageState.EXECUTOR_MAIN));
+  }
+
+  /** Subjects that have not paused yet are not retired, however many the checkpoint retires. */
+  public void testProfiledRun_DoesNotRetireSubjectsWithoutPauses() throws Exception {
+    final List<String> retired = runToCheckpoint(1.0, new double[][] {{}, {4.0, 2.0}});
+
+    assertEquals(ImmutableList.of(SETTINGS_DIR + "/1"), retired);
+    assertEquals(retired, restarts.get(PipelineStageState.EXECUTOR_MAIN));
+  }
+
+  /**
+   * Runs an experiment with a subject per row of pause times, in seconds past warmup, through the
+   * single checkpoint of successive halving, and returns the settings files of those retired.
+   */
+  private List<String> runToCheckpoint(final double retireFraction, final double[][] pauses)
+      throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setDuration(10)
+        .setExecutorHalvingRungs(1)
+        .setExecutorHalvingRetireFraction(retireFraction));
+    injectParams(config);
+    expectGroupOf(pauses.length);
+    expectHealth(true);
+    final List<SubjectStateBridge> subjects = startExperiment(pauses.length);
+    for (int i = 0; i < pauses.length; i++) {
+      for (final double pause : pauses[i]) {
+        subjects.get(i).getPauseTime().incrementPauseTime(pause, 600);
+      }
+    }
+    final AtomicBoolean checkpointReached = new AtomicBoolean();
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        if (!deletions.get(PipelineStageState.EXECUTOR_MAIN).isEmpty()) {
+          return true;
+        }
+        if (!checkpointReached.get()) {
+          for (final SubjectStateBridge subject : subjects) {
+            if (subject.getState() != SubjectStateBridge.State.HEALTHY) {
+              return false;
+            }
+          }
+          nowMillis.addAndGet(TimeUnit.SECONDS.toMillis(WARMUP_SECS)
+              + Executor.halvingCheckpointOffsetMillis(1, 1, 10));
+          checkpointReached.set(true);
+        }
+        return false;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    return ImmutableList.copyOf(deletions.get(PipelineStageState.EXECUTOR_MAIN));
+  }
+
+  /** Probes are over before the subjects restart with default settings, so none sees it. */
+  public void testProfiledRun_ProbesDoNotSeeFinalRestart() throws Exception {
+    final GroningenConfig config = configOf(GroningenParams.newBuilder()
+        .setExecutorSleepBtwnPollingMetricsMs(SHORT_POLL_MS)
+        .setMaximumInflightSubjectRestartCount(2));
+    injectParams(config);
+    expectGroupOf(2);
+    // Restarting with default settings takes a while, and each restart shows in the restart time.
+    expectHealth(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() throws InterruptedException {
+        if (currentStage() == PipelineStageState.FINAL_TASK_RESTART) {
+          Thread.sleep(5 * SHORT_POLL_MS);
+        }
+        return true;
+      }
+    }, new IAnswer<String>() {
+      @Override
+      public String answer() {
+        return Integer.toString(restarts.get(PipelineStageState.FINAL_TASK_RESTART).size());
+      }
+    });
+    final List<SubjectStateBridge> subjects = startExperiment(2);
+    finalizeExperimentWhen(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        return subjects.get(0).getState() == SubjectStateBridge.State.HEALTHY
+            && subjects.get(1).getState() == SubjectStateBridge.State.HEALTHY;
+      }
+    });
+
+    executor.profiledRun(config);
+
+    assertEquals(2, restarts.get(PipelineStageState.FINAL_TASK_RESTART).size());
+    for (final SubjectStateBridge subject : subjects) {
+      assertEquals(SubjectStateBridge.State.HEALTHY, subject.getState());
+      assertEquals(0, subject.getSubjectRestart().getNumberOfRestarts());
+    }
+  }
+
+  public void testLogsPauseTimes() {
+    assertTrue(Executor.logsPauseTimes("java -XX:+PrintGCApplicationStoppedTime -jar a.jar"));
+    assertTrue(Executor.logsPauseTimes("java -Xlog:safepoint -jar a.jar"));
+    assertTrue(Executor.logsPauseTimes("java -Xlog:gc*,safepoint*=info:file=gc.log -jar a.jar"));
+    assertTrue(Executor.logsPauseTimes("java -Xlog:all=info:stdout -jar a.jar"));
+    assertFalse(Executor.logsPauseTimes("java -Xlog:gc*:file=safepoint.log -jar a.jar"));
+    assertFalse(Executor.logsPauseTimes("java -XX:+PrintGCDetails -jar a.jar"));
+  }
+
+  public void testHalvingCheckpointOffsetMillis() {
+    assertEquals(30 * 60 * 1000L, Executor.halvingCheckpointOffsetMillis(1, 3, 120));
+    assertEquals(90 * 60 * 1000L, Executor.halvingCheckpointOffsetMillis(3, 3, 120));
+    assertEquals(60 * 60 * 1000L, Executor.halvingCheckpointOffsetMillis(1, 1, 120));
+  }
+
+  public void testSelectRetirees_WorstFractionBelowBaseline() {
+    final Map<String, Double> scores = ImmutableMap.of("a", 5.0, "b", 1.0, "c", 9.0, "d", 3.0);
+
+    assertEquals(ImmutableList.of("b", "d"),
+        Executor.selectRetirees(scores, ImmutableList.<Double>of(), 0.5));
+    assertEquals(ImmutableList.of("b"),
+        Executor.selectRetirees(scores, ImmutableList.of(2.0, 4.0), 0.5));
+    assertEquals(ImmutableList.of("b", "d", "a"),
+        Executor.selectRetirees(scores, ImmutableList.of(8.0), 0.75));
+    assertTrue(Executor.selectRetirees(scores, ImmutableList.of(0.5), 0.5).isEmpty());
+    assertTrue(Executor.selectRetirees(scores, ImmutableList.<Double>of(), 0.0).isEmpty());
+  }
+
+  public void testCanStartWindow() {
+    final long minute = 60 * 1000L;
+    assertTrue(Executor.canStartWindow(10 * minute, 5 * minute, 30 * minute, 45 * minute));
+    assertTrue(Executor.canStartWindow(10 * minute, 5 * minute, 30 * minute, 60 * minute));
+    assertFalse(Executor.canStartWindow(11 * minute, 5 * minute, 30 * minute, 45 * minute));
+    assertFalse(Executor.canStartWindow(10 * minute, 0, 60 * minute, 45 * minute));
+  }
+
+  public void testProbeDelayMillis_BacksOffFailingSubjects() {
+    assertEquals(1000L, Executor.probeDelayMillis(0, 1000L));
+    assertEquals(2000L, Executor.probeDelayMillis(1, 1000L));
+    assertEquals(8000L, Executor.probeDelayMillis(3, 1000L));
+    assertEquals(8000L, Executor.probeDelayMillis(20, 1000L));
+  }
+
   /** TODO(team): Implement more tests as the Executor is implemented */
+
+  /** Returns a config of a single group of subjects, with the given params */
+  private GroningenConfig configOf(final GroningenParams.Builder params) {
+    final SubjectGroupConfig groupConfig = newGroupConfig();
+    final StubConfigManager.StubClusterConfig clusterConfig =
+        new StubConfigManager.StubClusterConfig() {
+          {
+            groupConfigs.put(groupConfig.getName(), groupConfig);
+          }
+
+          @Override
+          public String getName() {
+            return "cluster";
+          }
+        };
+    return new StubConfigManager.StubConfig() {
+      {
+        clusterConfigs.put(clusterConfig.getName(), clusterConfig);
+        paramBlock = params.buildPartial();
+      }
+    };
+  }
+
+  private SubjectGroupConfig newGroupConfig() {
+    return new StubConfigManager.StubGroupConfig() {
+      @Override
+      public String getName() {
+        return "group";
+      }
+
+      @Override
+      public String getUser() {
+        return "user";
+      }
+
+      @Override
+      public int getSubjectWarmupTimeout() {
+        return WARMUP_SECS;
+      }
+
+      @Override
+      public String getExperimentSettingsFilesDir() {
+        return SETTINGS_DIR;
+      }
+    };
+  }
+
+  /** Injects the params of the config into the executor, as its pipeline iteration would */
+  private void injectParams(final GroningenConfig config) {
+    final SimpleScope scope = new SimpleScope();
+    final Injector injector = Guice.createInjector(new GroningenConfigParamsModule(),
+        new AbstractModule() {
+          @Override
+          protected void configure() {
+            bindScope(PipelineIterationScoped.class, scope);
+          }
+        });
+    scope.enter();
+    try {
+      GroningenConfigParamsModule.nailConfigToScope(config, scope);
+      injector.injectMembers(executor);
+    } finally {
+      scope.exit();
+    }
+  }
+
+  /**
+   * Has the group in production hold the given number of subjects, and records the restarts of
+   * the subjects, whether one by one or with their whole group, and the deletions of their
+   * settings files.
+   */
+  private void expectGroupOf(final int populationSize) throws Exception {
+    EasyMock.reset(mockManipulator, mockSubjectSettingsFileManager);
+
+    EasyMock.expect(mockManipulator.getPopulationSize(
+        EasyMock.<SubjectGroup>anyObject(), EasyMock.anyLong())).andReturn(populationSize)
+        .anyTimes();
+    mockManipulator.restartGroup(EasyMock.<SubjectGroup>anyObject(), EasyMock.anyLong(),
+        EasyMock.anyLong());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        groupRestarts.incrementAndGet();
+        for (int i = 0; i < populationSize; i++) {
+          restarts.put(currentStage(), SETTINGS_DIR + "/" + i);
+        }
+        return null;
+      }
+    }).anyTimes();
+    mockManipulator.restartIndividual(EasyMock.<Subject>anyObject(), EasyMock.anyLong());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        final Subject subject = (Subject) EasyMock.getCurrentArguments()[0];
+        restarts.put(currentStage(), subject.getExpSettingsFile());
+        return null;
+      }
+    }).anyTimes();
+
+    mockSubjectSettingsFileManager.delete(EasyMock.<String>anyObject());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        deletions.put(currentStage(), (String) EasyMock.getCurrentArguments()[0]);
+        return null;
+      }
+    }).anyTimes();
+
+    EasyMock.replay(mockManipulator, mockSubjectSettingsFileManager);
+  }
+
+  /** Has every subject come back healthy, or never, from restarts and probes */
+  private void expectHealth(final boolean healthy) throws Exception {
+    expectHealth(new IAnswer<Boolean>() {
+      @Override
+      public Boolean answer() {
+        return healthy;
+      }
+    });
+  }
+
+  /**
+   * Has the health of the subjects answered as given, and the subjects report that they have not
+   * restarted since they were started.
+   */
+  private void expectHealth(final IAnswer<Boolean> health) throws Exception {
+    expectHealth(health, new IAnswer<String>() {
+      @Override
+      public String answer() {
+        return "0";
+      }
+    });
+  }
+
+  /**
+   * Has the health of the subjects, and the time they last restarted, answered as given.
+   */
+  private void expectHealth(final IAnswer<Boolean> health, final IAnswer<String> lastRestartTime)
+      throws Exception {
+    EasyMock.reset(mockHealthQuerier, mockSubjectInterrogator);
+
+    EasyMock.expect(mockHealthQuerier.blockUntilHealthy(EasyMock.<Subject>anyObject()))
+        .andAnswer(health).anyTimes();
+    EasyMock.expect(mockSubjectInterrogator.getCommandLine(EasyMock.<Subject>anyObject()))
+        .andReturn("java -XX:+PrintGCApplicationStoppedTime -jar subject.jar").anyTimes();
+    EasyMock.expect(mockSubjectInterrogator.getLastSubjectRestartTime(
+        EasyMock.<Subject>anyObject())).andAnswer(lastRestartTime).anyTimes();
+
+    EasyMock.replay(mockHealthQuerier, mockSubjectInterrogator);
+  }
+
+  /** Has the experiment end once the answer says so, each time the executor asks */
+  private void finalizeExperimentWhen(final IAnswer<Boolean> finalize) {
+    EasyMock.reset(mockPipelineSynchronizer);
+
+    mockPipelineSynchronizer.initialSubjectRestartCompleteHook();
+    EasyMock.expectLastCall().anyTimes();
+    EasyMock.expect(mockPipelineSynchronizer.shouldFinalizeExperiment())
+        .andAnswer(finalize).anyTimes();
+
+    EasyMock.replay(mockPipelineSynchronizer);
+  }
+
+  /** Has the breeder replace each subject by a new one, and returns the number bred so far */
+  private AtomicInteger expectReplacements() {
+    final AtomicInteger bred = new AtomicInteger();
+    EasyMock.reset(mockBreeder);
+
+    EasyMock.expect(mockBreeder.breedReplacement(EasyMock.<SubjectStateBridge>anyObject(),
+        EasyMock.anyDouble())).andAnswer(new IAnswer<SubjectStateBridge>() {
+          @Override
+          public SubjectStateBridge answer() {
+            bred.incrementAndGet();
+            return experimentDb.makeSubject();
+          }
+        }).anyTimes();
+
+    EasyMock.replay(mockBreeder);
+    return bred;
+  }
+
+  /**
+   * Makes an experiment on the given number of experimental subjects of the group, which is the
+   * one the executor runs next.
+   */
+  private List<SubjectStateBridge> startExperiment(final int subjectCount) {
+    final SubjectGroup group = new SubjectGroup("cluster", "group", "user", newGroupConfig(),
+        new NullServingAddressGenerator());
+    final List<SubjectStateBridge> bridges = Lists.newArrayList();
+    final List<Long> ids = Lists.newArrayList();
+    for (int i = 0; i < subjectCount; i++) {
+      final SubjectStateBridge bridge = experimentDb.makeSubject();
+      bridge.setAssociatedSubject(new Subject(group, SETTINGS_DIR + "/" + i, i,
+          new NullServingAddressGenerator()));
+      bridges.add(bridge);
+      ids.add(bridge.getIdOfObject());
+    }
+    experimentDb.makeExperiment(ids);
+    return bridges;
+  }
+
+  private PipelineStageState currentStage() {
+    return pipelineStageInfo.getImmutableValueCopy().state;
+  }
 }
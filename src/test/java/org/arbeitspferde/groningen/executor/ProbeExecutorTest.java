@@ -0,0 +1,89 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.executor;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ProbeExecutor}.
+ */
+public class ProbeExecutorTest extends TestCase {
+  private static final int PROBE_COUNT = 20;
+  private static final int MAX_CONCURRENT_PROBES = 3;
+
+  public void testPlatformThreads_BoundsConcurrentProbes() throws Exception {
+    final ProbeExecutor probeExecutor = new ProbeExecutor(MAX_CONCURRENT_PROBES, null);
+    assertFalse(probeExecutor.usesVirtualThreads());
+    assertEquals(MAX_CONCURRENT_PROBES, runBlockingProbes(probeExecutor));
+  }
+
+  public void testThreadPerTask_BoundsConcurrentProbes() throws Exception {
+    // A thread per task stands in for virtual threads on JVMs without them.
+    final ProbeExecutor probeExecutor =
+        new ProbeExecutor(MAX_CONCURRENT_PROBES, Executors.newCachedThreadPool());
+    assertTrue(probeExecutor.usesVirtualThreads());
+    assertEquals(MAX_CONCURRENT_PROBES, runBlockingProbes(probeExecutor));
+  }
+
+  public void testRejectsNonPositiveBound() {
+    try {
+      new ProbeExecutor(0, null);
+      fail("A bound of zero concurrent probes should be rejected.");
+    } catch (final IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Runs probes that block until as many run at a time as may, and returns the most that ran at a
+   * time.
+   */
+  private static int runBlockingProbes(final ProbeExecutor probeExecutor) throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger mostRunning = new AtomicInteger();
+    final CountDownLatch saturated = new CountDownLatch(MAX_CONCURRENT_PROBES);
+    final CountDownLatch finished = new CountDownLatch(PROBE_COUNT);
+    for (int i = 0; i < PROBE_COUNT; i++) {
+      probeExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          final int now = running.incrementAndGet();
+          synchronized (mostRunning) {
+            mostRunning.set(Math.max(mostRunning.get(), now));
+          }
+          saturated.countDown();
+          try {
+            saturated.await(10, TimeUnit.SECONDS);
+            Thread.sleep(5);
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          finished.countDown();
+        }
+      });
+    }
+    assertTrue(finished.await(30, TimeUnit.SECONDS));
+    probeExecutor.shutdown();
+    assertTrue(probeExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    return mostRunning.get();
+  }
+}
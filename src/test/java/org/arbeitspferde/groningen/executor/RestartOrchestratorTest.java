@@ -0,0 +1,251 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.executor;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.subject.HealthQuerier;
+import org.arbeitspferde.groningen.subject.Subject;
+import org.arbeitspferde.groningen.subject.SubjectGroup;
+import org.arbeitspferde.groningen.subject.SubjectManipulator;
+import org.arbeitspferde.groningen.utility.TemporaryFailure;
+import org.easymock.EasyMock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link RestartOrchestrator}.
+ */
+public class RestartOrchestratorTest extends TestCase {
+  private static final long RESTART_DEADLINE_MILLIS = 1000L;
+  private static final long BACKOFF_MILLIS = 1L;
+
+  /** The subjects of each group, and the group of each subject */
+  private final List<List<Subject>> groups = Lists.newArrayList();
+  private final Map<Subject, Integer> groupOf = Maps.newIdentityHashMap();
+
+  /** The most subjects that restarted at a time across groups */
+  private final AtomicInteger mostRunning = new AtomicInteger();
+
+  /** The completion events, in all and by subject */
+  private final AtomicInteger eventCount = new AtomicInteger();
+  private final Map<Subject, Boolean> restartedEvents =
+      Collections.synchronizedMap(Maps.<Subject, Boolean>newIdentityHashMap());
+  private final Map<Subject, Boolean> healthyEvents =
+      Collections.synchronizedMap(Maps.<Subject, Boolean>newIdentityHashMap());
+
+  private final RestartOrchestrator.RestartListener listener =
+      new RestartOrchestrator.RestartListener() {
+        @Override
+        public void restartCompleted(Subject subject, boolean restarted, boolean healthy,
+            long elapsedMillis) {
+          eventCount.incrementAndGet();
+          restartedEvents.put(subject, restarted);
+          healthyEvents.put(subject, healthy);
+        }
+      };
+
+  /** Always healthy */
+  private final HealthQuerier healthy = new HealthQuerier() {
+    @Override
+    public boolean blockUntilHealthy(final Subject subject) {
+      return true;
+    }
+
+    @Override
+    public boolean isHealthy(final Subject subject) {
+      return true;
+    }
+  };
+
+  public void testGetGroupBudget() {
+    assertEquals(1, RestartOrchestrator.getGroupBudget(1, 3));
+    assertEquals(1, RestartOrchestrator.getGroupBudget(3, 3));
+    assertEquals(2, RestartOrchestrator.getGroupBudget(4, 3));
+    assertEquals(4, RestartOrchestrator.getGroupBudget(4, 1));
+    // A non-positive divisor restarts the whole group at once rather than failing.
+    assertEquals(4, RestartOrchestrator.getGroupBudget(4, 0));
+  }
+
+  public void testGetGlobalBudget() {
+    assertEquals(1, RestartOrchestrator.getGlobalBudget(1));
+    assertEquals(5, RestartOrchestrator.getGlobalBudget(5));
+    assertEquals(1, RestartOrchestrator.getGlobalBudget(0));
+  }
+
+  public void testRestartAll_BoundsConcurrentRestarts() throws Exception {
+    // Four groups of two, such that each group restarts one subject at a time and all of them
+    // together three at a time.
+    addGroups(4, 2);
+    final int[] mostRunningInGroup = restartAllTracingConcurrency(3, 3);
+
+    assertEquals(8, eventCount.get());
+    assertEquals(8, restartedEvents.size());
+    assertFalse(restartedEvents.containsValue(false));
+    assertFalse(healthyEvents.containsValue(false));
+    assertTrue(mostRunning.get() <= 3);
+    assertTrue(mostRunning.get() > 1);
+    for (final int most : mostRunningInGroup) {
+      assertEquals(1, most);
+    }
+  }
+
+  public void testRestartAll_GlobalBudgetCapsGroupBudgets() throws Exception {
+    // Each of the four groups may restart all three of its subjects at once, twelve in all, but
+    // no more than two restart at a time across the groups.
+    addGroups(4, 3);
+    restartAllTracingConcurrency(2, 1);
+
+    assertEquals(12, eventCount.get());
+    assertFalse(healthyEvents.containsValue(false));
+    assertEquals(2, mostRunning.get());
+  }
+
+  public void testRestartAll_GivesUpOnFailingSubject() throws Exception {
+    addGroups(1, 3);
+    final Subject failing = groups.get(0).get(1);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    final SubjectManipulator manipulator = new StubManipulator() {
+      @Override
+      public void restartIndividual(final Subject individual, final long maxWaitMillis)
+          throws TemporaryFailure {
+        if (individual == failing) {
+          attempts.incrementAndGet();
+          throw new TemporaryFailure("Unable to restart.");
+        }
+      }
+    };
+
+    new RestartOrchestrator(manipulator, healthy, RESTART_DEADLINE_MILLIS, listener,
+        BACKOFF_MILLIS).restartAll(groups, 1, 1);
+
+    assertEquals(3, eventCount.get());
+    assertEquals(3, restartedEvents.size());
+    assertFalse(restartedEvents.get(failing));
+    assertFalse(healthyEvents.get(failing));
+    assertTrue(attempts.get() > 1);
+    assertTrue(restartedEvents.get(groups.get(0).get(0)));
+    assertTrue(restartedEvents.get(groups.get(0).get(2)));
+  }
+
+  public void testRestartAll_ReportsUnhealthySubject() throws Exception {
+    addGroups(2, 2);
+    final Subject unhealthy = groups.get(1).get(0);
+
+    final HealthQuerier healthQuerier = new HealthQuerier() {
+      @Override
+      public boolean blockUntilHealthy(final Subject subject) {
+        return subject != unhealthy;
+      }
+
+      @Override
+      public boolean isHealthy(final Subject subject) {
+        return subject != unhealthy;
+      }
+    };
+
+    new RestartOrchestrator(new StubManipulator(), healthQuerier, RESTART_DEADLINE_MILLIS,
+        listener, BACKOFF_MILLIS).restartAll(groups, 2, 3);
+
+    assertEquals(4, eventCount.get());
+    assertEquals(4, restartedEvents.size());
+    assertTrue(restartedEvents.get(unhealthy));
+    assertFalse(healthyEvents.get(unhealthy));
+    assertTrue(healthyEvents.get(groups.get(0).get(0)));
+  }
+
+  public void testRestartAll_EmptyGroups() throws Exception {
+    groups.add(Collections.<Subject>emptyList());
+    new RestartOrchestrator(new StubManipulator(), healthy, RESTART_DEADLINE_MILLIS, listener,
+        BACKOFF_MILLIS).restartAll(groups, 1, 3);
+    assertEquals(0, eventCount.get());
+  }
+
+  /**
+   * Restarts the groups with restarts that take a while, and returns the most subjects of each
+   * group that restarted at a time; the most across groups is left in mostRunning.
+   */
+  private int[] restartAllTracingConcurrency(final int maxInflightRestarts,
+      final int inFlightDivisor) throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final int[] runningInGroup = new int[groups.size()];
+    final int[] mostRunningInGroup = new int[groups.size()];
+
+    final SubjectManipulator manipulator = new StubManipulator() {
+      @Override
+      public void restartIndividual(final Subject individual, final long maxWaitMillis) {
+        final int group = groupOf.get(individual);
+        synchronized (runningInGroup) {
+          runningInGroup[group]++;
+          mostRunningInGroup[group] = Math.max(mostRunningInGroup[group], runningInGroup[group]);
+          mostRunning.set(Math.max(mostRunning.get(), running.incrementAndGet()));
+        }
+        try {
+          Thread.sleep(20);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        synchronized (runningInGroup) {
+          runningInGroup[group]--;
+          running.decrementAndGet();
+        }
+      }
+    };
+
+    new RestartOrchestrator(manipulator, healthy, RESTART_DEADLINE_MILLIS, listener,
+        BACKOFF_MILLIS).restartAll(groups, maxInflightRestarts, inFlightDivisor);
+    return mostRunningInGroup;
+  }
+
+  private void addGroups(final int groupCount, final int groupSize) {
+    for (int i = 0; i < groupCount; i++) {
+      final List<Subject> group = Lists.newArrayList();
+      for (int j = 0; j < groupSize; j++) {
+        final Subject subject = EasyMock.createNiceMock(Subject.class);
+        EasyMock.replay(subject);
+        group.add(subject);
+        groupOf.put(subject, i);
+      }
+      groups.add(group);
+    }
+  }
+
+  /** Restarts every subject right away */
+  private static class StubManipulator implements SubjectManipulator {
+    @Override
+    public void restartGroup(final SubjectGroup group, final long switchRateLimit,
+        final long maxWaitMillis) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void restartIndividual(final Subject individual, final long maxWaitMillis)
+        throws TemporaryFailure {
+    }
+
+    @Override
+    public int getPopulationSize(final SubjectGroup group, final long maxWaitMillis) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -44,6 +44,20 @@ public class PauseTimeTest extends TestCase {
     assertEquals(1.0 / TEST_PAUSE_VALUE_A, p.computeScore(PauseTime.ScoreType.LATENCY));
   }
 
+  public void testLatencyScoreOverMultiplePercentiles() {
+    p.incrementPauseTime(4.0);
+    p.setPercentiles(0, 100);
+
+    assertEquals((1.0 / TEST_PAUSE_VALUE_A + 1.0 / 4.0) / 2,
+        p.computeScore(PauseTime.ScoreType.LATENCY), 1e-12);
+  }
+
+  public void testSetPercentileRelativeErrorKeepsRecordedPauses() {
+    p.setPercentileRelativeError(0.05);
+
+    assertEquals(1.0 / TEST_PAUSE_VALUE_A, p.computeScore(PauseTime.ScoreType.LATENCY));
+  }
+
   public void testInvalidate() {
     p.invalidate();
     assertEquals(0.0, p.computeScore(PauseTime.ScoreType.THROUGHPUT));
@@ -58,4 +72,37 @@ public class PauseTimeTest extends TestCase {
     assertEquals(17.45, n.percentile);
   }
 
+
+  public void testWarmupExclusion() {
+    p.incrementPauseTime(8.0, 30.0);
+    p.incrementPauseTime(1.0, 90.0);
+    p.incrementPauseTime(1.0, 150.0);
+
+    p.setWarmupExclusionMinutes(1);
+
+    // The pause without a timestamp is never considered warmup.
+    assertEquals(1.0 / (TEST_PAUSE_VALUE_A + 2.0), p.computeScore(PauseTime.ScoreType.THROUGHPUT));
+    assertEquals(12.0, p.getPauseTimeTotal());
+    assertEquals(4, p.getPauseTimestamps().size());
+    assertTrue(Double.isNaN(p.getPauseTimestamps().get(0)));
+    assertEquals(30.0, p.getPauseTimestamps().get(1));
+
+    // The warmup recurs after the subject was restarted.
+    p.incrementPauseTime(8.0, 10.0);
+    assertEquals(1.0 / (TEST_PAUSE_VALUE_A + 2.0), p.computeScore(PauseTime.ScoreType.THROUGHPUT));
+    p.incrementPauseTime(2.0, 70.0);
+    assertEquals(1.0 / (TEST_PAUSE_VALUE_A + 4.0), p.computeScore(PauseTime.ScoreType.THROUGHPUT));
+
+    p.setWarmupExclusionMinutes(0);
+    assertEquals(1.0 / 22.0, p.computeScore(PauseTime.ScoreType.THROUGHPUT));
+  }
+
+  public void testTimelineHoldsPausesAfterWarmup() {
+    p.setWarmupExclusionMinutes(1);
+    p.incrementPauseTime(8.0, 30.0);
+    p.incrementPauseTime(1.0, 90.0);
+
+    assertEquals(1, p.getTimeline().getBuckets().size());
+    assertEquals(1, p.getTimeline().getBuckets().get(0).getMinute());
+  }
 }
@@ -0,0 +1,103 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * The test for {@link PauseTimeline}.
+ */
+public class PauseTimelineTest extends TestCase {
+  /** The object we are testing */
+  private PauseTimeline timeline;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    timeline = new PauseTimeline(4);
+  }
+
+  public void testAggregatesPerMinute() {
+    timeline.record(0.1, 1.0);
+    timeline.record(0.3, 59.0);
+    timeline.record(0.2, 61.0);
+    timeline.record(0.7, Double.NaN);
+
+    final List<PauseTimeline.Bucket> buckets = timeline.getBuckets();
+    assertEquals(2, buckets.size());
+    assertEquals(0, buckets.get(0).getMinute());
+    assertEquals(2, buckets.get(0).getCount());
+    assertEquals(0.4, buckets.get(0).getSum(), 1e-12);
+    assertEquals(0.3, buckets.get(0).getMax());
+    assertEquals(0.3, buckets.get(0).getP99());
+    assertEquals(1, buckets.get(1).getMinute());
+    assertEquals(0.2, buckets.get(1).getP99());
+  }
+
+  public void testRingKeepsLatestMinutes() {
+    for (int minute = 0; minute < 6; minute++) {
+      timeline.record(minute, minute * 60.0);
+    }
+
+    final List<PauseTimeline.Bucket> buckets = timeline.getBuckets();
+    assertEquals(4, buckets.size());
+    assertEquals(2, buckets.get(0).getMinute());
+    assertEquals(5, buckets.get(3).getMinute());
+    assertEquals(2.0, buckets.get(0).getMax());
+  }
+
+  public void testRestartContinuesTimeline() {
+    timeline.record(0.1, 90.0);
+    timeline.observe(100.0);
+    timeline.record(0.1, 30.0);
+
+    final List<PauseTimeline.Bucket> buckets = timeline.getBuckets();
+    assertEquals(2, buckets.size());
+    assertEquals(1, buckets.get(0).getMinute());
+    assertEquals(2, buckets.get(1).getMinute());
+  }
+
+  public void testSlightlyOutOfOrderPauseIsNoRestart() {
+    timeline.record(0.1, 59.9);
+    timeline.record(0.1, 60.1);
+    timeline.record(0.1, 59.95);
+
+    final List<PauseTimeline.Bucket> buckets = timeline.getBuckets();
+    assertEquals(2, buckets.size());
+    assertEquals(1, buckets.get(1).getMinute());
+  }
+
+  public void testDrift() {
+    assertEquals(0.0, timeline.getDriftSecondsPerHour());
+    timeline.record(0.10, 0.0);
+    timeline.record(0.11, 60.0);
+    timeline.record(0.12, 120.0);
+
+    assertEquals(0.6, timeline.getDriftSecondsPerHour(), 1e-9);
+  }
+
+  public void testClear() {
+    timeline.record(0.1, 90.0);
+    timeline.clear();
+    timeline.record(0.1, 30.0);
+
+    final List<PauseTimeline.Bucket> buckets = timeline.getBuckets();
+    assertEquals(1, buckets.size());
+    assertEquals(0, buckets.get(0).getMinute());
+  }
+}
@@ -0,0 +1,74 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.experimentdb.jvmflags;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link JvmFlagConstraint}.
+ */
+public class JvmFlagConstraintTest extends TestCase {
+  public void testGetViolations_ConsistentFlags() {
+    final JvmFlagSet flags = JvmFlagSet.builder()
+        .withValue(JvmFlag.USE_SERIAL_GC, 1)
+        .withValue(JvmFlag.HEAP_SIZE, 4096)
+        .withValue(JvmFlag.NEW_SIZE, 512)
+        .withValue(JvmFlag.MAX_NEW_SIZE, 1024)
+        .withValue(JvmFlag.MIN_HEAP_FREE_RATIO, 40)
+        .withValue(JvmFlag.MAX_HEAP_FREE_RATIO, 70)
+        .build();
+
+    assertTrue(JvmFlagConstraint.getViolations(flags).isEmpty());
+  }
+
+  public void testGetViolations_InconsistentFlags() {
+    final JvmFlagSet flags = JvmFlagSet.builder()
+        .withValue(JvmFlag.USE_SERIAL_GC, 1)
+        .withValue(JvmFlag.HEAP_SIZE, 1024)
+        .withValue(JvmFlag.NEW_SIZE, 2048)
+        .withValue(JvmFlag.MAX_NEW_SIZE, 1024)
+        .withValue(JvmFlag.MIN_HEAP_FREE_RATIO, 70)
+        .withValue(JvmFlag.MAX_HEAP_FREE_RATIO, 40)
+        .build();
+
+    assertEquals(4, JvmFlagConstraint.getViolations(flags).size());
+    assertFalse(JvmFlagConstraint.MAX_NEW_SIZE_BELOW_HEAP_SIZE.isSatisfiedBy(flags));
+    assertFalse(JvmFlagConstraint.NEW_SIZE_AT_MOST_MAX_NEW_SIZE.isSatisfiedBy(flags));
+  }
+
+  public void testIsSatisfiedBy_UnsetFlagsAreUnconstrained() {
+    assertTrue(JvmFlagConstraint.NEW_SIZE_AT_MOST_MAX_NEW_SIZE.isSatisfiedBy(2048, 0));
+    assertTrue(JvmFlagConstraint.NEW_SIZE_BELOW_HEAP_SIZE.isSatisfiedBy(0, 1024));
+    assertTrue(JvmFlagConstraint.NEW_SIZE_AT_MOST_MAX_NEW_SIZE.isSatisfiedBy(1024, 1024));
+    assertFalse(JvmFlagConstraint.NEW_SIZE_BELOW_HEAP_SIZE.isSatisfiedBy(1024, 1024));
+  }
+
+  public void testIsSatisfiedBy_IrrelevantToGcMode() {
+    final JvmFlagConstraint constraint =
+        JvmFlagConstraint.CMS_INCREMENTAL_DUTY_CYCLE_MIN_AT_MOST_CMS_INCREMENTAL_DUTY_CYCLE;
+
+    assertTrue(constraint.isSatisfiedBy(JvmFlagSet.builder()
+        .withValue(JvmFlag.USE_SERIAL_GC, 1)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, 50)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, 10)
+        .build()));
+    assertFalse(constraint.isSatisfiedBy(JvmFlagSet.builder()
+        .withValue(JvmFlag.USE_CONC_MARK_SWEEP_GC, 1)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, 50)
+        .withValue(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, 10)
+        .build()));
+  }
+}
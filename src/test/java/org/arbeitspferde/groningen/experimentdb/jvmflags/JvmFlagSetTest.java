@@ -117,4 +117,24 @@ public class JvmFlagSetTest extends TestCase {
       fail("Should have had semantically correct FlagSet construct " + e);
     }
   }
+
+  public void testFingerprint() {
+    final JvmFlagSet.Builder builder = JvmFlagSet.builder();
+    builder.withValue(JvmFlag.USE_SERIAL_GC, 1)
+        .withValue(JvmFlag.HEAP_SIZE, 100L);
+
+    final JvmFlagSet flagSet1 = builder.build();
+    final JvmFlagSet flagSet2 = builder.build();
+    assertEquals(flagSet1.getFingerprint(), flagSet2.getFingerprint());
+
+    final JvmFlagSet flagSet3 = builder.withValue(JvmFlag.HEAP_SIZE, 101L).build();
+    assertFalse(flagSet1.getFingerprint() == flagSet3.getFingerprint());
+
+    // The same value under another flag is another set.
+    final JvmFlagSet flagSet4 = JvmFlagSet.builder()
+        .withValue(JvmFlag.USE_SERIAL_GC, 1)
+        .withValue(JvmFlag.MAX_NEW_SIZE, 100L)
+        .build();
+    assertFalse(flagSet1.getFingerprint() == flagSet4.getFingerprint());
+  }
 }
@@ -71,6 +71,20 @@ public class JvmFlagTest extends TestCase {
     assertEquals(JvmFlag.USE_SERIAL_GC, JvmFlag.getGcModeArgument(GcMode.SERIAL));
   }
 
+  public void test_isRelevantTo_EmitsExpected() {
+    assertTrue(JvmFlag.CMS_EXP_AVG_FACTOR.isRelevantTo(JvmFlag.USE_CONC_MARK_SWEEP_GC));
+    assertFalse(JvmFlag.CMS_EXP_AVG_FACTOR.isRelevantTo(JvmFlag.USE_PARALLEL_GC));
+    assertTrue(JvmFlag.GC_TIME_RATIO.isRelevantTo(JvmFlag.USE_PARALLEL_OLD_GC));
+    assertFalse(JvmFlag.GC_TIME_RATIO.isRelevantTo(JvmFlag.USE_SERIAL_GC));
+    assertTrue(JvmFlag.HEAP_SIZE.isRelevantTo(JvmFlag.USE_SERIAL_GC));
+    try {
+      JvmFlag.HEAP_SIZE.isRelevantTo(JvmFlag.NEW_RATIO);
+      fail("NEW_RATIO is not a GC mode.");
+    } catch (final IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
   public void test_asAcceptableValuesString_MAX_NEW_SIZE() {
     final String actual = JvmFlag.MAX_NEW_SIZE.asAcceptableValuesString();
 
@@ -0,0 +1,129 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.LocalFileFactory;
+import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.subject.Subject;
+import org.arbeitspferde.groningen.utility.open.NullMetricExporter;
+
+import org.easymock.EasyMock;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ExtractionScheduler}.
+ */
+public class ExtractionSchedulerTest extends TestCase {
+  private static final String PAUSE_LINE =
+      "1.234: Total time for which application threads were stopped: 0.0012500 seconds\n";
+  private static final String OTHER_LINE = "[GC 1024K->512K(2048K), 0.0012345 secs]\n";
+
+  private File directory;
+  private File log;
+  private ExtractionScheduler scheduler;
+  private GroningenConfig config;
+  private CollectionLogAddressor addressor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = Files.createTempDir();
+    log = new File(directory, "gc.log");
+
+    scheduler = new ExtractionScheduler(new NullMetricExporter());
+
+    config = EasyMock.createNiceMock(GroningenConfig.class);
+    EasyMock.expect(config.getParamBlock()).andReturn(GroningenParams.getDefaultInstance())
+        .anyTimes();
+    addressor = EasyMock.createMock(CollectionLogAddressor.class);
+    EasyMock.expect(addressor.logPathFor(EasyMock.<Subject>anyObject(), EasyMock.same(config)))
+        .andReturn(log.getPath()).anyTimes();
+    EasyMock.replay(config, addressor);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    scheduler.shutdown();
+    log.delete();
+    directory.delete();
+    super.tearDown();
+  }
+
+  private Extractor extractorFor(final SubjectStateBridge subject) {
+    return new Extractor(config, subject, new NullMetricExporter(), new LocalFileFactory(),
+        addressor);
+  }
+
+  public void testCompletionOfSubjectWithoutSubmissionsIsImmediate() throws Exception {
+    final SubjectStateBridge subject = new ExperimentDb().makeSubject();
+
+    assertTrue(scheduler.awaitCompletion(subject, 0, TimeUnit.SECONDS));
+  }
+
+  public void testExtractsLogSpanningManyPrefetchBlocks() throws Exception {
+    final StringBuilder contents = new StringBuilder();
+    int pauses = 0;
+    while (contents.length() < 3 * 1024 * 1024) {
+      contents.append(PAUSE_LINE).append(OTHER_LINE);
+      pauses++;
+    }
+    Files.write(contents.toString(), log, Charsets.UTF_8);
+    final SubjectStateBridge subject = new ExperimentDb().makeSubject();
+
+    final Extractor extractor = extractorFor(subject);
+    scheduler.submit(subject, extractor);
+
+    assertTrue(scheduler.awaitCompletion(subject, 1, TimeUnit.MINUTES));
+    assertEquals(pauses, subject.getPauseTime().getPauseDurations().size());
+    assertEquals(log.length(), extractor.getParsedByteCount());
+    assertEquals(log.length(), subject.getCollectionLogCursor().getOffset());
+  }
+
+  public void testCompletionCoversEverySubmissionOfTheSubject() throws Exception {
+    Files.write(PAUSE_LINE + OTHER_LINE, log, Charsets.UTF_8);
+    final SubjectStateBridge subject = new ExperimentDb().makeSubject();
+
+    scheduler.submit(subject, extractorFor(subject));
+    assertTrue(scheduler.awaitCompletion(subject, 1, TimeUnit.MINUTES));
+    Files.append(PAUSE_LINE + OTHER_LINE, log, Charsets.UTF_8);
+    scheduler.submit(subject, extractorFor(subject));
+
+    assertTrue(scheduler.awaitCompletion(subject, 1, TimeUnit.MINUTES));
+    assertEquals(2, subject.getPauseTime().getPauseDurations().size());
+  }
+
+  public void testSubmitAfterShutdownFails() {
+    final SubjectStateBridge subject = new ExperimentDb().makeSubject();
+    scheduler.shutdown();
+
+    try {
+      scheduler.submit(subject, extractorFor(subject));
+      fail("Should have thrown exception, scheduler is shut down");
+    } catch (IllegalStateException expected) {
+      // expected failure b/c no submissions are accepted after shutdown
+    }
+  }
+}
@@ -0,0 +1,337 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.primitives.Doubles;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.LocalFileFactory;
+import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams.ExtractorParserMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Tests for {@link Extractor}.
+ */
+public class ExtractorTest extends TestCase {
+  private static final String HEADER = "OpenJDK 64-Bit Server VM, built for testing\n";
+
+  private File directory;
+  private File log;
+  private SubjectStateBridge bridge;
+  private Extractor extractor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = Files.createTempDir();
+    log = new File(directory, "gc.log");
+    bridge = new ExperimentDb().makeSubject();
+    extractor = new Extractor(bridge, false, new LocalFileFactory());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    log.delete();
+    directory.delete();
+    super.tearDown();
+  }
+
+  private static String pauseLine(final double seconds) {
+    return String.format(
+        "1.234: Total time for which application threads were stopped: %s seconds\n", seconds);
+  }
+
+  private static String safepointLine(final long reachingNanos, final long totalNanos) {
+    return String.format("[12.345s][info][safepoint] Safepoint \"G1CollectForAllocation\", "
+        + "Time since last: 24476396 ns, Reaching safepoint: %s ns, At safepoint: %s ns, "
+        + "Total: %s ns\n", reachingNanos, totalNanos - reachingNanos, totalNanos);
+  }
+
+  private void write(final String contents) throws IOException {
+    Files.write(contents, log, Charsets.UTF_8);
+  }
+
+  private void append(final String contents) throws IOException {
+    Files.append(contents, log, Charsets.UTF_8);
+  }
+
+  private void parse() {
+    extractor.parse(log.getPath());
+  }
+
+  public void testParse_CountsFirstOfConsecutivePauseLines() throws Exception {
+    write(HEADER + pauseLine(0.5) + pauseLine(0.25) + "[GC 1K->1K(2K)]\n" + pauseLine(1.0));
+
+    parse();
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(1.5, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+  }
+
+  public void testParse_OnlyProcessesAppendedLines() throws Exception {
+    write(HEADER + pauseLine(0.5) + "[GC]\n");
+    parse();
+    append(pauseLine(0.25) + "[GC]\n");
+    parse();
+    parse();
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.75, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+    assertEquals(log.length(), bridge.getCollectionLogCursor().getOffset());
+  }
+
+  public void testParse_LeavesIncompleteLineForNextPass() throws Exception {
+    final String line = pauseLine(0.125);
+    write(HEADER + line.substring(0, 40));
+    parse();
+    assertEquals(0, bridge.getPauseTime().getPauseDurations().size());
+
+    append(line.substring(40));
+    parse();
+
+    assertEquals(1, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.125, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+  }
+
+  public void testParse_RemembersPauseLineRunAcrossPasses() throws Exception {
+    write(HEADER + pauseLine(0.5));
+    parse();
+    append(pauseLine(0.25));
+    parse();
+
+    assertEquals(1, bridge.getPauseTime().getPauseDurations().size());
+  }
+
+  public void testParse_RereadsReplacedLog() throws Exception {
+    write(HEADER + pauseLine(0.5) + "[GC]\n");
+    parse();
+
+    write("A different subject incarnation\n" + pauseLine(0.25) + "[GC]\n");
+    parse();
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.75, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+    assertEquals(1, bridge.getCollectionLogCursor().getRewindCount());
+  }
+
+  public void testParse_RereadsTruncatedLogWithSameHeader() throws Exception {
+    write(HEADER + pauseLine(0.5) + "[GC]\n" + pauseLine(0.5) + "[GC]\n");
+    parse();
+
+    write(HEADER + pauseLine(0.25) + "[GC]\n");
+    parse();
+
+    assertEquals(3, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(1.25, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+  }
+
+  public void testParse_MissingLogLeavesCursorUntouched() throws Exception {
+    parse();
+
+    assertEquals(0, bridge.getCollectionLogCursor().getOffset());
+    assertEquals(0, bridge.getPauseTime().getPauseDurations().size());
+  }
+
+  public void testParse_MemoryMappedModeMatchesStreamMode() throws Exception {
+    final Random random = new Random(42);
+    final StringBuilder contents = new StringBuilder(HEADER);
+    for (int i = 0; i < 2000; i++) {
+      switch (random.nextInt(4)) {
+        case 0:
+          contents.append("[GC 1K->1K(2K)]\n");
+          break;
+        case 1:
+          contents.append(pauseLine(random.nextDouble()));
+          break;
+        case 2:
+          contents.append(String.format(Locale.US,
+              "1.234: Total time for which application threads were stopped: %.7f seconds\r\n",
+              random.nextDouble()));
+          break;
+        default:
+          contents.append("1.234: Total time for which application threads were stopped:\n");
+          break;
+      }
+    }
+    write(contents.toString());
+
+    final SubjectStateBridge mappedBridge = new ExperimentDb().makeSubject();
+    new Extractor(mappedBridge, false, new LocalFileFactory(), ExtractorParserMode.MEMORY_MAPPED)
+        .parse(log.getPath());
+    parse();
+
+    assertEquals(Doubles.asList(bridge.getPauseTime().getPauseDurations().toArray()),
+        Doubles.asList(mappedBridge.getPauseTime().getPauseDurations().toArray()));
+    assertEquals(Doubles.asList(bridge.getPauseTime().getPauseTimestamps().toArray()),
+        Doubles.asList(mappedBridge.getPauseTime().getPauseTimestamps().toArray()));
+    assertEquals(bridge.getCollectionLogCursor().getOffset(),
+        mappedBridge.getCollectionLogCursor().getOffset());
+  }
+
+  public void testParse_MemoryMappedModeOnlyProcessesAppendedLines() throws Exception {
+    extractor =
+        new Extractor(bridge, false, new LocalFileFactory(), ExtractorParserMode.MEMORY_MAPPED);
+    final String line = pauseLine(0.125);
+
+    write(HEADER + pauseLine(0.5) + "[GC]\n" + line.substring(0, 40));
+    parse();
+    append(line.substring(40));
+    parse();
+    parse();
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.625, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+    assertEquals(log.length(), bridge.getCollectionLogCursor().getOffset());
+  }
+
+  public void testParse_RecordsTimeToSafepointOfLegacyLines() throws Exception {
+    write(HEADER + "1.234: Total time for which application threads were stopped: "
+        + "0.0012500 seconds, Stopping threads took: 0.0002500 seconds\n");
+    parse();
+
+    assertEquals(0.00125, bridge.getPauseTime().getPauseTimeTotal(), 1e-12);
+    assertEquals(0.00025, bridge.getPauseTime().getTimeToSafepointTotal(), 1e-12);
+  }
+
+  public void testParse_UnifiedSafepointLines() throws Exception {
+    write(HEADER + safepointLine(250000, 1000000) + "[12.400s][info][gc] GC(3) Pause Young\n"
+        + safepointLine(500000, 3000000) + safepointLine(250000, 500000));
+    parse();
+
+    // Unlike legacy lines, consecutive safepoint lines each report a pause of their own.
+    assertEquals(3, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.0045, bridge.getPauseTime().getPauseTimeTotal(), 1e-12);
+    assertEquals(0.001, bridge.getPauseTime().getTimeToSafepointTotal(), 1e-12);
+  }
+
+  public void testParse_UnifiedStoppedTimeLines() throws Exception {
+    final String line = "[1.234s][info][safepoint] Total time for which application threads "
+        + "were stopped: 0.0012500 seconds, Stopping threads took: 0.0002500 seconds\n";
+    write(HEADER + line + line);
+    parse();
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.0025, bridge.getPauseTime().getPauseTimeTotal(), 1e-12);
+    assertEquals(0.0005, bridge.getPauseTime().getTimeToSafepointTotal(), 1e-12);
+  }
+
+  public void testParse_KeepsDialectAcrossExtractors() throws Exception {
+    write(HEADER + safepointLine(250000, 1000000));
+    parse();
+
+    // The legacy line is not a pause line of the unified dialect detected by the first pass.
+    append(pauseLine(0.5));
+    new Extractor(bridge, false, new LocalFileFactory()).parse(log.getPath());
+
+    assertEquals(1, bridge.getPauseTime().getPauseDurations().size());
+  }
+
+  public void testParse_DetectsDialectOfReplacedLog() throws Exception {
+    write(HEADER + safepointLine(250000, 1000000));
+    parse();
+
+    write("A different subject incarnation\n" + pauseLine(0.5));
+    new Extractor(bridge, false, new LocalFileFactory()).parse(log.getPath());
+
+    assertEquals(2, bridge.getPauseTime().getPauseDurations().size());
+    assertEquals(0.501, bridge.getPauseTime().getPauseTimeTotal(), 1e-9);
+  }
+
+  public void testParse_KeepsCollectionEventAcrossExtractors() throws Exception {
+    write(HEADER + "[0.512s][info][gc,start] GC(3) Pause Young (Normal) (G1 Evacuation Pause)\n");
+    parse();
+
+    append("[0.515s][info][gc      ] GC(3) Pause Young (Normal) (G1 Evacuation Pause) "
+        + "24M->4M(256M) 3.456ms\n");
+    new Extractor(bridge, false, new LocalFileFactory()).parse(log.getPath());
+
+    assertEquals(1, bridge.getCurrentGcEvent().get().getId());
+    assertEquals(1, bridge.getCurrentGcEvent().get().getRecordCounter());
+
+    append("[0.900s][info][gc] GC(4) Pause Young (Normal) (G1 Evacuation Pause) "
+        + "28M->5M(256M) 2.5ms\n");
+    new Extractor(bridge, false, new LocalFileFactory()).parse(log.getPath());
+
+    assertEquals(2, bridge.getCurrentGcEvent().get().getRecordCounter());
+    assertEquals(2, bridge.getGcActivity().getYoungCollectionCount());
+  }
+
+  public void testParse_RecordsPauseTimestamps() throws Exception {
+    write(HEADER + pauseLine(0.5) + "[GC]\n"
+        + "2013-01-01T00:00:00.000+0000: 5.5: Total time for which application threads were "
+        + "stopped: 0.25 seconds\n"
+        + "[GC]\n"
+        + "2013-01-01T00:00:00.000+0000: Total time for which application threads were "
+        + "stopped: 0.25 seconds\n");
+    parse();
+
+    assertEquals(Doubles.asList(1.234, 5.5, Double.NaN),
+        Doubles.asList(bridge.getPauseTime().getPauseTimestamps().toArray()));
+  }
+
+  public void testParse_RecordsUptimeOfUnifiedLines() throws Exception {
+    write(HEADER + safepointLine(250000, 1000000)
+        + "[2013-01-01T00:00:00.000+0000][2500ms][info][safepoint] Total time for which "
+        + "application threads were stopped: 0.0012500 seconds\n");
+    parse();
+
+    assertEquals(Doubles.asList(12.345, 2.5),
+        Doubles.asList(bridge.getPauseTime().getPauseTimestamps().toArray()));
+  }
+
+  public void testParse_MemoryMappedModeMatchesStreamModeForUnifiedLogs() throws Exception {
+    final Random random = new Random(42);
+    final StringBuilder contents = new StringBuilder(HEADER);
+    for (int i = 0; i < 2000; i++) {
+      switch (random.nextInt(3)) {
+        case 0:
+          contents.append("[12.400s][info][gc] GC(3) Pause Young (Normal) 24M->4M(256M) 3.4ms\n");
+          break;
+        case 1:
+          final long total = random.nextInt(100000000);
+          contents.append(safepointLine(random.nextInt((int) total + 1), total));
+          break;
+        default:
+          contents.append(String.format(Locale.US, "[1.234s][info][safepoint] Total time for "
+              + "which application threads were stopped: %.7f seconds, Stopping threads took: "
+              + "%.7f seconds\n", random.nextDouble(), random.nextDouble()));
+          break;
+      }
+    }
+    write(contents.toString());
+
+    final SubjectStateBridge mappedBridge = new ExperimentDb().makeSubject();
+    new Extractor(mappedBridge, false, new LocalFileFactory(), ExtractorParserMode.MEMORY_MAPPED)
+        .parse(log.getPath());
+    parse();
+
+    assertEquals(Doubles.asList(bridge.getPauseTime().getPauseDurations().toArray()),
+        Doubles.asList(mappedBridge.getPauseTime().getPauseDurations().toArray()));
+    assertEquals(Doubles.asList(bridge.getPauseTime().getPauseTimestamps().toArray()),
+        Doubles.asList(mappedBridge.getPauseTime().getPauseTimestamps().toArray()));
+    assertEquals(bridge.getPauseTime().getTimeToSafepointTotal(),
+        mappedBridge.getPauseTime().getTimeToSafepointTotal(), 1e-9);
+  }
+}
@@ -0,0 +1,183 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.GcActivity;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.proto.ExperimentDbProtos;
+
+/**
+ * Tests for {@link GcLogParser}.
+ */
+public class GcLogParserTest extends TestCase {
+  private SubjectStateBridge bridge;
+  private GcLogParser parser;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    bridge = new ExperimentDb().makeSubject();
+    parser = new GcLogParser(bridge);
+  }
+
+  private ExperimentDbProtos.Gc currentEvent() {
+    assertTrue(bridge.getCurrentGcEvent().isPresent());
+    return bridge.getCurrentGcEvent().get();
+  }
+
+  public void testParse_YoungCollectionRecordsSizesAndPromotion() {
+    assertTrue(parser.parse("1.234: [GC 1.234: [ParNew: 19136K->2112K(19136K), 0.0123 secs] "
+        + "30000K->15000K(63360K), 0.0124 secs] [Times: user=0.03 sys=0.00, real=0.01 secs]"));
+
+    final ExperimentDbProtos.Gc event = currentEvent();
+    assertTrue(event.getPartial());
+    assertFalse(event.getFull());
+    assertEquals(30000, event.getStartSize());
+    assertEquals(15000, event.getEndSize());
+    assertEquals(1.234, event.getRelativeTimestamp(), 1e-9);
+    assertEquals(19136, event.getParNew().getSurvivorStartSize());
+    assertEquals(2112, event.getParNew().getSurvivorEndSize());
+    assertEquals(0.0123, event.getParNew().getParNewTime(), 1e-9);
+    assertEquals(0.01, event.getSystemTimes().getWallTime(), 1e-9);
+    assertEquals(0.03, event.getSystemTimes().getCpuTime(), 1e-9);
+
+    final GcActivity activity = bridge.getGcActivity();
+    assertEquals(1, activity.getYoungCollectionCount());
+    assertEquals(0, activity.getFullCollectionCount());
+    // The young generation freed 17024K of which the heap only freed 15000K.
+    assertEquals(2024, activity.getPromotedKilobytes());
+  }
+
+  public void testParse_PromotionRateSpansEvents() {
+    parser.parse("1.0: [GC 1.0: [ParNew: 2000K->1000K(4000K), 0.01 secs] "
+        + "5000K->4500K(9000K), 0.01 secs]");
+    parser.parse("3.0: [GC 3.0: [ParNew: 2000K->1000K(4000K), 0.01 secs] "
+        + "5000K->4500K(9000K), 0.01 secs]");
+
+    final GcActivity activity = bridge.getGcActivity();
+    assertEquals(2, activity.getYoungCollectionCount());
+    assertEquals(1000, activity.getPromotedKilobytes());
+    assertEquals(500.0, activity.getPromotionRate(), 1e-9);
+  }
+
+  public void testParse_ConcurrentModeFailureIsFullCollection() {
+    parser.parse("4.000: [GC 4.000: [ParNew: 19136K->19136K(19136K), 0.0000 secs]4.000: "
+        + "[CMS (concurrent mode failure): 40000K->35000K(40960K), 0.9 secs] "
+        + "60000K->35000K(60096K), [CMS Perm : 2000K->2000K(21248K)], 0.95 secs]");
+
+    final ExperimentDbProtos.ConcurrentModeFailure failure =
+        currentEvent().getConcurrentModeFailure();
+    assertEquals(40000, failure.getCmsStartSize());
+    assertEquals(35000, failure.getCmsEndSize());
+    assertEquals(40960, failure.getCmsGenSize());
+    assertEquals(0.9, failure.getCmsTime(), 1e-9);
+    assertEquals(60000, failure.getTenuredStartSize());
+    assertEquals(21248, failure.getPermSize());
+
+    final GcActivity activity = bridge.getGcActivity();
+    assertEquals(1, activity.getConcurrentModeFailureCount());
+    assertEquals(1, activity.getFullCollectionCount());
+    assertEquals(0, activity.getYoungCollectionCount());
+  }
+
+  public void testParse_PromotionFailure() {
+    parser.parse("3.000: [GC 3.000: [ParNew (promotion failed): 19136K->19136K(19136K), "
+        + "0.0470 secs]3.047: [CMS: 40000K->35000K(40960K), 0.9 secs] 60000K->35000K(60096K), "
+        + "[CMS Perm : 2000K->2000K(21248K)], 0.95 secs]");
+
+    assertTrue(currentEvent().getParNew().getPromotionFailed());
+    assertEquals(1, bridge.getGcActivity().getPromotionFailureCount());
+    assertEquals(1, bridge.getGcActivity().getFullCollectionCount());
+  }
+
+  public void testParse_CmsPhases() {
+    parser.parse("6.000: [GC [1 CMS-initial-mark: 12345K(40960K)] 20000K(60096K), 0.0012 secs]");
+    assertEquals(40960, currentEvent().getCmsInitialMark().getTenuredMaxSize());
+    assertEquals(12345, currentEvent().getCmsInitialMark().getTriggeredAtOccupancySize());
+
+    parser.parse("6.010: [CMS-concurrent-mark-start]");
+    assertTrue(currentEvent().getCmsConcurrentMarkStart());
+
+    parser.parse("6.100: [CMS-concurrent-mark: 0.080/0.090 secs]");
+    assertEquals(0.08, currentEvent().getCmsConcurrentMark().getCpuTime(), 1e-9);
+    assertEquals(0.09, currentEvent().getCmsConcurrentMark().getWallTime(), 1e-9);
+    // Each phase is a record of its own.
+    assertEquals(3, currentEvent().getRecordCounter());
+    assertEquals(6.1, currentEvent().getRelativeTimestamp(), 1e-9);
+
+    parser.parse("6.2: [GC[YG occupancy: 1000 K (19136 K)]6.2: [Rescan (parallel) , 0.0100 secs]"
+        + "6.21: [weak refs processing, 0.0001 secs] [1 CMS-remark: 12345K(40960K)] "
+        + "20000K(60096K), 0.0200 secs]");
+    final ExperimentDbProtos.Gc remark = currentEvent();
+    assertEquals(1000, remark.getYgOccupancy().getCurrentOccupancy());
+    assertEquals(19136, remark.getYgOccupancy().getTotalSize());
+    assertEquals(0.01, remark.getRescanParallel().getTime(), 1e-9);
+    assertEquals(6.21, remark.getWeakRefsProcessing().getTimestamp(), 1e-9);
+    assertEquals(12345, remark.getCmsRemark().getStartSize());
+    assertEquals(40960, remark.getCmsRemark().getTotalSize());
+
+    final GcActivity activity = bridge.getGcActivity();
+    assertEquals(0, activity.getYoungCollectionCount());
+    assertEquals(0, activity.getFullCollectionCount());
+  }
+
+  public void testParse_ConcurrentModeFailureCutsConcurrentPhaseShort() {
+    parser.parse("7.000: [CMS-concurrent-sweep: 0.500/0.600 secs] (concurrent mode failure): "
+        + "40000K->35000K(40960K), 0.9 secs] 60000K->35000K(60096K), "
+        + "[CMS Perm : 2000K->2000K(21248K)], 0.95 secs]");
+
+    final ExperimentDbProtos.Gc event = currentEvent();
+    assertEquals(0.6, event.getCmsConcurrentSweep().getWallTime(), 1e-9);
+    assertEquals(40000, event.getConcurrentModeFailure().getCmsStartSize());
+    assertTrue(event.getFull());
+    assertEquals(60000, event.getStartSize());
+    assertEquals(35000, event.getEndSize());
+    assertEquals(7.0, event.getRelativeTimestamp(), 1e-9);
+    assertEquals(1, bridge.getGcActivity().getFullCollectionCount());
+  }
+
+  public void testParse_UnifiedLogging() {
+    parser.parse("[0.512s][info][gc,start] GC(3) Pause Young (Normal) (G1 Evacuation Pause)");
+    parser.parse("[0.515s][info][gc      ] GC(3) Pause Young (Normal) (G1 Evacuation Pause) "
+        + "24M->4M(256M) 3.456ms");
+    parser.parse("[0.515s][info][gc,cpu  ] GC(3) User=0.01s Sys=0.00s Real=0.00s");
+
+    final ExperimentDbProtos.Gc young = currentEvent();
+    assertTrue(young.getPartial());
+    assertEquals(24 * 1024, young.getStartSize());
+    assertEquals(4 * 1024, young.getEndSize());
+    assertEquals(0.515, young.getRelativeTimestamp(), 1e-9);
+    assertEquals(0.01, young.getSystemTimes().getCpuTime(), 1e-9);
+
+    parser.parse("[2.0s][info][gc] GC(5) Pause Full (System.gc()) 20M->10M(256M) 30.1ms");
+    assertTrue(currentEvent().getFull());
+
+    final GcActivity activity = bridge.getGcActivity();
+    assertEquals(1, activity.getYoungCollectionCount());
+    assertEquals(1, activity.getFullCollectionCount());
+  }
+
+  public void testParse_IgnoresOtherLines() {
+    assertFalse(parser.parse(
+        "1.000: Total time for which application threads were stopped: 0.0012500 seconds"));
+    assertFalse(parser.parse("Heap after GC invocations=1 (full 0):"));
+    assertFalse(parser.parse(""));
+    assertFalse(bridge.getCurrentGcEvent().isPresent());
+  }
+}
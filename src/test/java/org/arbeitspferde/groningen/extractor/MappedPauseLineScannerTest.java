@@ -0,0 +1,72 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.extractor;
+
+import com.google.common.base.Charsets;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Tests for {@link MappedPauseLineScanner}.
+ */
+public class MappedPauseLineScannerTest extends TestCase {
+  private static double parse(final String token) {
+    final byte[] bytes = token.getBytes(Charsets.US_ASCII);
+    return MappedPauseLineScanner.parseSeconds(ByteBuffer.wrap(bytes), 0, bytes.length);
+  }
+
+  private static void assertParsesLikeDoubleValueOf(final String token) {
+    assertEquals(token, Double.doubleToLongBits(Double.valueOf(token)),
+        Double.doubleToLongBits(parse(token)));
+  }
+
+  public void testParseSeconds_PlainDecimals() {
+    assertParsesLikeDoubleValueOf("0.0001234");
+    assertParsesLikeDoubleValueOf("12.5");
+    assertParsesLikeDoubleValueOf("-0.0");
+    assertParsesLikeDoubleValueOf("7");
+    assertParsesLikeDoubleValueOf("1.");
+    assertParsesLikeDoubleValueOf(".5");
+  }
+
+  public void testParseSeconds_ExponentsAndUnusualNotation() {
+    assertParsesLikeDoubleValueOf("1.5e-3");
+    assertParsesLikeDoubleValueOf("1.5E+30");
+    assertParsesLikeDoubleValueOf("123456789012345678901234567890");
+    assertParsesLikeDoubleValueOf("0.5d");
+    assertParsesLikeDoubleValueOf("Infinity");
+  }
+
+  public void testParseSeconds_DefaultsToZeroOnGarbage() {
+    assertEquals(0.0, parse(""), 0.0);
+    assertEquals(0.0, parse("stopped:"), 0.0);
+    assertEquals(0.0, parse("1.2.3"), 0.0);
+  }
+
+  public void testParseSeconds_MatchesDoubleValueOfForRandomInput() {
+    final Random random = new Random(7);
+    for (int i = 0; i < 10000; i++) {
+      assertParsesLikeDoubleValueOf(
+          String.format(Locale.US, "%." + random.nextInt(18) + "f", random.nextDouble() * 100));
+      assertParsesLikeDoubleValueOf(
+          Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.config.GenericSearchSpaceBundle.GenericSearchSpaceEntry;
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagConstraint;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link ConstraintRepair}.
+ */
+public class ConstraintRepairTest extends TestCase {
+  private GenomeCodec codec;
+  private ConstraintRepair repair;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    codec = new GenomeCodec(
+        ImmutableList.of(JvmFlag.USE_SERIAL_GC, JvmFlag.USE_CONC_MARK_SWEEP_GC),
+        ImmutableList.of(JvmFlag.HEAP_SIZE, JvmFlag.NEW_SIZE, JvmFlag.MAX_NEW_SIZE,
+            JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE));
+    final GeneSpace space = new GeneSpace(2, ImmutableList.<SearchSpaceEntry>of(
+        new GenericSearchSpaceEntry(JvmFlag.HEAP_SIZE, 512, 8192, 512),
+        new GenericSearchSpaceEntry(JvmFlag.NEW_SIZE, 512, 8192, 256),
+        new GenericSearchSpaceEntry(JvmFlag.MAX_NEW_SIZE, 512, 8192, 256),
+        new GenericSearchSpaceEntry(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE_MIN, 0, 100, 10),
+        new GenericSearchSpaceEntry(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, 0, 100, 10)));
+    repair = new ConstraintRepair(space, codec);
+  }
+
+  public void testConsistentIndividualIsKept() {
+    final Genome individual = Genome.of(0, 4096, 512, 1024, 50, 10);
+    assertSame(individual, repair.repair(individual));
+  }
+
+  public void testLowersLesserFlagsToSteps() {
+    final Genome repaired = repair.repair(Genome.of(0, 2048, 4096, 3072, 0, 0));
+    assertEquals(2048, repaired.get(1));
+    assertEquals(1792, repaired.get(2));
+    assertEquals(1792, repaired.get(3));
+    assertConsistent(repaired);
+  }
+
+  public void testRaisesGreaterFlagWhenLesserCannotFit() {
+    final Genome repaired = repair.repair(Genome.of(0, 512, 512, 1024, 0, 0));
+    assertEquals(1024, repaired.get(1));
+    assertEquals(512, repaired.get(2));
+    assertEquals(512, repaired.get(3));
+    assertConsistent(repaired);
+  }
+
+  public void testRepairsOnlyConstraintsOfTheGcMode() {
+    final Genome serial = Genome.of(0, 4096, 512, 1024, 50, 10);
+    assertSame(serial, repair.repair(serial));
+
+    final Genome repaired = repair.repair(Genome.of(1, 4096, 512, 1024, 50, 10));
+    assertEquals(10, repaired.get(4));
+    assertEquals(10, repaired.get(5));
+  }
+
+  public void testApplyRepairsEachCandidate() {
+    final Genome consistent = Genome.of(0, 4096, 512, 1024, 0, 0);
+    final List<Genome> repaired = repair.apply(
+        ImmutableList.of(consistent, Genome.of(0, 1024, 8192, 8192, 0, 0)), new Random(42));
+    assertSame(consistent, repaired.get(0));
+    assertConsistent(repaired.get(1));
+  }
+
+  private void assertConsistent(final Genome individual) {
+    assertTrue(JvmFlagConstraint.getViolations(codec.toJvmFlagSet(individual)).isEmpty());
+  }
+}
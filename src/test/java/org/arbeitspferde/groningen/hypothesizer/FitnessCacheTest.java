@@ -0,0 +1,55 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link FitnessCache}.
+ */
+public class FitnessCacheTest extends TestCase {
+  private FitnessCache cache;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    cache = new FitnessCache();
+  }
+
+  public void testEmpty() {
+    assertEquals(0, cache.size());
+    assertFalse(cache.contains(42L));
+    assertEquals(0, cache.getSampleCount(42L));
+    try {
+      cache.getMeanFitness(42L);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expectedSoIgnore) {}
+  }
+
+  public void testAveragesRepeatedMeasurements() {
+    cache.record(42L, 10.0);
+    cache.record(7L, 1.0);
+    cache.record(42L, 20.0);
+    cache.record(42L, 30.0);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(42L));
+    assertEquals(3, cache.getSampleCount(42L));
+    assertEquals(20.0, cache.getMeanFitness(42L), 1e-9);
+    assertEquals(1, cache.getSampleCount(7L));
+    assertEquals(1.0, cache.getMeanFitness(7L), 1e-9);
+  }
+}
@@ -0,0 +1,139 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.config.GenericSearchSpaceBundle.GenericSearchSpaceEntry;
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link GaussianMutation} and {@link SimulatedBinaryCrossover}.
+ */
+public class GenomeOperatorsTest extends TestCase {
+  private static final int CMS = 0;
+  private static final int PARALLEL = 1;
+
+  private GenomeCodec codec;
+  private GeneSpace space;
+  private Random rng;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    // A heap size stepped by 64 between 1024 and 65536, and a flag of each collector.
+    codec = new GenomeCodec(
+        ImmutableList.of(JvmFlag.USE_CONC_MARK_SWEEP_GC, JvmFlag.USE_PARALLEL_GC),
+        ImmutableList.of(JvmFlag.HEAP_SIZE, JvmFlag.CMS_EXP_AVG_FACTOR, JvmFlag.GC_TIME_RATIO));
+    space = new GeneSpace(2, ImmutableList.<SearchSpaceEntry>of(
+        new GenericSearchSpaceEntry(JvmFlag.HEAP_SIZE, 1024, 65536, 64),
+        new GenericSearchSpaceEntry(JvmFlag.CMS_EXP_AVG_FACTOR, 0, 100, 1),
+        new GenericSearchSpaceEntry(JvmFlag.GC_TIME_RATIO, 0, 1000, 1)));
+    rng = new Random(42);
+  }
+
+  public void testMutationMovesByStepsNearby() {
+    final GaussianMutation mutation = new GaussianMutation(space, Probability.ONE, 0.01);
+    final Genome parent = Genome.of(CMS, 32768, 50, 500);
+    for (int i = 0; i < 1000; i++) {
+      final Genome offspring = mutation.apply(ImmutableList.of(parent), rng).get(0);
+      final long heapSize = offspring.get(1);
+      assertEquals(0, (heapSize - 1024) % 64);
+      assertTrue(heapSize != parent.get(1));
+      // A deviation of a hundredth of the range keeps moves well within a tenth of it.
+      assertTrue(Math.abs(heapSize - parent.get(1)) < 6451);
+      assertTrue(offspring.get(2) >= 0 && offspring.get(2) <= 100);
+    }
+  }
+
+  public void testMutationCreepsAtBounds() {
+    final GaussianMutation mutation =
+        new GaussianMutation(space, Probability.ONE, GaussianMutation.MIN_SIGMA);
+    final Genome parent = Genome.of(CMS, 65536, 0, 1000);
+    for (int i = 0; i < 100; i++) {
+      final Genome offspring = mutation.apply(ImmutableList.of(parent), rng).get(0);
+      assertTrue(offspring.get(1) < 65536);
+      assertTrue(offspring.get(2) > 0);
+      assertTrue(offspring.get(3) < 1000);
+    }
+  }
+
+  public void testMutationAdaptsDeviation() {
+    final GaussianMutation mutation = new GaussianMutation(space, Probability.ONE, 0.1);
+    mutation.populationUpdate(null, ImmutableList.<EvaluatedCandidate<Genome>>of());
+    assertEquals(0.1, mutation.getSigma(), 1e-9);
+
+    // No individual beats the best of the generation before, so the search narrows.
+    final List<EvaluatedCandidate<Genome>> stagnant = evaluate(1.0, 1.0, 1.0);
+    mutation.populationUpdate(EvolutionUtils.getPopulationData(stagnant, true, 0, 0, 0), stagnant);
+    mutation.populationUpdate(EvolutionUtils.getPopulationData(stagnant, true, 0, 1, 0), stagnant);
+    assertTrue(mutation.getSigma() < 0.1);
+
+    // Most individuals improve, so the search widens again.
+    final double narrowed = mutation.getSigma();
+    final List<EvaluatedCandidate<Genome>> improving = evaluate(3.0, 2.0, 2.0);
+    mutation.populationUpdate(
+        EvolutionUtils.getPopulationData(improving, true, 0, 2, 0), improving);
+    assertTrue(mutation.getSigma() > narrowed);
+  }
+
+  public void testCrossoverBlendsSharedFlagsWithinSteps() {
+    final SimulatedBinaryCrossover crossover = new SimulatedBinaryCrossover(space, codec, 2);
+    final Genome parent1 = Genome.of(CMS, 8192, 10, 100);
+    final Genome parent2 = Genome.of(CMS, 16384, 90, 900);
+    boolean blended = false;
+    for (int i = 0; i < 100; i++) {
+      for (final Genome offspring : crossover.mate(parent1, parent2, 1, rng)) {
+        assertEquals(CMS, offspring.getGcModeIndex());
+        assertEquals(0, (offspring.get(1) - 1024) % 64);
+        assertTrue(offspring.get(1) >= 1024 && offspring.get(1) <= 65536);
+        blended |= offspring.get(1) != 8192 && offspring.get(1) != 16384;
+      }
+    }
+    assertTrue(blended);
+  }
+
+  public void testCrossoverKeepsFlagsWithTheirGcMode() {
+    final SimulatedBinaryCrossover crossover = new SimulatedBinaryCrossover(space, codec, 2);
+    final Genome cms = Genome.of(CMS, 8192, 10, 100);
+    final Genome parallel = Genome.of(PARALLEL, 16384, 90, 900);
+    for (int i = 0; i < 100; i++) {
+      for (final Genome offspring : crossover.mate(cms, parallel, 1, rng)) {
+        final Genome sameMode = offspring.getGcModeIndex() == CMS ? cms : parallel;
+        assertEquals(sameMode.get(2), offspring.get(2));
+        assertEquals(sameMode.get(3), offspring.get(3));
+      }
+    }
+  }
+
+  private static List<EvaluatedCandidate<Genome>> evaluate(double... fitnesses) {
+    final ImmutableList.Builder<EvaluatedCandidate<Genome>> population = ImmutableList.builder();
+    for (int i = 0; i < fitnesses.length; i++) {
+      population.add(new EvaluatedCandidate<>(Genome.of(CMS, 1024 + 64 * i, 0, 0), fitnesses[i]));
+    }
+    return population.build();
+  }
+}
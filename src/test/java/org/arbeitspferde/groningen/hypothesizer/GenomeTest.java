@@ -0,0 +1,106 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.config.GenericSearchSpaceBundle.GenericSearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link Genome}, {@link GenomeCodec} and {@link GenomeCrossover}.
+ */
+public class GenomeTest extends TestCase {
+  private static final long FOUR_GIGABYTES = 4L * 1024 * 1024 * 1024;
+
+  public void testValueSemantics() {
+    final long[] genes = {1, 2, FOUR_GIGABYTES};
+    final Genome genome = Genome.of(genes);
+    genes[2] = 0;
+
+    assertEquals(3, genome.size());
+    assertEquals(1, genome.getGcModeIndex());
+    assertEquals(FOUR_GIGABYTES, genome.get(2));
+    assertEquals(Genome.of(1, 2, FOUR_GIGABYTES), genome);
+    assertEquals(Genome.of(1, 2, FOUR_GIGABYTES).hashCode(), genome.hashCode());
+    assertEquals("[1, 2, " + FOUR_GIGABYTES + "]", genome.toString());
+
+    final Genome changed = genome.with(1, 3);
+    assertEquals(2, genome.get(1));
+    assertEquals(3, changed.get(1));
+    assertFalse(genome.equals(changed));
+
+    genome.toArray()[0] = 0;
+    assertEquals(1, genome.getGcModeIndex());
+  }
+
+  public void testCodecRoundTrip() {
+    final GenomeCodec codec = new GenomeCodec(
+        ImmutableList.of(JvmFlag.USE_PARALLEL_GC, JvmFlag.USE_SERIAL_GC),
+        ImmutableList.of(JvmFlag.HEAP_SIZE, JvmFlag.NEW_RATIO));
+    assertEquals(3, codec.size());
+    assertEquals(JvmFlag.NEW_RATIO, codec.getArgument(2));
+
+    final JvmFlagSet flags = codec.toJvmFlagSet(Genome.of(1, 2048, 3));
+    assertEquals(1L, flags.getValue(JvmFlag.USE_SERIAL_GC));
+    assertEquals(0L, flags.getValue(JvmFlag.USE_PARALLEL_GC));
+    assertEquals(2048L, flags.getValue(JvmFlag.HEAP_SIZE));
+    assertEquals(3L, flags.getValue(JvmFlag.NEW_RATIO));
+  }
+
+  public void testCrossoverSwapsPrefixes() {
+    final GenomeCrossover crossover = new GenomeCrossover(1);
+    final Random rng = new Random(42);
+    final Genome parent1 = Genome.of(0, 0, 0, 0, 0);
+    final Genome parent2 = Genome.of(1, 1, 1, 1, 1);
+    for (int i = 0; i < 100; i++) {
+      final List<Genome> offspring = crossover.mate(parent1, parent2, 1, rng);
+      assertEquals(2, offspring.size());
+      long sum = 0;
+      for (int j = 0; j < parent1.size(); j++) {
+        // Each gene comes from one parent and its counterpart goes to the other offspring.
+        assertEquals(1, offspring.get(0).get(j) + offspring.get(1).get(j));
+        sum += offspring.get(0).get(j);
+      }
+      // A single point swaps a non-empty prefix that leaves the last gene in place.
+      assertEquals(1, offspring.get(0).get(0));
+      assertEquals(0, offspring.get(0).get(4));
+      assertTrue(sum >= 1 && sum <= 4);
+    }
+    assertEquals(Genome.of(0, 0, 0, 0, 0), parent1);
+  }
+
+  public void testRandomNumberBeyondIntegerRange() {
+    final GenericSearchSpaceEntry entry =
+        new GenericSearchSpaceEntry(JvmFlag.HEAP_SIZE, FOUR_GIGABYTES, 2 * FOUR_GIGABYTES, 1024);
+    final Random rng = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      final long value = Hypothesizer.generateRandomNumber(entry, rng);
+      assertTrue(value >= FOUR_GIGABYTES && value <= 2 * FOUR_GIGABYTES);
+      assertEquals(0, (value - FOUR_GIGABYTES) % 1024);
+    }
+    for (int i = 0; i < 1000; i++) {
+      final long value = Hypothesizer.nextLong(rng, 3 * FOUR_GIGABYTES);
+      assertTrue(value >= 0 && value < 3 * FOUR_GIGABYTES);
+    }
+  }
+}
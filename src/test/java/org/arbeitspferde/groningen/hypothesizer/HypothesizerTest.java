@@ -16,6 +16,7 @@
 package org.arbeitspferde.groningen.hypothesizer;
 
 
+import org.arbeitspferde.groningen.PipelineId;
 import org.arbeitspferde.groningen.common.ClockedExperimentDbTestCaseBase;
 import org.arbeitspferde.groningen.config.ConfigManager;
 import org.arbeitspferde.groningen.config.GroningenConfig;
@@ -47,7 +48,8 @@ public class HypothesizerTest extends ClockedExperimentDbTestCaseBase {
     experimentDb = mocksControl.createMock(ExperimentDb.class);
     metricExporter = mocksControl.createMock(MetricExporter.class);
 
-    hypothesizer = new Hypothesizer(clock, monitor, experimentDb, metricExporter);
+    hypothesizer = new Hypothesizer(clock, monitor, experimentDb, metricExporter,
+        historyDataStoreMock, new PipelineId("pipeline_id"));
   }
 
   /**
@@ -0,0 +1,161 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+
+import java.util.List;
+
+/**
+ * Tests for {@link IslandHypothesisEngine}.
+ */
+public class IslandHypothesisEngineTest extends TestCase {
+  private StubEngine island1;
+  private StubEngine island2;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    // The fitness of each individual is its value, and each island keeps its fittest one.
+    island1 = new StubEngine(ImmutableList.of(1, 2), ImmutableList.of(10));
+    island2 = new StubEngine(ImmutableList.of(3, 4, 5), ImmutableList.of(20, 21));
+  }
+
+  public void testSplitsPopulationAmongIslands() {
+    final IslandHypothesisEngine<Integer> engine = new IslandHypothesisEngine<>(
+        ImmutableList.of(island1, island2), ImmutableList.of(2, 3), true, 0, 1);
+
+    assertEquals(ImmutableList.of(1, 2, 3, 4, 5), engine.performFirstStep());
+    assertEquals(ImmutableList.of(2, 10, 5, 20, 21),
+        engine.performNextStep(ImmutableList.of(1, 2, 3, 4, 5)));
+    assertEquals(ImmutableList.of(1, 2), island1.lastPopulation);
+    assertEquals(ImmutableList.of(3, 4, 5), island2.lastPopulation);
+  }
+
+  public void testMigratesFittestToNextIsland() {
+    final IslandHypothesisEngine<Integer> engine = new IslandHypothesisEngine<>(
+        ImmutableList.of(island1, island2), ImmutableList.of(2, 3), true, 2, 1);
+    engine.performFirstStep();
+
+    // No migration before the interval has elapsed.
+    assertEquals(ImmutableList.of(2, 10, 5, 20, 21),
+        engine.performNextStep(ImmutableList.of(1, 2, 3, 4, 5)));
+
+    // The fittest of each island replaces the last unevaluated individual of the next one, while
+    // the elite of each island is kept.
+    assertEquals(ImmutableList.of(2, 5, 5, 20, 2),
+        engine.performNextStep(ImmutableList.of(1, 2, 3, 4, 5)));
+  }
+
+  public void testObserversSeeWholePopulation() {
+    final IslandHypothesisEngine<Integer> engine = new IslandHypothesisEngine<>(
+        ImmutableList.of(island1, island2), ImmutableList.of(2, 3), true, 0, 1);
+    final List<PopulationData<Integer>> updates = Lists.newArrayList();
+    engine.addEvolutionObserver(new EvolutionObserver<Integer>() {
+      @Override
+      public void populationUpdate(PopulationData<Integer> data,
+          List<EvaluatedCandidate<Integer>> population) {
+        updates.add(data);
+        assertEquals(5, population.size());
+      }
+    });
+
+    engine.performFirstStep();
+    engine.performNextStep(ImmutableList.of(1, 2, 3, 4, 5));
+    assertEquals(1, updates.size());
+    assertEquals(5, updates.get(0).getBestCandidate().intValue());
+    assertEquals(3.0, updates.get(0).getMeanFitness(), 1e-9);
+  }
+
+  public void testTerminatesWholePopulation() {
+    final IslandHypothesisEngine<Integer> engine = new IslandHypothesisEngine<>(
+        ImmutableList.of(island1, island2), ImmutableList.of(2, 3), true, 1, 1,
+        new TerminationCondition() {
+          @Override
+          public boolean shouldTerminate(PopulationData<?> populationData) {
+            return populationData.getBestCandidateFitness() >= 5;
+          }
+        });
+
+    engine.performFirstStep();
+    final List<Integer> population = ImmutableList.of(1, 2, 3, 4, 5);
+    assertEquals(population, engine.performNextStep(population));
+    assertTrue(engine.isTerminated());
+    try {
+      engine.performNextStep(population);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  /**
+   * An engine whose individuals are their own fitness, which keeps the fittest individual of each
+   * population and adds the same offspring every time.
+   */
+  private static class StubEngine implements HypothesisEngine<Integer> {
+    private final List<Integer> initialPopulation;
+    private final List<Integer> offspring;
+    private final List<EvolutionObserver<Integer>> observers = Lists.newArrayList();
+    private List<Integer> lastPopulation;
+
+    StubEngine(List<Integer> initialPopulation, List<Integer> offspring) {
+      this.initialPopulation = initialPopulation;
+      this.offspring = offspring;
+    }
+
+    @Override
+    public List<Integer> performFirstStep() {
+      return initialPopulation;
+    }
+
+    @Override
+    public List<Integer> performNextStep(List<Integer> population) {
+      lastPopulation = population;
+      final List<EvaluatedCandidate<Integer>> evaluated = Lists.newArrayList();
+      for (final Integer individual : population) {
+        evaluated.add(new EvaluatedCandidate<>(individual, individual));
+      }
+      EvolutionUtils.sortEvaluatedPopulation(evaluated, true);
+      final PopulationData<Integer> data = EvolutionUtils.getPopulationData(evaluated, true, 0, 0, 0);
+      for (final EvolutionObserver<Integer> observer : observers) {
+        observer.populationUpdate(data, evaluated);
+      }
+
+      final List<Integer> next = Lists.newArrayList(evaluated.get(0).getCandidate());
+      next.addAll(offspring);
+      return next;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public void addEvolutionObserver(EvolutionObserver<Integer> observer) {
+      observers.add(observer);
+    }
+  }
+}
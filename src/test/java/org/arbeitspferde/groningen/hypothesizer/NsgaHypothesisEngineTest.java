@@ -0,0 +1,126 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.factories.AbstractCandidateFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link NsgaHypothesisEngine} and the {@link ParetoRanking} behind it.
+ */
+public class NsgaHypothesisEngineTest extends TestCase {
+  private static final int POPULATION_SIZE = 10;
+  private static final int MAX_GENE = 10;
+
+  public void testSortNonDominated() {
+    final List<double[]> objectives = ImmutableList.of(
+        new double[] {1, 1}, new double[] {2, 0}, new double[] {0, 2}, new double[] {0, 0},
+        new double[] {1, 0});
+    final List<List<Integer>> fronts = ParetoRanking.sortNonDominated(objectives);
+
+    assertEquals(3, fronts.size());
+    assertEquals(Sets.newHashSet(0, 1, 2), Sets.newHashSet(fronts.get(0)));
+    assertEquals(ImmutableList.of(4), fronts.get(1));
+    assertEquals(ImmutableList.of(3), fronts.get(2));
+    assertTrue(ParetoRanking.dominates(objectives.get(0), objectives.get(4)));
+    assertFalse(ParetoRanking.dominates(objectives.get(0), objectives.get(0)));
+    assertFalse(ParetoRanking.dominates(objectives.get(1), objectives.get(2)));
+  }
+
+  public void testCrowdingDistances() {
+    final List<double[]> objectives = ImmutableList.of(
+        new double[] {0, 4}, new double[] {1, 3}, new double[] {3, 1}, new double[] {4, 0});
+    final double[] distances =
+        ParetoRanking.crowdingDistances(objectives, ImmutableList.of(0, 1, 2, 3));
+
+    assertEquals(Double.POSITIVE_INFINITY, distances[0]);
+    assertEquals(Double.POSITIVE_INFINITY, distances[3]);
+    // Each neighbour pair spans three of the four units of both objectives.
+    assertEquals(1.5, distances[1], 1e-9);
+    assertEquals(1.5, distances[2], 1e-9);
+  }
+
+  public void testFindsParetoFront() {
+    // The first objective is the first gene, and the second objective grows with the second gene
+    // and shrinks with the first, such that the front is every first gene with the greatest second.
+    final NsgaHypothesisEngine<Genome> engine = new NsgaHypothesisEngine<>(
+        new AbstractCandidateFactory<Genome>() {
+          @Override
+          public Genome generateRandomCandidate(Random rng) {
+            return Genome.of(rng.nextInt(MAX_GENE + 1), rng.nextInt(MAX_GENE + 1));
+          }
+        },
+        new EvolutionaryOperator<Genome>() {
+          @Override
+          public List<Genome> apply(List<Genome> selectedCandidates, Random rng) {
+            final List<Genome> mutated = Lists.newArrayList();
+            for (final Genome candidate : selectedCandidates) {
+              mutated.add(candidate.with(rng.nextInt(2), rng.nextInt(MAX_GENE + 1)));
+            }
+            return mutated;
+          }
+        },
+        new MultiObjectiveEvaluator<Genome>() {
+          @Override
+          public double[] getObjectives(Genome candidate, List<? extends Genome> population) {
+            return new double[] {
+                candidate.get(0), (MAX_GENE - candidate.get(0)) * candidate.get(1)};
+          }
+
+          @Override
+          public double getFitness(Genome candidate, List<? extends Genome> population) {
+            final double[] objectives = getObjectives(candidate, population);
+            return objectives[0] + objectives[1];
+          }
+
+          @Override
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new Random(42), POPULATION_SIZE);
+
+    List<Genome> population = engine.performFirstStep();
+    for (int generation = 0; generation < 50; generation++) {
+      population = engine.performNextStep(population);
+      assertEquals(POPULATION_SIZE, population.size());
+    }
+
+    final List<ParetoSolution<Genome>> front = engine.getParetoFront();
+    final Set<Long> firstGenes = Sets.newHashSet();
+    for (final ParetoSolution<Genome> solution : front) {
+      for (final ParetoSolution<Genome> other : front) {
+        assertFalse(solution.dominates(other));
+      }
+      if (solution.getCandidate().get(0) < MAX_GENE) {
+        assertEquals(MAX_GENE, solution.getCandidate().get(1));
+      }
+      firstGenes.add(solution.getCandidate().get(0));
+    }
+    // Crowding keeps the front spread out rather than converging to one trade-off.
+    assertTrue(firstGenes.toString(), firstGenes.size() >= MAX_GENE / 2);
+  }
+}
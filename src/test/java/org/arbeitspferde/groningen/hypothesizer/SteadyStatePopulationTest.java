@@ -0,0 +1,106 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link SteadyStatePopulation}.
+ */
+public class SteadyStatePopulationTest extends TestCase {
+  /** Breeds the first parent unchanged, such that the selected parents can be observed */
+  private static final EvolutionaryOperator<Genome> FIRST_PARENT =
+      new EvolutionaryOperator<Genome>() {
+        @Override
+        public List<Genome> apply(List<Genome> selectedCandidates, Random rng) {
+          return ImmutableList.of(selectedCandidates.get(0));
+        }
+      };
+
+  public void testInsert_ReplacesLeastFitOnceFull() {
+    final SteadyStatePopulation population =
+        new SteadyStatePopulation(FIRST_PARENT, 2, new MersenneTwisterRNG());
+
+    assertTrue(population.insert(Genome.of(0, 1), 1.0));
+    assertTrue(population.insert(Genome.of(0, 2), 2.0));
+    assertFalse(population.insert(Genome.of(0, 3), 0.5));
+    assertEquals(2, population.size());
+
+    assertTrue(population.insert(Genome.of(0, 4), 4.0));
+    assertEquals(2, population.size());
+    assertEquals(Genome.of(0, 4), population.getFittest().getCandidate());
+
+    // Genome.of(0, 2) was the least fit left, and its fitness no longer makes the population.
+    assertTrue(population.insert(Genome.of(0, 5), 3.0));
+    assertFalse(population.insert(Genome.of(0, 2), 2.5));
+  }
+
+  public void testInsert_UpdatesFitnessOfMember() {
+    final SteadyStatePopulation population =
+        new SteadyStatePopulation(FIRST_PARENT, 2, new MersenneTwisterRNG());
+
+    population.insert(Genome.of(0, 1), 1.0);
+    population.insert(Genome.of(0, 2), 2.0);
+    assertTrue(population.insert(Genome.of(0, 1), 3.0));
+
+    assertEquals(2, population.size());
+    assertEquals(Genome.of(0, 1), population.getFittest().getCandidate());
+    assertEquals(3.0, population.getFittest().getFitness(), 1e-9);
+  }
+
+  public void testBreed_PrefersFitterParents() {
+    final SteadyStatePopulation population =
+        new SteadyStatePopulation(FIRST_PARENT, 4, new MersenneTwisterRNG());
+    population.insert(Genome.of(0, 1), 1.0);
+    population.insert(Genome.of(0, 2), 2.0);
+    population.insert(Genome.of(0, 3), 3.0);
+    population.insert(Genome.of(0, 4), 4.0);
+
+    int fittest = 0;
+    int leastFit = 0;
+    for (int i = 0; i < 1000; i++) {
+      final Genome offspring = population.breed();
+      if (offspring.equals(Genome.of(0, 4))) {
+        fittest++;
+      } else if (offspring.equals(Genome.of(0, 1))) {
+        leastFit++;
+      }
+    }
+    // Binary tournaments pick the fittest of four with probability 7/16, the least fit 1/16.
+    assertTrue(fittest > 350);
+    assertTrue(leastFit < 100);
+  }
+
+  public void testBreed_FailsWhenEmpty() {
+    final SteadyStatePopulation population =
+        new SteadyStatePopulation(FIRST_PARENT, 2, new MersenneTwisterRNG());
+    assertNull(population.getFittest());
+    try {
+      population.breed();
+      fail("Breeding from an empty population should fail.");
+    } catch (final IllegalStateException expected) {
+      // Expected.
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.config.GenericSearchSpaceBundle.GenericSearchSpaceEntry;
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.factories.AbstractCandidateFactory;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link SurrogateHypothesisEngine} and the {@link GaussianProcess} behind it.
+ */
+public class SurrogateHypothesisEngineTest extends TestCase {
+  private static final int POPULATION_SIZE = 6;
+  private static final int ELITE_COUNT = 1;
+
+  private GeneSpace space;
+  private Random rng;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    final List<SearchSpaceEntry> entries = ImmutableList.<SearchSpaceEntry>of(
+        new GenericSearchSpaceEntry(JvmFlag.CMS_EXP_AVG_FACTOR, 0, 100, 1),
+        new GenericSearchSpaceEntry(JvmFlag.CMS_INCREMENTAL_DUTY_CYCLE, 0, 100, 5));
+    space = new GeneSpace(2, entries);
+    rng = new Random(42);
+  }
+
+  public void testGaussianProcessInterpolatesObservations() {
+    final double[][] points = {{0.0}, {0.25}, {0.5}, {0.75}, {1.0}};
+    final double[] targets = new double[points.length];
+    for (int i = 0; i < points.length; i++) {
+      targets[i] = Math.sin(3 * points[i][0]);
+    }
+    final GaussianProcess model = new GaussianProcess();
+    model.fit(points, targets);
+
+    for (int i = 0; i < points.length; i++) {
+      assertEquals(targets[i], model.predictMean(points[i]), 0.1);
+    }
+    assertEquals(Math.sin(3 * 0.375), model.predictMean(new double[] {0.375}), 0.1);
+    assertTrue(model.predictDeviation(new double[] {0.5})
+        < model.predictDeviation(new double[] {3.0}));
+  }
+
+  public void testExpectedImprovement() {
+    assertEquals(0.0, GaussianProcess.expectedImprovement(1.0, 0.0, 2.0, 0.0), 1e-9);
+    assertEquals(1.0, GaussianProcess.expectedImprovement(3.0, 0.0, 2.0, 0.0), 1e-9);
+    // At the incumbent, the improvement is the deviation times the normal density at zero.
+    assertEquals(0.3989, GaussianProcess.expectedImprovement(2.0, 1.0, 2.0, 0.0), 1e-4);
+    assertTrue(GaussianProcess.expectedImprovement(2.0, 2.0, 2.0, 0.0)
+        > GaussianProcess.expectedImprovement(2.0, 1.0, 2.0, 0.0));
+    assertTrue(GaussianProcess.expectedImprovement(2.5, 1.0, 2.0, 0.0)
+        > GaussianProcess.expectedImprovement(2.0, 1.0, 2.0, 0.0));
+  }
+
+  public void testGeneSpaceStaysWithinSearchSpace() {
+    for (int i = 0; i < 1000; i++) {
+      final Genome individual = space.perturb(space.randomIndividual(rng), 0.5, rng);
+      assertTrue(individual.get(0) == 0 || individual.get(0) == 1);
+      assertTrue(individual.get(1) >= 0 && individual.get(1) <= 100);
+      assertTrue(individual.get(2) >= 0 && individual.get(2) <= 100);
+      assertEquals(0, individual.get(2) % 5);
+      for (final double coordinate : space.encode(individual)) {
+        assertTrue(coordinate >= 0.0 && coordinate <= 1.0);
+      }
+    }
+  }
+
+  public void testEngineFindsOptimum() {
+    final SurrogateHypothesisEngine engine = new SurrogateHypothesisEngine(
+        new AbstractCandidateFactory<Genome>() {
+          @Override
+          public Genome generateRandomCandidate(final Random rng) {
+            return space.randomIndividual(rng);
+          }
+        },
+        space, new Quadratic(), rng, POPULATION_SIZE, ELITE_COUNT);
+
+    List<Genome> population = engine.performFirstStep();
+    assertEquals(POPULATION_SIZE, population.size());
+    double best = Double.NEGATIVE_INFINITY;
+    for (int generation = 0; generation < 8; generation++) {
+      final List<Genome> next = engine.performNextStep(population);
+      assertEquals(POPULATION_SIZE, next.size());
+      assertEquals(POPULATION_SIZE, Sets.newHashSet(next).size());
+      population = next;
+      for (final Genome individual : population) {
+        best = Math.max(best, Quadratic.fitness(individual));
+      }
+    }
+    assertFalse(engine.isTerminated());
+    // A random search of as many individuals comes this close to the optimum of 1 about half the
+    // time.
+    assertTrue("Best fitness " + best, best > 0.99);
+  }
+
+  /** A fitness that peaks at 1 for the second GC mode, a factor of 70 and a duty cycle of 30 */
+  private static class Quadratic implements FitnessEvaluator<Genome> {
+    static double fitness(final Genome candidate) {
+      final double factor = (candidate.get(1) - 70) / 100.0;
+      final double cycle = (candidate.get(2) - 30) / 100.0;
+      return candidate.get(0) * 0.5 + 0.5 - factor * factor - cycle * cycle;
+    }
+
+    @Override
+    public double getFitness(final Genome candidate,
+        final List<? extends Genome> population) {
+      return fitness(candidate);
+    }
+
+    @Override
+    public boolean isNatural() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.hypothesizer;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import org.arbeitspferde.groningen.PipelineHistoryState;
+import org.arbeitspferde.groningen.PipelineId;
+import org.arbeitspferde.groningen.common.EvaluatedSubject;
+import org.arbeitspferde.groningen.config.GenericSearchSpaceBundle.GenericSearchSpaceEntry;
+import org.arbeitspferde.groningen.config.GroningenConfig;
+import org.arbeitspferde.groningen.config.ProtoBufConfig;
+import org.arbeitspferde.groningen.config.SearchSpaceBundle.SearchSpaceEntry;
+import org.arbeitspferde.groningen.experimentdb.ExperimentDb;
+import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlag;
+import org.arbeitspferde.groningen.experimentdb.jvmflags.JvmFlagSet;
+import org.arbeitspferde.groningen.historydatastore.MemoryHistoryDatastore;
+import org.arbeitspferde.groningen.proto.GroningenConfigProto.ProgramConfiguration;
+import org.arbeitspferde.groningen.proto.GroningenConfigProto.ProgramConfiguration.ClusterConfig;
+import org.arbeitspferde.groningen.proto.GroningenConfigProto.ProgramConfiguration.ClusterConfig.SubjectGroupConfig;
+import org.arbeitspferde.groningen.proto.Params.GroningenParams;
+import org.arbeitspferde.groningen.utility.PinnedClock;
+
+import org.joda.time.Instant;
+
+import java.util.List;
+
+/**
+ * Tests for {@link WarmStartSeeder}.
+ */
+public class WarmStartSeederTest extends TestCase {
+  private static final PipelineId CURRENT_PIPELINE = new PipelineId("current");
+
+  private MemoryHistoryDatastore historyDatastore;
+  private ExperimentDb experimentDb;
+  private GroningenConfig config;
+  private WarmStartSeeder seeder;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    historyDatastore = new MemoryHistoryDatastore();
+    experimentDb = new ExperimentDb();
+    config = new ProtoBufConfig(ProgramConfiguration.newBuilder()
+        .setParamBlock(GroningenParams.newBuilder().setInputLogName("stdin").build())
+        .setUser("tester")
+        .addCluster(ClusterConfig.newBuilder()
+            .setCluster("xx")
+            .addSubjectGroup(SubjectGroupConfig.newBuilder()
+                .setSubjectGroupName("server")
+                .setExpSettingsFilesDir("/some/path")
+                .build())
+            .build())
+        .build());
+
+    final GenomeCodec codec = new GenomeCodec(
+        ImmutableList.of(JvmFlag.USE_PARALLEL_GC, JvmFlag.USE_SERIAL_GC),
+        ImmutableList.of(JvmFlag.HEAP_SIZE));
+    final GeneSpace space = new GeneSpace(2, ImmutableList.<SearchSpaceEntry>of(
+        new GenericSearchSpaceEntry(JvmFlag.HEAP_SIZE, 1024, 4096, 512)));
+    seeder = new WarmStartSeeder(historyDatastore, CURRENT_PIPELINE, codec, space);
+  }
+
+  public void testEmptyHistoryHasNoSeeds() {
+    assertTrue(seeder.findSeeds(config, 3).isEmpty());
+  }
+
+  public void testSeedsSameSubjectGroupFirstThenByFitness() {
+    historyDatastore.writeState(state("earlier",
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 2048, 10.0),
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 3072, 30.0),
+        subject("yy", "server", JvmFlag.USE_PARALLEL_GC, 2048, 50.0),
+        subject("xx", "batch", JvmFlag.USE_SERIAL_GC, 1024, 90.0)));
+
+    final List<Genome> seeds = seeder.findSeeds(config, 5);
+    assertEquals(ImmutableList.of(
+        Genome.of(1, 3072), Genome.of(1, 2048), Genome.of(0, 2048)), seeds);
+    assertEquals(ImmutableList.of(Genome.of(1, 3072)), seeder.findSeeds(config, 1));
+  }
+
+  public void testSeedsAreDistinctAndWithinTheSearchSpace() {
+    historyDatastore.writeState(state("earlier",
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 8192, 10.0),
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 4000, 20.0),
+        subject("xx", "server", JvmFlag.USE_CONC_MARK_SWEEP_GC, 2048, 40.0)));
+
+    assertEquals(ImmutableList.of(Genome.of(1, 4096)), seeder.findSeeds(config, 5));
+  }
+
+  public void testIgnoresCurrentPipelineAndDefaultSubjects() {
+    final EvaluatedSubject defaultSubject =
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 1024, 90.0);
+    defaultSubject.setDefault(true);
+    historyDatastore.writeState(state("earlier", defaultSubject));
+    historyDatastore.writeState(state(CURRENT_PIPELINE.id(),
+        subject("xx", "server", JvmFlag.USE_SERIAL_GC, 2048, 10.0)));
+
+    assertTrue(seeder.findSeeds(config, 5).isEmpty());
+  }
+
+  private PipelineHistoryState state(final String pipelineId,
+      final EvaluatedSubject... subjects) {
+    return new PipelineHistoryState(
+        new PipelineId(pipelineId), config, Instant.now(), subjects, /* experimentId */ 42);
+  }
+
+  private EvaluatedSubject subject(final String clusterName, final String subjectGroupName,
+      final JvmFlag gcMode, final long heapSize, final double fitness) {
+    final SubjectStateBridge bridge = experimentDb.makeSubject();
+    bridge.storeCommandLine(JvmFlagSet.builder()
+        .withValue(gcMode, 1)
+        .withValue(JvmFlag.HEAP_SIZE, heapSize)
+        .build());
+    final EvaluatedSubject subject = new EvaluatedSubject(new PinnedClock(0), bridge, fitness);
+    subject.setClusterName(clusterName);
+    subject.setSubjectGroupName(subjectGroupName);
+    subject.setUserName("tester");
+    return subject;
+  }
+}
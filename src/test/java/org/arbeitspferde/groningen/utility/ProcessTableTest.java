@@ -0,0 +1,48 @@
+/* Copyright 2013 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.arbeitspferde.groningen.utility;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Test for {@link ProcessTable}.
+ */
+public class ProcessTableTest extends TestCase {
+
+  public void testLookupRunningProcess() {
+    ProcessTable table = new ProcessTable(1000);
+    Process.ProcessInfo info = table.lookup(Process.myProcessId());
+    assertNotNull(info);
+    assertEquals(Process.myProcessGroupId(), info.getProcessGroupId().intValue());
+    // The process is the same one, so it is not read again.
+    assertSame(info, table.lookup(Process.myProcessId()));
+  }
+
+  public void testLookupMissingProcess() {
+    ProcessTable table = new ProcessTable(1000);
+    assertNull(table.lookup(-1));
+  }
+
+  public void testProcessIdsOfThisGroup() {
+    ProcessTable table = new ProcessTable(0);
+    List<Integer> processIds = table.getProcessIdsOf(Process.myProcessGroupId());
+    assertTrue(processIds.contains(Process.myProcessId()));
+    assertEquals(processIds, table.getProcessIdsOf(Process.myProcessGroupId()));
+    assertTrue(table.getProcessIdsOf(-1).isEmpty());
+  }
+}
@@ -27,4 +27,31 @@ public class ProcessTest extends TestCase {
     assertTrue(Process.isAlive(Process.myProcessId()));
     assertTrue(Process.getProcessInfo(Process.myProcessId()).getCommandLine().length() > 0);
   }
+
+  public void testRunningProcessStartTime() {
+    Process.ProcessInfo info = Process.getProcessInfo(Process.myProcessId());
+    assertTrue(info.getStartTicks() > 0);
+    assertTrue(info.getStartTime() * 1000 <= System.currentTimeMillis());
+    assertSame(Process.lookupProcess(Process.myProcessId()),
+        Process.lookupProcess(Process.myProcessId()));
+  }
+
+  public void testParseStat() {
+    Process.Stat stat = Process.parseStat("4242 (java) S 1 4240 4240 0 -1 4194560 11 0 0 0 5 3 0 0 "
+        + "20 0 30 0 987654 4096 512 18446744073709551615 1 1 0 0 0 0 0 4096 17 3 0 0 0 0 0\n");
+    assertEquals(4240, stat.processGroupId);
+    assertEquals(987654, stat.startTicks);
+  }
+
+  public void testParseStat_CommandNameWithSpacesAndParentheses() {
+    Process.Stat stat = Process.parseStat("4242 (a (b) c) R 1 77 77 0 -1 0 0 0 0 0 0 0 0 0 "
+        + "20 0 1 0 123 4096 512 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 0 0 0");
+    assertEquals(77, stat.processGroupId);
+    assertEquals(123, stat.startTicks);
+  }
+
+  public void testParseStat_Truncated() {
+    assertNull(Process.parseStat("4242 (java) S 1 4240"));
+    assertNull(Process.parseStat("4242 java"));
+  }
 }
@@ -26,6 +26,7 @@ import org.arbeitspferde.groningen.experimentdb.PauseTime;
 import org.arbeitspferde.groningen.experimentdb.ResourceMetric;
 import org.arbeitspferde.groningen.experimentdb.SubjectRestart;
 import org.arbeitspferde.groningen.experimentdb.SubjectStateBridge;
+import org.arbeitspferde.groningen.extractor.ExtractionScheduler;
 import org.arbeitspferde.groningen.proto.GroningenConfigProto.ProgramConfiguration;
 import org.arbeitspferde.groningen.subject.Subject;
 
@@ -51,7 +52,8 @@ public class ValidatorTest extends ClockedExperimentDbTestCaseBase {
 
     mockGroningenConfig = EasyMock.createMock(GroningenConfig.class);
 
-    validator = new Validator(clock, monitor, experimentDb, mockGroningenConfig, metricExporter);
+    validator = new Validator(clock, monitor, experimentDb, mockGroningenConfig, metricExporter,
+        new ExtractionScheduler(metricExporter));
   }
 
   /**